@@ -0,0 +1,72 @@
+package com.santhan.banking_system.config;
+
+import com.santhan.banking_system.service.RateLimiter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Answers 429 for login, OTP and registration posts once the client IP (and, for login, the username) is out of
+ * tokens, before authentication, BCrypt or mail sending run. Runs in the security chain ahead of the login filter.
+ * Per-user limits that need the resolved user are checked in the services instead.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final Map<String, RateLimiter.Purpose> LIMITED_POSTS = Map.of(
+            "/login", RateLimiter.Purpose.LOGIN,
+            "/register", RateLimiter.Purpose.OTP_SEND,
+            "/resend-email-otp", RateLimiter.Purpose.OTP_SEND,
+            "/api/verify/resend-otp", RateLimiter.Purpose.OTP_SEND,
+            "/verify-email", RateLimiter.Purpose.OTP_VERIFY,
+            "/api/verify/email", RateLimiter.Purpose.OTP_VERIFY,
+            "/api/verify/mobile", RateLimiter.Purpose.OTP_VERIFY);
+
+    private final RateLimiter rateLimiter;
+
+    public RateLimitFilter(RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod()) || !LIMITED_POSTS.containsKey(request.getServletPath());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RateLimiter.Purpose purpose = LIMITED_POSTS.get(request.getServletPath());
+        long retryAfterMillis = rateLimiter.tryAcquire(purpose, RateLimiter.Scope.IP, request.getRemoteAddr());
+        if (retryAfterMillis == 0 && purpose == RateLimiter.Purpose.LOGIN) {
+            // Form login posts the username as a parameter; guards one account against many addresses
+            retryAfterMillis = rateLimiter.tryAcquire(purpose, RateLimiter.Scope.USER, request.getParameter("username"));
+        }
+        if (retryAfterMillis > 0) {
+            reject(request, response, retryAfterMillis);
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private static void reject(HttpServletRequest request, HttpServletResponse response, long retryAfterMillis) throws IOException {
+        long seconds = RateLimiter.LimitExceededException.toSeconds(retryAfterMillis);
+        String message = "Too many attempts. Please try again in " + seconds + " seconds.";
+        response.setStatus(429);
+        response.setHeader("Retry-After", Long.toString(seconds));
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        if (request.getServletPath().startsWith("/api/")) {
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("{\"success\":false,\"message\":\"" + message + "\"}");
+        } else {
+            response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+            response.getWriter().write(message);
+        }
+    }
+}
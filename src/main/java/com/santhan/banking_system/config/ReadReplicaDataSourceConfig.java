@@ -0,0 +1,66 @@
+package com.santhan.banking_system.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Primary/replica datasource wiring, enabled with {@code banking.datasource.replica.enabled=true}.
+ *
+ * The primary pool keeps using the standard spring.datasource.* and spring.datasource.hikari.* settings.
+ * The replica pool is configured under banking.datasource.replica.* (jdbc-url, username, password, maximum-pool-size, ...).
+ * JPA sees a single lazy proxy over the routing datasource, so the read-only flag of the surrounding
+ * transaction decides which pool serves the connection. When the property is absent, Spring Boot's
+ * single-pool auto-configuration applies unchanged.
+ */
+@Configuration
+@ConditionalOnProperty(name = "banking.datasource.replica.enabled", havingValue = "true")
+public class ReadReplicaDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary-pool");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("banking.datasource.replica")
+    public HikariDataSource replicaDataSource() {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("replica-pool");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(@Qualifier("replicaDataSource") HikariDataSource replica,
+                                               @Value("${banking.datasource.replica.lag-query:SHOW REPLICA STATUS}") String lagQuery,
+                                               @Value("${banking.datasource.replica.lag-column:Seconds_Behind_Source}") String lagColumn,
+                                               @Value("${banking.datasource.replica.max-lag-seconds:5}") long maxLagSeconds) {
+        return new ReplicaLagMonitor(replica, lagQuery, lagColumn, maxLagSeconds);
+    }
+
+    @Bean
+    public ReadWriteRoutingDataSource routingDataSource(@Qualifier("primaryDataSource") HikariDataSource primary,
+                                                        @Qualifier("replicaDataSource") HikariDataSource replica,
+                                                        ReplicaLagMonitor replicaLagMonitor) {
+        return new ReadWriteRoutingDataSource(primary, replica, replicaLagMonitor);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadWriteRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+}
@@ -0,0 +1,88 @@
+package com.santhan.banking_system.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends connections for {@code @Transactional(readOnly = true)} work to the replica pool and everything else
+ * (postings, fraud evaluation, non-transactional calls) to the primary pool.
+ *
+ * The routing decision is made when a connection is first needed, so this must sit behind a
+ * LazyConnectionDataSourceProxy; otherwise the connection is fetched before the read-only flag is known.
+ * When the ReplicaLagMonitor reports the replica as unhealthy or too far behind, read-only work falls back to the primary.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route { PRIMARY, REPLICA }
+
+    private final HikariDataSource primary;
+    private final HikariDataSource replica;
+    private final ReplicaLagMonitor lagMonitor;
+
+    // Per-route counters of handed-out connections; fallbacks are read-only requests sent to the primary
+    private final AtomicLong primaryRoutes = new AtomicLong();
+    private final AtomicLong replicaRoutes = new AtomicLong();
+    private final AtomicLong replicaFallbacks = new AtomicLong();
+
+    public ReadWriteRoutingDataSource(HikariDataSource primary, HikariDataSource replica, ReplicaLagMonitor lagMonitor) {
+        this.primary = primary;
+        this.replica = replica;
+        this.lagMonitor = lagMonitor;
+
+        Map<Object, Object> targets = new LinkedHashMap<>();
+        targets.put(Route.PRIMARY, primary);
+        targets.put(Route.REPLICA, replica);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            primaryRoutes.incrementAndGet();
+            return Route.PRIMARY;
+        }
+        if (!lagMonitor.isReplicaUsable()) {
+            replicaFallbacks.incrementAndGet();
+            primaryRoutes.incrementAndGet();
+            return Route.PRIMARY;
+        }
+        replicaRoutes.incrementAndGet();
+        return Route.REPLICA;
+    }
+
+    /**
+     * Snapshot of routing counters, replica health and Hikari pool gauges for both pools.
+     */
+    public Map<String, Object> getPoolMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("primaryRoutes", primaryRoutes.get());
+        metrics.put("replicaRoutes", replicaRoutes.get());
+        metrics.put("replicaFallbacks", replicaFallbacks.get());
+        metrics.put("replicaUsable", lagMonitor.isReplicaUsable());
+        metrics.put("replicaLagSeconds", lagMonitor.getLastLagSeconds());
+        metrics.put("primaryPool", poolGauges(primary));
+        metrics.put("replicaPool", poolGauges(replica));
+        return metrics;
+    }
+
+    private static Map<String, Object> poolGauges(HikariDataSource dataSource) {
+        Map<String, Object> gauges = new LinkedHashMap<>();
+        gauges.put("poolName", dataSource.getPoolName());
+        gauges.put("maximumPoolSize", dataSource.getMaximumPoolSize());
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean(); // null until the pool has started
+        if (pool != null) {
+            gauges.put("active", pool.getActiveConnections());
+            gauges.put("idle", pool.getIdleConnections());
+            gauges.put("total", pool.getTotalConnections());
+            gauges.put("threadsAwaitingConnection", pool.getThreadsAwaitingConnection());
+        }
+        return gauges;
+    }
+}
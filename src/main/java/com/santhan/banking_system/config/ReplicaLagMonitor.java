@@ -0,0 +1,78 @@
+package com.santhan.banking_system.config;
+
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Periodically measures how far the read replica is behind the primary and decides whether read-only
+ * transactions may use it.
+ *
+ * With the MySQL defaults the probe is {@code SHOW REPLICA STATUS}, reading {@code Seconds_Behind_Source}.
+ * An empty result means the target is not a replica (e.g. a second local H2/MySQL instance in tests) and counts
+ * as zero lag. A NULL lag (replication stopped) or a failed probe marks the replica unusable until the next
+ * successful check. An empty lag query disables the check and always trusts the replica.
+ */
+public class ReplicaLagMonitor {
+
+    private final DataSource replica;
+    private final String lagQuery;
+    private final String lagColumn;
+    private final long maxLagSeconds;
+
+    private volatile boolean replicaUsable = true;
+    private volatile long lastLagSeconds = 0;
+
+    public ReplicaLagMonitor(DataSource replica, String lagQuery, String lagColumn, long maxLagSeconds) {
+        this.replica = replica;
+        this.lagQuery = lagQuery;
+        this.lagColumn = lagColumn;
+        this.maxLagSeconds = maxLagSeconds;
+    }
+
+    public boolean isReplicaUsable() {
+        return replicaUsable;
+    }
+
+    public long getLastLagSeconds() {
+        return lastLagSeconds;
+    }
+
+    @Scheduled(fixedDelayString = "${banking.datasource.replica.lag-check-interval-ms:5000}")
+    public void checkLag() {
+        if (lagQuery == null || lagQuery.isBlank()) {
+            replicaUsable = true;
+            return;
+        }
+        try (Connection connection = replica.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(lagQuery)) {
+            if (!resultSet.next()) {
+                update(0, true);
+                return;
+            }
+            long lag = resultSet.getLong(lagColumn);
+            if (resultSet.wasNull()) {
+                update(-1, false);
+                System.err.println("WARNING: Replica reports no replication lag value; routing read-only work to primary.");
+                return;
+            }
+            update(lag, lag <= maxLagSeconds);
+        } catch (Exception e) {
+            update(-1, false);
+            System.err.println("WARNING: Replica lag check failed; routing read-only work to primary: " + e.getMessage());
+        }
+    }
+
+    private void update(long lagSeconds, boolean usable) {
+        boolean wasUsable = replicaUsable;
+        lastLagSeconds = lagSeconds;
+        replicaUsable = usable;
+        if (wasUsable != usable) {
+            System.out.println("INFO: Read replica is now " + (usable ? "in use" : "bypassed") + " (lag " + lagSeconds + "s, max " + maxLagSeconds + "s).");
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.santhan.banking_system.config;
 
+import com.santhan.banking_system.service.RateLimiter;
 import com.santhan.banking_system.service.UserService; // Keep import for clarity if still using any User-related types
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -16,6 +17,7 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.AuthenticationSuccessHandler;
 import org.springframework.security.web.authentication.SimpleUrlAuthenticationSuccessHandler;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
 @Configuration
 @EnableWebSecurity
@@ -49,9 +51,11 @@ public class SecurityConfig {
     }
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, RateLimiter rateLimiter) throws Exception {
         http
                 .csrf(AbstractHttpConfigurer::disable)
+                // 429 before the login filter runs BCrypt or a controller sends mail
+                .addFilterBefore(new RateLimitFilter(rateLimiter), UsernamePasswordAuthenticationFilter.class)
                 .authorizeHttpRequests(authorize -> authorize
                         // Allow public access to registration, login, verification, AND account creation pages for testing
                         .requestMatchers("/register", "/login", "/verify-email**", "/resend-email-otp**",
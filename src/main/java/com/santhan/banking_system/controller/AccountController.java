@@ -1,10 +1,14 @@
 package com.santhan.banking_system.controller;
 
+import com.santhan.banking_system.dto.AccountLookupResult;
+import com.santhan.banking_system.dto.AccountSummary;
+import com.santhan.banking_system.dto.TransactionSummary;
 import com.santhan.banking_system.model.Account;
+import com.santhan.banking_system.model.Transaction;
 import com.santhan.banking_system.model.AccountType;
 import com.santhan.banking_system.model.User;
-import com.santhan.banking_system.model.Transaction;
 import com.santhan.banking_system.model.TransactionType; // NEW: Import TransactionType for specific transaction forms
+import com.santhan.banking_system.service.AccountLookupService;
 import com.santhan.banking_system.service.AccountService;
 import com.santhan.banking_system.service.UserService;
 import com.santhan.banking_system.service.TransactionService;
@@ -16,7 +20,6 @@ import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -29,39 +32,35 @@ public class AccountController {
     private final AccountService accountService;
     private final UserService userService;
     private final TransactionService transactionService;
+    private final AccountLookupService accountLookupService;
 
     @Autowired
-    public AccountController(AccountService accountService, UserService userService, TransactionService transactionService) {
+    public AccountController(AccountService accountService, UserService userService, TransactionService transactionService,
+                             AccountLookupService accountLookupService) {
         this.accountService = accountService;
         this.userService = userService;
         this.transactionService = transactionService;
+        this.accountLookupService = accountLookupService;
     }
 
     // --- Account Listing and Details ---
     @GetMapping
     @PreAuthorize("hasAnyRole('ROLE_CUSTOMER', 'ROLE_EMPLOYEE', 'ROLE_ADMIN')") // Accessible by all relevant roles
-    @Transactional
     public String listAccounts(Model model, Authentication authentication) { // Added Authentication parameter
         String currentUsername = authentication.getName();
         User currentUser = userService.findByUsername(currentUsername)
                 .orElseThrow(() -> new IllegalArgumentException("User not found: " + currentUsername));
 
-        List<Account> accounts;
+        // Projections carry the owner's username, so no lazy loading (and no transaction) is needed to render
+        List<AccountSummary> accounts;
         // Check if the current user is a customer to show only their accounts
         if (authentication.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_CUSTOMER"))) {
-            accounts = accountService.getAccountsByUserId(currentUser.getId());
+            accounts = accountService.getAccountSummariesByUserId(currentUser.getId());
         } else {
             // For Employee/Admin, show all accounts
-            accounts = accountService.getAllAccounts();
+            accounts = accountService.getAllAccountSummaries();
         }
 
-        // Initialize user data for Thymeleaf (if lazy loaded)
-        accounts.forEach(account -> {
-            if (account.getUser() != null) {
-                account.getUser().getUsername(); // Access to initialize
-            }
-        });
-
         model.addAttribute("accounts", accounts);
         return "account-list"; // Existing template name
     }
@@ -101,26 +100,11 @@ public class AccountController {
     }
 
     @GetMapping("/details/{id}")
-    @PreAuthorize("hasAnyRole('ROLE_CUSTOMER', 'ROLE_EMPLOYEE', 'ROLE_ADMIN')") // Accessible by all relevant roles
-    @Transactional
-    public String showAccountDetails(@PathVariable Long id, Model model, Authentication authentication, RedirectAttributes redirectAttributes) {
+    @PreAuthorize("hasAnyRole('ROLE_CUSTOMER', 'ROLE_EMPLOYEE', 'ROLE_ADMIN') and @accountSecurity.canAccessAccount(#id, authentication)") // Customers only for their own accounts
+    public String showAccountDetails(@PathVariable Long id, Model model, RedirectAttributes redirectAttributes) {
         try {
-            Account account = accountService.getAccountById(id);
-            User currentUser = userService.findByUsername(authentication.getName())
-                    .orElseThrow(() -> new IllegalArgumentException("User not found: " + authentication.getName()));
-
-            // Security check for customers: ensure they only view their own accounts
-            if (authentication.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_CUSTOMER"))) {
-                if (!account.getUser().getId().equals(currentUser.getId())) {
-                    redirectAttributes.addFlashAttribute("error", "You are not authorized to view this account.");
-                    return "redirect:/accounts"; // Redirect to their own account list
-                }
-            }
-
-            // Initialize user data for Thymeleaf (if lazy loaded)
-            if (account.getUser() != null) {
-                account.getUser().getUsername();
-            }
+            // Owner is fetched together with the account for the "Owner" fields on the page
+            Account account = accountService.getAccountWithOwner(id);
             model.addAttribute("account", account);
             return "account-details"; // Existing template name
         } catch (IllegalArgumentException e) {
@@ -131,13 +115,9 @@ public class AccountController {
 
     @GetMapping("/edit/{id}")
     @PreAuthorize("hasAnyRole('ROLE_EMPLOYEE', 'ROLE_ADMIN')") // Only employees/admins can edit accounts
-    @Transactional
     public String showEditAccountForm(@PathVariable Long id, Model model, RedirectAttributes redirectAttributes) {
         try {
             Account account = accountService.getAccountById(id);
-            if (account.getUser() != null) {
-                account.getUser().getUsername();
-            }
             model.addAttribute("account", account);
             model.addAttribute("accountTypes", AccountType.values());
             return "account-edit"; // Existing template name
@@ -172,25 +152,10 @@ public class AccountController {
 
     // --- Deposit Operations ---
     @GetMapping("/{id}/deposit")
-    @PreAuthorize("hasAnyRole('ROLE_CUSTOMER', 'ROLE_EMPLOYEE', 'ROLE_ADMIN')") // Accessible by all relevant roles
-    @Transactional
-    public String showDepositForm(@PathVariable Long id, Model model, Authentication authentication, RedirectAttributes redirectAttributes) {
+    @PreAuthorize("hasAnyRole('ROLE_CUSTOMER', 'ROLE_EMPLOYEE', 'ROLE_ADMIN') and @accountSecurity.canAccessAccount(#id, authentication)") // Customers only for their own accounts
+    public String showDepositForm(@PathVariable Long id, Model model, RedirectAttributes redirectAttributes) {
         try {
             Account account = accountService.getAccountById(id);
-            User currentUser = userService.findByUsername(authentication.getName())
-                    .orElseThrow(() -> new IllegalArgumentException("User not found."));
-
-            // For customers, ensure they own the account
-            if (authentication.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_CUSTOMER"))) {
-                if (!account.getUser().getId().equals(currentUser.getId())) {
-                    redirectAttributes.addFlashAttribute("error", "You are not authorized to deposit to this account.");
-                    return "redirect:/accounts";
-                }
-            }
-
-            if (account.getUser() != null) {
-                account.getUser().getUsername();
-            }
             model.addAttribute("account", account);
             model.addAttribute("amount", BigDecimal.ZERO);
             model.addAttribute("description", "");
@@ -203,7 +168,7 @@ public class AccountController {
     }
 
     @PostMapping("/{id}/deposit")
-    @PreAuthorize("hasAnyRole('ROLE_CUSTOMER', 'ROLE_EMPLOYEE', 'ROLE_ADMIN')") // Accessible by all relevant roles
+    @PreAuthorize("hasAnyRole('ROLE_CUSTOMER', 'ROLE_EMPLOYEE', 'ROLE_ADMIN') and @accountSecurity.canAccessAccount(#id, authentication)") // Customers only for their own accounts
     public String deposit(@PathVariable Long id,
                           @RequestParam("amount") BigDecimal amount,
                           @RequestParam(value = "description", required = false) String description,
@@ -220,15 +185,6 @@ public class AccountController {
                 return "redirect:/accounts/" + id + "/deposit";
             }
 
-            // For customers, ensure they own the account they are depositing to
-            Account targetAccount = accountService.getAccountById(id);
-            if (authentication.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_CUSTOMER"))) {
-                if (!targetAccount.getUser().getId().equals(currentUser.getId())) {
-                    redirectAttributes.addFlashAttribute("error", "You are not authorized to deposit to this account.");
-                    return "redirect:/accounts";
-                }
-            }
-
             transactionService.deposit(id, amount, description);
             redirectAttributes.addFlashAttribute("success", "Deposit successful!");
         } catch (IllegalArgumentException | IllegalStateException e) {
@@ -244,25 +200,10 @@ public class AccountController {
 
     // --- Withdrawal Operations ---
     @GetMapping("/{id}/withdraw")
-    @PreAuthorize("hasAnyRole('ROLE_CUSTOMER', 'ROLE_EMPLOYEE', 'ROLE_ADMIN')") // Accessible by all relevant roles
-    @Transactional
-    public String showWithdrawForm(@PathVariable Long id, Model model, Authentication authentication, RedirectAttributes redirectAttributes) {
+    @PreAuthorize("hasAnyRole('ROLE_CUSTOMER', 'ROLE_EMPLOYEE', 'ROLE_ADMIN') and @accountSecurity.canAccessAccount(#id, authentication)") // Customers only for their own accounts
+    public String showWithdrawForm(@PathVariable Long id, Model model, RedirectAttributes redirectAttributes) {
         try {
             Account account = accountService.getAccountById(id);
-            User currentUser = userService.findByUsername(authentication.getName())
-                    .orElseThrow(() -> new IllegalArgumentException("User not found."));
-
-            // For customers, ensure they own the account
-            if (authentication.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_CUSTOMER"))) {
-                if (!account.getUser().getId().equals(currentUser.getId())) {
-                    redirectAttributes.addFlashAttribute("error", "You are not authorized to withdraw from this account.");
-                    return "redirect:/accounts";
-                }
-            }
-
-            if (account.getUser() != null) {
-                account.getUser().getUsername();
-            }
             model.addAttribute("account", account);
             model.addAttribute("amount", BigDecimal.ZERO);
             model.addAttribute("description", "");
@@ -275,7 +216,7 @@ public class AccountController {
     }
 
     @PostMapping("/{id}/withdraw")
-    @PreAuthorize("hasAnyRole('ROLE_CUSTOMER', 'ROLE_EMPLOYEE', 'ROLE_ADMIN')") // Accessible by all relevant roles
+    @PreAuthorize("hasAnyRole('ROLE_CUSTOMER', 'ROLE_EMPLOYEE', 'ROLE_ADMIN') and @accountSecurity.canAccessAccount(#id, authentication)") // Customers only for their own accounts
     public String withdraw(@PathVariable Long id,
                            @RequestParam("amount") BigDecimal amount,
                            @RequestParam(value = "description", required = false) String description,
@@ -292,17 +233,12 @@ public class AccountController {
                 return "redirect:/accounts/" + id + "/withdraw";
             }
 
-            // For customers, ensure they own the account they are withdrawing from
-            Account sourceAccount = accountService.getAccountById(id);
-            if (authentication.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_CUSTOMER"))) {
-                if (!sourceAccount.getUser().getId().equals(currentUser.getId())) {
-                    redirectAttributes.addFlashAttribute("error", "You are not authorized to withdraw from this account.");
-                    return "redirect:/accounts";
-                }
+            Transaction withdrawal = transactionService.withdraw(id, amount, description);
+            if (TransactionService.STATUS_PENDING_REVIEW.equals(withdrawal.getStatus())) {
+                redirectAttributes.addFlashAttribute("success", "Withdrawal submitted and pending review. Your balance is unchanged until it is approved.");
+            } else {
+                redirectAttributes.addFlashAttribute("success", "Withdrawal successful!");
             }
-
-            transactionService.withdraw(id, amount, description);
-            redirectAttributes.addFlashAttribute("success", "Withdrawal successful!");
         } catch (IllegalArgumentException | IllegalStateException e) {
             redirectAttributes.addFlashAttribute("error", e.getMessage());
             return "redirect:/accounts/" + id + "/withdraw";
@@ -316,34 +252,13 @@ public class AccountController {
 
     // --- Transfer Operations ---
     @GetMapping("/{id}/transfer")
-    @PreAuthorize("hasAnyRole('ROLE_CUSTOMER', 'ROLE_EMPLOYEE', 'ROLE_ADMIN')") // Accessible by all relevant roles
-    @Transactional
-    public String showTransferForm(@PathVariable Long id, Model model, Authentication authentication, RedirectAttributes redirectAttributes) {
+    @PreAuthorize("hasAnyRole('ROLE_CUSTOMER', 'ROLE_EMPLOYEE', 'ROLE_ADMIN') and @accountSecurity.canAccessAccount(#id, authentication)") // Customers only for their own accounts
+    public String showTransferForm(@PathVariable Long id, Model model, RedirectAttributes redirectAttributes) {
         try {
             Account sourceAccount = accountService.getAccountById(id);
-            User currentUser = userService.findByUsername(authentication.getName())
-                    .orElseThrow(() -> new IllegalArgumentException("User not found."));
-
-            // For customers, ensure they own the account
-            if (authentication.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_CUSTOMER"))) {
-                if (!sourceAccount.getUser().getId().equals(currentUser.getId())) {
-                    redirectAttributes.addFlashAttribute("error", "You are not authorized to transfer from this account.");
-                    return "redirect:/accounts";
-                }
-            }
-
-            if (sourceAccount.getUser() != null) {
-                sourceAccount.getUser().getUsername();
-            }
             model.addAttribute("sourceAccount", sourceAccount);
 
-            List<Account> allAccounts = accountService.getAllAccounts();
-            allAccounts.forEach(account -> {
-                if (account.getUser() != null) {
-                    account.getUser().getUsername();
-                }
-            });
-            model.addAttribute("accounts", allAccounts);
+            // Destination accounts are searched through /accounts/lookup as the user types
             model.addAttribute("amount", BigDecimal.ZERO);
             model.addAttribute("description", "");
             model.addAttribute("transactionType", TransactionType.TRANSFER); // Added for context in HTML if needed
@@ -354,8 +269,18 @@ public class AccountController {
         }
     }
 
+    // Typeahead for the transfer form's destination field: prefix match on account number or owner username
+    @GetMapping("/lookup")
+    @PreAuthorize("hasAnyRole('ROLE_CUSTOMER', 'ROLE_EMPLOYEE', 'ROLE_ADMIN')")
+    @ResponseBody
+    public List<AccountLookupResult> lookupAccounts(@RequestParam("q") String query,
+                                                   @RequestParam(value = "exclude", required = false) Long excludeAccountId,
+                                                   @RequestParam(value = "limit", defaultValue = "" + AccountLookupService.DEFAULT_LIMIT) int limit) {
+        return accountLookupService.search(query, excludeAccountId, limit);
+    }
+
     @PostMapping("/{id}/transfer")
-    @PreAuthorize("hasAnyRole('ROLE_CUSTOMER', 'ROLE_EMPLOYEE', 'ROLE_ADMIN')") // Accessible by all relevant roles
+    @PreAuthorize("hasAnyRole('ROLE_CUSTOMER', 'ROLE_EMPLOYEE', 'ROLE_ADMIN') and @accountSecurity.canAccessAccount(#id, authentication)") // Customers only for their own accounts
     public String transfer(@PathVariable Long id,
                            @RequestParam("destinationAccountId") Long destinationAccountId,
                            @RequestParam("amount") BigDecimal amount,
@@ -373,17 +298,12 @@ public class AccountController {
                 return "redirect:/accounts/" + id + "/transfer";
             }
 
-            // For customers, ensure they own the source account
-            Account sourceAccount = accountService.getAccountById(id);
-            if (authentication.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_CUSTOMER"))) {
-                if (!sourceAccount.getUser().getId().equals(currentUser.getId())) {
-                    redirectAttributes.addFlashAttribute("error", "You are not authorized to transfer from this account.");
-                    return "redirect:/accounts";
-                }
+            Transaction transfer = transactionService.transfer(id, destinationAccountId, amount, description);
+            if (TransactionService.STATUS_PENDING_REVIEW.equals(transfer.getStatus())) {
+                redirectAttributes.addFlashAttribute("success", "Transfer submitted and pending review. No funds move until it is approved.");
+            } else {
+                redirectAttributes.addFlashAttribute("success", "Transfer successful!");
             }
-
-            transactionService.transfer(id, destinationAccountId, amount, description);
-            redirectAttributes.addFlashAttribute("success", "Transfer successful!");
         } catch (IllegalArgumentException | IllegalStateException e) {
             redirectAttributes.addFlashAttribute("error", e.getMessage());
             return "redirect:/accounts/" + id + "/transfer";
@@ -396,35 +316,12 @@ public class AccountController {
     }
 
     @GetMapping("/{id}/transactions")
-    @PreAuthorize("hasAnyRole('ROLE_CUSTOMER', 'ROLE_EMPLOYEE', 'ROLE_ADMIN')") // Accessible by all relevant roles
-    @Transactional
-    public String viewAccountTransactions(@PathVariable Long id, Model model, Authentication authentication, RedirectAttributes redirectAttributes) {
+    @PreAuthorize("hasAnyRole('ROLE_CUSTOMER', 'ROLE_EMPLOYEE', 'ROLE_ADMIN') and @accountSecurity.canAccessAccount(#id, authentication)") // Customers only for their own accounts
+    public String viewAccountTransactions(@PathVariable Long id, Model model, RedirectAttributes redirectAttributes) {
         try {
             Account account = accountService.getAccountById(id);
-            User currentUser = userService.findByUsername(authentication.getName())
-                    .orElseThrow(() -> new IllegalArgumentException("User not found."));
-
-            // Security check for customers: ensure they only view their own account transactions
-            if (authentication.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_CUSTOMER"))) {
-                if (!account.getUser().getId().equals(currentUser.getId())) {
-                    redirectAttributes.addFlashAttribute("error", "You are not authorized to view transactions for this account.");
-                    return "redirect:/accounts"; // Redirect to their own account list
-                }
-            }
 
-            if (account.getUser() != null) {
-                account.getUser().getUsername();
-            }
-
-            List<Transaction> transactions = transactionService.getTransactionsForAccount(id);
-            transactions.forEach(transaction -> {
-                if (transaction.getSourceAccount() != null && transaction.getSourceAccount().getUser() != null) {
-                    transaction.getSourceAccount().getUser().getUsername();
-                }
-                if (transaction.getDestinationAccount() != null && transaction.getDestinationAccount().getUser() != null) {
-                    transaction.getDestinationAccount().getUser().getUsername();
-                }
-            });
+            List<TransactionSummary> transactions = transactionService.getTransactionSummariesForAccount(id);
 
             model.addAttribute("account", account);
             model.addAttribute("transactions", transactions);
@@ -438,31 +335,20 @@ public class AccountController {
     // Handles the general "View All My Transactions" link from the dashboard
     @GetMapping("/all-transactions")
     @PreAuthorize("hasAnyRole('ROLE_CUSTOMER', 'ROLE_EMPLOYEE', 'ROLE_ADMIN')") // Accessible by all relevant roles
-    @Transactional // Ensure lazy-loaded data is initialized
     public String viewAllMyTransactions(Model model, Authentication authentication) {
         String currentUsername = authentication.getName();
         User currentUser = userService.findByUsername(currentUsername)
                 .orElseThrow(() -> new IllegalStateException("Authenticated user not found."));
 
-        List<Transaction> allUserTransactions;
+        List<TransactionSummary> allUserTransactions;
 
         // If customer, show only their transactions. If admin/employee, show all transactions.
         if (authentication.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_CUSTOMER"))) {
-            allUserTransactions = transactionService.getTransactionsForUser(currentUser.getId());
+            allUserTransactions = transactionService.getTransactionSummariesForUser(currentUser.getId());
         } else {
-            allUserTransactions = transactionService.getAllTransactions(); // Assuming you have this method or need to create it
+            allUserTransactions = transactionService.getAllTransactionSummaries();
         }
 
-        // Ensure associated accounts and users are initialized for the template
-        allUserTransactions.forEach(transaction -> {
-            if (transaction.getSourceAccount() != null && transaction.getSourceAccount().getUser() != null) {
-                transaction.getSourceAccount().getUser().getUsername();
-            }
-            if (transaction.getDestinationAccount() != null && transaction.getDestinationAccount().getUser() != null) {
-                transaction.getDestinationAccount().getUser().getUsername();
-            }
-        });
-
         model.addAttribute("transactions", allUserTransactions);
         model.addAttribute("title", "All My Transactions"); // Title for the page
         return "all-transactions"; // Existing template name
@@ -1,9 +1,14 @@
 package com.santhan.banking_system.controller;
 
+import com.santhan.banking_system.dto.AccountSummary;
 import com.santhan.banking_system.model.Account;
+import com.santhan.banking_system.model.AccountType;
 import com.santhan.banking_system.model.Transaction;
-import com.santhan.banking_system.model.User;
 import com.santhan.banking_system.service.AccountService;
+import com.santhan.banking_system.service.ConsolidatedStatementService;
+import com.santhan.banking_system.service.StatementCacheService;
+import com.santhan.banking_system.service.StatementJobService;
+import com.santhan.banking_system.service.StatementStreamService;
 import com.santhan.banking_system.service.TransactionService;
 import com.santhan.banking_system.service.UserService;
 import com.santhan.banking_system.util.StatementCSVGenerator;
@@ -11,7 +16,10 @@ import com.santhan.banking_system.util.StatementPDFGenerator; // Import Statemen
 import com.itextpdf.text.DocumentException; // Import DocumentException for PDF generation
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -20,18 +28,22 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.file.Files;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeParseException;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.Objects;
 
 @Controller
 @RequestMapping("/statements")
@@ -40,53 +52,55 @@ public class AccountStatementController {
     private final AccountService accountService;
     private final TransactionService transactionService;
     private final UserService userService;
+    private final StatementStreamService statementStreamService;
+    private final StatementCacheService statementCacheService;
+    private final StatementJobService statementJobService;
+    private final ConsolidatedStatementService consolidatedStatementService;
 
     @Autowired
     public AccountStatementController(AccountService accountService,
                                       TransactionService transactionService,
-                                      UserService userService) {
+                                      UserService userService,
+                                      StatementStreamService statementStreamService,
+                                      StatementCacheService statementCacheService,
+                                      StatementJobService statementJobService,
+                                      ConsolidatedStatementService consolidatedStatementService) {
         this.accountService = accountService;
         this.transactionService = transactionService;
         this.userService = userService;
+        this.statementStreamService = statementStreamService;
+        this.statementCacheService = statementCacheService;
+        this.statementJobService = statementJobService;
+        this.consolidatedStatementService = consolidatedStatementService;
     }
 
     /**
      * Displays the form to select date range for statement download.
-     * Accessible by USER (for their accounts), EMPLOYEE, ADMIN.
+     * Accessible by CUSTOMER (for their accounts), EMPLOYEE, ADMIN.
+     * Ownership is checked by AccountSecurityService before the account is loaded.
      */
-    @PreAuthorize("hasRole('ROLE_USER') or hasRole('ROLE_EMPLOYEE') or hasRole('ROLE_ADMIN')")
+    @PreAuthorize("hasAnyRole('ROLE_CUSTOMER', 'ROLE_EMPLOYEE', 'ROLE_ADMIN') and @accountSecurity.canAccessAccount(#accountId, authentication)")
     @GetMapping("/account/{accountId}")
     public String showStatementForm(@PathVariable Long accountId, Model model, RedirectAttributes redirectAttributes) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String username = authentication.getName();
 
         Account account;
         try {
             account = accountService.getAccountById(accountId);
         } catch (IllegalArgumentException e) {
             redirectAttributes.addFlashAttribute("error", "Account not found or invalid ID: " + e.getMessage());
-            if (authentication.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_USER"))) {
+            if (authentication.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_CUSTOMER"))) {
                 return "redirect:/user/dashboard";
             }
             return "redirect:/error";
         } catch (Exception e) {
             redirectAttributes.addFlashAttribute("error", "An unexpected error occurred: " + e.getMessage());
-            if (authentication.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_USER"))) {
+            if (authentication.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_CUSTOMER"))) {
                 return "redirect:/user/dashboard";
             }
             return "redirect:/error";
         }
 
-        User loggedInUser = userService.findByUsername(username)
-                .orElseThrow(() -> new IllegalStateException("Authenticated user not found in database."));
-
-        if (authentication.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_USER"))) {
-            if (!Objects.equals(account.getUser().getId(), loggedInUser.getId())) {
-                redirectAttributes.addFlashAttribute("error", "You are not authorized to view this account's statement.");
-                return "redirect:/user/dashboard";
-            }
-        }
-
         model.addAttribute("account", account);
         model.addAttribute("accountId", accountId);
         return "statements/statement-form";
@@ -94,44 +108,61 @@ public class AccountStatementController {
 
 
     /**
-     * Handles the request to download the CSV or PDF statement.
-     * Accessible by USER (for their accounts), EMPLOYEE, ADMIN.
-     * Added @RequestParam String format to determine the output type.
+     * Idempotent download URL: /statements/account/{accountId}/download?startDate=...&endDate=...&format=...
+     * Closed periods are served from StatementCacheService with an ETag; a matching If-None-Match gets 304.
+     * A period that has not ended yet is streamed without one. The POST form endpoints redirect here for closed periods.
      */
-    @PreAuthorize("hasRole('ROLE_USER') or hasRole('ROLE_EMPLOYEE') or hasRole('ROLE_ADMIN')")
-    @PostMapping("/account/{accountId}/download")
-    public ResponseEntity<ByteArrayResource> downloadStatement(
+    @PreAuthorize("hasAnyRole('ROLE_CUSTOMER', 'ROLE_EMPLOYEE', 'ROLE_ADMIN') and @accountSecurity.canAccessAccount(#accountId, authentication)")
+    @GetMapping("/account/{accountId}/download")
+    public ResponseEntity<?> getStatement(
             @PathVariable Long accountId,
             @RequestParam("startDate") String startDateStr,
             @RequestParam("endDate") String endDateStr,
-            @RequestParam("format") String format, // NEW: Parameter to specify format (csv or pdf)
-            RedirectAttributes redirectAttributes) {
+            @RequestParam("format") String format,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
 
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String username = authentication.getName();
+        Instant startDate;
+        Instant endDate;
+        try {
+            startDate = LocalDate.parse(startDateStr).atStartOfDay().toInstant(ZoneOffset.UTC);
+            endDate = LocalDate.parse(endDateStr).atTime(23, 59, 59, 999_999_999).toInstant(ZoneOffset.UTC);
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (startDate.isAfter(endDate) || !StatementStreamService.isSupportedFormat(format)) {
+            return ResponseEntity.badRequest().build();
+        }
 
-        Account account;
         try {
-            account = accountService.getAccountById(accountId);
+            // A closed period can no longer gain transactions, so its rendered statement is reusable
+            if (endDate.isBefore(Instant.now())) {
+                return serveCachedStatement(accountId, startDateStr, endDateStr, startDate, endDate, format, ifNoneMatch);
+            }
+            return streamOpenPeriod(accountId, startDateStr, endDateStr, startDate, endDate, format);
         } catch (IllegalArgumentException e) {
             System.err.println("Account not found for statement generation: " + e.getMessage());
-            redirectAttributes.addFlashAttribute("error", "Account not found for statement generation.");
             return ResponseEntity.notFound().build();
         } catch (Exception e) {
-            System.err.println("Unexpected error fetching account: " + e.getMessage());
-            redirectAttributes.addFlashAttribute("error", "An unexpected error occurred while fetching account details.");
+            System.err.println("Unexpected error during statement download: " + e.getMessage());
+            e.printStackTrace();
             return ResponseEntity.internalServerError().build();
         }
+    }
 
-        User loggedInUser = userService.findByUsername(username)
-                .orElseThrow(() -> new IllegalStateException("Authenticated user not found in database."));
-
-        if (authentication.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_USER"))) {
-            if (!Objects.equals(account.getUser().getId(), loggedInUser.getId())) {
-                redirectAttributes.addFlashAttribute("error", "You are not authorized to download this account's statement.");
-                return ResponseEntity.status(403).build(); // Forbidden
-            }
-        }
+    /**
+     * Handles the request to download the CSV or PDF statement.
+     * Accessible by CUSTOMER (for their accounts), EMPLOYEE, ADMIN.
+     * Added @RequestParam String format to determine the output type.
+     * Closed periods are redirected (303) to the GET download URL, which carries the ETag.
+     */
+    @PreAuthorize("hasAnyRole('ROLE_CUSTOMER', 'ROLE_EMPLOYEE', 'ROLE_ADMIN') and @accountSecurity.canAccessAccount(#accountId, authentication)")
+    @PostMapping("/account/{accountId}/download")
+    public ResponseEntity<?> downloadStatement(
+            @PathVariable Long accountId,
+            @RequestParam("startDate") String startDateStr,
+            @RequestParam("endDate") String endDateStr,
+            @RequestParam("format") String format, // NEW: Parameter to specify format (csv or pdf)
+            RedirectAttributes redirectAttributes) {
 
         Instant startDate;
         Instant endDate;
@@ -148,6 +179,33 @@ public class AccountStatementController {
             return ResponseEntity.badRequest().build();
         }
 
+        if (!StatementStreamService.isSupportedFormat(format)) {
+            redirectAttributes.addFlashAttribute("error", "Invalid statement format requested.");
+            return ResponseEntity.badRequest().build();
+        }
+
+        if (endDate.isBefore(Instant.now())) {
+            return redirectToDownload(accountId, startDateStr, endDateStr, format);
+        }
+
+        // The in-memory generators below only cover CSV and PDF; the XML formats are always streamed
+        if (!"csv".equalsIgnoreCase(format) && !"pdf".equalsIgnoreCase(format)) {
+            return streamStatement(accountId, startDateStr, endDateStr, format);
+        }
+
+        Account account;
+        try {
+            account = accountService.getAccountById(accountId);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Account not found for statement generation: " + e.getMessage());
+            redirectAttributes.addFlashAttribute("error", "Account not found for statement generation.");
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            System.err.println("Unexpected error fetching account: " + e.getMessage());
+            redirectAttributes.addFlashAttribute("error", "An unexpected error occurred while fetching account details.");
+            return ResponseEntity.internalServerError().build();
+        }
+
         try {
             List<Transaction> transactions = transactionService.getTransactionsForAccountInDateRange(accountId, startDate, endDate);
             Map<String, Object> statementSummary = transactionService.calculateStatementBalances(accountId, startDate, endDate);
@@ -169,13 +227,10 @@ public class AccountStatementController {
                 fileBytes = StatementCSVGenerator.generateCsvStatement(transactions, finalStatementSummary, account.getAccountNumber());
                 filename = "account_statement_" + account.getAccountNumber() + "_" + startDateStr + "_to_" + endDateStr + ".csv";
                 contentType = "text/csv";
-            } else if ("pdf".equalsIgnoreCase(format)) {
+            } else {
                 fileBytes = StatementPDFGenerator.generatePdfStatement(transactions, finalStatementSummary, account.getAccountNumber());
                 filename = "account_statement_" + account.getAccountNumber() + "_" + startDateStr + "_to_" + endDateStr + ".pdf";
                 contentType = "application/pdf";
-            } else {
-                redirectAttributes.addFlashAttribute("error", "Invalid statement format requested.");
-                return ResponseEntity.badRequest().build();
             }
 
             return ResponseEntity.ok()
@@ -198,4 +253,251 @@ public class AccountStatementController {
             return ResponseEntity.internalServerError().build();
         }
     }
+
+    /**
+     * Streaming variant of downloadStatement, selected with stream=true.
+     * Balances come from one aggregate query; rows are read in keyset pages and written straight to the
+     * response while the ledger hash is updated incrementally, so memory use does not grow with the period length.
+     * Closed periods are redirected to the GET download URL, like downloadStatement.
+     */
+    @PreAuthorize("hasAnyRole('ROLE_CUSTOMER', 'ROLE_EMPLOYEE', 'ROLE_ADMIN') and @accountSecurity.canAccessAccount(#accountId, authentication)")
+    @PostMapping(value = "/account/{accountId}/download", params = "stream=true")
+    public ResponseEntity<?> streamStatement(
+            @PathVariable Long accountId,
+            @RequestParam("startDate") String startDateStr,
+            @RequestParam("endDate") String endDateStr,
+            @RequestParam("format") String format) {
+
+        Instant startDate;
+        Instant endDate;
+        try {
+            startDate = LocalDate.parse(startDateStr).atStartOfDay().toInstant(ZoneOffset.UTC);
+            endDate = LocalDate.parse(endDateStr).atTime(23, 59, 59, 999_999_999).toInstant(ZoneOffset.UTC);
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (startDate.isAfter(endDate) || !StatementStreamService.isSupportedFormat(format)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        if (endDate.isBefore(Instant.now())) {
+            return redirectToDownload(accountId, startDateStr, endDateStr, format);
+        }
+
+        try {
+            return streamOpenPeriod(accountId, startDateStr, endDateStr, startDate, endDate, format);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Account not found for statement generation: " + e.getMessage());
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            System.err.println("Unexpected error during statement download: " + e.getMessage());
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * Consolidated download: the statements of several accounts in one ZIP (or one gzip-compressed CSV),
+     * rendered in parallel and streamed straight to the response. Every account must pass the usual access check.
+     */
+    @PreAuthorize("hasAnyRole('ROLE_CUSTOMER', 'ROLE_EMPLOYEE', 'ROLE_ADMIN') and @accountSecurity.canAccessAccounts(#accountIds, authentication)")
+    @PostMapping("/consolidated")
+    public ResponseEntity<?> downloadConsolidatedStatement(
+            @RequestParam("accountIds") List<Long> accountIds,
+            @RequestParam("startDate") String startDateStr,
+            @RequestParam("endDate") String endDateStr,
+            @RequestParam("format") String format,
+            @RequestParam(value = "archive", defaultValue = ConsolidatedStatementService.ARCHIVE_ZIP) String archive) {
+
+        Instant startDate;
+        Instant endDate;
+        try {
+            startDate = LocalDate.parse(startDateStr).atStartOfDay().toInstant(ZoneOffset.UTC);
+            endDate = LocalDate.parse(endDateStr).atTime(23, 59, 59, 999_999_999).toInstant(ZoneOffset.UTC);
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().body("Invalid date format. Please use YYYY-MM-DD.");
+        }
+        if (startDate.isAfter(endDate)) {
+            return ResponseEntity.badRequest().body("Start date cannot be after end date.");
+        }
+        if (!StatementStreamService.isSupportedFormat(format)
+                || !ConsolidatedStatementService.isSupportedArchive(archive, format)) {
+            return ResponseEntity.badRequest().body("Invalid statement format or archive type requested.");
+        }
+
+        LinkedHashSet<Long> uniqueIds = new LinkedHashSet<>(accountIds);
+        if (uniqueIds.size() > consolidatedStatementService.getMaxAccounts()) {
+            return ResponseEntity.badRequest().body("At most " + consolidatedStatementService.getMaxAccounts()
+                    + " accounts can be included in one consolidated statement.");
+        }
+        List<AccountSummary> accounts = accountService.getAccountSummariesByIds(uniqueIds);
+        if (accounts.size() != uniqueIds.size()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        String normalizedFormat = format.toLowerCase(Locale.ROOT);
+        StreamingResponseBody body = outputStream -> consolidatedStatementService.writeArchive(outputStream, accounts,
+                normalizedFormat, archive, startDateStr, endDateStr, startDate, endDate);
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\""
+                        + ConsolidatedStatementService.archiveFileName(startDateStr, endDateStr, normalizedFormat, archive) + "\"")
+                .contentType(MediaType.parseMediaType(ConsolidatedStatementService.archiveContentType(archive)))
+                .body(body);
+    }
+
+    /**
+     * Submits a background statement job for long date ranges and returns its id straight away (202 Accepted).
+     * The client polls /statements/jobs/{jobId} and downloads from /statements/jobs/{jobId}/download once READY.
+     */
+    @PreAuthorize("hasAnyRole('ROLE_CUSTOMER', 'ROLE_EMPLOYEE', 'ROLE_ADMIN') and @accountSecurity.canAccessAccount(#accountId, authentication)")
+    @PostMapping("/account/{accountId}/jobs")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> submitStatementJob(
+            @PathVariable Long accountId,
+            @RequestParam("startDate") String startDateStr,
+            @RequestParam("endDate") String endDateStr,
+            @RequestParam("format") String format,
+            Authentication authentication) {
+
+        Instant startDate;
+        Instant endDate;
+        try {
+            startDate = LocalDate.parse(startDateStr).atStartOfDay().toInstant(ZoneOffset.UTC);
+            endDate = LocalDate.parse(endDateStr).atTime(23, 59, 59, 999_999_999).toInstant(ZoneOffset.UTC);
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid date format. Please use YYYY-MM-DD."));
+        }
+        if (startDate.isAfter(endDate)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Start date cannot be after end date."));
+        }
+        if (!StatementStreamService.isSupportedFormat(format)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid statement format requested."));
+        }
+
+        try {
+            StatementJobService.StatementJob job = statementJobService.submit(authentication.getName(), accountId,
+                    startDateStr, endDateStr, startDate, endDate, format);
+            Map<String, Object> body = jobResponse(job);
+            return ResponseEntity.accepted()
+                    .header(HttpHeaders.LOCATION, (String) body.get("statusUrl"))
+                    .body(body);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "30")
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Status of a background statement job. Jobs are only visible to the user who submitted them.
+     */
+    @PreAuthorize("hasAnyRole('ROLE_CUSTOMER', 'ROLE_EMPLOYEE', 'ROLE_ADMIN')")
+    @GetMapping("/jobs/{jobId}")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getStatementJob(@PathVariable String jobId, Authentication authentication) {
+        StatementJobService.StatementJob job = statementJobService.getJob(jobId, authentication.getName());
+        if (job == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Statement job not found or expired."));
+        }
+        return ResponseEntity.ok(jobResponse(job));
+    }
+
+    @PreAuthorize("hasAnyRole('ROLE_CUSTOMER', 'ROLE_EMPLOYEE', 'ROLE_ADMIN')")
+    @GetMapping("/jobs/{jobId}/download")
+    public ResponseEntity<?> downloadStatementJob(@PathVariable String jobId, Authentication authentication) {
+        StatementJobService.StatementJob job = statementJobService.getJob(jobId, authentication.getName());
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!job.isReady()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(jobResponse(job));
+        }
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + job.getFileName() + "\"")
+                .contentType(MediaType.parseMediaType(job.getContentType()))
+                .body(new FileSystemResource(job.getResultPath()));
+    }
+
+    private static Map<String, Object> jobResponse(StatementJobService.StatementJob job) {
+        Map<String, Object> body = job.toMap();
+        body.put("statusUrl", "/statements/jobs/" + job.getId());
+        if (job.isReady()) {
+            body.put("downloadUrl", "/statements/jobs/" + job.getId() + "/download");
+        }
+        return body;
+    }
+
+    // POST/redirect/GET for closed periods, so the file comes from a cacheable URL that can be revalidated
+    private static ResponseEntity<?> redirectToDownload(Long accountId, String startDateStr, String endDateStr, String format) {
+        return ResponseEntity.status(HttpStatus.SEE_OTHER)
+                .location(ServletUriComponentsBuilder.fromCurrentContextPath()
+                        .path("/statements/account/{accountId}/download")
+                        .queryParam("startDate", startDateStr)
+                        .queryParam("endDate", endDateStr)
+                        .queryParam("format", format)
+                        .buildAndExpand(accountId)
+                        .encode()
+                        .toUri())
+                .build();
+    }
+
+    private ResponseEntity<?> streamOpenPeriod(Long accountId, String startDateStr, String endDateStr,
+                                               Instant startDate, Instant endDate, String format) {
+        Account account = accountService.getAccountById(accountId);
+        String accountNumber = account.getAccountNumber();
+        AccountType accountType = account.getAccountType();
+        Map<String, Object> balances = transactionService.calculateStatementOpeningAndClosing(accountId, startDate, endDate);
+        BigDecimal openingBalance = (BigDecimal) balances.get("openingBalance");
+        BigDecimal closingBalance = (BigDecimal) balances.get("closingBalance");
+
+        StreamingResponseBody body = outputStream -> statementStreamService.writeStatement(outputStream, format,
+                accountId, accountNumber, accountType, startDateStr, endDateStr, startDate, endDate, openingBalance, closingBalance, () -> { });
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\""
+                        + StatementStreamService.fileName(accountNumber, startDateStr, endDateStr, format) + "\"")
+                .contentType(MediaType.parseMediaType(StatementStreamService.contentType(format)))
+                .body(body);
+    }
+
+    // Fresh cache hit: no DB access at all. Otherwise the content key comes from two aggregate queries (balances and
+    // the period fingerprint), and the rows are read once, to render, only if no identical statement is on disk.
+    private ResponseEntity<Resource> serveCachedStatement(Long accountId, String startDateStr, String endDateStr,
+                                                          Instant startDate, Instant endDate, String format,
+                                                          String ifNoneMatch) throws Exception {
+        String normalizedFormat = format.toLowerCase(Locale.ROOT);
+        StatementCacheService.CachedStatement cached =
+                statementCacheService.findFresh(accountId, startDateStr, endDateStr, normalizedFormat);
+
+        if (cached == null) {
+            long generation = statementCacheService.currentGeneration(accountId);
+            Account account = accountService.getAccountById(accountId);
+            String accountNumber = account.getAccountNumber();
+            AccountType accountType = account.getAccountType();
+            Map<String, Object> balances = transactionService.calculateStatementOpeningAndClosing(accountId, startDate, endDate);
+            BigDecimal openingBalance = (BigDecimal) balances.get("openingBalance");
+            BigDecimal closingBalance = (BigDecimal) balances.get("closingBalance");
+            String fingerprint = transactionService.calculateStatementFingerprint(accountId, startDate, endDate);
+
+            String contentKey = StatementCacheService.contentKey(accountId, startDateStr, endDateStr, normalizedFormat,
+                    fingerprint, openingBalance, closingBalance);
+            cached = statementCacheService.getOrRender(accountId, startDateStr, endDateStr, normalizedFormat, contentKey,
+                    StatementStreamService.fileName(accountNumber, startDateStr, endDateStr, normalizedFormat),
+                    StatementStreamService.contentType(normalizedFormat), true, generation,
+                    out -> statementStreamService.writeStatement(out, normalizedFormat, accountId, accountNumber,
+                            accountType, startDateStr, endDateStr, startDate, endDate, openingBalance, closingBalance, () -> { }));
+        }
+
+        if (ifNoneMatch != null && (ifNoneMatch.contains(cached.getETag()) || "*".equals(ifNoneMatch.trim()))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(cached.getETag()).build();
+        }
+
+        return ResponseEntity.ok()
+                .eTag(cached.getETag())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + cached.getFileName() + "\"")
+                .contentType(MediaType.parseMediaType(cached.getContentType()))
+                .contentLength(Files.size(cached.getPath()))
+                .body(new FileSystemResource(cached.getPath()));
+    }
 }
@@ -1,19 +1,34 @@
 package com.santhan.banking_system.controller;
 
+import com.santhan.banking_system.config.ReadWriteRoutingDataSource;
+import com.santhan.banking_system.dto.AccountSummary;
+import com.santhan.banking_system.dto.FraudAlertFilter;
+import com.santhan.banking_system.dto.FraudAlertSummary;
+import com.santhan.banking_system.dto.TransactionSummary;
 import com.santhan.banking_system.model.User;
 import com.santhan.banking_system.model.Account;
 import com.santhan.banking_system.model.KycStatus;
 import com.santhan.banking_system.model.AccountType;
 import com.santhan.banking_system.model.FraudAlert;
 import com.santhan.banking_system.model.FraudAlert.AlertStatus;
-import com.santhan.banking_system.model.Transaction; // Import Transaction model
 
 import com.santhan.banking_system.service.UserService;
 import com.santhan.banking_system.service.AccountService;
 import com.santhan.banking_system.service.TransactionService; // Import TransactionService
 import com.santhan.banking_system.service.FraudAlertService;
-
+import com.santhan.banking_system.service.DashboardSummaryService;
+import com.santhan.banking_system.service.BulkStatementService;
+import com.santhan.banking_system.service.FraudRuleEngine;
+import com.santhan.banking_system.service.FraudBacktestService;
+import com.santhan.banking_system.service.FraudPreAuthorizationService;
+import com.santhan.banking_system.service.FraudAlertEventHub;
+import com.santhan.banking_system.service.OtpStore;
+import com.santhan.banking_system.service.RateLimiter;
+
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -21,10 +36,24 @@ import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.server.ResponseStatusException;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
 
 @Controller
 @RequestMapping("/admin")
@@ -35,53 +64,75 @@ public class AdminController {
     private final AccountService accountService;
     private final TransactionService transactionService;
     private final FraudAlertService fraudAlertService;
+    private final DashboardSummaryService dashboardSummaryService;
+    private final ObjectProvider<ReadWriteRoutingDataSource> routingDataSource; // Only present when the read replica is enabled
+    private final BulkStatementService bulkStatementService;
+    private final FraudRuleEngine fraudRuleEngine;
+    private final FraudBacktestService fraudBacktestService;
+    private final FraudPreAuthorizationService fraudPreAuthorizationService;
+    private final FraudAlertEventHub fraudAlertEventHub;
+    private final OtpStore otpStore;
+    private final RateLimiter rateLimiter;
+
+    // Rows per drill-down table on the admin dashboard
+    private static final int DASHBOARD_PAGE_SIZE = 20;
+    // Alerts per page of the alert history endpoint (default and upper bound)
+    private static final int ALERT_HISTORY_PAGE_SIZE = 50;
+    private static final int ALERT_HISTORY_MAX_PAGE_SIZE = 200;
+    // Alerts per bulk status update
+    private static final int MAX_BULK_ALERT_IDS = 1000;
 
     @Autowired
     public AdminController(UserService userService, AccountService accountService,
                            TransactionService transactionService,
-                           FraudAlertService fraudAlertService) {
+                           FraudAlertService fraudAlertService,
+                           DashboardSummaryService dashboardSummaryService,
+                           ObjectProvider<ReadWriteRoutingDataSource> routingDataSource,
+                           BulkStatementService bulkStatementService,
+                           FraudRuleEngine fraudRuleEngine,
+                           FraudBacktestService fraudBacktestService,
+                           FraudPreAuthorizationService fraudPreAuthorizationService,
+                           FraudAlertEventHub fraudAlertEventHub,
+                           OtpStore otpStore,
+                           RateLimiter rateLimiter) {
         this.userService = userService;
         this.accountService = accountService;
         this.transactionService = transactionService;
         this.fraudAlertService = fraudAlertService;
+        this.dashboardSummaryService = dashboardSummaryService;
+        this.routingDataSource = routingDataSource;
+        this.bulkStatementService = bulkStatementService;
+        this.fraudRuleEngine = fraudRuleEngine;
+        this.fraudBacktestService = fraudBacktestService;
+        this.fraudPreAuthorizationService = fraudPreAuthorizationService;
+        this.fraudAlertEventHub = fraudAlertEventHub;
+        this.otpStore = otpStore;
+        this.rateLimiter = rateLimiter;
     }
 
     @GetMapping("/dashboard")
-    @Transactional
-    public String viewAdminDashboard(Model model) {
+    public String viewAdminDashboard(@RequestParam(value = "usersPage", defaultValue = "0") int usersPage,
+                                     @RequestParam(value = "accountsPage", defaultValue = "0") int accountsPage,
+                                     @RequestParam(value = "alertsPage", defaultValue = "0") int alertsPage,
+                                     Model model) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         model.addAttribute("username", authentication.getName());
         model.addAttribute("message", "Welcome, Admin! This is the Admin Dashboard.");
 
-        List<User> allUsers = userService.getAllUsers();
-        allUsers.forEach(user -> {
-            if (user.getRole() != null) {
-                user.getRole().name(); // Eagerly fetch role if needed for display
-            }
-        });
+        // Totals come from in-memory counters; the tables below only load one page each
+        model.addAttribute("summary", dashboardSummaryService.getSummary());
 
-        List<Account> allAccounts = accountService.getAllAccounts();
-        allAccounts.forEach(account -> {
-            if (account.getUser() != null) {
-                account.getUser().getUsername(); // Eagerly fetch username if needed for display
-            }
-        });
-
-        List<FraudAlert> pendingAlerts = fraudAlertService.getAlertsByStatus(AlertStatus.PENDING);
-        pendingAlerts.forEach(alert -> {
-            if (alert.getTransaction() != null) {
-                if (alert.getTransaction().getSourceAccount() != null) {
-                    alert.getTransaction().getSourceAccount().getAccountNumber();
-                }
-                if (alert.getTransaction().getDestinationAccount() != null) {
-                    alert.getTransaction().getDestinationAccount().getAccountNumber();
-                }
-            }
-        });
+        Slice<User> users = userService.getUsersPage(PageRequest.of(Math.max(usersPage, 0), DASHBOARD_PAGE_SIZE));
+        Slice<AccountSummary> accounts = accountService.getAccountSummariesPage(PageRequest.of(Math.max(accountsPage, 0), DASHBOARD_PAGE_SIZE));
+        Slice<FraudAlertSummary> pendingAlerts = fraudAlertService.getAlertSummariesPageByStatus(AlertStatus.PENDING,
+                PageRequest.of(Math.max(alertsPage, 0), DASHBOARD_PAGE_SIZE));
 
-        model.addAttribute("users", allUsers);
-        model.addAttribute("accounts", allAccounts);
-        model.addAttribute("pendingAlerts", pendingAlerts);
+        model.addAttribute("users", users.getContent());
+        model.addAttribute("accounts", accounts.getContent());
+        model.addAttribute("pendingAlerts", pendingAlerts.getContent());
+        model.addAttribute("usersSlice", users);
+        model.addAttribute("accountsSlice", accounts);
+        model.addAttribute("alertsSlice", pendingAlerts);
 
         return "admin/dashboard";
     }
@@ -130,22 +181,13 @@ public class AdminController {
     // --- ACCOUNT MANAGEMENT ---
 
     @GetMapping("/accounts/edit/{id}")
-    @Transactional
     public String showEditAccountForm(@PathVariable Long id, Model model, RedirectAttributes redirectAttributes) {
         try {
-            Account account = accountService.getAccountById(id);
-            if (account.getUser() != null) {
-                account.getUser().getUsername();
-            }
+            Account account = accountService.getAccountWithOwner(id);
             model.addAttribute("account", account);
             model.addAttribute("allAccountTypes", AccountType.values());
 
             List<User> allUsers = userService.getAllUsers();
-            allUsers.forEach(user -> {
-                if (user.getRole() != null) {
-                    user.getRole().name();
-                }
-            });
             model.addAttribute("allUsers", allUsers);
             return "admin/edit-account";
         } catch (Exception e) {
@@ -179,24 +221,9 @@ public class AdminController {
     // --- TRANSACTION MANAGEMENT (NEW/UPDATED SECTION) ---
 
     @GetMapping("/transactions")
-    @Transactional(readOnly = true) // Use readOnly for GET requests to optimize
     public String manageTransactions(Model model) {
-        List<Transaction> transactions = transactionService.getAllTransactions();
-        // Eagerly fetch associated accounts and users for display in the view
-        transactions.forEach(transaction -> {
-            if (transaction.getSourceAccount() != null) {
-                transaction.getSourceAccount().getAccountNumber();
-                if (transaction.getSourceAccount().getUser() != null) {
-                    transaction.getSourceAccount().getUser().getUsername();
-                }
-            }
-            if (transaction.getDestinationAccount() != null) {
-                transaction.getDestinationAccount().getAccountNumber();
-                if (transaction.getDestinationAccount().getUser() != null) {
-                    transaction.getDestinationAccount().getUser().getUsername();
-                }
-            }
-        });
+        // Account numbers are resolved by the projection query, so the view never triggers lazy loads
+        List<TransactionSummary> transactions = transactionService.getAllTransactionSummaries();
         model.addAttribute("transactions", transactions);
         return "admin/transactions"; // Ensure you have a Thymeleaf template named transactions.html
     }
@@ -214,6 +241,29 @@ public class AdminController {
         return "redirect:/admin/transactions"; // Redirect back to the transaction list
     }
 
+    // Posts a transaction the fraud pre-check held for review
+    @PostMapping("/transactions/release/{transactionId}")
+    public String releaseHeldTransaction(@PathVariable Long transactionId, RedirectAttributes redirectAttributes) {
+        try {
+            transactionService.releaseHeldTransaction(transactionId);
+            redirectAttributes.addFlashAttribute("success", "Held transaction " + transactionId + " released and posted.");
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            redirectAttributes.addFlashAttribute("error", "Error releasing transaction " + transactionId + ": " + e.getMessage());
+        }
+        return "redirect:/admin/transactions";
+    }
+
+    @PostMapping("/transactions/reject/{transactionId}")
+    public String rejectHeldTransaction(@PathVariable Long transactionId, RedirectAttributes redirectAttributes) {
+        try {
+            transactionService.rejectHeldTransaction(transactionId);
+            redirectAttributes.addFlashAttribute("success", "Held transaction " + transactionId + " rejected; no funds were moved.");
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            redirectAttributes.addFlashAttribute("error", "Error rejecting transaction " + transactionId + ": " + e.getMessage());
+        }
+        return "redirect:/admin/transactions";
+    }
+
     // --- LEDGER INTEGRITY VERIFICATION ---
     @PostMapping("/verify-ledger")
     public String verifyLedger(RedirectAttributes redirectAttributes) {
@@ -232,6 +282,123 @@ public class AdminController {
         return "redirect:/admin/dashboard";
     }
 
+    // --- FRAUD RULES ---
+    // Per-rule latency, hit count and alert rate, plus the active rule settings
+    @GetMapping("/fraud-rules")
+    @ResponseBody
+    public Map<String, Object> fraudRuleMetrics() {
+        return fraudRuleEngine.getMetrics();
+    }
+
+    // Pre-authorization gate: checks, holds, budget overruns and fallbacks
+    @GetMapping("/fraud-preauth")
+    @ResponseBody
+    public Map<String, Object> fraudPreAuthorizationMetrics() {
+        return fraudPreAuthorizationService.getMetrics();
+    }
+
+    // --- OTPS ---
+    // Pending OTPs and issue/verify outcomes
+    @GetMapping("/otp-store")
+    @ResponseBody
+    public Map<String, Object> otpStoreMetrics() {
+        return otpStore.getMetrics();
+    }
+
+    // Rate limit shapes, allowed/limited counts per purpose and bucket map size
+    @GetMapping("/rate-limits")
+    @ResponseBody
+    public Map<String, Object> rateLimitMetrics() {
+        return rateLimiter.getMetrics();
+    }
+
+    // Replays the date range through the rules (optionally with candidate settings in rules-file format)
+    @PostMapping("/fraud-backtest")
+    public String startFraudBacktest(@RequestParam("from") String from,
+                                     @RequestParam("to") String to,
+                                     @RequestParam(value = "settings", required = false) String settings,
+                                     RedirectAttributes redirectAttributes) {
+        try {
+            LocalDate start = LocalDate.parse(from);
+            LocalDate end = LocalDate.parse(to);
+            fraudBacktestService.startBacktest(start, end, settings);
+            redirectAttributes.addFlashAttribute("success", "Fraud backtest for " + start + " to " + end + " started. Results: /admin/fraud-backtest/status");
+        } catch (DateTimeParseException e) {
+            redirectAttributes.addFlashAttribute("error", "Invalid date. Please use YYYY-MM-DD.");
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            redirectAttributes.addFlashAttribute("error", e.getMessage());
+        }
+        return "redirect:/admin/dashboard";
+    }
+
+    @GetMapping("/fraud-backtest/status")
+    @ResponseBody
+    public Map<String, Object> fraudBacktestStatus() {
+        FraudBacktestService.BacktestRun run = fraudBacktestService.getCurrentRun();
+        if (run == null) {
+            return Collections.singletonMap("state", "IDLE");
+        }
+        return run.toMap();
+    }
+
+    @PostMapping("/fraud-backtest/cancel")
+    public String cancelFraudBacktest(RedirectAttributes redirectAttributes) {
+        if (fraudBacktestService.cancelCurrentRun()) {
+            redirectAttributes.addFlashAttribute("success", "Fraud backtest is stopping; partial results stay available.");
+        } else {
+            redirectAttributes.addFlashAttribute("error", "No fraud backtest is in progress.");
+        }
+        return "redirect:/admin/dashboard";
+    }
+
+    // --- DATASOURCE POOLS ---
+    @GetMapping("/datasource-pools")
+    @ResponseBody
+    public Map<String, Object> datasourcePoolMetrics() {
+        ReadWriteRoutingDataSource routing = routingDataSource.getIfAvailable();
+        if (routing == null) {
+            return Collections.singletonMap("replicaEnabled", false);
+        }
+        return routing.getPoolMetrics();
+    }
+
+    // --- BULK STATEMENTS ---
+    @PostMapping("/statements/bulk")
+    public String startBulkStatements(@RequestParam("month") String month,
+                                      @RequestParam(value = "formats", defaultValue = "csv,pdf") String formats,
+                                      RedirectAttributes redirectAttributes) {
+        try {
+            YearMonth period = YearMonth.parse(month);
+            bulkStatementService.startMonthEndRun(period, Arrays.asList(formats.split(",")));
+            redirectAttributes.addFlashAttribute("success", "Bulk statement run for " + period + " started. Progress: /admin/statements/bulk/status");
+        } catch (DateTimeParseException e) {
+            redirectAttributes.addFlashAttribute("error", "Invalid month. Please use YYYY-MM.");
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            redirectAttributes.addFlashAttribute("error", e.getMessage());
+        }
+        return "redirect:/admin/dashboard";
+    }
+
+    @GetMapping("/statements/bulk/status")
+    @ResponseBody
+    public Map<String, Object> bulkStatementStatus() {
+        BulkStatementService.JobStatus status = bulkStatementService.getCurrentJob();
+        if (status == null) {
+            return Collections.singletonMap("state", "IDLE");
+        }
+        return status.toMap();
+    }
+
+    @PostMapping("/statements/bulk/cancel")
+    public String cancelBulkStatements(RedirectAttributes redirectAttributes) {
+        if (bulkStatementService.cancelCurrentJob()) {
+            redirectAttributes.addFlashAttribute("success", "Bulk statement run will stop after the accounts in progress; it can be resumed later.");
+        } else {
+            redirectAttributes.addFlashAttribute("error", "No bulk statement run is in progress.");
+        }
+        return "redirect:/admin/dashboard";
+    }
+
     // --- KYC MANAGEMENT ---
     @GetMapping("/kyc-pending")
     public String listPendingKycSubmissions(Model model) {
@@ -268,47 +435,111 @@ public class AdminController {
     }
 
     // --- FRAUD ALERT MANAGEMENT ---
+    // Alert queue: filtered in the database and paged newest first with a (createdAt, id) cursor
     @GetMapping("/fraud-alerts")
     @PreAuthorize("hasAnyRole('ADMIN', 'EMPLOYEE')")
-    @Transactional
-    public String manageFraudAlerts(@RequestParam(value = "status", required = false) String statusFilter, Model model) {
-        List<FraudAlert> alerts;
-        AlertStatus selectedStatus = null;
+    public String manageFraudAlerts(@RequestParam(value = "status", required = false) String statusFilter,
+                                    @RequestParam(value = "type", required = false) String typeFilter,
+                                    @RequestParam(value = "account", required = false) String accountFilter,
+                                    @RequestParam(value = "from", required = false) String fromFilter,
+                                    @RequestParam(value = "to", required = false) String toFilter,
+                                    @RequestParam(value = "beforeCreatedAt", required = false) String beforeCreatedAt,
+                                    @RequestParam(value = "beforeId", required = false) Long beforeId,
+                                    Model model) {
+        FraudAlertFilter filter;
+        Instant before;
+        try {
+            filter = parseAlertFilter(statusFilter, typeFilter, accountFilter, fromFilter, toFilter);
+            before = beforeCreatedAt == null || beforeCreatedAt.isEmpty() ? null : Instant.parse(beforeCreatedAt);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            model.addAttribute("error", "Invalid alert filter: " + e.getMessage());
+            filter = FraudAlertFilter.none();
+            before = null;
+        }
+        List<FraudAlertSummary> alerts = fraudAlertService.getAlertPage(filter, before, before != null ? beforeId : null, ALERT_HISTORY_PAGE_SIZE);
 
-        if (statusFilter != null && !statusFilter.isEmpty()) {
+        model.addAttribute("alerts", alerts);
+        model.addAttribute("allAlertStatuses", AlertStatus.values());
+        model.addAttribute("allAlertTypes", FraudAlert.AlertType.values());
+        model.addAttribute("selectedStatus", filter.getStatus());
+        model.addAttribute("selectedType", filter.getAlertType());
+        model.addAttribute("accountFilter", filter.getAccountId() != null ? accountFilter : null);
+        model.addAttribute("fromFilter", filter.getCreatedFrom() != null ? fromFilter : null);
+        model.addAttribute("toFilter", filter.getCreatedTo() != null ? toFilter : null);
+        model.addAttribute("firstPage", before == null);
+        if (alerts.size() == ALERT_HISTORY_PAGE_SIZE) {
+            FraudAlertSummary last = alerts.get(alerts.size() - 1);
+            model.addAttribute("nextBeforeCreatedAt", last.getCreatedAt().toString());
+            model.addAttribute("nextBeforeId", last.getId());
+        }
+        return "admin/fraud-alerts";
+    }
+
+    // Live feed of created/updated/deleted alerts for the fraud alerts page (EventSource reconnects with Last-Event-ID)
+    @GetMapping(value = "/fraud-alerts/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAnyRole('ADMIN', 'EMPLOYEE')")
+    public SseEmitter streamFraudAlerts(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        Long resumeAfter = null;
+        if (lastEventId != null && !lastEventId.isBlank()) {
             try {
-                selectedStatus = AlertStatus.valueOf(statusFilter.toUpperCase());
-                alerts = fraudAlertService.getAlertsByStatus(selectedStatus);
-            } catch (IllegalArgumentException e) {
-                model.addAttribute("error", "Invalid alert status provided: " + statusFilter);
-                alerts = fraudAlertService.getAllAlerts();
+                resumeAfter = Long.parseLong(lastEventId.trim());
+            } catch (NumberFormatException e) {
+                // Not one of ours; the stream starts from now
             }
-        } else {
-            alerts = fraudAlertService.getAllAlerts();
         }
+        try {
+            return fraudAlertEventHub.subscribe(resumeAfter);
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+        }
+    }
 
-        alerts.forEach(alert -> {
-            if (alert.getTransaction() != null) {
-                if (alert.getTransaction().getSourceAccount() != null) {
-                    alert.getTransaction().getSourceAccount().getAccountNumber();
-                    if (alert.getTransaction().getSourceAccount().getUser() != null) {
-                        alert.getTransaction().getSourceAccount().getUser().getUsername();
-                    }
-                }
-                if (alert.getTransaction().getDestinationAccount() != null) {
-                    alert.getTransaction().getDestinationAccount().getAccountNumber();
-                    if (alert.getTransaction().getDestinationAccount().getUser() != null) {
-                        alert.getTransaction().getDestinationAccount().getUser().getUsername();
-                    }
-                }
-            }
-        });
+    @GetMapping("/fraud-alerts/stream/metrics")
+    @ResponseBody
+    public Map<String, Object> fraudAlertStreamMetrics() {
+        return fraudAlertEventHub.getMetrics();
+    }
 
-        model.addAttribute("alerts", alerts);
-        model.addAttribute("allAlertStatuses", AlertStatus.values());
-        model.addAttribute("selectedStatus", selectedStatus);
+    // Keyset-paginated alert history, newest first, with the same filters as the queue page: pass the nextCursor
+    // of the previous page to continue
+    @GetMapping("/fraud-alerts/history")
+    @PreAuthorize("hasAnyRole('ADMIN', 'EMPLOYEE')")
+    @ResponseBody
+    public Map<String, Object> fraudAlertHistory(@RequestParam(value = "status", required = false) String statusFilter,
+                                                 @RequestParam(value = "type", required = false) String typeFilter,
+                                                 @RequestParam(value = "account", required = false) String accountFilter,
+                                                 @RequestParam(value = "from", required = false) String fromFilter,
+                                                 @RequestParam(value = "to", required = false) String toFilter,
+                                                 @RequestParam(value = "beforeCreatedAt", required = false) String beforeCreatedAt,
+                                                 @RequestParam(value = "beforeId", required = false) Long beforeId,
+                                                 @RequestParam(value = "limit", defaultValue = "" + ALERT_HISTORY_PAGE_SIZE) int limit) {
+        FraudAlertFilter filter;
+        Instant before;
+        try {
+            filter = parseAlertFilter(statusFilter, typeFilter, accountFilter, fromFilter, toFilter);
+            before = beforeCreatedAt == null || beforeCreatedAt.isEmpty() ? null : Instant.parse(beforeCreatedAt);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid alert filter or cursor: " + e.getMessage());
+        }
+        int pageSize = Math.min(Math.max(limit, 1), ALERT_HISTORY_MAX_PAGE_SIZE);
+        List<FraudAlertSummary> page = fraudAlertService.getAlertPage(filter, before, before != null ? beforeId : null, pageSize);
 
-        return "admin/fraud-alerts";
+        List<Map<String, Object>> alerts = new ArrayList<>(page.size());
+        for (FraudAlertSummary alert : page) {
+            alerts.add(FraudAlertEventHub.toMap(alert));
+        }
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("alerts", alerts);
+        if (page.size() == pageSize) {
+            FraudAlertSummary last = page.get(page.size() - 1);
+            Map<String, Object> nextCursor = new LinkedHashMap<>();
+            nextCursor.put("beforeCreatedAt", last.getCreatedAt().toString());
+            nextCursor.put("beforeId", last.getId());
+            response.put("nextCursor", nextCursor);
+        } else {
+            response.put("nextCursor", null);
+        }
+        return response;
     }
 
     // --- FRAUD ALERT ACTIONS ---
@@ -327,6 +558,32 @@ public class AdminController {
         return "redirect:/admin/fraud-alerts";
     }
 
+    // Sets the status of all selected alerts with one UPDATE
+    @PostMapping("/alerts/bulk-update-status")
+    @PreAuthorize("hasAnyRole('ADMIN', 'EMPLOYEE')")
+    public String bulkUpdateAlertStatus(@RequestParam(value = "alertIds", required = false) List<Long> alertIds,
+                                        @RequestParam("status") String status,
+                                        @RequestParam(value = "returnTo", required = false) String returnTo,
+                                        RedirectAttributes redirectAttributes) {
+        try {
+            AlertStatus newStatus = AlertStatus.valueOf(status.toUpperCase());
+            if (alertIds == null || alertIds.isEmpty()) {
+                redirectAttributes.addFlashAttribute("error", "No alerts selected.");
+            } else if (alertIds.size() > MAX_BULK_ALERT_IDS) {
+                redirectAttributes.addFlashAttribute("error", "At most " + MAX_BULK_ALERT_IDS + " alerts can be updated at once.");
+            } else {
+                int updated = fraudAlertService.bulkUpdateAlertStatus(new LinkedHashSet<>(alertIds), newStatus);
+                redirectAttributes.addFlashAttribute("success", updated + " of " + alertIds.size() + " selected alert(s) set to "
+                        + newStatus.getDisplayName() + ".");
+            }
+        } catch (IllegalArgumentException e) {
+            redirectAttributes.addFlashAttribute("error", "Invalid status: " + status);
+        }
+        // Back to the same filtered view; only a query string is accepted so this cannot redirect elsewhere
+        String query = returnTo != null && returnTo.startsWith("?") && !returnTo.contains("\r") && !returnTo.contains("\n") ? returnTo : "";
+        return "redirect:/admin/fraud-alerts" + query;
+    }
+
     @PostMapping("/alerts/delete/{id}")
     public String deleteAlert(@PathVariable Long id, RedirectAttributes redirectAttributes) {
         try {
@@ -339,4 +596,14 @@ public class AdminController {
         }
         return "redirect:/admin/fraud-alerts";
     }
+
+    // Builds the alert queue filter from request parameters; blank parameters do not filter. Dates are UTC days.
+    private FraudAlertFilter parseAlertFilter(String status, String type, String account, String from, String to) {
+        AlertStatus alertStatus = status == null || status.isEmpty() ? null : AlertStatus.valueOf(status.toUpperCase());
+        FraudAlert.AlertType alertType = type == null || type.isEmpty() ? null : FraudAlert.AlertType.valueOf(type.toUpperCase());
+        Long accountId = account == null || account.isBlank() ? null : accountService.getAccountByNumber(account.trim()).getId();
+        Instant createdFrom = from == null || from.isEmpty() ? null : LocalDate.parse(from).atStartOfDay().toInstant(ZoneOffset.UTC);
+        Instant createdTo = to == null || to.isEmpty() ? null : LocalDate.parse(to).plusDays(1).atStartOfDay().toInstant(ZoneOffset.UTC);
+        return new FraudAlertFilter(alertStatus, alertType, accountId, createdFrom, createdTo);
+    }
 }
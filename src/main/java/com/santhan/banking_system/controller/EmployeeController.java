@@ -1,6 +1,6 @@
 package com.santhan.banking_system.controller;
 
-import com.santhan.banking_system.model.Account; // NEW: Import Account
+import com.santhan.banking_system.dto.AccountSummary;
 import com.santhan.banking_system.model.User;    // NEW: Import User
 import com.santhan.banking_system.service.AccountService; // NEW: Import AccountService
 import com.santhan.banking_system.service.UserService;    // NEW: Import UserService
@@ -60,15 +60,9 @@ public class EmployeeController {
     // NEW: View all accounts (for employees) - no direct edit/delete from this view
     @GetMapping("/accounts")
     @PreAuthorize("hasAnyRole('ADMIN', 'EMPLOYEE')")
-    @Transactional // To fetch lazy-loaded user details in accounts
     public String viewAllAccountsForEmployee(Model model) {
-        List<Account> allAccounts = accountService.getAllAccounts();
-        // Ensure user details in accounts are initialized for Thymeleaf
-        allAccounts.forEach(account -> {
-            if (account.getUser() != null) {
-                account.getUser().getUsername();
-            }
-        });
+        // Owner usernames come from the projection query; no lazy loading in the view
+        List<AccountSummary> allAccounts = accountService.getAllAccountSummaries();
         model.addAttribute("accounts", allAccounts);
         model.addAttribute("title", "All System Accounts (Employee View)");
         return "employee/account-list"; // A new template for employee account list
@@ -125,7 +125,7 @@ public class LoginController {
                 redirectAttributes.addFlashAttribute("errorMessage", "Invalid or expired OTP. Please try again.");
                 return "redirect:/verify-email?username=" + username;
             }
-        } catch (IllegalArgumentException e) {
+        } catch (IllegalArgumentException | IllegalStateException e) { // Includes rate limiting
             redirectAttributes.addFlashAttribute("errorMessage", e.getMessage());
             return "redirect:/verify-email?username=" + username;
         } catch (Exception e) {
@@ -4,9 +4,11 @@ import com.santhan.banking_system.dto.ApiResponse;
 import com.santhan.banking_system.dto.VerificationRequest;
 import com.santhan.banking_system.model.Otp;
 import com.santhan.banking_system.model.User;
+import com.santhan.banking_system.service.RateLimiter;
 import com.santhan.banking_system.service.UserService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -50,6 +52,8 @@ public class VerificationController {
             } else {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(new ApiResponse(false, "Invalid or expired OTP for email verification."));
             }
+        } catch (RateLimiter.LimitExceededException e) {
+            return tooManyRequests(e);
         } catch (IllegalArgumentException | EntityNotFoundException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ApiResponse(false, e.getMessage()));
         } catch (Exception e) {
@@ -85,6 +89,8 @@ public class VerificationController {
             } else {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(new ApiResponse(false, "Invalid or expired OTP for mobile verification."));
             }
+        } catch (RateLimiter.LimitExceededException e) {
+            return tooManyRequests(e);
         } catch (IllegalArgumentException | EntityNotFoundException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ApiResponse(false, e.getMessage()));
         } catch (Exception e) {
@@ -134,6 +140,8 @@ public class VerificationController {
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ApiResponse(false, "Unsupported OTP purpose for resending."));
             }
 
+        } catch (RateLimiter.LimitExceededException e) {
+            return tooManyRequests(e);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ApiResponse(false, e.getMessage()));
         } catch (IllegalStateException e) {
@@ -144,4 +152,10 @@ public class VerificationController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new ApiResponse(false, "An error occurred while resending OTP."));
         }
     }
+
+    private static ResponseEntity<ApiResponse> tooManyRequests(RateLimiter.LimitExceededException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(e.getRetryAfterSeconds()))
+                .body(new ApiResponse(false, e.getMessage()));
+    }
 }
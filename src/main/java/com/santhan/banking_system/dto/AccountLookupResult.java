@@ -0,0 +1,42 @@
+package com.santhan.banking_system.dto;
+
+import com.santhan.banking_system.model.AccountType;
+
+// One typeahead hit for the transfer form: just enough to label the option and submit its id.
+// Instances live inside AccountLookupService's prefix index and are shared between lookups, so they are immutable.
+public class AccountLookupResult {
+
+    private final Long id;
+    private final String accountNumber;
+    private final AccountType accountType;
+    private final Long ownerId;
+    private final String ownerUsername;
+
+    public AccountLookupResult(Long id, String accountNumber, AccountType accountType, Long ownerId, String ownerUsername) {
+        this.id = id;
+        this.accountNumber = accountNumber;
+        this.accountType = accountType;
+        this.ownerId = ownerId;
+        this.ownerUsername = ownerUsername;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    public AccountType getAccountType() {
+        return accountType;
+    }
+
+    public Long getOwnerId() {
+        return ownerId;
+    }
+
+    public String getOwnerUsername() {
+        return ownerUsername;
+    }
+}
@@ -0,0 +1,19 @@
+package com.santhan.banking_system.dto;
+
+import com.santhan.banking_system.model.AccountType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Read-only projection of an Account together with its owner's username.
+// Populated by a single join query in AccountRepository so list pages never touch the lazy Account.user association.
+public interface AccountSummary {
+    Long getId();
+    String getAccountNumber();
+    AccountType getAccountType();
+    BigDecimal getBalance();
+    Long getOwnerId();
+    String getOwnerUsername();
+    LocalDateTime getCreatedAt();
+    LocalDateTime getUpdatedAt();
+}
@@ -0,0 +1,74 @@
+package com.santhan.banking_system.dto;
+
+import com.santhan.banking_system.model.AccountType;
+import com.santhan.banking_system.model.KycStatus;
+import com.santhan.banking_system.model.UserRole;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Map;
+
+// Immutable point-in-time snapshot of the admin dashboard aggregates.
+// Produced by DashboardSummaryService from in-memory counters, never by scanning the users/accounts tables.
+public class DashboardSummary {
+
+    private final Map<UserRole, Long> usersByRole;
+    private final Map<KycStatus, Long> usersByKycStatus;
+    private final Map<AccountType, Long> accountsByType;
+    private final Map<AccountType, BigDecimal> balancesByType;
+    private final long totalUsers;
+    private final long totalAccounts;
+    private final BigDecimal totalBalance;
+    private final long pendingAlerts;
+    private final Instant lastResyncAt;
+
+    public DashboardSummary(Map<UserRole, Long> usersByRole, Map<KycStatus, Long> usersByKycStatus,
+                            Map<AccountType, Long> accountsByType, Map<AccountType, BigDecimal> balancesByType,
+                            long pendingAlerts, Instant lastResyncAt) {
+        this.usersByRole = usersByRole;
+        this.usersByKycStatus = usersByKycStatus;
+        this.accountsByType = accountsByType;
+        this.balancesByType = balancesByType;
+        this.totalUsers = usersByRole.values().stream().mapToLong(Long::longValue).sum();
+        this.totalAccounts = accountsByType.values().stream().mapToLong(Long::longValue).sum();
+        this.totalBalance = balancesByType.values().stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+        this.pendingAlerts = pendingAlerts;
+        this.lastResyncAt = lastResyncAt;
+    }
+
+    public Map<UserRole, Long> getUsersByRole() {
+        return usersByRole;
+    }
+
+    public Map<KycStatus, Long> getUsersByKycStatus() {
+        return usersByKycStatus;
+    }
+
+    public Map<AccountType, Long> getAccountsByType() {
+        return accountsByType;
+    }
+
+    public Map<AccountType, BigDecimal> getBalancesByType() {
+        return balancesByType;
+    }
+
+    public long getTotalUsers() {
+        return totalUsers;
+    }
+
+    public long getTotalAccounts() {
+        return totalAccounts;
+    }
+
+    public BigDecimal getTotalBalance() {
+        return totalBalance;
+    }
+
+    public long getPendingAlerts() {
+        return pendingAlerts;
+    }
+
+    public Instant getLastResyncAt() {
+        return lastResyncAt;
+    }
+}
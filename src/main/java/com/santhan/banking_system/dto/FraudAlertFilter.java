@@ -0,0 +1,49 @@
+package com.santhan.banking_system.dto;
+
+import com.santhan.banking_system.model.FraudAlert.AlertStatus;
+import com.santhan.banking_system.model.FraudAlert.AlertType;
+
+import java.time.Instant;
+
+// Optional criteria for the fraud alert queue; a null field does not filter. The account matches either side of the
+// flagged transaction, and the date range applies to the alert's createdAt (from inclusive, to exclusive).
+public class FraudAlertFilter {
+
+    private final AlertStatus status;
+    private final AlertType alertType;
+    private final Long accountId;
+    private final Instant createdFrom;
+    private final Instant createdTo;
+
+    public FraudAlertFilter(AlertStatus status, AlertType alertType, Long accountId, Instant createdFrom, Instant createdTo) {
+        this.status = status;
+        this.alertType = alertType;
+        this.accountId = accountId;
+        this.createdFrom = createdFrom;
+        this.createdTo = createdTo;
+    }
+
+    public static FraudAlertFilter none() {
+        return new FraudAlertFilter(null, null, null, null, null);
+    }
+
+    public AlertStatus getStatus() {
+        return status;
+    }
+
+    public AlertType getAlertType() {
+        return alertType;
+    }
+
+    public Long getAccountId() {
+        return accountId;
+    }
+
+    public Instant getCreatedFrom() {
+        return createdFrom;
+    }
+
+    public Instant getCreatedTo() {
+        return createdTo;
+    }
+}
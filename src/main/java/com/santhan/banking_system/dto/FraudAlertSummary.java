@@ -0,0 +1,24 @@
+package com.santhan.banking_system.dto;
+
+import com.santhan.banking_system.model.FraudAlert.AlertStatus;
+import com.santhan.banking_system.model.FraudAlert.AlertType;
+import com.santhan.banking_system.model.TransactionType;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+// Read-only projection of a FraudAlert with a summary of the flagged transaction,
+// fetched in one join query instead of walking alert -> transaction -> account lazily per row.
+public interface FraudAlertSummary {
+    Long getId();
+    AlertType getAlertType();
+    String getDescription();
+    AlertStatus getStatus();
+    Instant getCreatedAt();
+    Instant getLastUpdatedAt();
+    Long getTransactionId();
+    BigDecimal getTransactionAmount();
+    TransactionType getTransactionType();
+    String getSourceAccountNumber();
+    String getDestinationAccountNumber();
+}
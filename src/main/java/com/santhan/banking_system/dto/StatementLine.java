@@ -0,0 +1,29 @@
+package com.santhan.banking_system.dto;
+
+import com.santhan.banking_system.model.TransactionType;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+// One statement row as read by the keyset-paged statement queries in TransactionRepository.
+// Carries both account ids (needed for the ledger hash) and account numbers (shown on the statement),
+// so streaming a statement never loads Transaction or Account entities.
+public interface StatementLine {
+    Long getId();
+    TransactionType getTransactionType();
+    BigDecimal getAmount();
+    String getDescription();
+    Instant getTransactionDate();
+    String getTransactionHash();
+    String getStatus();
+    Long getSourceAccountId();
+    String getSourceAccountNumber();
+    Long getDestinationAccountId();
+    String getDestinationAccountNumber();
+
+    // Held (PENDING_REVIEW) and REJECTED rows are part of the ledger hash but moved no money, so the
+    // booked-entry formats leave them out to keep opening balance + entries = closing balance
+    default boolean isBooked() {
+        return !"PENDING_REVIEW".equals(getStatus()) && !"REJECTED".equals(getStatus());
+    }
+}
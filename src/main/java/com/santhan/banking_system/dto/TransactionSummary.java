@@ -0,0 +1,20 @@
+package com.santhan.banking_system.dto;
+
+import com.santhan.banking_system.model.TransactionType;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+// Read-only projection of a Transaction with the account numbers of both sides already resolved.
+// Source/destination are null for deposits and withdrawals respectively (the queries use LEFT JOINs).
+public interface TransactionSummary {
+    Long getId();
+    TransactionType getTransactionType();
+    BigDecimal getAmount();
+    String getDescription();
+    Instant getTransactionDate();
+    String getStatus();
+    Boolean getReversed();
+    String getSourceAccountNumber();
+    String getDestinationAccountNumber();
+}
@@ -4,7 +4,15 @@ import jakarta.persistence.*;
 import java.time.Instant;
 
 @Entity
-@Table(name = "fraud_alerts")
+@Table(name = "fraud_alerts", uniqueConstraints = {
+        // At most one alert of each type per transaction; FraudAlertRepository.insertIgnoringDuplicates relies on it
+        @UniqueConstraint(name = "uk_fraud_alert_transaction_type", columnNames = {"transaction_id", "alert_type"})
+}, indexes = {
+        // Keyset pages of the alert queue, newest first, unfiltered or filtered by status or type
+        @Index(name = "idx_fraud_alert_created", columnList = "created_at, id"),
+        @Index(name = "idx_fraud_alert_status_created", columnList = "status, created_at, id"),
+        @Index(name = "idx_fraud_alert_type_created", columnList = "alert_type, created_at, id")
+})
 public class FraudAlert {
 
     public enum AlertType {
@@ -13,7 +21,12 @@ public class FraudAlert {
         NEWLY_CREATED_ACCOUNT_TRANSFER,
         VELOCITY_CHECK,
         UNUSUAL_LOCATION,
-        SUSPICIOUS_ACCOUNT_INTERACTION
+        SUSPICIOUS_ACCOUNT_INTERACTION,
+        TRANSFER_FAN_IN,
+        TRANSFER_FAN_OUT,
+        TRANSFER_CYCLE,
+        BEHAVIOR_ANOMALY,
+        PRE_AUTHORIZATION_HOLD // Held by the pre-check's fail mode rather than by a rule
     }
 
     public enum AlertStatus {
@@ -1,8 +1,16 @@
 package com.santhan.banking_system.repository;
 
+import com.santhan.banking_system.dto.AccountSummary;
 import com.santhan.banking_system.model.Account;
 import com.santhan.banking_system.model.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -11,4 +19,39 @@ public interface AccountRepository extends JpaRepository<Account, Long> {
     List<Account> findByUser(User user);
     // NEW: Find accounts by user ID
     List<Account> findByUserId(Long userId); // Spring Data JPA will automatically implement this
+    // Ownership probe for authorization: a single indexed lookup, no Account/User entity is loaded
+    boolean existsByIdAndUserId(Long id, Long userId);
+
+    // Warm-up rows for NewAccountRegistry: [accountId, createdAt]
+    @Query("SELECT a.id, a.createdAt FROM Account a WHERE a.createdAt > :since")
+    List<Object[]> findCreationTimesSince(@Param("since") LocalDateTime since);
+
+    // Loads the account and its owner in one query, for pages that display owner details
+    @EntityGraph(attributePaths = {"user"})
+    Optional<Account> findWithUserById(Long id);
+
+    // --- List-page projections: one join query per page instead of one lazy User load per row ---
+    String ACCOUNT_SUMMARY_SELECT = "SELECT a.id AS id, a.accountNumber AS accountNumber, a.accountType AS accountType, " +
+            "a.balance AS balance, u.id AS ownerId, u.username AS ownerUsername, " +
+            "a.createdAt AS createdAt, a.updatedAt AS updatedAt FROM Account a JOIN a.user u ";
+
+    @Query(ACCOUNT_SUMMARY_SELECT + "ORDER BY a.id")
+    List<AccountSummary> findAllSummaries();
+
+    @Query(ACCOUNT_SUMMARY_SELECT + "WHERE u.id = :userId ORDER BY a.id")
+    List<AccountSummary> findSummariesByUserId(@Param("userId") Long userId);
+
+    @Query(ACCOUNT_SUMMARY_SELECT + "ORDER BY a.id")
+    Slice<AccountSummary> findSummaries(Pageable pageable);
+
+    @Query(ACCOUNT_SUMMARY_SELECT + "WHERE a.id IN :ids ORDER BY a.id")
+    List<AccountSummary> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Keyset page of accounts with id > afterId, for batch jobs that walk every account; always use page 0
+    @Query(ACCOUNT_SUMMARY_SELECT + "WHERE a.id > :afterId ORDER BY a.id")
+    List<AccountSummary> findSummariesAfterId(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Aggregates for DashboardSummaryService re-sync: rows of [AccountType, count, sum(balance)]
+    @Query("SELECT a.accountType, COUNT(a), COALESCE(SUM(a.balance), 0) FROM Account a GROUP BY a.accountType")
+    List<Object[]> sumAccountsGroupedByType();
 }
\ No newline at end of file
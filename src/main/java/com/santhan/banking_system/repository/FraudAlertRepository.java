@@ -1,23 +1,63 @@
 package com.santhan.banking_system.repository;
 
+import com.santhan.banking_system.dto.FraudAlertSummary;
 import com.santhan.banking_system.model.FraudAlert;
 import com.santhan.banking_system.model.FraudAlert.AlertStatus;
 import com.santhan.banking_system.model.FraudAlert.AlertType;
 import com.santhan.banking_system.model.Transaction;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface FraudAlertRepository extends JpaRepository<FraudAlert, Long> {
-    List<FraudAlert> findByStatusOrderByCreatedAtDesc(AlertStatus status);
-    List<FraudAlert> findAllByOrderByCreatedAtDesc();
-
+public interface FraudAlertRepository extends JpaRepository<FraudAlert, Long>, FraudAlertRepositoryCustom {
     // Fix for: Cannot resolve method 'findByTransactionAndAlertType'
     Optional<FraudAlert> findByTransactionAndAlertType(Transaction transaction, AlertType alertType);
 
     // Keep this if you still use it elsewhere, otherwise it can be removed
     Optional<FraudAlert> findByTransaction_Id(Long transactionId);
+
+    // --- List-page projections: alert, transaction and both account numbers in one query ---
+    String ALERT_SUMMARY_SELECT = "SELECT f.id AS id, f.alertType AS alertType, f.description AS description, f.status AS status, " +
+            "f.createdAt AS createdAt, f.lastUpdatedAt AS lastUpdatedAt, t.id AS transactionId, t.amount AS transactionAmount, " +
+            "t.transactionType AS transactionType, s.accountNumber AS sourceAccountNumber, d.accountNumber AS destinationAccountNumber " +
+            "FROM FraudAlert f JOIN f.transaction t LEFT JOIN t.sourceAccount s LEFT JOIN t.destinationAccount d ";
+
+    @Query(ALERT_SUMMARY_SELECT + "WHERE f.status = :status ORDER BY f.createdAt DESC")
+    Slice<FraudAlertSummary> findSummariesByStatus(@Param("status") AlertStatus status, Pageable pageable);
+
+    // Alerts of one transaction, for the live alert stream
+    @Query(ALERT_SUMMARY_SELECT + "WHERE t.id = :transactionId")
+    List<FraudAlertSummary> findSummariesByTransactionId(@Param("transactionId") Long transactionId);
+
+    @Query(ALERT_SUMMARY_SELECT + "WHERE f.id = :id")
+    Optional<FraudAlertSummary> findSummaryById(@Param("id") Long id);
+
+    @Query(ALERT_SUMMARY_SELECT + "WHERE f.id IN :ids")
+    List<FraudAlertSummary> findSummariesByIds(@Param("ids") Collection<Long> ids);
+
+    // --- Bulk disposition: the status counts first (for the dashboard counter), then one set-based UPDATE ---
+    @Query("SELECT f.status, COUNT(f) FROM FraudAlert f WHERE f.id IN :ids AND f.status <> :newStatus GROUP BY f.status")
+    List<Object[]> countStatusesToChange(@Param("ids") Collection<Long> ids, @Param("newStatus") AlertStatus newStatus);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE FraudAlert f SET f.status = :newStatus, f.lastUpdatedAt = :updatedAt WHERE f.id IN :ids AND f.status <> :newStatus")
+    int updateStatuses(@Param("ids") Collection<Long> ids, @Param("newStatus") AlertStatus newStatus,
+                       @Param("updatedAt") Instant updatedAt);
+
+    long countByStatus(AlertStatus status);
+
+    // Recorded dispositions for the backtest: [transactionId, alertType, status] of alerts on transactions in the range
+    @Query("SELECT t.id, f.alertType, f.status FROM FraudAlert f JOIN f.transaction t " +
+            "WHERE t.transactionDate >= :from AND t.transactionDate < :to")
+    List<Object[]> findDispositionsForTransactionsBetween(@Param("from") Instant from, @Param("to") Instant to);
 }
@@ -0,0 +1,29 @@
+package com.santhan.banking_system.repository;
+
+import com.santhan.banking_system.dto.FraudAlertFilter;
+import com.santhan.banking_system.dto.FraudAlertSummary;
+import com.santhan.banking_system.model.FraudAlert;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Write path for fraud alerts that leans on the (transaction_id, alert_type) unique constraint instead of
+ * checking for an existing alert first, and the filtered alert queue whose predicates depend on the filter.
+ */
+public interface FraudAlertRepositoryCustom {
+
+    /**
+     * Inserts the alerts in a single statement (per chunk), silently skipping any whose transaction already has an
+     * alert of the same type. The entities are not attached to the persistence context and their ids stay null.
+     * @return the number of alerts actually inserted.
+     */
+    int insertIgnoringDuplicates(List<FraudAlert> alerts);
+
+    /**
+     * One keyset page of alerts matching the filter, newest first by (createdAt, id). Pass the createdAt and id of
+     * the last alert of the previous page to continue after it, or nulls for the first page. Only the filter's
+     * non-null criteria become predicates, so each combination can use its own index.
+     */
+    List<FraudAlertSummary> findSummaries(FraudAlertFilter filter, Instant beforeCreatedAt, Long beforeId, int limit);
+}
@@ -0,0 +1,225 @@
+package com.santhan.banking_system.repository;
+
+import com.santhan.banking_system.dto.FraudAlertFilter;
+import com.santhan.banking_system.dto.FraudAlertSummary;
+import com.santhan.banking_system.model.FraudAlert;
+import com.santhan.banking_system.model.FraudAlert.AlertStatus;
+import com.santhan.banking_system.model.FraudAlert.AlertType;
+import com.santhan.banking_system.model.TransactionType;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Native insert-or-ignore for fraud alerts. MySQL/MariaDB use ON DUPLICATE KEY UPDATE id = id (not INSERT IGNORE,
+ * which would also turn bad data and foreign key errors into warnings) and PostgreSQL uses ON CONFLICT DO NOTHING,
+ * both as one multi-row statement per chunk. Other databases (H2 in tests) get one
+ * conditional INSERT ... SELECT per alert; there a concurrent duplicate still fails on the unique constraint
+ * instead of being skipped.
+ *
+ * The alert queue query is assembled from the filter's non-null criteria (rather than "(:x IS NULL OR ...)"
+ * guards), so the database sees plain predicates it can match against the (status|alert_type, created_at, id)
+ * indexes.
+ */
+public class FraudAlertRepositoryImpl implements FraudAlertRepositoryCustom {
+
+    private static final String INSERT_COLUMNS =
+            "fraud_alerts (transaction_id, alert_type, description, created_at, last_updated_at, status)";
+    private static final int COLUMN_COUNT = 6;
+    private static final int MAX_ROWS_PER_STATEMENT = 100;
+
+    private enum InsertStyle { MYSQL, POSTGRESQL, PORTABLE }
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private volatile InsertStyle insertStyle;
+
+    @Override
+    public int insertIgnoringDuplicates(List<FraudAlert> alerts) {
+        if (alerts.isEmpty()) {
+            return 0;
+        }
+        InsertStyle style = insertStyle();
+        int inserted = 0;
+        if (style == InsertStyle.PORTABLE) {
+            for (FraudAlert alert : alerts) {
+                inserted += insertIfAbsent(alert);
+            }
+            return inserted;
+        }
+        for (int from = 0; from < alerts.size(); from += MAX_ROWS_PER_STATEMENT) {
+            List<FraudAlert> chunk = alerts.subList(from, Math.min(from + MAX_ROWS_PER_STATEMENT, alerts.size()));
+            inserted += insertChunk(chunk, style);
+        }
+        return inserted;
+    }
+
+    private int insertChunk(List<FraudAlert> chunk, InsertStyle style) {
+        StringBuilder sql = new StringBuilder("INSERT INTO ").append(INSERT_COLUMNS).append(" VALUES ");
+        for (int row = 0; row < chunk.size(); row++) {
+            if (row > 0) {
+                sql.append(", ");
+            }
+            appendPlaceholders(sql, row * COLUMN_COUNT);
+        }
+        if (style == InsertStyle.POSTGRESQL) {
+            sql.append(" ON CONFLICT (transaction_id, alert_type) DO NOTHING");
+        } else {
+            sql.append(" ON DUPLICATE KEY UPDATE id = id"); // Only a duplicate key is skipped
+        }
+
+        Query query = entityManager.createNativeQuery(sql.toString());
+        for (int row = 0; row < chunk.size(); row++) {
+            bindAlert(query, chunk.get(row), row * COLUMN_COUNT);
+        }
+        int affected = query.executeUpdate(); // Skipped duplicates do not count as affected rows...
+        // ...except on MySQL connections with found-rows counting (the Connector/J default), so count our own rows
+        return style == InsertStyle.MYSQL ? countStored(chunk) : affected;
+    }
+
+    // Rows of the chunk that this insert stored: same (transaction, type) key and the chunk's own created_at
+    private int countStored(List<FraudAlert> chunk) {
+        StringBuilder sql = new StringBuilder("SELECT COUNT(*) FROM fraud_alerts WHERE ");
+        for (int row = 0; row < chunk.size(); row++) {
+            int offset = row * 3;
+            sql.append(row > 0 ? " OR " : "")
+                    .append("(transaction_id = ?").append(offset + 1)
+                    .append(" AND alert_type = ?").append(offset + 2)
+                    .append(" AND created_at = ?").append(offset + 3).append(')');
+        }
+        Query query = entityManager.createNativeQuery(sql.toString());
+        for (int row = 0; row < chunk.size(); row++) {
+            FraudAlert alert = chunk.get(row);
+            query.setParameter(row * 3 + 1, alert.getTransaction().getId());
+            query.setParameter(row * 3 + 2, alert.getAlertType().name());
+            query.setParameter(row * 3 + 3, alert.getCreatedAt());
+        }
+        return ((Number) query.getSingleResult()).intValue();
+    }
+
+    private int insertIfAbsent(FraudAlert alert) {
+        StringBuilder sql = new StringBuilder("INSERT INTO ").append(INSERT_COLUMNS).append(" SELECT ");
+        for (int column = 1; column <= COLUMN_COUNT; column++) {
+            sql.append(column > 1 ? ", ?" : "?").append(column);
+        }
+        sql.append(" FROM (SELECT COUNT(*) AS existing FROM fraud_alerts WHERE transaction_id = ?1 AND alert_type = ?2) e")
+                .append(" WHERE e.existing = 0");
+
+        Query query = entityManager.createNativeQuery(sql.toString());
+        bindAlert(query, alert, 0);
+        return query.executeUpdate();
+    }
+
+    private static void appendPlaceholders(StringBuilder sql, int offset) {
+        sql.append('(');
+        for (int column = 1; column <= COLUMN_COUNT; column++) {
+            sql.append(column > 1 ? ", ?" : "?").append(offset + column);
+        }
+        sql.append(')');
+    }
+
+    // Column order matches INSERT_COLUMNS
+    private static void bindAlert(Query query, FraudAlert alert, int offset) {
+        query.setParameter(offset + 1, alert.getTransaction().getId());
+        query.setParameter(offset + 2, alert.getAlertType().name());
+        query.setParameter(offset + 3, alert.getDescription());
+        query.setParameter(offset + 4, alert.getCreatedAt());
+        query.setParameter(offset + 5, alert.getLastUpdatedAt());
+        query.setParameter(offset + 6, alert.getStatus().name());
+    }
+
+    @Override
+    public List<FraudAlertSummary> findSummaries(FraudAlertFilter filter, Instant beforeCreatedAt, Long beforeId, int limit) {
+        StringBuilder jpql = new StringBuilder("SELECT f.id, f.alertType, f.description, f.status, f.createdAt, f.lastUpdatedAt, ")
+                .append("t.id, t.amount, t.transactionType, s.accountNumber, d.accountNumber ")
+                .append("FROM FraudAlert f JOIN f.transaction t LEFT JOIN t.sourceAccount s LEFT JOIN t.destinationAccount d WHERE 1 = 1");
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        if (filter.getStatus() != null) {
+            jpql.append(" AND f.status = :status");
+            parameters.put("status", filter.getStatus());
+        }
+        if (filter.getAlertType() != null) {
+            jpql.append(" AND f.alertType = :alertType");
+            parameters.put("alertType", filter.getAlertType());
+        }
+        if (filter.getAccountId() != null) {
+            jpql.append(" AND (s.id = :accountId OR d.id = :accountId)");
+            parameters.put("accountId", filter.getAccountId());
+        }
+        if (filter.getCreatedFrom() != null) {
+            jpql.append(" AND f.createdAt >= :createdFrom");
+            parameters.put("createdFrom", filter.getCreatedFrom());
+        }
+        if (filter.getCreatedTo() != null) {
+            jpql.append(" AND f.createdAt < :createdTo");
+            parameters.put("createdTo", filter.getCreatedTo());
+        }
+        if (beforeCreatedAt != null && beforeId != null) {
+            jpql.append(" AND (f.createdAt < :beforeCreatedAt OR (f.createdAt = :beforeCreatedAt AND f.id < :beforeId))");
+            parameters.put("beforeCreatedAt", beforeCreatedAt);
+            parameters.put("beforeId", beforeId);
+        }
+        jpql.append(" ORDER BY f.createdAt DESC, f.id DESC");
+
+        TypedQuery<Object[]> query = entityManager.createQuery(jpql.toString(), Object[].class);
+        parameters.forEach(query::setParameter);
+        query.setMaxResults(limit);
+        List<Object[]> rows = query.getResultList();
+        List<FraudAlertSummary> summaries = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            summaries.add(new Row(row));
+        }
+        return summaries;
+    }
+
+    private InsertStyle insertStyle() {
+        InsertStyle style = insertStyle;
+        if (style == null) {
+            Dialect dialect = entityManager.getEntityManagerFactory()
+                    .unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+            if (dialect instanceof MySQLDialect) { // Includes MariaDB
+                style = InsertStyle.MYSQL;
+            } else if (dialect instanceof PostgreSQLDialect) {
+                style = InsertStyle.POSTGRESQL;
+            } else {
+                style = InsertStyle.PORTABLE;
+            }
+            insertStyle = style;
+        }
+        return style;
+    }
+
+    // FraudAlertSummary over one result row, in the order of the SELECT above
+    private static class Row implements FraudAlertSummary {
+        private final Object[] values;
+
+        Row(Object[] values) {
+            this.values = values;
+        }
+
+        @Override public Long getId() { return (Long) values[0]; }
+        @Override public AlertType getAlertType() { return (AlertType) values[1]; }
+        @Override public String getDescription() { return (String) values[2]; }
+        @Override public AlertStatus getStatus() { return (AlertStatus) values[3]; }
+        @Override public Instant getCreatedAt() { return (Instant) values[4]; }
+        @Override public Instant getLastUpdatedAt() { return (Instant) values[5]; }
+        @Override public Long getTransactionId() { return (Long) values[6]; }
+        @Override public BigDecimal getTransactionAmount() { return (BigDecimal) values[7]; }
+        @Override public TransactionType getTransactionType() { return (TransactionType) values[8]; }
+        @Override public String getSourceAccountNumber() { return (String) values[9]; }
+        @Override public String getDestinationAccountNumber() { return (String) values[10]; }
+    }
+}
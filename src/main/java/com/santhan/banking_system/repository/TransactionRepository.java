@@ -1,12 +1,18 @@
 package com.santhan.banking_system.repository;
 
+import com.santhan.banking_system.dto.StatementLine;
+import com.santhan.banking_system.dto.TransactionSummary;
 import com.santhan.banking_system.model.Transaction;
 import com.santhan.banking_system.model.Account;
+import com.santhan.banking_system.model.TransactionType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.jpa.repository.EntityGraph; // Import EntityGraph
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
@@ -28,6 +34,11 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     Optional<Transaction> findTopByOrderByTransactionDateDescIdDesc();
 
+    // Locks one transaction row, so concurrent release/reject of a held transaction run one after the other
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM Transaction t WHERE t.id = :id")
+    Optional<Transaction> findByIdForUpdate(@Param("id") Long id);
+
     // Method to find all transactions ordered by date and ID (for ledger verification)
     List<Transaction> findAllByOrderByTransactionDateAscIdAsc();
 
@@ -36,6 +47,42 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
             Account sourceAccount, Instant sourceTransactionDateAfter,
             Account destinationAccount, Instant destinationTransactionDateAfter);
 
+    // Warm-up rows for TransactionVelocityStore: [id, sourceAccountId, destinationAccountId, amount, transactionDate].
+    // Like the live store, held and rejected transactions are left out: they moved no money.
+    @Query("SELECT t.id, s.id, d.id, t.amount, t.transactionDate FROM Transaction t " +
+            "LEFT JOIN t.sourceAccount s LEFT JOIN t.destinationAccount d " +
+            "WHERE t.transactionDate > :since AND t.status NOT IN ('PENDING_REVIEW', 'REJECTED') ORDER BY t.transactionDate, t.id")
+    List<Object[]> findVelocityRowsSince(@Param("since") Instant since);
+
+    // Warm-up rows for TransferGraph: [id, sourceAccountId, destinationAccountId, amount, transactionDate], without held or rejected ones
+    @Query("SELECT t.id, s.id, d.id, t.amount, t.transactionDate FROM Transaction t JOIN t.sourceAccount s JOIN t.destinationAccount d " +
+            "WHERE t.transactionType = :type AND t.transactionDate > :since AND t.status NOT IN ('PENDING_REVIEW', 'REJECTED') " +
+            "ORDER BY t.transactionDate, t.id")
+    List<Object[]> findTransferEdgesSince(@Param("since") Instant since, @Param("type") TransactionType type);
+
+    // Backtest replay rows in id order, one keyset page at a time (always page 0):
+    // [id, transactionType, amount, sourceAccountId, destinationAccountId, destinationCreatedAt, transactionDate]
+    @Query("SELECT t.id, t.transactionType, t.amount, s.id, d.id, d.createdAt, t.transactionDate FROM Transaction t " +
+            "LEFT JOIN t.sourceAccount s LEFT JOIN t.destinationAccount d " +
+            "WHERE t.id > :afterId AND t.transactionDate >= :from AND t.transactionDate < :to ORDER BY t.id")
+    List<Object[]> findBacktestRowsAfterId(@Param("afterId") Long afterId, @Param("from") Instant from,
+                                           @Param("to") Instant to, Pageable pageable);
+
+    // Behaviour profile replay rows, same shape and paging as findBacktestRowsAfterId but without held or rejected ones
+    @Query("SELECT t.id, t.transactionType, t.amount, s.id, d.id, d.createdAt, t.transactionDate FROM Transaction t " +
+            "LEFT JOIN t.sourceAccount s LEFT JOIN t.destinationAccount d " +
+            "WHERE t.id > :afterId AND t.transactionDate >= :from AND t.transactionDate < :to " +
+            "AND t.status NOT IN ('PENDING_REVIEW', 'REJECTED') ORDER BY t.id")
+    List<Object[]> findPostedRowsAfterId(@Param("afterId") Long afterId, @Param("from") Instant from,
+                                         @Param("to") Instant to, Pageable pageable);
+
+    // Fallback for the multiple-large-transactions rule while the velocity store is not warm; counts what the store would
+    @Query("SELECT COUNT(t) FROM Transaction t WHERE (t.sourceAccount.id = :accountId OR t.destinationAccount.id = :accountId) " +
+            "AND t.transactionDate > :since AND t.amount >= :threshold AND t.id <> :excludeId " +
+            "AND t.status NOT IN ('PENDING_REVIEW', 'REJECTED')")
+    long countLargeTransactionsForAccountSince(@Param("accountId") Long accountId, @Param("since") Instant since,
+                                               @Param("threshold") BigDecimal threshold, @Param("excludeId") Long excludeId);
+
     // Methods to find transactions by status for ledger verification/fraud (if needed for specific filtering)
     List<Transaction> findBySourceAccountAndStatus(Account sourceAccount, String status);
     List<Transaction> findByDestinationAccountAndStatus(Account destinationAccount, String status);
@@ -54,4 +101,67 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
             Account sourceAccount, Instant dateBefore1,
             Account destinationAccount, Instant dateBefore2
     );
+
+    // --- List-page projections: account numbers are resolved by LEFT JOINs in the same query ---
+    String TRANSACTION_SUMMARY_SELECT = "SELECT t.id AS id, t.transactionType AS transactionType, t.amount AS amount, " +
+            "t.description AS description, t.transactionDate AS transactionDate, t.status AS status, t.reversed AS reversed, " +
+            "s.accountNumber AS sourceAccountNumber, d.accountNumber AS destinationAccountNumber " +
+            "FROM Transaction t LEFT JOIN t.sourceAccount s LEFT JOIN t.destinationAccount d ";
+
+    @Query(TRANSACTION_SUMMARY_SELECT + "ORDER BY t.transactionDate ASC, t.id ASC")
+    List<TransactionSummary> findAllSummaries();
+
+    @Query(TRANSACTION_SUMMARY_SELECT + "WHERE s.id = :accountId OR d.id = :accountId ORDER BY t.transactionDate DESC, t.id DESC")
+    List<TransactionSummary> findSummariesByAccountId(@Param("accountId") Long accountId);
+
+    @Query(TRANSACTION_SUMMARY_SELECT + "WHERE s.user.id = :userId OR d.user.id = :userId ORDER BY t.transactionDate DESC, t.id DESC")
+    List<TransactionSummary> findSummariesByUserId(@Param("userId") Long userId);
+
+    // --- Statement streaming: keyset pages over (transactionDate, id), the same order the ledger hash uses ---
+    String STATEMENT_LINE_SELECT = "SELECT t.id AS id, t.transactionType AS transactionType, t.amount AS amount, " +
+            "t.description AS description, t.transactionDate AS transactionDate, t.transactionHash AS transactionHash, " +
+            "t.status AS status, s.id AS sourceAccountId, s.accountNumber AS sourceAccountNumber, " +
+            "d.id AS destinationAccountId, d.accountNumber AS destinationAccountNumber " +
+            "FROM Transaction t LEFT JOIN t.sourceAccount s LEFT JOIN t.destinationAccount d " +
+            "WHERE (s.id = :accountId OR d.id = :accountId) AND t.transactionDate BETWEEN :startDate AND :endDate ";
+
+    // First page of a statement; pass PageRequest.of(0, batchSize)
+    @Query(STATEMENT_LINE_SELECT + "ORDER BY t.transactionDate ASC, t.id ASC")
+    List<StatementLine> findStatementLines(@Param("accountId") Long accountId,
+                                           @Param("startDate") Instant startDate,
+                                           @Param("endDate") Instant endDate,
+                                           Pageable pageable);
+
+    // Next page after the last (transactionDate, id) already read; always use page 0
+    @Query(STATEMENT_LINE_SELECT + "AND (t.transactionDate > :lastDate OR (t.transactionDate = :lastDate AND t.id > :lastId)) " +
+            "ORDER BY t.transactionDate ASC, t.id ASC")
+    List<StatementLine> findStatementLinesAfter(@Param("accountId") Long accountId,
+                                                @Param("startDate") Instant startDate,
+                                                @Param("endDate") Instant endDate,
+                                                @Param("lastDate") Instant lastDate,
+                                                @Param("lastId") Long lastId,
+                                                Pageable pageable);
+
+    // Net effect of a period on an account's balance. Matches calculateStatementBalances: a row where the account
+    // is the source counts as a debit even if it is also the destination; held and rejected rows moved no money.
+    @Query("SELECT COALESCE(SUM(CASE WHEN s.id = :accountId THEN 0 - t.amount ELSE t.amount END), 0) " +
+            "FROM Transaction t LEFT JOIN t.sourceAccount s LEFT JOIN t.destinationAccount d " +
+            "WHERE (s.id = :accountId OR d.id = :accountId) AND t.transactionDate BETWEEN :startDate AND :endDate " +
+            "AND t.status NOT IN ('PENDING_REVIEW', 'REJECTED')")
+    BigDecimal sumNetChangeForAccountInRange(@Param("accountId") Long accountId,
+                                             @Param("startDate") Instant startDate,
+                                             @Param("endDate") Instant endDate);
+
+    // One row of [rowCount, maxId, heldRows, rejectedRows, reversedRows] for a statement period. After insert the
+    // only rendered field that changes is the status (release, reject, reversal). Every such move leaves or enters
+    // one of the counted non-COMPLETED statuses, so this changes whenever the period's statement would.
+    @Query("SELECT COUNT(t), MAX(t.id), " +
+            "COALESCE(SUM(CASE WHEN t.status = 'PENDING_REVIEW' THEN 1 ELSE 0 END), 0), " +
+            "COALESCE(SUM(CASE WHEN t.status = 'REJECTED' THEN 1 ELSE 0 END), 0), " +
+            "COALESCE(SUM(CASE WHEN t.status = 'REVERSED' THEN 1 ELSE 0 END), 0) " +
+            "FROM Transaction t LEFT JOIN t.sourceAccount s LEFT JOIN t.destinationAccount d " +
+            "WHERE (s.id = :accountId OR d.id = :accountId) AND t.transactionDate BETWEEN :startDate AND :endDate")
+    List<Object[]> findStatementFingerprint(@Param("accountId") Long accountId,
+                                            @Param("startDate") Instant startDate,
+                                            @Param("endDate") Instant endDate);
 }
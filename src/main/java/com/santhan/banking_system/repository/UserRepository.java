@@ -2,7 +2,10 @@ package com.santhan.banking_system.repository;
 
 import com.santhan.banking_system.model.KycStatus; // Make sure this is imported
 import com.santhan.banking_system.model.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -15,4 +18,14 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByMobileNumber(String mobileNumber); // Make sure this exists
     // This is the new method that must be in UserRepository for UserService to compile
     List<User> findByKycStatus(KycStatus kycStatus);
+
+    // Paginated drill-down for the admin dashboard; a Slice avoids the COUNT(*) a Page would need
+    Slice<User> findAllByOrderByIdAsc(Pageable pageable);
+
+    // Aggregates for DashboardSummaryService re-sync: rows of [UserRole, count] / [KycStatus, count]
+    @Query("SELECT u.role, COUNT(u) FROM User u GROUP BY u.role")
+    List<Object[]> countUsersGroupedByRole();
+
+    @Query("SELECT u.kycStatus, COUNT(u) FROM User u GROUP BY u.kycStatus")
+    List<Object[]> countUsersGroupedByKycStatus();
 }
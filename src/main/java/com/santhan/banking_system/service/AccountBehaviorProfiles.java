@@ -0,0 +1,496 @@
+package com.santhan.banking_system.service;
+
+import com.santhan.banking_system.model.Transaction;
+import com.santhan.banking_system.repository.TransactionRepository;
+import com.santhan.banking_system.util.AfterCommit;
+import com.santhan.banking_system.util.LongLongHashMap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-account behavioural baseline for the anomaly rule, updated in O(1) per transaction.
+ *
+ * For every account it keeps exponentially weighted (EWMA) mean and variance of log amounts and of log gaps
+ * between transactions, plus an EWMA of the hour of day as a point on the unit circle (its direction is the
+ * typical hour, its length how regular the account is). Accounts are spread over lock stripes; each stripe holds
+ * its accounts in parallel primitive arrays with an id -> slot map, about 70 bytes per account.
+ *
+ * A transaction belongs to its relevant account (the source if there is one, else the destination), as for the
+ * velocity rules, and is folded in after it commits. The state is checkpointed to a file periodically and on
+ * shutdown; on startup the checkpoint is loaded and only transactions after it are replayed from the ledger.
+ * Without a checkpoint the baseline is built from the last bootstrap-days of history.
+ *
+ * After-commit callbacks can run out of id order, so the checkpoint's resume point is not the highest id folded in
+ * but the id just below the oldest transaction still waiting to commit. The few ids already folded above that point
+ * are listed in the checkpoint and skipped by the replay.
+ */
+@Service
+public class AccountBehaviorProfiles {
+
+    private static final int STRIPES = 64; // Power of two
+    private static final int CHECKPOINT_MAGIC = 0x42505246;
+    private static final int CHECKPOINT_VERSION = 2;
+    private static final int CATCH_UP_PAGE_SIZE = 10_000;
+    private static final double INITIAL_LOG_VARIANCE = 1.0;
+    private static final double MIN_LOG_STD = 0.25; // A perfectly regular history must not make every change infinite
+    private static final double TWO_PI = 2 * Math.PI;
+
+    private final TransactionRepository transactionRepository;
+    private final double alpha;
+    private final Path checkpointFile;
+    private final int bootstrapDays;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    // Highest transaction id folded in
+    private final AtomicLong highWaterMark = new AtomicLong();
+    // Ids recorded but whose transaction has not completed yet; the checkpoint must resume below the oldest
+    private final ConcurrentSkipListSet<Long> pendingIds = new ConcurrentSkipListSet<>();
+    // Ids folded in live since the last checkpoint, to list those above its resume point
+    private final ConcurrentSkipListSet<Long> recentlyFolded = new ConcurrentSkipListSet<>();
+    private volatile boolean warm = false;
+    private volatile boolean warmupFailed = false;
+    // Ids recorded live while the catch-up replay runs, so the replay does not count them twice; null otherwise
+    private volatile Set<Long> recordedDuringWarmup = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public AccountBehaviorProfiles(TransactionRepository transactionRepository,
+                                   @Value("${banking.fraud.profiles.alpha:0.05}") double alpha,
+                                   @Value("${banking.fraud.profiles.checkpoint-file:behavior-profiles.bin}") String checkpointFile,
+                                   @Value("${banking.fraud.profiles.bootstrap-days:90}") int bootstrapDays) {
+        this.transactionRepository = transactionRepository;
+        this.alpha = Math.min(Math.max(alpha, 0.001), 0.5);
+        this.checkpointFile = Paths.get(checkpointFile);
+        this.bootstrapDays = Math.max(bootstrapDays, 1);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    public boolean isWarm() {
+        return warm;
+    }
+
+    /**
+     * How far a transaction of {@code amount} at {@code at} departs from the account's baseline, or null if the
+     * account has no history yet. The transaction itself is not part of the baseline.
+     */
+    public Score score(Long accountId, BigDecimal amount, Instant at) {
+        if (accountId == null) {
+            return null;
+        }
+        int count;
+        long lastSeen;
+        double amountMean, amountVariance, gapMean, gapVariance, hourSin, hourCos;
+        Stripe stripe = stripeFor(accountId);
+        synchronized (stripe) {
+            int slot = (int) stripe.slots.get(accountId, -1);
+            if (slot < 0) {
+                return null;
+            }
+            count = stripe.counts[slot];
+            lastSeen = stripe.lastSeen[slot];
+            amountMean = stripe.amountMean[slot];
+            amountVariance = stripe.amountVariance[slot];
+            gapMean = stripe.gapMean[slot];
+            gapVariance = stripe.gapVariance[slot];
+            hourSin = stripe.hourSin[slot];
+            hourCos = stripe.hourCos[slot];
+        }
+
+        double amountZ = (Math.log1p(amount.doubleValue()) - amountMean) / Math.max(Math.sqrt(amountVariance), MIN_LOG_STD);
+        double gapZ = 0;
+        if (count >= 2) {
+            double gap = Math.log1p(Math.max(at.toEpochMilli() - lastSeen, 0) / 1000.0);
+            gapZ = (gapMean - gap) / Math.max(Math.sqrt(gapVariance), MIN_LOG_STD); // Positive = sooner than usual
+        }
+        double regularity = Math.min(Math.hypot(hourSin, hourCos), 1.0);
+        double typicalAngle = Math.atan2(hourSin, hourCos);
+        double angleOff = Math.abs(hourAngle(at.toEpochMilli()) - typicalAngle) % TWO_PI;
+        if (angleOff > Math.PI) {
+            angleOff = TWO_PI - angleOff;
+        }
+        double typicalHour = ((typicalAngle + TWO_PI) % TWO_PI) / TWO_PI * 24;
+        return new Score(count, amountZ, gapZ, angleOff / Math.PI * 12, regularity, typicalHour);
+    }
+
+    /**
+     * Folds the transaction into its relevant account's baseline once the current transaction commits.
+     */
+    public void recordAfterCommit(Transaction transaction) {
+        Long transactionId = transaction.getId();
+        Long accountId = transaction.getSourceAccount() != null ? transaction.getSourceAccount().getId()
+                : transaction.getDestinationAccount() != null ? transaction.getDestinationAccount().getId() : null;
+        if (accountId == null) {
+            return;
+        }
+        double amount = transaction.getAmount().doubleValue();
+        long timestamp = transaction.getTransactionDate() != null
+                ? transaction.getTransactionDate().toEpochMilli() : System.currentTimeMillis();
+
+        Runnable record = () -> {
+            Set<Long> warmupIds = recordedDuringWarmup;
+            if (warmupIds != null) {
+                warmupIds.add(transactionId);
+            }
+            update(accountId, amount, timestamp);
+            recentlyFolded.add(transactionId);
+            highWaterMark.accumulateAndGet(transactionId, Math::max);
+        };
+        pendingIds.add(transactionId);
+        // Removed after the record, so the id is folded in before it stops holding the mark back
+        AfterCommit.run(record, () -> pendingIds.remove(transactionId));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void warmUp() {
+        Set<Long> foldedAboveMark = new HashSet<>();
+        long afterId = loadCheckpoint(foldedAboveMark);
+        Instant since = afterId > 0 ? Instant.EPOCH : Instant.now().minus(bootstrapDays, ChronoUnit.DAYS);
+        Instant until = Instant.now().plus(1, ChronoUnit.DAYS);
+        Set<Long> liveIds = recordedDuringWarmup;
+        long replayed = 0;
+        try {
+            while (true) {
+                // Rows of [id, transactionType, amount, sourceAccountId, destinationAccountId, destinationCreatedAt, transactionDate]
+                List<Object[]> rows = transactionRepository.findPostedRowsAfterId(afterId, since, until, PageRequest.of(0, CATCH_UP_PAGE_SIZE));
+                for (Object[] row : rows) {
+                    Long transactionId = (Long) row[0];
+                    Long accountId = row[3] != null ? (Long) row[3] : (Long) row[4];
+                    if (accountId != null && !liveIds.contains(transactionId) && !foldedAboveMark.contains(transactionId)) {
+                        update(accountId, ((BigDecimal) row[2]).doubleValue(), ((Instant) row[6]).toEpochMilli());
+                        replayed++;
+                    }
+                    highWaterMark.accumulateAndGet(transactionId, Math::max);
+                }
+                if (rows.size() < CATCH_UP_PAGE_SIZE) {
+                    break;
+                }
+                afterId = (Long) rows.get(rows.size() - 1)[0];
+            }
+        } catch (Exception e) {
+            System.err.println("WARNING: Could not build account behaviour profiles, the anomaly rule stays inactive until a retry succeeds: " + e.getMessage());
+            recordedDuringWarmup = null;
+            warmupFailed = true;
+            return;
+        }
+        recordedDuringWarmup = null;
+        warmupFailed = false;
+        warm = true;
+        System.out.println("DEBUG: Account behaviour profiles ready (" + accountCount() + " accounts, " + replayed + " transactions replayed).");
+    }
+
+    // Tries again after a failed warm-up, from the checkpoint (or bootstrap) with empty profiles
+    @Scheduled(fixedDelayString = "${banking.fraud.profiles.warmup-retry-ms:60000}",
+            initialDelayString = "${banking.fraud.profiles.warmup-retry-ms:60000}")
+    public synchronized void retryFailedWarmUp() {
+        if (!warmupFailed) {
+            return;
+        }
+        recordedDuringWarmup = ConcurrentHashMap.newKeySet();
+        highWaterMark.set(0);
+        recentlyFolded.clear();
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.reset();
+            }
+        }
+        warmUp();
+    }
+
+    @Scheduled(fixedDelayString = "${banking.fraud.profiles.checkpoint-interval-ms:300000}",
+            initialDelayString = "${banking.fraud.profiles.checkpoint-interval-ms:300000}")
+    public void checkpoint() {
+        if (!warm) {
+            return; // Never overwrite a good checkpoint with a half-built state
+        }
+        // Read the oldest pending id before the highest folded one: a transaction leaves pendingIds only after it is folded in
+        Long oldestPending = pendingIds.ceiling(Long.MIN_VALUE);
+        long mark = highWaterMark.get();
+        if (oldestPending != null) {
+            mark = Math.min(mark, oldestPending - 1);
+        }
+        List<Long> foldedAboveMark = new ArrayList<>(recentlyFolded.tailSet(mark, false));
+        Path temp = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".part");
+        long accounts = 0;
+        try {
+            if (checkpointFile.getParent() != null) {
+                Files.createDirectories(checkpointFile.getParent());
+            }
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024))) {
+                out.writeInt(CHECKPOINT_MAGIC);
+                out.writeInt(CHECKPOINT_VERSION);
+                out.writeLong(mark); // Read first: state written below may include later ids, never miss earlier ones
+                out.writeInt(foldedAboveMark.size());
+                for (Long id : foldedAboveMark) {
+                    out.writeLong(id);
+                }
+                for (Stripe stripe : stripes) {
+                    synchronized (stripe) {
+                        out.writeInt(stripe.size);
+                        for (int slot = 0; slot < stripe.size; slot++) {
+                            out.writeLong(stripe.accountIds[slot]);
+                            out.writeInt(stripe.counts[slot]);
+                            out.writeLong(stripe.lastSeen[slot]);
+                            out.writeDouble(stripe.amountMean[slot]);
+                            out.writeDouble(stripe.amountVariance[slot]);
+                            out.writeDouble(stripe.gapMean[slot]);
+                            out.writeDouble(stripe.gapVariance[slot]);
+                            out.writeDouble(stripe.hourSin[slot]);
+                            out.writeDouble(stripe.hourCos[slot]);
+                        }
+                        accounts += stripe.size;
+                    }
+                }
+                out.writeInt(-1); // End marker
+                out.flush();
+                channel.force(true);
+            }
+            Files.move(temp, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            recentlyFolded.headSet(mark, true).clear(); // No later checkpoint resumes below this one
+            System.out.println("DEBUG: Checkpointed behaviour profiles of " + accounts + " accounts to " + checkpointFile);
+        } catch (IOException e) {
+            System.err.println("WARNING: Could not checkpoint account behaviour profiles: " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        checkpoint();
+    }
+
+    // --- Internals ---
+
+    // Loads the checkpoint if there is a valid one; returns its resume point (0 if none) and adds the ids already
+    // folded in above it to foldedAboveMark
+    private long loadCheckpoint(Set<Long> foldedAboveMark) {
+        if (!Files.isRegularFile(checkpointFile)) {
+            return 0L;
+        }
+        try (InputStream in = Files.newInputStream(checkpointFile);
+             DataInputStream data = new DataInputStream(new BufferedInputStream(in, 64 * 1024))) {
+            if (data.readInt() != CHECKPOINT_MAGIC || data.readInt() != CHECKPOINT_VERSION) {
+                throw new IOException("unknown checkpoint format");
+            }
+            long mark = data.readLong();
+            int folded = data.readInt();
+            for (int i = 0; i < folded; i++) {
+                foldedAboveMark.add(data.readLong());
+            }
+            int rows;
+            while ((rows = data.readInt()) >= 0) {
+                for (int i = 0; i < rows; i++) {
+                    long accountId = data.readLong();
+                    Stripe stripe = stripeFor(accountId);
+                    synchronized (stripe) {
+                        int slot = stripe.slotFor(accountId);
+                        stripe.counts[slot] = data.readInt();
+                        stripe.lastSeen[slot] = data.readLong();
+                        stripe.amountMean[slot] = data.readDouble();
+                        stripe.amountVariance[slot] = data.readDouble();
+                        stripe.gapMean[slot] = data.readDouble();
+                        stripe.gapVariance[slot] = data.readDouble();
+                        stripe.hourSin[slot] = data.readDouble();
+                        stripe.hourCos[slot] = data.readDouble();
+                    }
+                }
+            }
+            highWaterMark.accumulateAndGet(mark, Math::max);
+            System.out.println("INFO: Loaded account behaviour profiles from " + checkpointFile + " up to transaction ID " + mark);
+            return mark;
+        } catch (IOException e) {
+            System.err.println("WARNING: Ignoring unreadable behaviour profile checkpoint " + checkpointFile + ": " + e.getMessage());
+            foldedAboveMark.clear();
+            for (Stripe stripe : stripes) {
+                synchronized (stripe) {
+                    stripe.reset();
+                }
+            }
+            return 0L;
+        }
+    }
+
+    private void update(long accountId, double amount, long timestamp) {
+        double logAmount = Math.log1p(amount);
+        double angle = hourAngle(timestamp);
+        Stripe stripe = stripeFor(accountId);
+        synchronized (stripe) {
+            int slot = stripe.slotFor(accountId);
+            int count = stripe.counts[slot];
+            if (count == 0) {
+                stripe.amountMean[slot] = logAmount;
+                stripe.amountVariance[slot] = INITIAL_LOG_VARIANCE;
+                stripe.hourSin[slot] = Math.sin(angle);
+                stripe.hourCos[slot] = Math.cos(angle);
+            } else {
+                double diff = logAmount - stripe.amountMean[slot];
+                double increment = alpha * diff;
+                stripe.amountMean[slot] += increment;
+                stripe.amountVariance[slot] = (1 - alpha) * (stripe.amountVariance[slot] + diff * increment);
+
+                double logGap = Math.log1p(Math.max(timestamp - stripe.lastSeen[slot], 0) / 1000.0);
+                if (count == 1) {
+                    stripe.gapMean[slot] = logGap;
+                    stripe.gapVariance[slot] = INITIAL_LOG_VARIANCE;
+                } else {
+                    double gapDiff = logGap - stripe.gapMean[slot];
+                    double gapIncrement = alpha * gapDiff;
+                    stripe.gapMean[slot] += gapIncrement;
+                    stripe.gapVariance[slot] = (1 - alpha) * (stripe.gapVariance[slot] + gapDiff * gapIncrement);
+                }
+                stripe.hourSin[slot] += alpha * (Math.sin(angle) - stripe.hourSin[slot]);
+                stripe.hourCos[slot] += alpha * (Math.cos(angle) - stripe.hourCos[slot]);
+            }
+            stripe.lastSeen[slot] = Math.max(stripe.lastSeen[slot], timestamp);
+            if (count < Integer.MAX_VALUE) {
+                stripe.counts[slot] = count + 1;
+            }
+        }
+    }
+
+    // Hour of day (local time, with minutes) as an angle
+    private double hourAngle(long epochMillis) {
+        ZonedDateTime time = Instant.ofEpochMilli(epochMillis).atZone(zone);
+        return (time.getHour() + time.getMinute() / 60.0) / 24.0 * TWO_PI;
+    }
+
+    private long accountCount() {
+        long count = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                count += stripe.size;
+            }
+        }
+        return count;
+    }
+
+    private Stripe stripeFor(long accountId) {
+        long h = accountId * 0x9E3779B97F4A7C15L; // Spread sequential ids across stripes
+        return stripes[(int) (h >>> 58) & (STRIPES - 1)];
+    }
+
+    // Parallel arrays indexed by slot; not thread-safe, always used under its own lock
+    private static class Stripe {
+        private LongLongHashMap slots;
+        private long[] accountIds;
+        private int[] counts;
+        private long[] lastSeen;
+        private double[] amountMean;
+        private double[] amountVariance;
+        private double[] gapMean;
+        private double[] gapVariance;
+        private double[] hourSin;
+        private double[] hourCos;
+        private int size;
+
+        Stripe() {
+            reset();
+        }
+
+        void reset() {
+            int capacity = 64;
+            slots = new LongLongHashMap(capacity);
+            accountIds = new long[capacity];
+            counts = new int[capacity];
+            lastSeen = new long[capacity];
+            amountMean = new double[capacity];
+            amountVariance = new double[capacity];
+            gapMean = new double[capacity];
+            gapVariance = new double[capacity];
+            hourSin = new double[capacity];
+            hourCos = new double[capacity];
+            size = 0;
+        }
+
+        // Slot of the account, allocating an empty one if it has none
+        int slotFor(long accountId) {
+            int slot = (int) slots.get(accountId, -1);
+            if (slot >= 0) {
+                return slot;
+            }
+            if (size == accountIds.length) {
+                int capacity = size * 2;
+                accountIds = Arrays.copyOf(accountIds, capacity);
+                counts = Arrays.copyOf(counts, capacity);
+                lastSeen = Arrays.copyOf(lastSeen, capacity);
+                amountMean = Arrays.copyOf(amountMean, capacity);
+                amountVariance = Arrays.copyOf(amountVariance, capacity);
+                gapMean = Arrays.copyOf(gapMean, capacity);
+                gapVariance = Arrays.copyOf(gapVariance, capacity);
+                hourSin = Arrays.copyOf(hourSin, capacity);
+                hourCos = Arrays.copyOf(hourCos, capacity);
+            }
+            slot = size++;
+            accountIds[slot] = accountId;
+            slots.put(accountId, slot);
+            return slot;
+        }
+    }
+
+    /**
+     * Deviation of one transaction from its account's baseline.
+     */
+    public static class Score {
+        private final int history;
+        private final double amountZ;
+        private final double gapZ;
+        private final double hoursOffTypical;
+        private final double hourRegularity;
+        private final double typicalHour;
+
+        public Score(int history, double amountZ, double gapZ, double hoursOffTypical, double hourRegularity, double typicalHour) {
+            this.history = history;
+            this.amountZ = amountZ;
+            this.gapZ = gapZ;
+            this.hoursOffTypical = hoursOffTypical;
+            this.hourRegularity = hourRegularity;
+            this.typicalHour = typicalHour;
+        }
+
+        public int getHistory() { return history; }
+        // Standard deviations above (positive) or below the account's usual log amount
+        public double getAmountZ() { return amountZ; }
+        // Standard deviations by which the gap since the last transaction is shorter than usual
+        public double getGapZ() { return gapZ; }
+        // 0..12 hours away from the typical hour of day
+        public double getHoursOffTypical() { return hoursOffTypical; }
+        // 0 (any time of day) .. 1 (always the same hour)
+        public double getHourRegularity() { return hourRegularity; }
+        public double getTypicalHour() { return typicalHour; }
+    }
+}
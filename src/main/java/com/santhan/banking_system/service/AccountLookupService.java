@@ -0,0 +1,172 @@
+package com.santhan.banking_system.service;
+
+import com.santhan.banking_system.dto.AccountLookupResult;
+import com.santhan.banking_system.dto.AccountSummary;
+import com.santhan.banking_system.model.Account;
+import com.santhan.banking_system.repository.AccountRepository;
+import com.santhan.banking_system.util.AfterCommit;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-memory prefix index over account numbers and owner usernames, used by the transfer form's typeahead.
+ *
+ * Every account is indexed under two keys ("&lt;accountNumber&gt;\0&lt;id&gt;" and "&lt;lower-case username&gt;\0&lt;id&gt;")
+ * in a sorted skip list, so a prefix query is a single range scan that stops after the top-N hits and never
+ * touches the database. AccountService and UserService keep the index current after their transactions commit;
+ * it is built once at startup from the account summary projection.
+ */
+@Service
+public class AccountLookupService {
+
+    public static final int DEFAULT_LIMIT = 10;
+    public static final int MAX_LIMIT = 50;
+
+    private static final char KEY_SEPARATOR = '\0';
+
+    private final AccountRepository accountRepository;
+
+    // Sorted search keys -> entry; reads are lock-free, writes are serialized on this service
+    private final ConcurrentSkipListMap<String, AccountLookupResult> index = new ConcurrentSkipListMap<>();
+    // accountId -> entry currently indexed, needed to find the old keys on removal or rename
+    private final Map<Long, AccountLookupResult> entriesById = new ConcurrentHashMap<>();
+
+    @Autowired
+    public AccountLookupService(AccountRepository accountRepository) {
+        this.accountRepository = accountRepository;
+    }
+
+    /**
+     * Returns up to {@code limit} accounts whose account number or owner username starts with {@code query}
+     * (case-insensitive), in key order. {@code excludeAccountId} (typically the transfer's source) is skipped.
+     */
+    public List<AccountLookupResult> search(String query, Long excludeAccountId, int limit) {
+        String prefix = normalize(query);
+        if (prefix.isEmpty()) {
+            return Collections.emptyList();
+        }
+        int cappedLimit = Math.min(Math.max(limit, 1), MAX_LIMIT);
+
+        ConcurrentNavigableMap<String, AccountLookupResult> range =
+                index.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+
+        // An account can match on both its number and its owner's name; keep the first hit only
+        Map<Long, AccountLookupResult> hits = new LinkedHashMap<>();
+        for (AccountLookupResult entry : range.values()) {
+            if (entry.getId().equals(excludeAccountId)) {
+                continue;
+            }
+            hits.putIfAbsent(entry.getId(), entry);
+            if (hits.size() >= cappedLimit) {
+                break;
+            }
+        }
+        return new ArrayList<>(hits.values());
+    }
+
+    public int size() {
+        return entriesById.size();
+    }
+
+    // --- Change notifications (called from the owning services) ---
+
+    public void onAccountSaved(Account account) {
+        if (account == null || account.getId() == null || account.getUser() == null) {
+            return;
+        }
+        AccountLookupResult entry = new AccountLookupResult(account.getId(), account.getAccountNumber(),
+                account.getAccountType(), account.getUser().getId(), account.getUser().getUsername());
+        AfterCommit.run(() -> put(entry));
+    }
+
+    public void onAccountDeleted(Long accountId) {
+        AfterCommit.run(() -> remove(accountId));
+    }
+
+    /**
+     * Re-indexes every account of a user whose username changed.
+     */
+    public void onOwnerRenamed(Long userId, String newUsername) {
+        AfterCommit.run(() -> {
+            List<AccountLookupResult> owned = new ArrayList<>();
+            for (AccountLookupResult entry : entriesById.values()) {
+                if (entry.getOwnerId().equals(userId)) {
+                    owned.add(entry);
+                }
+            }
+            for (AccountLookupResult entry : owned) {
+                put(new AccountLookupResult(entry.getId(), entry.getAccountNumber(), entry.getAccountType(),
+                        userId, newUsername));
+            }
+        });
+    }
+
+    // --- Initial load ---
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        try {
+            List<AccountSummary> accounts = accountRepository.findAllSummaries();
+            synchronized (this) {
+                index.clear();
+                entriesById.clear();
+                for (AccountSummary summary : accounts) {
+                    put(new AccountLookupResult(summary.getId(), summary.getAccountNumber(), summary.getAccountType(),
+                            summary.getOwnerId(), summary.getOwnerUsername()));
+                }
+            }
+            System.out.println("DEBUG: Account lookup index built with " + accounts.size() + " accounts.");
+        } catch (Exception e) {
+            System.err.println("WARNING: Failed to build account lookup index: " + e.getMessage());
+        }
+    }
+
+    // --- Helpers ---
+
+    private synchronized void put(AccountLookupResult entry) {
+        AccountLookupResult previous = entriesById.put(entry.getId(), entry);
+        if (previous != null) {
+            removeKeys(previous);
+        }
+        index.put(key(entry.getAccountNumber(), entry.getId()), entry);
+        if (entry.getOwnerUsername() != null) {
+            index.put(key(entry.getOwnerUsername(), entry.getId()), entry);
+        }
+    }
+
+    private synchronized void remove(Long accountId) {
+        AccountLookupResult previous = entriesById.remove(accountId);
+        if (previous != null) {
+            removeKeys(previous);
+        }
+    }
+
+    private void removeKeys(AccountLookupResult entry) {
+        index.remove(key(entry.getAccountNumber(), entry.getId()));
+        if (entry.getOwnerUsername() != null) {
+            index.remove(key(entry.getOwnerUsername(), entry.getId()));
+        }
+    }
+
+    private static String key(String term, Long accountId) {
+        return normalize(term) + KEY_SEPARATOR + accountId;
+    }
+
+    private static String normalize(String term) {
+        return term == null ? "" : term.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,166 @@
+package com.santhan.banking_system.service;
+
+import com.santhan.banking_system.model.User;
+import com.santhan.banking_system.repository.AccountRepository;
+import com.santhan.banking_system.repository.UserRepository;
+import com.santhan.banking_system.util.AfterCommit;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Account-level authorization checks for use in @PreAuthorize expressions, e.g.
+ * {@code @PreAuthorize("@accountSecurity.canAccessAccount(#id, authentication)")}.
+ *
+ * Ownership is answered by a single indexed existence probe on (id, user_id) instead of loading the
+ * Account and lazily loading its User. Positive answers are remembered in the HTTP session, so repeated
+ * requests against the same account are a memory hit. Any ownership change (owner reassignment or account
+ * deletion) bumps a global version after it commits, which discards every cached set on its next use.
+ */
+@Service("accountSecurity")
+public class AccountSecurityService {
+
+    static final String OWNED_ACCOUNTS_SESSION_KEY = AccountSecurityService.class.getName() + ".OWNED_ACCOUNTS";
+
+    private final AccountRepository accountRepository;
+    private final UserRepository userRepository;
+
+    // Incremented whenever an account changes owner or is deleted; session caches from an older version are dropped.
+    private final AtomicLong ownershipVersion = new AtomicLong();
+
+    @Autowired
+    public AccountSecurityService(AccountRepository accountRepository, UserRepository userRepository) {
+        this.accountRepository = accountRepository;
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * Employees and admins may act on any account; everyone else only on accounts they own.
+     */
+    public boolean canAccessAccount(Long accountId, Authentication authentication) {
+        if (accountId == null || authentication == null || !authentication.isAuthenticated()) {
+            return false;
+        }
+        if (isStaff(authentication)) {
+            return true;
+        }
+        return isOwner(accountId, authentication);
+    }
+
+    /**
+     * Same as canAccessAccount for every id in the collection; false for an empty collection.
+     */
+    public boolean canAccessAccounts(Collection<Long> accountIds, Authentication authentication) {
+        if (accountIds == null || accountIds.isEmpty()) {
+            return false;
+        }
+        for (Long accountId : accountIds) {
+            if (!canAccessAccount(accountId, authentication)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns true if the authenticated user owns the given account, without loading the Account entity.
+     */
+    public boolean isOwner(Long accountId, Authentication authentication) {
+        if (accountId == null || authentication == null) {
+            return false;
+        }
+        Long userId = resolveUserId(authentication);
+        if (userId == null) {
+            return false;
+        }
+
+        OwnedAccounts ownedAccounts = ownedAccountsForSession(userId);
+        if (ownedAccounts != null && ownedAccounts.accountIds.contains(accountId)) {
+            return true;
+        }
+
+        boolean owns = accountRepository.existsByIdAndUserId(accountId, userId);
+        if (owns && ownedAccounts != null) {
+            ownedAccounts.accountIds.add(accountId);
+        }
+        return owns;
+    }
+
+    /**
+     * Must be called whenever an account's owner changes or an account is deleted. The version is bumped once the
+     * current transaction commits: bumped earlier, a concurrent probe could still see the old owner's row and cache
+     * that grant under the new version.
+     */
+    public void invalidateOwnershipCache() {
+        AfterCommit.run(ownershipVersion::incrementAndGet);
+    }
+
+    private boolean isStaff(Authentication authentication) {
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            String name = authority.getAuthority();
+            if ("ROLE_ADMIN".equals(name) || "ROLE_EMPLOYEE".equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Long resolveUserId(Authentication authentication) {
+        // UserService.loadUserByUsername returns the User entity itself, so the id is normally on the principal.
+        if (authentication.getPrincipal() instanceof User) {
+            return ((User) authentication.getPrincipal()).getId();
+        }
+        return userRepository.findByUsername(authentication.getName()).map(User::getId).orElse(null);
+    }
+
+    private OwnedAccounts ownedAccountsForSession(Long userId) {
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (!(requestAttributes instanceof ServletRequestAttributes)) {
+            return null;
+        }
+        HttpSession session = ((ServletRequestAttributes) requestAttributes).getRequest().getSession(false);
+        if (session == null) {
+            return null;
+        }
+
+        long currentVersion = ownershipVersion.get();
+        Object cached = session.getAttribute(OWNED_ACCOUNTS_SESSION_KEY);
+        if (cached instanceof OwnedAccounts) {
+            OwnedAccounts ownedAccounts = (OwnedAccounts) cached;
+            if (ownedAccounts.userId == userId && ownedAccounts.version == currentVersion) {
+                return ownedAccounts;
+            }
+        }
+
+        OwnedAccounts fresh = new OwnedAccounts(userId, currentVersion);
+        session.setAttribute(OWNED_ACCOUNTS_SESSION_KEY, fresh);
+        return fresh;
+    }
+
+    /**
+     * Per-session set of account ids already confirmed as owned by the session's user.
+     */
+    private static final class OwnedAccounts implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final long userId;
+        private final long version;
+        private final Set<Long> accountIds = ConcurrentHashMap.newKeySet();
+
+        private OwnedAccounts(long userId, long version) {
+            this.userId = userId;
+            this.version = version;
+        }
+    }
+}
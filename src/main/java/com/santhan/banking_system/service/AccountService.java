@@ -1,5 +1,6 @@
 package com.santhan.banking_system.service;
 
+import com.santhan.banking_system.dto.AccountSummary;
 import com.santhan.banking_system.model.Account;
 import com.santhan.banking_system.model.AccountType;
 import com.santhan.banking_system.model.User;
@@ -8,9 +9,12 @@ import com.santhan.banking_system.repository.AccountRepository;
 import com.santhan.banking_system.repository.UserRepository;
 import com.santhan.banking_system.repository.TransactionRepository; // Import TransactionRepository
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.Random;
@@ -21,12 +25,25 @@ public class AccountService {
     private final AccountRepository accountRepository;
     private final UserRepository userRepository;
     private final TransactionRepository transactionRepository; // Inject TransactionRepository
+    private final AccountSecurityService accountSecurityService;
+    private final DashboardSummaryService dashboardSummaryService;
+    private final AccountLookupService accountLookupService;
+    private final StatementCacheService statementCacheService;
+    private final NewAccountRegistry newAccountRegistry;
 
     @Autowired
-    public AccountService(AccountRepository accountRepository, UserRepository userRepository, TransactionRepository transactionRepository) {
+    public AccountService(AccountRepository accountRepository, UserRepository userRepository, TransactionRepository transactionRepository,
+                          AccountSecurityService accountSecurityService, DashboardSummaryService dashboardSummaryService,
+                          AccountLookupService accountLookupService, StatementCacheService statementCacheService,
+                          NewAccountRegistry newAccountRegistry) {
         this.accountRepository = accountRepository;
         this.userRepository = userRepository;
         this.transactionRepository = transactionRepository; // Initialize TransactionRepository
+        this.accountSecurityService = accountSecurityService;
+        this.dashboardSummaryService = dashboardSummaryService;
+        this.accountLookupService = accountLookupService;
+        this.statementCacheService = statementCacheService;
+        this.newAccountRegistry = newAccountRegistry;
     }
 
     @Transactional
@@ -45,7 +62,11 @@ public class AccountService {
             account.setBalance(BigDecimal.ZERO);
         }
 
-        return accountRepository.save(account);
+        Account savedAccount = accountRepository.save(account);
+        dashboardSummaryService.onAccountCreated(savedAccount.getAccountType(), savedAccount.getBalance());
+        accountLookupService.onAccountSaved(savedAccount);
+        newAccountRegistry.registerAfterCommit(savedAccount);
+        return savedAccount;
     }
 
     public List<Account> getAllAccounts() {
@@ -57,6 +78,38 @@ public class AccountService {
                 .orElseThrow(() -> new IllegalArgumentException("Account not found with ID: " + id));
     }
 
+    public Account getAccountByNumber(String accountNumber) {
+        return accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new IllegalArgumentException("Account not found with number: " + accountNumber));
+    }
+
+    // Account with its owner initialized, so callers can render owner details outside a transaction
+    public Account getAccountWithOwner(Long id) {
+        return accountRepository.findWithUserById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Account not found with ID: " + id));
+    }
+
+    @Transactional(readOnly = true)
+    public List<AccountSummary> getAllAccountSummaries() {
+        return accountRepository.findAllSummaries();
+    }
+
+    @Transactional(readOnly = true)
+    public List<AccountSummary> getAccountSummariesByUserId(Long userId) {
+        return accountRepository.findSummariesByUserId(userId);
+    }
+
+    @Transactional(readOnly = true)
+    public List<AccountSummary> getAccountSummariesByIds(Collection<Long> accountIds) {
+        return accountRepository.findSummariesByIdIn(accountIds);
+    }
+
+    // One page of account summaries for admin drill-downs
+    @Transactional(readOnly = true)
+    public Slice<AccountSummary> getAccountSummariesPage(Pageable pageable) {
+        return accountRepository.findSummaries(pageable);
+    }
+
     public List<Account> getAccountsByUserId(Long userId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new IllegalArgumentException("User not found with ID: " + userId));
@@ -69,6 +122,7 @@ public class AccountService {
                 .orElseThrow(() -> new IllegalArgumentException("Account not found with ID: " + accountId));
 
         // Only update allowed fields (e.g., accountType). Balance is handled by transactions.
+        dashboardSummaryService.onAccountTypeChanged(existingAccount.getAccountType(), updatedAccount.getAccountType(), existingAccount.getBalance());
         existingAccount.setAccountType(updatedAccount.getAccountType());
         // If you add other non-financial fields like description, update them here:
         // existingAccount.setDescription(updatedAccount.getDescription());
@@ -78,9 +132,12 @@ public class AccountService {
             User newOwner = userRepository.findById(updatedAccount.getUser().getId())
                     .orElseThrow(() -> new IllegalArgumentException("New owner user not found with ID: " + updatedAccount.getUser().getId()));
             existingAccount.setUser(newOwner);
+            accountSecurityService.invalidateOwnershipCache(); // Cached ownership for the previous owner is now stale
         }
 
-        return accountRepository.save(existingAccount);
+        Account savedAccount = accountRepository.save(existingAccount);
+        accountLookupService.onAccountSaved(savedAccount); // Type or owner may have changed
+        return savedAccount;
     }
 
     @Transactional // Crucial: Make the delete operation transactional
@@ -95,11 +152,25 @@ public class AccountService {
 
         if (relatedTransactions != null && !relatedTransactions.isEmpty()) {
             transactionRepository.deleteAll(relatedTransactions); // Delete all related transactions
+            // Counterparty statements lose these rows too
+            for (Transaction related : relatedTransactions) {
+                if (related.getSourceAccount() != null) {
+                    statementCacheService.invalidateAccount(related.getSourceAccount().getId());
+                }
+                if (related.getDestinationAccount() != null) {
+                    statementCacheService.invalidateAccount(related.getDestinationAccount().getId());
+                }
+            }
             System.out.println("DEBUG: Deleted " + relatedTransactions.size() + " transactions for account ID: " + id);
         }
         // --- End of CRUCIAL FIX ---
 
         accountRepository.deleteById(id);
+        accountSecurityService.invalidateOwnershipCache();
+        dashboardSummaryService.onAccountDeleted(accountToDelete.getAccountType(), accountToDelete.getBalance());
+        accountLookupService.onAccountDeleted(id);
+        newAccountRegistry.onAccountDeleted(id);
+        statementCacheService.invalidateAccount(id);
         System.out.println("DEBUG: Account with ID: " + id + " deleted successfully.");
     }
 
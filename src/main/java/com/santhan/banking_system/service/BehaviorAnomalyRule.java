@@ -0,0 +1,58 @@
+package com.santhan.banking_system.service;
+
+import com.santhan.banking_system.model.FraudAlert.AlertType;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Set;
+
+// Rule 7: Transaction far off the account's usual amount, pace and time of day (per-account EWMA baseline)
+@Component
+public class BehaviorAnomalyRule implements FraudRule {
+
+    public static final int DEFAULT_MIN_HISTORY = 20;
+    public static final BigDecimal DEFAULT_MIN_AMOUNT = new BigDecimal("500.00");
+    public static final BigDecimal DEFAULT_SCORE_THRESHOLD = new BigDecimal("4.0");
+    public static final BigDecimal DEFAULT_AMOUNT_WEIGHT = new BigDecimal("1.0");
+    public static final BigDecimal DEFAULT_RATE_WEIGHT = new BigDecimal("0.5");
+    public static final BigDecimal DEFAULT_HOUR_WEIGHT = new BigDecimal("1.0");
+
+    @Override
+    public AlertType getAlertType() {
+        return AlertType.BEHAVIOR_ANOMALY;
+    }
+
+    @Override
+    public Set<State> getRequiredState() {
+        return Set.of(State.BEHAVIOR_PROFILES);
+    }
+
+    @Override
+    public String evaluate(FraudRuleContext context, FraudRuleSettings settings) {
+        AccountBehaviorProfiles profiles = context.getBehaviorProfiles();
+        BigDecimal minAmount = settings.getDecimal(getName(), "min-amount", DEFAULT_MIN_AMOUNT);
+        if (profiles == null || context.getAmount().compareTo(minAmount) < 0) {
+            return null; // Small amounts are not worth an alert however unusual
+        }
+        AccountBehaviorProfiles.Score score = profiles.score(context.getRelevantAccountId(), context.getAmount(), context.getEvaluatedAt());
+        if (score == null || score.getHistory() < settings.getInt(getName(), "min-history", DEFAULT_MIN_HISTORY)) {
+            return null;
+        }
+        double amountPart = settings.getDecimal(getName(), "amount-weight", DEFAULT_AMOUNT_WEIGHT).doubleValue()
+                * Math.max(score.getAmountZ(), 0);
+        double ratePart = settings.getDecimal(getName(), "rate-weight", DEFAULT_RATE_WEIGHT).doubleValue()
+                * Math.max(score.getGapZ(), 0);
+        // Up to 2 for the opposite hour of an account that always transacts at the same time
+        double hourPart = settings.getDecimal(getName(), "hour-weight", DEFAULT_HOUR_WEIGHT).doubleValue()
+                * score.getHourRegularity() * score.getHoursOffTypical() / 6.0;
+        double total = amountPart + ratePart + hourPart;
+        double threshold = settings.getDecimal(getName(), "score-threshold", DEFAULT_SCORE_THRESHOLD).doubleValue();
+        if (total >= threshold) {
+            return String.format("Unusual activity for account ID %d: score %.2f (threshold %.2f) - amount %.1f std above usual, "
+                            + "pace %.1f std faster than usual, %.1f hours from the usual time of day (around %02d:00), over %d past transactions.",
+                    context.getRelevantAccountId(), total, threshold, score.getAmountZ(), score.getGapZ(),
+                    score.getHoursOffTypical(), (int) score.getTypicalHour(), score.getHistory());
+        }
+        return null;
+    }
+}
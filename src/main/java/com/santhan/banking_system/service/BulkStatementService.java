@@ -0,0 +1,419 @@
+package com.santhan.banking_system.service;
+
+import com.santhan.banking_system.dto.AccountSummary;
+import com.santhan.banking_system.repository.AccountRepository;
+import com.santhan.banking_system.util.ReadThrottle;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Month-end bulk statement generation.
+ *
+ * A dispatcher thread walks all accounts in id order (keyset pages) and hands each one to a fixed pool of workers.
+ * Each worker streams that account's statement rows through the same keyset cursor used for downloads. It writes
+ * CSV and/or PDF through a FileChannel into {@code <output-dir>/<yyyy-MM>/}: first to a temp file, then an atomic
+ * rename, so a file that exists is always complete.
+ *
+ * Progress is checkpointed as a low-water mark: the highest account id below which every account is done. After
+ * a crash, running the same month again resumes from that mark and skips accounts whose files already exist.
+ * All DB reads go through a shared ReadThrottle, and throughput (accounts/sec) is logged while the job runs.
+ */
+@Service
+public class BulkStatementService {
+
+    private static final String CHECKPOINT_FILE = "checkpoint.properties";
+    private static final String FAILED_FILE = "failed-accounts.txt";
+    private static final int ACCOUNT_PAGE_SIZE = 1000;
+
+    private final AccountRepository accountRepository;
+    private final TransactionService transactionService;
+    private final StatementStreamService statementStreamService;
+
+    private final Path outputRoot;
+    private final int workers;
+    private final double maxReadsPerSecond;
+    private final int checkpointEvery;
+    private final long progressLogIntervalMs;
+
+    private final AtomicReference<JobStatus> currentJob = new AtomicReference<>();
+    private volatile Thread dispatcherThread;
+
+    @Autowired
+    public BulkStatementService(AccountRepository accountRepository,
+                                TransactionService transactionService,
+                                StatementStreamService statementStreamService,
+                                @Value("${banking.statements.bulk.output-dir:statements}") String outputDir,
+                                @Value("${banking.statements.bulk.workers:4}") int workers,
+                                @Value("${banking.statements.bulk.max-reads-per-second:200}") double maxReadsPerSecond,
+                                @Value("${banking.statements.bulk.checkpoint-every:500}") int checkpointEvery,
+                                @Value("${banking.statements.bulk.progress-log-interval-ms:10000}") long progressLogIntervalMs) {
+        this.accountRepository = accountRepository;
+        this.transactionService = transactionService;
+        this.statementStreamService = statementStreamService;
+        this.outputRoot = Paths.get(outputDir);
+        this.workers = Math.max(workers, 1);
+        this.maxReadsPerSecond = maxReadsPerSecond;
+        this.checkpointEvery = Math.max(checkpointEvery, 1);
+        this.progressLogIntervalMs = progressLogIntervalMs;
+    }
+
+    /**
+     * Starts a bulk run for the given month in the background. Resumes from the month's checkpoint if one exists.
+     * @throws IllegalStateException if a run is already in progress.
+     */
+    public JobStatus startMonthEndRun(YearMonth month, List<String> formats) {
+        List<String> normalizedFormats = new ArrayList<>();
+        for (String format : formats) {
+            String f = format.trim().toLowerCase(Locale.ROOT);
+            if (!StatementStreamService.isSupportedFormat(f)) {
+                throw new IllegalArgumentException("Unsupported statement format: " + format);
+            }
+            if (!normalizedFormats.contains(f)) {
+                normalizedFormats.add(f);
+            }
+        }
+        if (normalizedFormats.isEmpty()) {
+            throw new IllegalArgumentException("At least one statement format is required.");
+        }
+
+        JobStatus status = new JobStatus(month, normalizedFormats);
+        JobStatus running = currentJob.get();
+        if (running != null && running.isRunning()) {
+            throw new IllegalStateException("A bulk statement run for " + running.getMonth() + " is already in progress.");
+        }
+        if (!currentJob.compareAndSet(running, status)) {
+            throw new IllegalStateException("A bulk statement run was started concurrently.");
+        }
+
+        Thread dispatcher = new Thread(() -> runJob(status), "bulk-statement-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcherThread = dispatcher;
+        dispatcher.start();
+        return status;
+    }
+
+    public JobStatus getCurrentJob() {
+        return currentJob.get();
+    }
+
+    /**
+     * Asks the running job to stop after the accounts already handed to workers; its checkpoint allows a later resume.
+     */
+    public boolean cancelCurrentJob() {
+        JobStatus status = currentJob.get();
+        if (status == null || !status.isRunning()) {
+            return false;
+        }
+        status.cancelRequested.set(true);
+        return true;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        cancelCurrentJob();
+        Thread dispatcher = dispatcherThread;
+        if (dispatcher != null) {
+            dispatcher.interrupt();
+        }
+    }
+
+    // --- Job execution ---
+
+    private void runJob(JobStatus status) {
+        Path monthDir = outputRoot.resolve(status.getMonth().toString());
+        Instant startDate = status.getMonth().atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC);
+        Instant endDate = status.getMonth().atEndOfMonth().atTime(23, 59, 59, 999_999_999).toInstant(ZoneOffset.UTC);
+        ReadThrottle throttle = new ReadThrottle(maxReadsPerSecond);
+
+        ExecutorService pool = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "bulk-statement-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Bounds the number of accounts queued or in progress, so the dispatcher never runs far ahead of the workers
+        Semaphore slots = new Semaphore(workers * 2);
+        DispatchedAccounts dispatched = new DispatchedAccounts();
+        long lastProgressLog = System.currentTimeMillis();
+
+        try {
+            Files.createDirectories(monthDir);
+            long resumeAfterId = readCheckpoint(monthDir);
+            dispatched.resumeAfter(resumeAfterId);
+            status.resumedFromId = resumeAfterId;
+            System.out.println("INFO: Bulk statement run for " + status.getMonth() + " started (formats " + status.getFormats()
+                    + ", workers " + workers + ", resuming after account ID " + resumeAfterId + ").");
+
+            long afterId = resumeAfterId;
+            while (!status.cancelRequested.get()) {
+                throttle.acquire();
+                List<AccountSummary> accounts = accountRepository.findSummariesAfterId(afterId, PageRequest.of(0, ACCOUNT_PAGE_SIZE));
+                if (accounts.isEmpty()) {
+                    break;
+                }
+                for (AccountSummary account : accounts) {
+                    if (status.cancelRequested.get()) {
+                        break;
+                    }
+                    slots.acquire();
+                    dispatched.add(account.getId());
+                    pool.execute(() -> {
+                        try {
+                            generateForAccount(account, monthDir, startDate, endDate, status, throttle);
+                        } finally {
+                            dispatched.finish(account.getId());
+                            slots.release();
+                            if (status.processed.get() % checkpointEvery == 0) {
+                                writeCheckpoint(monthDir, status, dispatched.lowWaterMark());
+                            }
+                        }
+                    });
+                    afterId = account.getId();
+
+                    if (System.currentTimeMillis() - lastProgressLog >= progressLogIntervalMs) {
+                        logProgress(status);
+                        lastProgressLog = System.currentTimeMillis();
+                    }
+                }
+                if (accounts.size() < ACCOUNT_PAGE_SIZE) {
+                    break;
+                }
+            }
+
+            pool.shutdown();
+            while (!pool.awaitTermination(progressLogIntervalMs, TimeUnit.MILLISECONDS)) {
+                logProgress(status);
+            }
+            writeCheckpoint(monthDir, status, dispatched.lowWaterMark());
+            status.state = status.cancelRequested.get() ? "CANCELLED" : "COMPLETED";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            status.state = "CANCELLED";
+        } catch (Exception e) {
+            status.state = "FAILED";
+            status.error = e.getMessage();
+            System.err.println("ERROR: Bulk statement run for " + status.getMonth() + " failed: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            pool.shutdownNow();
+            status.finishedAt = Instant.now();
+            logProgress(status);
+            System.out.println("INFO: Bulk statement run for " + status.getMonth() + " finished with state " + status.state + ".");
+        }
+    }
+
+    private void generateForAccount(AccountSummary account, Path monthDir, Instant startDate, Instant endDate,
+                                    JobStatus status, ReadThrottle throttle) {
+        try {
+            boolean wroteAny = false;
+            for (String format : status.getFormats()) {
+                Path target = monthDir.resolve(StatementStreamService.fileName(account.getAccountNumber(),
+                        status.getMonth().atDay(1).toString(), status.getMonth().atEndOfMonth().toString(), format));
+                if (Files.exists(target)) {
+                    continue; // Finished before a restart
+                }
+                throttle.acquire();
+                Map<String, Object> balances = transactionService.calculateStatementOpeningAndClosing(account.getId(), startDate, endDate);
+                BigDecimal openingBalance = (BigDecimal) balances.get("openingBalance");
+                BigDecimal closingBalance = (BigDecimal) balances.get("closingBalance");
+
+                Path temp = monthDir.resolve(target.getFileName() + ".part");
+                try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING);
+                     OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024)) {
+                    statementStreamService.writeStatement(out, format, account.getId(), account.getAccountNumber(), account.getAccountType(),
+                            status.getMonth().atDay(1).toString(), status.getMonth().atEndOfMonth().toString(),
+                            startDate, endDate, openingBalance, closingBalance, throttle::acquire);
+                    out.flush();
+                    channel.force(false);
+                }
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                status.filesWritten.incrementAndGet();
+                wroteAny = true;
+            }
+            if (!wroteAny) {
+                status.skipped.incrementAndGet();
+            }
+        } catch (Exception e) {
+            status.failed.incrementAndGet();
+            System.err.println("WARNING: Bulk statement failed for account ID " + account.getId() + ": " + e.getMessage());
+            appendFailure(monthDir, account.getId(), e);
+        } finally {
+            status.processed.incrementAndGet();
+        }
+    }
+
+    // --- Checkpointing ---
+
+    /**
+     * Accounts handed to the workers and not yet finished, plus the last one dispatched. The dispatcher and the workers
+     * share one lock, so the low-water mark never sees an account half dispatched, e.g. already the last dispatched
+     * but not yet in flight.
+     */
+    private static class DispatchedAccounts {
+        private final TreeSet<Long> inFlight = new TreeSet<>();
+        private long lastDispatchedId;
+
+        synchronized void resumeAfter(long accountId) {
+            lastDispatchedId = accountId;
+        }
+
+        synchronized void add(long accountId) {
+            inFlight.add(accountId);
+            lastDispatchedId = accountId;
+        }
+
+        synchronized void finish(long accountId) {
+            inFlight.remove(accountId);
+        }
+
+        // Every account with id <= the returned value has finished (written, skipped or failed)
+        synchronized long lowWaterMark() {
+            return inFlight.isEmpty() ? lastDispatchedId : inFlight.first() - 1;
+        }
+    }
+
+    private long readCheckpoint(Path monthDir) {
+        Path checkpoint = monthDir.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(checkpoint)) {
+            return 0L;
+        }
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(checkpoint)) {
+            properties.load(in);
+            return Long.parseLong(properties.getProperty("lastCompletedAccountId", "0"));
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("WARNING: Ignoring unreadable bulk statement checkpoint " + checkpoint + ": " + e.getMessage());
+            return 0L;
+        }
+    }
+
+    private synchronized void writeCheckpoint(Path monthDir, JobStatus status, long lastCompletedAccountId) {
+        Properties properties = new Properties();
+        properties.setProperty("month", status.getMonth().toString());
+        properties.setProperty("lastCompletedAccountId", String.valueOf(lastCompletedAccountId));
+        properties.setProperty("processed", String.valueOf(status.processed.get()));
+        properties.setProperty("failed", String.valueOf(status.failed.get()));
+        properties.setProperty("updatedAt", Instant.now().toString());
+
+        Path temp = monthDir.resolve(CHECKPOINT_FILE + ".part");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+             OutputStream out = Channels.newOutputStream(channel)) {
+            properties.store(out, "Bulk statement checkpoint");
+            out.flush();
+            channel.force(true);
+        } catch (IOException e) {
+            System.err.println("WARNING: Could not write bulk statement checkpoint: " + e.getMessage());
+            return;
+        }
+        try {
+            Files.move(temp, monthDir.resolve(CHECKPOINT_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            status.checkpointAccountId = lastCompletedAccountId;
+        } catch (IOException e) {
+            System.err.println("WARNING: Could not publish bulk statement checkpoint: " + e.getMessage());
+        }
+    }
+
+    private synchronized void appendFailure(Path monthDir, Long accountId, Exception e) {
+        String line = accountId + "\t" + Instant.now() + "\t" + e.getClass().getSimpleName() + ": " + e.getMessage() + System.lineSeparator();
+        try {
+            Files.write(monthDir.resolve(FAILED_FILE), line.getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException ioException) {
+            System.err.println("WARNING: Could not record failed account " + accountId + ": " + ioException.getMessage());
+        }
+    }
+
+    private void logProgress(JobStatus status) {
+        System.out.printf("INFO: Bulk statements %s: %d accounts processed (%d files, %d skipped, %d failed), %.1f accounts/sec%n",
+                status.getMonth(), status.processed.get(), status.filesWritten.get(), status.skipped.get(),
+                status.failed.get(), status.getAccountsPerSecond());
+    }
+
+    /**
+     * Live progress of a bulk run; counters are updated by the worker threads.
+     */
+    public static class JobStatus {
+        private final YearMonth month;
+        private final List<String> formats;
+        private final Instant startedAt = Instant.now();
+        private final AtomicBoolean cancelRequested = new AtomicBoolean(false);
+        private final AtomicInteger processed = new AtomicInteger();
+        private final AtomicInteger filesWritten = new AtomicInteger();
+        private final AtomicInteger skipped = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private volatile String state = "RUNNING";
+        private volatile String error;
+        private volatile long resumedFromId;
+        private volatile long checkpointAccountId;
+        private volatile Instant finishedAt;
+
+        private JobStatus(YearMonth month, List<String> formats) {
+            this.month = month;
+            this.formats = formats;
+        }
+
+        public YearMonth getMonth() { return month; }
+        public List<String> getFormats() { return formats; }
+        public String getState() { return state; }
+        public boolean isRunning() { return "RUNNING".equals(state); }
+
+        public double getAccountsPerSecond() {
+            Instant end = finishedAt != null ? finishedAt : Instant.now();
+            double seconds = Math.max((end.toEpochMilli() - startedAt.toEpochMilli()) / 1000.0, 0.001);
+            return processed.get() / seconds;
+        }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("month", month.toString());
+            map.put("formats", formats);
+            map.put("state", state);
+            map.put("startedAt", startedAt.toString());
+            map.put("finishedAt", finishedAt != null ? finishedAt.toString() : null);
+            map.put("resumedFromAccountId", resumedFromId);
+            map.put("checkpointAccountId", checkpointAccountId);
+            map.put("processed", processed.get());
+            map.put("filesWritten", filesWritten.get());
+            map.put("skipped", skipped.get());
+            map.put("failed", failed.get());
+            map.put("accountsPerSecond", Math.round(getAccountsPerSecond() * 10) / 10.0);
+            map.put("error", error);
+            return map;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.santhan.banking_system.service;
+
+import com.santhan.banking_system.dto.AccountSummary;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Consolidated statement download for customers with many accounts.
+ *
+ * Per-account statements are rendered in parallel on a shared pool, each into its own bounded pipe, while the
+ * request thread copies the pipes one after another into a single ZIP (or, for CSV, one gzip stream) on the
+ * response. At most {@code parallelism} accounts render ahead of the one being written, and a renderer blocks
+ * when its pipe is full, so memory stays at parallelism x pipe size no matter how many accounts or rows there
+ * are, and nothing is written to disk.
+ */
+@Service
+public class ConsolidatedStatementService {
+
+    public static final String ARCHIVE_ZIP = "zip";
+    public static final String ARCHIVE_GZIP = "gzip";
+
+    private static final String ERRORS_ENTRY = "errors.txt";
+
+    private final TransactionService transactionService;
+    private final StatementStreamService statementStreamService;
+    private final int parallelism;
+    private final int pipeBufferBytes;
+    private final int maxAccounts;
+    private final ExecutorService renderPool;
+
+    @Autowired
+    public ConsolidatedStatementService(TransactionService transactionService,
+                                        StatementStreamService statementStreamService,
+                                        @Value("${banking.statements.consolidated.parallelism:3}") int parallelism,
+                                        @Value("${banking.statements.consolidated.pipe-buffer-bytes:262144}") int pipeBufferBytes,
+                                        @Value("${banking.statements.consolidated.max-accounts:50}") int maxAccounts,
+                                        @Value("${banking.statements.consolidated.pool-size:6}") int poolSize) {
+        this.transactionService = transactionService;
+        this.statementStreamService = statementStreamService;
+        this.parallelism = Math.max(parallelism, 1);
+        this.pipeBufferBytes = Math.max(pipeBufferBytes, 8192);
+        this.maxAccounts = Math.max(maxAccounts, 1);
+        AtomicInteger threadCounter = new AtomicInteger();
+        // FIFO queue: every request's earliest pending account always starts before its later ones
+        this.renderPool = Executors.newFixedThreadPool(Math.max(poolSize, 1), runnable -> {
+            Thread thread = new Thread(runnable, "consolidated-statement-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public int getMaxAccounts() {
+        return maxAccounts;
+    }
+
+    public static boolean isSupportedArchive(String archive, String format) {
+        return ARCHIVE_ZIP.equalsIgnoreCase(archive)
+                || (ARCHIVE_GZIP.equalsIgnoreCase(archive) && StatementStreamService.FORMAT_CSV.equalsIgnoreCase(format));
+    }
+
+    public static String archiveFileName(String periodStart, String periodEnd, String format, String archive) {
+        String base = "consolidated_statement_" + periodStart + "_to_" + periodEnd;
+        return ARCHIVE_GZIP.equalsIgnoreCase(archive) ? base + ".csv.gz" : base + "_" + format.toLowerCase() + ".zip";
+    }
+
+    public static String archiveContentType(String archive) {
+        return ARCHIVE_GZIP.equalsIgnoreCase(archive) ? "application/gzip" : "application/zip";
+    }
+
+    /**
+     * Writes the archive for {@code accounts} (in the given order) to {@code out}. Accounts whose statement
+     * failed part-way are listed in an errors.txt entry (ZIP) or a trailing comment line (gzip).
+     */
+    public void writeArchive(OutputStream out, List<AccountSummary> accounts, String format, String archive,
+                             String periodStart, String periodEnd, Instant startDate, Instant endDate) throws IOException {
+        boolean gzip = ARCHIVE_GZIP.equalsIgnoreCase(archive);
+        List<String> errors = new ArrayList<>();
+        Deque<PendingStatement> window = new ArrayDeque<>();
+        int next = 0;
+
+        try {
+            ZipOutputStream zip = gzip ? null : new ZipOutputStream(out, StandardCharsets.UTF_8);
+            GZIPOutputStream gzipStream = gzip ? new GZIPOutputStream(out, 64 * 1024) : null;
+
+            while (next < accounts.size() || !window.isEmpty()) {
+                // Keep up to 'parallelism' accounts rendering ahead of the one being copied
+                while (next < accounts.size() && window.size() < parallelism) {
+                    window.addLast(startRender(accounts.get(next++), format, periodStart, periodEnd, startDate, endDate));
+                }
+
+                PendingStatement pending = window.peekFirst(); // Stays in the window until copied, for cleanup
+                if (zip != null) {
+                    zip.putNextEntry(new ZipEntry(StatementStreamService.fileName(
+                            pending.account.getAccountNumber(), periodStart, periodEnd, format)));
+                    copy(pending.input, zip);
+                    zip.closeEntry();
+                } else {
+                    copy(pending.input, gzipStream);
+                }
+                pending.input.close();
+                window.removeFirst();
+
+                String error = awaitRender(pending);
+                if (error != null) {
+                    errors.add("Account " + pending.account.getAccountNumber() + ": " + error);
+                }
+            }
+
+            if (zip != null) {
+                if (!errors.isEmpty()) {
+                    zip.putNextEntry(new ZipEntry(ERRORS_ENTRY));
+                    zip.write(("The following statements are incomplete:\n" + String.join("\n", errors) + "\n")
+                            .getBytes(StandardCharsets.UTF_8));
+                    zip.closeEntry();
+                }
+                zip.finish();
+            } else {
+                for (String error : errors) {
+                    gzipStream.write(("# INCOMPLETE: " + error + "\n").getBytes(StandardCharsets.UTF_8));
+                }
+                gzipStream.finish();
+            }
+            out.flush();
+        } finally {
+            // Client went away or copying failed: unblock and stop the renderers still in the window
+            for (PendingStatement pending : window) {
+                try {
+                    pending.input.close();
+                } catch (IOException ignored) {
+                    // Closing the read side makes the renderer's next write fail, which ends it
+                }
+                pending.future.cancel(true);
+            }
+        }
+        if (!errors.isEmpty()) {
+            System.err.println("WARNING: Consolidated statement finished with " + errors.size() + " incomplete account(s).");
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        renderPool.shutdownNow();
+    }
+
+    private PendingStatement startRender(AccountSummary account, String format, String periodStart, String periodEnd,
+                                         Instant startDate, Instant endDate) throws IOException {
+        PipedInputStream input = new PipedInputStream(pipeBufferBytes);
+        PipedOutputStream output = new PipedOutputStream(input);
+        Future<?> future = renderPool.submit(() -> {
+            try (PipedOutputStream pipe = output) {
+                Map<String, Object> balances = transactionService.calculateStatementOpeningAndClosing(
+                        account.getId(), startDate, endDate);
+                statementStreamService.writeStatement(pipe, format, account.getId(), account.getAccountNumber(),
+                        account.getAccountType(), periodStart, periodEnd, startDate, endDate,
+                        (BigDecimal) balances.get("openingBalance"), (BigDecimal) balances.get("closingBalance"),
+                        () -> { });
+            }
+            return null;
+        });
+        return new PendingStatement(account, input, future);
+    }
+
+    private static String awaitRender(PendingStatement pending) {
+        try {
+            pending.future.get();
+            return null;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            System.err.println("ERROR: Consolidated statement for account " + pending.account.getId() + " failed: " + cause.getMessage());
+            return "statement generation failed";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "interrupted";
+        }
+    }
+
+    private static void copy(InputStream input, OutputStream output) throws IOException {
+        byte[] buffer = new byte[16 * 1024];
+        int read;
+        while ((read = input.read(buffer)) != -1) {
+            output.write(buffer, 0, read);
+        }
+    }
+
+    private static class PendingStatement {
+        private final AccountSummary account;
+        private final PipedInputStream input;
+        private final Future<?> future;
+
+        private PendingStatement(AccountSummary account, PipedInputStream input, Future<?> future) {
+            this.account = account;
+            this.input = input;
+            this.future = future;
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.santhan.banking_system.service;
+
+import com.santhan.banking_system.dto.DashboardSummary;
+import com.santhan.banking_system.model.AccountType;
+import com.santhan.banking_system.model.FraudAlert.AlertStatus;
+import com.santhan.banking_system.model.KycStatus;
+import com.santhan.banking_system.model.UserRole;
+import com.santhan.banking_system.repository.AccountRepository;
+import com.santhan.banking_system.repository.FraudAlertRepository;
+import com.santhan.banking_system.repository.UserRepository;
+import com.santhan.banking_system.util.AfterCommit;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Keeps the admin dashboard aggregates (users by role / KYC status, accounts and balances by type,
+ * pending fraud alerts) as in-memory counters so the dashboard loads in constant time.
+ *
+ * Services report changes through the on* methods; deltas are applied after the surrounding transaction
+ * commits so rolled-back work never moves a counter. A periodic re-sync recomputes everything with
+ * GROUP BY queries to correct any drift (e.g. direct DB edits or a crash between commit and callback).
+ */
+@Service
+public class DashboardSummaryService {
+
+    private final UserRepository userRepository;
+    private final AccountRepository accountRepository;
+    private final FraudAlertRepository fraudAlertRepository;
+
+    // Counters indexed by enum ordinal
+    private final AtomicLongArray usersByRole = new AtomicLongArray(UserRole.values().length);
+    private final AtomicLongArray usersByKycStatus = new AtomicLongArray(KycStatus.values().length);
+    private final AtomicLongArray accountsByType = new AtomicLongArray(AccountType.values().length);
+    private final AtomicReference<BigDecimal>[] balancesByType;
+    private final AtomicLong pendingAlerts = new AtomicLong();
+    private volatile Instant lastResyncAt;
+
+    @Autowired
+    @SuppressWarnings("unchecked")
+    public DashboardSummaryService(UserRepository userRepository,
+                                   AccountRepository accountRepository,
+                                   FraudAlertRepository fraudAlertRepository) {
+        this.userRepository = userRepository;
+        this.accountRepository = accountRepository;
+        this.fraudAlertRepository = fraudAlertRepository;
+        this.balancesByType = new AtomicReference[AccountType.values().length];
+        for (int i = 0; i < balancesByType.length; i++) {
+            balancesByType[i] = new AtomicReference<>(BigDecimal.ZERO);
+        }
+    }
+
+    // --- Snapshot ---
+
+    public DashboardSummary getSummary() {
+        Map<UserRole, Long> roles = new EnumMap<>(UserRole.class);
+        for (UserRole role : UserRole.values()) {
+            roles.put(role, usersByRole.get(role.ordinal()));
+        }
+        Map<KycStatus, Long> kyc = new EnumMap<>(KycStatus.class);
+        for (KycStatus status : KycStatus.values()) {
+            kyc.put(status, usersByKycStatus.get(status.ordinal()));
+        }
+        Map<AccountType, Long> accounts = new EnumMap<>(AccountType.class);
+        Map<AccountType, BigDecimal> balances = new EnumMap<>(AccountType.class);
+        for (AccountType type : AccountType.values()) {
+            accounts.put(type, accountsByType.get(type.ordinal()));
+            balances.put(type, balancesByType[type.ordinal()].get());
+        }
+        return new DashboardSummary(Collections.unmodifiableMap(roles), Collections.unmodifiableMap(kyc),
+                Collections.unmodifiableMap(accounts), Collections.unmodifiableMap(balances),
+                pendingAlerts.get(), lastResyncAt);
+    }
+
+    // --- Change notifications (called from the owning services) ---
+
+    public void onUserCreated(UserRole role, KycStatus kycStatus) {
+        AfterCommit.run(() -> {
+            increment(usersByRole, role, 1);
+            increment(usersByKycStatus, kycStatus, 1);
+        });
+    }
+
+    public void onUserDeleted(UserRole role, KycStatus kycStatus) {
+        AfterCommit.run(() -> {
+            increment(usersByRole, role, -1);
+            increment(usersByKycStatus, kycStatus, -1);
+        });
+    }
+
+    public void onUserRoleChanged(UserRole oldRole, UserRole newRole) {
+        if (oldRole == newRole) {
+            return;
+        }
+        AfterCommit.run(() -> {
+            increment(usersByRole, oldRole, -1);
+            increment(usersByRole, newRole, 1);
+        });
+    }
+
+    public void onKycStatusChanged(KycStatus oldStatus, KycStatus newStatus) {
+        if (oldStatus == newStatus) {
+            return;
+        }
+        AfterCommit.run(() -> {
+            increment(usersByKycStatus, oldStatus, -1);
+            increment(usersByKycStatus, newStatus, 1);
+        });
+    }
+
+    public void onAccountCreated(AccountType type, BigDecimal balance) {
+        AfterCommit.run(() -> {
+            increment(accountsByType, type, 1);
+            addBalance(type, balance);
+        });
+    }
+
+    public void onAccountDeleted(AccountType type, BigDecimal balance) {
+        AfterCommit.run(() -> {
+            increment(accountsByType, type, -1);
+            addBalance(type, balance != null ? balance.negate() : null);
+        });
+    }
+
+    public void onAccountTypeChanged(AccountType oldType, AccountType newType, BigDecimal balance) {
+        if (oldType == newType) {
+            return;
+        }
+        AfterCommit.run(() -> {
+            increment(accountsByType, oldType, -1);
+            increment(accountsByType, newType, 1);
+            addBalance(oldType, balance != null ? balance.negate() : null);
+            addBalance(newType, balance);
+        });
+    }
+
+    /**
+     * Records a posting against an account of the given type. Positive deltas are credits, negative are debits.
+     */
+    public void onBalanceChanged(AccountType type, BigDecimal delta) {
+        AfterCommit.run(() -> addBalance(type, delta));
+    }
+
+    public void onAlertStatusChanged(AlertStatus oldStatus, AlertStatus newStatus) {
+        if (oldStatus == newStatus) {
+            return;
+        }
+        AfterCommit.run(() -> {
+            if (oldStatus == AlertStatus.PENDING) {
+                pendingAlerts.decrementAndGet();
+            }
+            if (newStatus == AlertStatus.PENDING) {
+                pendingAlerts.incrementAndGet();
+            }
+        });
+    }
+
+    // --- Periodic re-sync ---
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialSync() {
+        resync();
+    }
+
+    /**
+     * Recomputes all counters from the database with a handful of aggregate queries.
+     * Interval is configurable via banking.dashboard.resync-interval-ms (default 5 minutes).
+     */
+    @Scheduled(fixedDelayString = "${banking.dashboard.resync-interval-ms:300000}",
+            initialDelayString = "${banking.dashboard.resync-interval-ms:300000}")
+    @Transactional(readOnly = true)
+    public void resync() {
+        try {
+            long[] roles = new long[UserRole.values().length];
+            for (Object[] row : userRepository.countUsersGroupedByRole()) {
+                roles[((UserRole) row[0]).ordinal()] = ((Number) row[1]).longValue();
+            }
+            long[] kyc = new long[KycStatus.values().length];
+            for (Object[] row : userRepository.countUsersGroupedByKycStatus()) {
+                kyc[((KycStatus) row[0]).ordinal()] = ((Number) row[1]).longValue();
+            }
+            long[] accounts = new long[AccountType.values().length];
+            BigDecimal[] balances = new BigDecimal[AccountType.values().length];
+            for (Object[] row : accountRepository.sumAccountsGroupedByType()) {
+                int index = ((AccountType) row[0]).ordinal();
+                accounts[index] = ((Number) row[1]).longValue();
+                balances[index] = (BigDecimal) row[2];
+            }
+            long pending = fraudAlertRepository.countByStatus(AlertStatus.PENDING);
+
+            for (int i = 0; i < roles.length; i++) {
+                usersByRole.set(i, roles[i]);
+            }
+            for (int i = 0; i < kyc.length; i++) {
+                usersByKycStatus.set(i, kyc[i]);
+            }
+            for (int i = 0; i < accounts.length; i++) {
+                accountsByType.set(i, accounts[i]);
+                balancesByType[i].set(balances[i] != null ? balances[i] : BigDecimal.ZERO);
+            }
+            pendingAlerts.set(pending);
+            lastResyncAt = Instant.now();
+            System.out.println("DEBUG: Dashboard summary counters re-synced from database.");
+        } catch (Exception e) {
+            // Keep serving the existing counters; the next scheduled run will try again
+            System.err.println("WARNING: Dashboard summary re-sync failed: " + e.getMessage());
+        }
+    }
+
+    // --- Helpers ---
+
+    private static void increment(AtomicLongArray counters, Enum<?> key, long delta) {
+        if (key != null) {
+            counters.addAndGet(key.ordinal(), delta);
+        }
+    }
+
+    private void addBalance(AccountType type, BigDecimal delta) {
+        if (type != null && delta != null && delta.signum() != 0) {
+            balancesByType[type.ordinal()].accumulateAndGet(delta, BigDecimal::add);
+        }
+    }
+}
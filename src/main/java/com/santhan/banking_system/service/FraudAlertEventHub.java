@@ -0,0 +1,255 @@
+package com.santhan.banking_system.service;
+
+import com.santhan.banking_system.dto.FraudAlertSummary;
+import com.santhan.banking_system.util.AfterCommit;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Broadcasts fraud alert changes to the admin console over Server-Sent Events.
+ *
+ * FraudAlertService publishes created, updated and deleted alerts after commit. Every event gets a sequence
+ * number and is offered to each subscriber's bounded buffer; a small sender pool drains the buffers, so a slow
+ * browser never blocks alert creation. A subscriber whose buffer overflows loses the newest events and is sent a
+ * "resync" event telling it to reload from the history endpoint. The last replay-size events are kept so a
+ * reconnecting EventSource (Last-Event-ID) gets what it missed; if that is too old it is told to resync as well.
+ */
+@Service
+public class FraudAlertEventHub {
+
+    private static final String HEARTBEAT = "heartbeat";
+    private static final String RESYNC = "resync";
+
+    private final int bufferSize;
+    private final int maxSubscribers;
+    private final long emitterTimeoutMillis;
+    private final Event[] replay;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService senderPool;
+
+    private long sequence = 0; // Guarded by this
+    private final LongAdder published = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    @Autowired
+    public FraudAlertEventHub(@Value("${banking.fraud.alert-stream.buffer-size:256}") int bufferSize,
+                              @Value("${banking.fraud.alert-stream.max-subscribers:50}") int maxSubscribers,
+                              @Value("${banking.fraud.alert-stream.timeout-ms:1800000}") long emitterTimeoutMillis,
+                              @Value("${banking.fraud.alert-stream.replay-size:1024}") int replaySize,
+                              @Value("${banking.fraud.alert-stream.sender-threads:2}") int senderThreads) {
+        this.bufferSize = Math.max(bufferSize, 1);
+        this.maxSubscribers = Math.max(maxSubscribers, 1);
+        this.emitterTimeoutMillis = emitterTimeoutMillis;
+        this.replay = new Event[Math.max(replaySize, 1)];
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.senderPool = Executors.newFixedThreadPool(Math.max(senderThreads, 1), runnable -> {
+            Thread thread = new Thread(runnable, "fraud-alert-stream-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Opens a stream for one admin console. {@code lastEventId} is the EventSource's Last-Event-ID on reconnect.
+     * @throws IllegalStateException if max-subscribers streams are already open.
+     */
+    public SseEmitter subscribe(Long lastEventId) {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new IllegalStateException("Too many live fraud alert streams are open. Please try again later.");
+        }
+        Subscriber subscriber = new Subscriber(new SseEmitter(emitterTimeoutMillis), bufferSize);
+        subscriber.emitter.onCompletion(() -> subscribers.remove(subscriber));
+        subscriber.emitter.onTimeout(() -> subscribers.remove(subscriber));
+        subscriber.emitter.onError(e -> subscribers.remove(subscriber));
+
+        synchronized (this) { // No event can be published between the replay and joining the live set
+            if (lastEventId != null && lastEventId != sequence) {
+                long oldestKept = Math.max(sequence - replay.length + 1, 1);
+                if (lastEventId > sequence || lastEventId + 1 < oldestKept) {
+                    subscriber.overflowed.set(true); // Server restarted, or missed more than is kept
+                } else {
+                    for (long id = lastEventId + 1; id <= sequence; id++) {
+                        if (!subscriber.buffer.offer(replay[(int) (id % replay.length)])) {
+                            subscriber.overflowed.set(true);
+                            break;
+                        }
+                    }
+                }
+            }
+            subscribers.add(subscriber);
+        }
+        schedule(subscriber);
+        return subscriber.emitter;
+    }
+
+    /**
+     * Broadcasts the alerts once the current transaction commits ({@code kind} is "created" or "updated").
+     * The rows are copied now, while their persistence context is still open.
+     */
+    public void publishAfterCommit(String kind, List<FraudAlertSummary> alerts) {
+        List<Map<String, Object>> payloads = new ArrayList<>(alerts.size());
+        for (FraudAlertSummary alert : alerts) {
+            Map<String, Object> payload = toMap(alert);
+            payload.put("kind", kind);
+            payloads.add(payload);
+        }
+        AfterCommit.run(() -> payloads.forEach(this::publish));
+    }
+
+    public void publishDeletedAfterCommit(Long alertId) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("kind", "deleted");
+        payload.put("id", alertId);
+        AfterCommit.run(() -> publish(payload));
+    }
+
+    // Keeps idle connections open through proxies and notices browsers that went away
+    @Scheduled(fixedDelayString = "${banking.fraud.alert-stream.heartbeat-interval-ms:15000}")
+    public void sendHeartbeats() {
+        Event heartbeat = new Event(0, HEARTBEAT, null);
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.buffer.offer(heartbeat)) { // A full buffer is busy enough already
+                schedule(subscriber);
+            }
+        }
+    }
+
+    // Subscribers and event counters, for /admin/fraud-alerts/stream/metrics
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("subscribers", subscribers.size());
+        map.put("maxSubscribers", maxSubscribers);
+        map.put("bufferSize", bufferSize);
+        map.put("published", published.sum());
+        map.put("dropped", dropped.sum());
+        synchronized (this) {
+            map.put("lastEventId", sequence);
+        }
+        return map;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senderPool.shutdownNow();
+        for (Subscriber subscriber : subscribers) {
+            subscriber.emitter.complete();
+        }
+    }
+
+    // The JSON shape of an alert, shared by the live stream and the history endpoint
+    public static Map<String, Object> toMap(FraudAlertSummary alert) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("id", alert.getId());
+        map.put("alertType", alert.getAlertType());
+        map.put("description", alert.getDescription());
+        map.put("status", alert.getStatus());
+        map.put("statusDisplayName", alert.getStatus().getDisplayName());
+        map.put("createdAt", alert.getCreatedAt() != null ? alert.getCreatedAt().toString() : null);
+        map.put("lastUpdatedAt", alert.getLastUpdatedAt() != null ? alert.getLastUpdatedAt().toString() : null);
+        map.put("transactionId", alert.getTransactionId());
+        map.put("transactionAmount", alert.getTransactionAmount());
+        map.put("transactionType", alert.getTransactionType());
+        map.put("sourceAccountNumber", alert.getSourceAccountNumber());
+        map.put("destinationAccountNumber", alert.getDestinationAccountNumber());
+        return map;
+    }
+
+    private synchronized void publish(Map<String, Object> payload) {
+        Event event = new Event(++sequence, "alert", payload);
+        replay[(int) (event.id % replay.length)] = event;
+        published.increment();
+        for (Subscriber subscriber : subscribers) {
+            if (!subscriber.buffer.offer(event)) {
+                subscriber.overflowed.set(true);
+                dropped.increment();
+            }
+            schedule(subscriber);
+        }
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.scheduled.compareAndSet(false, true)) {
+            try {
+                senderPool.execute(() -> drain(subscriber));
+            } catch (RejectedExecutionException e) {
+                subscriber.scheduled.set(false); // Shutting down
+            }
+        }
+    }
+
+    // Runs on the sender pool; at most one drain per subscriber at a time
+    private void drain(Subscriber subscriber) {
+        try {
+            while (true) {
+                if (subscriber.overflowed.compareAndSet(true, false)) {
+                    subscriber.buffer.clear(); // Whatever is left is superseded by the reload
+                    subscriber.emitter.send(SseEmitter.event().name(RESYNC).data("Reload alerts from the history endpoint."));
+                }
+                Event event = subscriber.buffer.poll();
+                if (event == null) {
+                    break;
+                }
+                if (event.id == 0) {
+                    subscriber.emitter.send(SseEmitter.event().comment(HEARTBEAT));
+                } else {
+                    subscriber.emitter.send(SseEmitter.event().id(Long.toString(event.id)).name(event.name)
+                            .data(event.payload, MediaType.APPLICATION_JSON));
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Browser went away or the emitter already completed
+            subscribers.remove(subscriber);
+            subscriber.emitter.completeWithError(e);
+            return;
+        } finally {
+            subscriber.scheduled.set(false);
+        }
+        if (!subscriber.buffer.isEmpty() || subscriber.overflowed.get()) {
+            schedule(subscriber); // Something arrived between the last poll and clearing the flag
+        }
+    }
+
+    private static class Subscriber {
+        private final SseEmitter emitter;
+        private final ArrayBlockingQueue<Event> buffer;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean overflowed = new AtomicBoolean();
+
+        Subscriber(SseEmitter emitter, int bufferSize) {
+            this.emitter = emitter;
+            this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        }
+    }
+
+    private static class Event {
+        private final long id; // 0 for heartbeats
+        private final String name;
+        private final Map<String, Object> payload;
+
+        Event(long id, String name, Map<String, Object> payload) {
+            this.id = id;
+            this.name = name;
+            this.payload = payload;
+        }
+    }
+}
@@ -1,23 +1,23 @@
 package com.santhan.banking_system.service;
 
+import com.santhan.banking_system.dto.FraudAlertFilter;
+import com.santhan.banking_system.dto.FraudAlertSummary;
 import com.santhan.banking_system.model.FraudAlert;
 import com.santhan.banking_system.model.FraudAlert.AlertType;
 import com.santhan.banking_system.model.FraudAlert.AlertStatus;
-import com.santhan.banking_system.model.Account;
 import com.santhan.banking_system.model.Transaction;
-import com.santhan.banking_system.model.TransactionType; // Import TransactionType
 import com.santhan.banking_system.repository.FraudAlertRepository;
 import com.santhan.banking_system.repository.TransactionRepository;
 import com.santhan.banking_system.repository.AccountRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import java.math.BigDecimal;
 import java.time.Instant;
-import java.time.ZoneOffset; // Import ZoneOffset for conversion
-import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
 
 @Service
 public class FraudAlertService {
@@ -25,128 +25,168 @@ public class FraudAlertService {
     private final FraudAlertRepository fraudAlertRepository;
     private final TransactionRepository transactionRepository;
     private final AccountRepository accountRepository;
-
-    // Define thresholds for fraud rules
-    private static final BigDecimal LARGE_TRANSACTION_THRESHOLD = new BigDecimal("10000.00");
-    private static final int MULTIPLE_LARGE_TRANSACTIONS_COUNT = 3;
-    private static final long MULTIPLE_LARGE_TRANSACTIONS_PERIOD_MINUTES = 10;
-    private static final long NEW_ACCOUNT_THRESHOLD_HOURS = 24;
+    private final DashboardSummaryService dashboardSummaryService;
+    private final TransactionVelocityStore velocityStore;
+    private final TransferGraph transferGraph;
+    private final AccountBehaviorProfiles behaviorProfiles;
+    private final FraudRuleEngine fraudRuleEngine;
+    private final FraudAlertEventHub alertEventHub;
 
     @Autowired
     public FraudAlertService(FraudAlertRepository fraudAlertRepository,
                              TransactionRepository transactionRepository,
-                             AccountRepository accountRepository) {
+                             AccountRepository accountRepository,
+                             DashboardSummaryService dashboardSummaryService,
+                             TransactionVelocityStore velocityStore,
+                             TransferGraph transferGraph,
+                             AccountBehaviorProfiles behaviorProfiles,
+                             FraudRuleEngine fraudRuleEngine,
+                             FraudAlertEventHub alertEventHub) {
         this.fraudAlertRepository = fraudAlertRepository;
         this.transactionRepository = transactionRepository;
         this.accountRepository = accountRepository;
+        this.dashboardSummaryService = dashboardSummaryService;
+        this.velocityStore = velocityStore;
+        this.transferGraph = transferGraph;
+        this.behaviorProfiles = behaviorProfiles;
+        this.fraudRuleEngine = fraudRuleEngine;
+        this.alertEventHub = alertEventHub;
     }
 
+    /**
+     * Stores a single alert unless the transaction already has one of this type, and returns the stored alert.
+     */
     @Transactional
     public FraudAlert createAlert(Transaction transaction, AlertType alertType, String description, AlertStatus status) {
-        // Prevent duplicate alerts for the exact same transaction and alert type
-        Optional<FraudAlert> existingAlert = fraudAlertRepository.findByTransactionAndAlertType(transaction, alertType);
-        if (existingAlert.isPresent()) {
-            System.out.println("DEBUG: Alert of type " + alertType + " already exists for transaction ID " + transaction.getId() + ". Skipping new alert creation.");
-            return existingAlert.get();
-        }
-
-        FraudAlert alert = new FraudAlert();
-        alert.setTransaction(transaction);
-        alert.setAlertType(alertType);
-        alert.setDescription(description);
-        alert.setStatus(status);
-        alert.setCreatedAt(Instant.now());
-        alert.setLastUpdatedAt(Instant.now());
-
-        System.out.println("DEBUG: Creating new fraud alert for Transaction ID: " + transaction.getId() +
-                ", Type: " + alertType.name() + ", Description: " + description);
-        return fraudAlertRepository.save(alert);
+        createAlerts(transaction, List.of(new FraudRuleEngine.RuleHit(alertType, description)), status);
+        return fraudAlertRepository.findByTransactionAndAlertType(transaction, alertType)
+                .orElseThrow(() -> new IllegalStateException("Fraud alert " + alertType + " was not stored for transaction ID " + transaction.getId()));
     }
 
+    /**
+     * Stores one alert per hit in a single insert. Duplicates of an existing (transaction, alert type) pair are
+     * skipped by the database's unique constraint, so concurrent evaluators cannot create the same alert twice.
+     * Returns the number of alerts actually created.
+     */
     @Transactional
-    public void evaluateTransactionForFraud(Transaction transaction) {
-        // Rule 1: Large Single Transaction Detection
-        if (transaction.getAmount().compareTo(LARGE_TRANSACTION_THRESHOLD) >= 0) {
-            String description = "Transaction amount (" + transaction.getAmount() + ") exceeds large transaction threshold (" + LARGE_TRANSACTION_THRESHOLD + ").";
-            createAlert(transaction, AlertType.LARGE_TRANSACTION, description, AlertStatus.PENDING);
-            System.out.println("INFO: Detected potential fraud: LARGE_TRANSACTION for Txn ID " + transaction.getId());
+    public int createAlerts(Transaction transaction, List<FraudRuleEngine.RuleHit> hits, AlertStatus status) {
+        if (hits.isEmpty()) {
+            return 0;
         }
-
-        // Rule 2: Multiple Large Transactions in Short Period
-        Account relevantAccount = null;
-        if (transaction.getSourceAccount() != null) {
-            relevantAccount = transaction.getSourceAccount();
-        } else if (transaction.getDestinationAccount() != null) {
-            relevantAccount = transaction.getDestinationAccount();
+        Instant now = Instant.now();
+        List<FraudAlert> alerts = new ArrayList<>(hits.size());
+        for (FraudRuleEngine.RuleHit hit : hits) {
+            FraudAlert alert = new FraudAlert();
+            alert.setTransaction(transaction);
+            alert.setAlertType(hit.getAlertType());
+            alert.setDescription(hit.getDescription());
+            alert.setStatus(status);
+            alert.setCreatedAt(now);
+            alert.setLastUpdatedAt(now);
+            alerts.add(alert);
         }
 
-        if (relevantAccount != null) {
-            Instant timeWindowStart = Instant.now().minus(MULTIPLE_LARGE_TRANSACTIONS_PERIOD_MINUTES, ChronoUnit.MINUTES);
-
-            // Fetch transactions related to this account within the time window
-            List<Transaction> recentTransactions = transactionRepository.findBySourceAccountAndTransactionDateAfterOrDestinationAccountAndTransactionDateAfter(
-                    relevantAccount, timeWindowStart, relevantAccount, timeWindowStart
-            );
-
-            // Filter for only 'large' transactions based on the same threshold
-            long largeRecentTransactionsCount = recentTransactions.stream()
-                    .filter(t -> t.getAmount().compareTo(LARGE_TRANSACTION_THRESHOLD) >= 0)
-                    .count();
-
-            if (largeRecentTransactionsCount >= MULTIPLE_LARGE_TRANSACTIONS_COUNT) {
-                String description = "Account ID " + relevantAccount.getId() + " has " + largeRecentTransactionsCount +
-                        " large transactions (over " + LARGE_TRANSACTION_THRESHOLD + ") within the last " + MULTIPLE_LARGE_TRANSACTIONS_PERIOD_MINUTES + " minutes.";
-                createAlert(transaction, AlertType.MULTIPLE_LARGE_TRANSACTIONS, description, AlertStatus.PENDING);
-                System.out.println("INFO: Detected potential fraud: MULTIPLE_LARGE_TRANSACTIONS for Account ID " + relevantAccount.getId());
-            }
+        int inserted = fraudAlertRepository.insertIgnoringDuplicates(alerts);
+        if (inserted < alerts.size()) {
+            System.out.println("DEBUG: Skipped " + (alerts.size() - inserted) + " fraud alert(s) that already exist for transaction ID " + transaction.getId());
         }
+        for (int i = 0; i < inserted; i++) {
+            dashboardSummaryService.onAlertStatusChanged(null, status);
+        }
+        if (inserted > 0) {
+            // The insert returns no ids, so read the transaction's alerts back for the live feed (clients upsert by id)
+            alertEventHub.publishAfterCommit("created", fraudAlertRepository.findSummariesByTransactionId(transaction.getId()));
+        }
+        return inserted;
+    }
 
-        // Rule 3: Transaction to a Newly Created Account (if it's a transfer or deposit)
-        if (transaction.getDestinationAccount() != null &&
-                (transaction.getTransactionType() == TransactionType.TRANSFER || transaction.getTransactionType() == TransactionType.DEPOSIT)) { // Fixed comparison
-
-            Account destinationAccount = transaction.getDestinationAccount();
-
-            if (destinationAccount.getCreatedAt() != null) {
-                Instant newAccountCutoff = Instant.now().minus(NEW_ACCOUNT_THRESHOLD_HOURS, ChronoUnit.HOURS);
-
-                // Convert LocalDateTime to Instant for comparison, assuming createdAt is LocalDateTime
-                Instant destinationAccountCreatedAtInstant = destinationAccount.getCreatedAt().toInstant(ZoneOffset.UTC); // Assuming UTC for conversion
+    /**
+     * Runs the configured FraudRule beans (see FraudRuleEngine) and stores an alert for every rule that fires.
+     */
+    @Transactional
+    public void evaluateTransactionForFraud(Transaction transaction) {
+        // A held transaction moved no money, so later decisions only see it once it is released
+        if (TransactionService.movedFunds(transaction)) {
+            recordPostingAfterCommit(transaction);
+        }
 
-                if (destinationAccountCreatedAtInstant.isAfter(newAccountCutoff)) { // Fixed comparison
-                    String description = "Transfer/Deposit to a newly created account (ID: " + destinationAccount.getId() + "). Account created on: " + destinationAccount.getCreatedAt();
-                    createAlert(transaction, AlertType.NEWLY_CREATED_ACCOUNT_TRANSFER, description, AlertStatus.PENDING);
-                    System.out.println("INFO: Detected potential fraud: NEWLY_CREATED_ACCOUNT_TRANSFER for Txn ID " + transaction.getId());
-                }
-            }
+        List<FraudRuleEngine.RuleHit> hits = fraudRuleEngine.evaluate(transaction);
+        for (FraudRuleEngine.RuleHit hit : hits) {
+            System.out.println("INFO: Detected potential fraud: " + hit.getAlertType() + " for Txn ID " + transaction.getId());
         }
+        createAlerts(transaction, hits, AlertStatus.PENDING);
     }
 
+    /**
+     * Adds a posting that moved money to the in-memory rule state (velocity, transfer graph, behaviour profiles)
+     * once the current transaction commits. Held transactions are added here when they are released.
+     */
+    public void recordPostingAfterCommit(Transaction transaction) {
+        velocityStore.recordAfterCommit(transaction);
+        transferGraph.recordAfterCommit(transaction);
+        behaviorProfiles.recordAfterCommit(transaction);
+    }
+
+    // One page of alert summaries for the admin dashboard drill-down
     @Transactional(readOnly = true)
-    public List<FraudAlert> getAllAlerts() {
-        return fraudAlertRepository.findAllByOrderByCreatedAtDesc();
+    public Slice<FraudAlertSummary> getAlertSummariesPageByStatus(AlertStatus status, Pageable pageable) {
+        return fraudAlertRepository.findSummariesByStatus(status, pageable);
     }
 
+    /**
+     * One page of the alert queue, newest first. Pass the createdAt and id of the last alert of the previous page to
+     * continue after it (both null for the first page).
+     */
     @Transactional(readOnly = true)
-    public List<FraudAlert> getAlertsByStatus(AlertStatus status) {
-        return fraudAlertRepository.findByStatusOrderByCreatedAtDesc(status);
+    public List<FraudAlertSummary> getAlertPage(FraudAlertFilter filter, Instant beforeCreatedAt, Long beforeId, int limit) {
+        return fraudAlertRepository.findSummaries(filter, beforeCreatedAt, beforeId, limit);
+    }
+
+    /**
+     * Sets the status of many alerts with one UPDATE; alerts that already have it are left alone (and keep their
+     * lastUpdatedAt). Returns the number of alerts changed.
+     */
+    @Transactional
+    public int bulkUpdateAlertStatus(Collection<Long> alertIds, AlertStatus newStatus) {
+        if (alertIds.isEmpty()) {
+            return 0;
+        }
+        // Counted before the update in the same transaction; the periodic dashboard resync corrects any concurrent drift
+        for (Object[] row : fraudAlertRepository.countStatusesToChange(alertIds, newStatus)) {
+            AlertStatus oldStatus = (AlertStatus) row[0];
+            long count = (Long) row[1];
+            for (long i = 0; i < count; i++) {
+                dashboardSummaryService.onAlertStatusChanged(oldStatus, newStatus);
+            }
+        }
+        int updated = fraudAlertRepository.updateStatuses(alertIds, newStatus, Instant.now());
+        if (updated > 0) {
+            alertEventHub.publishAfterCommit("updated", fraudAlertRepository.findSummariesByIds(alertIds));
+        }
+        System.out.println("INFO: Bulk-updated " + updated + " of " + alertIds.size() + " fraud alert(s) to " + newStatus);
+        return updated;
     }
 
     @Transactional
     public FraudAlert updateAlertStatus(Long alertId, AlertStatus newStatus) {
         FraudAlert alert = fraudAlertRepository.findById(alertId)
                 .orElseThrow(() -> new IllegalArgumentException("Fraud Alert not found with ID: " + alertId));
+        dashboardSummaryService.onAlertStatusChanged(alert.getStatus(), newStatus);
         alert.setStatus(newStatus);
         alert.setLastUpdatedAt(Instant.now()); // Update timestamp on status change
-        return fraudAlertRepository.save(alert);
+        FraudAlert saved = fraudAlertRepository.saveAndFlush(alert); // Flushed so the summary below sees the new status
+        fraudAlertRepository.findSummaryById(alertId)
+                .ifPresent(summary -> alertEventHub.publishAfterCommit("updated", List.of(summary)));
+        return saved;
     }
 
     @Transactional
     public void deleteAlert(Long alertId) {
-        if (!fraudAlertRepository.existsById(alertId)) {
-            throw new IllegalArgumentException("Fraud Alert not found with ID: " + alertId);
-        }
-        fraudAlertRepository.deleteById(alertId);
+        FraudAlert alert = fraudAlertRepository.findById(alertId)
+                .orElseThrow(() -> new IllegalArgumentException("Fraud Alert not found with ID: " + alertId));
+        fraudAlertRepository.delete(alert);
+        dashboardSummaryService.onAlertStatusChanged(alert.getStatus(), null);
+        alertEventHub.publishDeletedAfterCommit(alertId);
         System.out.println("INFO: Deleted Fraud Alert ID: " + alertId);
     }
 }
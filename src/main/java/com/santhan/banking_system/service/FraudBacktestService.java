@@ -0,0 +1,574 @@
+package com.santhan.banking_system.service;
+
+import com.santhan.banking_system.model.FraudAlert.AlertStatus;
+import com.santhan.banking_system.model.FraudAlert.AlertType;
+import com.santhan.banking_system.model.TransactionType;
+import com.santhan.banking_system.repository.FraudAlertRepository;
+import com.santhan.banking_system.repository.TransactionRepository;
+import com.santhan.banking_system.util.ReadThrottle;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Replays historical transactions through the fraud rules to see what a set of rule settings would have flagged.
+ *
+ * A dispatcher thread reads the transactions table once, in id order (keyset pages), and splits every page by
+ * account into one queue per partition. Each partition is owned by a single worker that keeps the velocity
+ * window of its accounts in plain maps, so rules run without locks or DB access. Time is simulated: every
+ * transaction is evaluated as of its own transaction date. A transfer is evaluated in the partition of its
+ * relevant account (the source, like the live rules) and also sent to the destination's partition so that
+ * account's window sees it. Reading starts one velocity window before the range so the first days are not
+ * under-counted.
+ *
+ * Hits are scored against dispositions already recorded in fraud_alerts: a transaction with an ESCALATED alert
+ * counts as fraud, one whose alerts were only DISMISSED or REVIEWED as legitimate, and anything else as unlabelled.
+ * Nothing is written to the database.
+ */
+@Service
+public class FraudBacktestService {
+
+    private static final int PAGE_SIZE = 10_000;
+    private static final int QUEUED_BATCHES_PER_PARTITION = 4;
+    private static final List<ReplayRow> END_OF_INPUT = Collections.emptyList();
+
+    private final TransactionRepository transactionRepository;
+    private final FraudAlertRepository fraudAlertRepository;
+    private final FraudRuleEngine fraudRuleEngine;
+
+    private final int partitions;
+    private final double maxPagesPerSecond;
+    private final long progressLogIntervalMs;
+
+    private final AtomicReference<BacktestRun> currentRun = new AtomicReference<>();
+    private volatile Thread dispatcherThread;
+
+    @Autowired
+    public FraudBacktestService(TransactionRepository transactionRepository,
+                                FraudAlertRepository fraudAlertRepository,
+                                FraudRuleEngine fraudRuleEngine,
+                                @Value("${banking.fraud.backtest.partitions:0}") int partitions,
+                                @Value("${banking.fraud.backtest.max-pages-per-second:0}") double maxPagesPerSecond,
+                                @Value("${banking.fraud.backtest.progress-log-interval-ms:10000}") long progressLogIntervalMs) {
+        this.transactionRepository = transactionRepository;
+        this.fraudAlertRepository = fraudAlertRepository;
+        this.fraudRuleEngine = fraudRuleEngine;
+        this.partitions = partitions > 0 ? partitions : Runtime.getRuntime().availableProcessors();
+        this.maxPagesPerSecond = maxPagesPerSecond;
+        this.progressLogIntervalMs = progressLogIntervalMs;
+    }
+
+    /**
+     * Starts a backtest over transactions dated {@code from} to {@code to} (inclusive, UTC) in the background.
+     * {@code settingsText} uses the rules file format; when blank, the active rule settings are replayed.
+     * @throws IllegalArgumentException for an empty range or invalid settings.
+     * @throws IllegalStateException if a backtest is already running.
+     */
+    public BacktestRun startBacktest(LocalDate from, LocalDate to, String settingsText) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("The backtest end date must not be before its start date.");
+        }
+        FraudRuleSettings settings;
+        if (settingsText == null || settingsText.isBlank()) {
+            settings = fraudRuleEngine.getSettings();
+        } else {
+            Properties properties = new Properties();
+            try {
+                properties.load(new StringReader(settingsText));
+            } catch (IOException | IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid backtest rule settings: " + e.getMessage());
+            }
+            settings = fraudRuleEngine.parseSettings(properties, "backtest request");
+        }
+
+        List<FraudRule> rules = new ArrayList<>();
+        for (FraudRule rule : fraudRuleEngine.getRules()) {
+            if (settings.isEnabled(rule.getName())) {
+                rules.add(rule);
+            }
+        }
+
+        BacktestRun run = new BacktestRun(from, to, settings, rules);
+        BacktestRun running = currentRun.get();
+        if (running != null && running.isRunning()) {
+            throw new IllegalStateException("A fraud backtest for " + running.from + " to " + running.to + " is already in progress.");
+        }
+        if (!currentRun.compareAndSet(running, run)) {
+            throw new IllegalStateException("A fraud backtest was started concurrently.");
+        }
+
+        Thread dispatcher = new Thread(() -> runBacktest(run), "fraud-backtest-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcherThread = dispatcher;
+        dispatcher.start();
+        return run;
+    }
+
+    public BacktestRun getCurrentRun() {
+        return currentRun.get();
+    }
+
+    public boolean cancelCurrentRun() {
+        BacktestRun run = currentRun.get();
+        if (run == null || !run.isRunning()) {
+            return false;
+        }
+        run.cancelRequested.set(true);
+        return true;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        cancelCurrentRun();
+        Thread dispatcher = dispatcherThread;
+        if (dispatcher != null) {
+            dispatcher.interrupt();
+        }
+    }
+
+    // --- Run execution ---
+
+    private void runBacktest(BacktestRun run) {
+        Instant from = run.from.atStartOfDay().toInstant(ZoneOffset.UTC);
+        Instant to = run.to.plusDays(1).atStartOfDay().toInstant(ZoneOffset.UTC);
+        // Same velocity window the engine configures for the live store
+        String velocityRule = AlertType.MULTIPLE_LARGE_TRANSACTIONS.name();
+        long windowMillis = run.settings.getLong(velocityRule, "period-minutes",
+                MultipleLargeTransactionsRule.DEFAULT_PERIOD_MINUTES) * 60_000L;
+        BigDecimal largeThreshold = run.settings.getDecimal(velocityRule, "threshold",
+                MultipleLargeTransactionsRule.DEFAULT_THRESHOLD);
+        ReadThrottle throttle = new ReadThrottle(maxPagesPerSecond);
+
+        AtomicInteger threadCounter = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(partitions, runnable -> {
+            Thread thread = new Thread(runnable, "fraud-backtest-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        long lastProgressLog = System.currentTimeMillis();
+
+        try {
+            Map<Long, Boolean> labels = loadLabels(run, from, to);
+            System.out.println("INFO: Fraud backtest " + run.from + " to " + run.to + " started (" + run.rules.size()
+                    + " rules from " + run.settings.getSource() + ", " + partitions + " partitions, "
+                    + labels.size() + " labelled transactions).");
+
+            Partition[] workers = new Partition[partitions];
+            for (int i = 0; i < partitions; i++) {
+                workers[i] = new Partition(i, run, labels, windowMillis, TransactionVelocityStore.toMinorUnits(largeThreshold));
+                pool.execute(workers[i]);
+            }
+
+            long afterId = 0L;
+            Instant readFrom = from.minusMillis(windowMillis);
+            while (!run.cancelRequested.get()) {
+                throttle.acquire();
+                List<Object[]> rows = transactionRepository.findBacktestRowsAfterId(afterId, readFrom, to, PageRequest.of(0, PAGE_SIZE));
+                if (rows.isEmpty()) {
+                    break;
+                }
+                dispatch(rows, from, workers);
+                afterId = (Long) rows.get(rows.size() - 1)[0];
+                run.rowsRead.add(rows.size());
+
+                if (System.currentTimeMillis() - lastProgressLog >= progressLogIntervalMs) {
+                    logProgress(run);
+                    lastProgressLog = System.currentTimeMillis();
+                }
+                if (rows.size() < PAGE_SIZE) {
+                    break;
+                }
+            }
+
+            for (Partition worker : workers) {
+                worker.queue.put(END_OF_INPUT);
+            }
+            pool.shutdown();
+            while (!pool.awaitTermination(progressLogIntervalMs, TimeUnit.MILLISECONDS)) {
+                logProgress(run);
+            }
+            run.state = run.cancelRequested.get() ? "CANCELLED" : "COMPLETED";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            run.state = "CANCELLED";
+        } catch (Exception e) {
+            run.state = "FAILED";
+            run.error = e.getMessage();
+            System.err.println("ERROR: Fraud backtest " + run.from + " to " + run.to + " failed: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            pool.shutdownNow();
+            run.finishedAt = Instant.now();
+            logProgress(run);
+            System.out.println("INFO: Fraud backtest " + run.from + " to " + run.to + " finished with state " + run.state + ".");
+        }
+    }
+
+    // Transaction id -> true (escalated), false (dismissed/reviewed only); pending-only transactions are left out
+    private Map<Long, Boolean> loadLabels(BacktestRun run, Instant from, Instant to) {
+        Map<Long, Boolean> labels = new HashMap<>();
+        Map<AlertType, Long> recordedAlerts = new EnumMap<>(AlertType.class);
+        for (Object[] row : fraudAlertRepository.findDispositionsForTransactionsBetween(from, to)) {
+            Long transactionId = (Long) row[0];
+            AlertType alertType = (AlertType) row[1];
+            AlertStatus status = (AlertStatus) row[2];
+            recordedAlerts.merge(alertType, 1L, Long::sum);
+            if (status == AlertStatus.ESCALATED) {
+                labels.put(transactionId, Boolean.TRUE);
+            } else if (status == AlertStatus.DISMISSED || status == AlertStatus.REVIEWED) {
+                labels.putIfAbsent(transactionId, Boolean.FALSE);
+            }
+        }
+        long knownFraud = 0;
+        for (Boolean fraud : labels.values()) {
+            if (fraud) {
+                knownFraud++;
+            }
+        }
+        run.recordedAlerts = recordedAlerts;
+        run.knownFraudTransactions = knownFraud;
+        run.labelledTransactions = labels.size();
+        return labels;
+    }
+
+    // Splits one page by partition; queue order keeps every account's rows in id order
+    @SuppressWarnings("unchecked")
+    private void dispatch(List<Object[]> rows, Instant from, Partition[] workers) throws InterruptedException {
+        List<ReplayRow>[] batches = new List[workers.length];
+        for (Object[] row : rows) {
+            Long sourceId = (Long) row[3];
+            Long destinationId = (Long) row[4];
+            LocalDateTime destinationCreatedAt = (LocalDateTime) row[5];
+            Instant transactionDate = (Instant) row[6];
+            ReplayRow replay = new ReplayRow((Long) row[0], (TransactionType) row[1], (BigDecimal) row[2], sourceId,
+                    destinationId, destinationCreatedAt != null ? Instant.ofEpochSecond(NewAccountRegistry.toEpochSecond(destinationCreatedAt)) : null,
+                    transactionDate, !transactionDate.isBefore(from));
+
+            Long relevantId = sourceId != null ? sourceId : destinationId;
+            int home = partitionOf(relevantId);
+            add(batches, home, replay);
+            if (sourceId != null && destinationId != null && partitionOf(destinationId) != home) {
+                add(batches, partitionOf(destinationId), replay.recordOnly());
+            }
+        }
+        for (int i = 0; i < batches.length; i++) {
+            if (batches[i] != null) {
+                workers[i].queue.put(batches[i]);
+            }
+        }
+    }
+
+    private static void add(List<ReplayRow>[] batches, int partition, ReplayRow row) {
+        if (batches[partition] == null) {
+            batches[partition] = new ArrayList<>();
+        }
+        batches[partition].add(row);
+    }
+
+    private int partitionOf(Long accountId) {
+        if (accountId == null) {
+            return 0;
+        }
+        long h = accountId * 0x9E3779B97F4A7C15L; // Spread sequential ids across partitions
+        return (int) ((h >>> 32) % partitions);
+    }
+
+    private void logProgress(BacktestRun run) {
+        System.out.printf("INFO: Fraud backtest %s to %s: %d rows read, %d transactions evaluated, %d alerted, %.0f rows/sec%n",
+                run.from, run.to, run.rowsRead.sum(), run.evaluated.sum(), run.alertedTransactions.sum(), run.getRowsPerSecond());
+    }
+
+    /**
+     * One worker and the velocity windows of the accounts it owns. Only its own thread touches the windows.
+     */
+    private class Partition implements Runnable {
+        private final int index;
+        private final BacktestRun run;
+        private final Map<Long, Boolean> labels;
+        private final long windowMillis;
+        private final long largeThresholdMinor;
+        private final BlockingQueue<List<ReplayRow>> queue = new ArrayBlockingQueue<>(QUEUED_BATCHES_PER_PARTITION);
+        private final Map<Long, VelocityWindow> windows = new HashMap<>();
+
+        private Partition(int index, BacktestRun run, Map<Long, Boolean> labels, long windowMillis, long largeThresholdMinor) {
+            this.index = index;
+            this.run = run;
+            this.labels = labels;
+            this.windowMillis = windowMillis;
+            this.largeThresholdMinor = largeThresholdMinor;
+        }
+
+        @Override
+        public void run() {
+            try {
+                List<ReplayRow> batch;
+                while ((batch = queue.take()) != END_OF_INPUT) {
+                    if (run.cancelRequested.get()) {
+                        continue; // Keep draining so the dispatcher never blocks on a full queue
+                    }
+                    for (ReplayRow row : batch) {
+                        if (row.evaluate) {
+                            evaluate(row);
+                        }
+                        record(row);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void evaluate(ReplayRow row) {
+            long evaluatedAtMillis = row.transactionDate.toEpochMilli();
+            FraudRuleContext context = new FraudRuleContext(row.id, row.transactionType, row.amount, row.sourceId,
+                    row.destinationId, row.destinationCreatedAt, row.transactionDate,
+                    (accountId, ruleWindowMillis, threshold) -> countLarge(accountId, ruleWindowMillis, threshold, evaluatedAtMillis));
+            Boolean label = labels.get(row.id);
+            boolean alerted = false;
+            for (int i = 0; i < run.rules.size(); i++) {
+                RuleResult result = run.results.get(i);
+                try {
+                    if (run.rules.get(i).evaluate(context, run.settings) != null) {
+                        result.record(label);
+                        alerted = true;
+                    }
+                } catch (RuntimeException e) {
+                    result.errors.increment();
+                }
+            }
+            run.evaluated.increment();
+            if (alerted) {
+                run.alertedTransactions.increment();
+                if (Boolean.TRUE.equals(label)) {
+                    run.knownFraudCaught.increment();
+                }
+            }
+        }
+
+        // Like TransactionVelocityStore, every posting counts for both of its accounts
+        private void record(ReplayRow row) {
+            long amountMinor = TransactionVelocityStore.toMinorUnits(row.amount);
+            if (amountMinor < largeThresholdMinor) {
+                return; // Only large transactions matter for the window count
+            }
+            long timestamp = row.transactionDate.toEpochMilli();
+            if (row.sourceId != null && partitionOf(row.sourceId) == index) {
+                windows.computeIfAbsent(row.sourceId, id -> new VelocityWindow()).add(timestamp, timestamp - windowMillis);
+            }
+            if (row.destinationId != null && partitionOf(row.destinationId) == index) {
+                windows.computeIfAbsent(row.destinationId, id -> new VelocityWindow()).add(timestamp, timestamp - windowMillis);
+            }
+        }
+
+        private int countLarge(Long accountId, long ruleWindowMillis, BigDecimal threshold, long evaluatedAtMillis) {
+            if (ruleWindowMillis != windowMillis || TransactionVelocityStore.toMinorUnits(threshold) != largeThresholdMinor) {
+                throw new IllegalStateException("The backtest replay window only serves the "
+                        + AlertType.MULTIPLE_LARGE_TRANSACTIONS + " window and threshold");
+            }
+            VelocityWindow window = windows.get(accountId);
+            if (window == null) {
+                return 0;
+            }
+            window.evict(evaluatedAtMillis - windowMillis);
+            return window.size;
+        }
+    }
+
+    // Timestamps of an account's large transactions inside the window, oldest first
+    private static class VelocityWindow {
+        private long[] timestamps = new long[4];
+        private int head = 0;
+        private int size = 0;
+
+        void add(long timestamp, long cutoff) {
+            evict(cutoff);
+            if (size > 0) {
+                // Id order can be slightly out of time order; keep the buffer sorted so eviction stays a head pop
+                timestamp = Math.max(timestamp, timestamps[(head + size - 1) % timestamps.length]);
+            }
+            if (size == timestamps.length) {
+                long[] grown = new long[timestamps.length * 2];
+                for (int i = 0; i < size; i++) {
+                    grown[i] = timestamps[(head + i) % timestamps.length];
+                }
+                timestamps = grown;
+                head = 0;
+            }
+            timestamps[(head + size) % timestamps.length] = timestamp;
+            size++;
+        }
+
+        void evict(long cutoff) {
+            while (size > 0 && timestamps[head] <= cutoff) {
+                head = (head + 1) % timestamps.length;
+                size--;
+            }
+        }
+    }
+
+    private static class ReplayRow {
+        private final Long id;
+        private final TransactionType transactionType;
+        private final BigDecimal amount;
+        private final Long sourceId;
+        private final Long destinationId;
+        private final Instant destinationCreatedAt;
+        private final Instant transactionDate;
+        private final boolean evaluate; // False for warm-up rows and for the copy sent to the destination's partition
+
+        private ReplayRow(Long id, TransactionType transactionType, BigDecimal amount, Long sourceId, Long destinationId,
+                          Instant destinationCreatedAt, Instant transactionDate, boolean evaluate) {
+            this.id = id;
+            this.transactionType = transactionType;
+            this.amount = amount;
+            this.sourceId = sourceId;
+            this.destinationId = destinationId;
+            this.destinationCreatedAt = destinationCreatedAt;
+            this.transactionDate = transactionDate;
+            this.evaluate = evaluate;
+        }
+
+        ReplayRow recordOnly() {
+            return new ReplayRow(id, transactionType, amount, sourceId, destinationId, destinationCreatedAt, transactionDate, false);
+        }
+    }
+
+    /**
+     * Hits of one rule, split by the recorded disposition of the transaction.
+     */
+    private static class RuleResult {
+        private final String name;
+        private final AlertType alertType;
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder fraudHits = new LongAdder();
+        private final LongAdder legitimateHits = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+
+        private RuleResult(FraudRule rule) {
+            this.name = rule.getName();
+            this.alertType = rule.getAlertType();
+        }
+
+        void record(Boolean label) {
+            hits.increment();
+            if (Boolean.TRUE.equals(label)) {
+                fraudHits.increment();
+            } else if (Boolean.FALSE.equals(label)) {
+                legitimateHits.increment();
+            }
+        }
+
+        Map<String, Object> toMap(Map<AlertType, Long> recordedAlerts) {
+            long fraud = fraudHits.sum();
+            long legitimate = legitimateHits.sum();
+            long hitCount = hits.sum();
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("alertType", alertType.name());
+            map.put("hits", hitCount);
+            map.put("fraudHits", fraud);
+            map.put("legitimateHits", legitimate);
+            map.put("unlabelledHits", hitCount - fraud - legitimate);
+            map.put("precision", fraud + legitimate == 0 ? null : Math.round(fraud * 10000.0 / (fraud + legitimate)) / 10000.0);
+            map.put("recordedAlerts", recordedAlerts.getOrDefault(alertType, 0L));
+            map.put("errors", errors.sum());
+            return map;
+        }
+    }
+
+    /**
+     * Live state and results of a backtest; counters are updated by the partition workers.
+     */
+    public static class BacktestRun {
+        private final LocalDate from;
+        private final LocalDate to;
+        private final FraudRuleSettings settings;
+        private final List<FraudRule> rules;
+        private final List<RuleResult> results = new ArrayList<>();
+        private final Instant startedAt = Instant.now();
+        private final AtomicBoolean cancelRequested = new AtomicBoolean(false);
+        private final LongAdder rowsRead = new LongAdder();
+        private final LongAdder evaluated = new LongAdder();
+        private final LongAdder alertedTransactions = new LongAdder();
+        private final LongAdder knownFraudCaught = new LongAdder();
+        private volatile Map<AlertType, Long> recordedAlerts = Collections.emptyMap();
+        private volatile long labelledTransactions;
+        private volatile long knownFraudTransactions;
+        private volatile String state = "RUNNING";
+        private volatile String error;
+        private volatile Instant finishedAt;
+
+        private BacktestRun(LocalDate from, LocalDate to, FraudRuleSettings settings, List<FraudRule> rules) {
+            this.from = from;
+            this.to = to;
+            this.settings = settings;
+            this.rules = List.copyOf(rules);
+            for (FraudRule rule : this.rules) {
+                results.add(new RuleResult(rule));
+            }
+        }
+
+        public String getState() { return state; }
+        public boolean isRunning() { return "RUNNING".equals(state); }
+
+        public double getRowsPerSecond() {
+            Instant end = finishedAt != null ? finishedAt : Instant.now();
+            double seconds = Math.max((end.toEpochMilli() - startedAt.toEpochMilli()) / 1000.0, 0.001);
+            return rowsRead.sum() / seconds;
+        }
+
+        public Map<String, Object> toMap() {
+            long knownFraud = knownFraudTransactions;
+            long caught = knownFraudCaught.sum();
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("from", from.toString());
+            map.put("to", to.toString());
+            map.put("state", state);
+            map.put("settingsSource", settings.getSource());
+            map.put("settings", settings.getValues());
+            map.put("startedAt", startedAt.toString());
+            map.put("finishedAt", finishedAt != null ? finishedAt.toString() : null);
+            map.put("rowsRead", rowsRead.sum());
+            map.put("rowsPerSecond", Math.round(getRowsPerSecond()));
+            map.put("transactionsEvaluated", evaluated.sum());
+            map.put("alertedTransactions", alertedTransactions.sum());
+            map.put("labelledTransactions", labelledTransactions);
+            map.put("knownFraudTransactions", knownFraud);
+            map.put("knownFraudCaught", caught);
+            map.put("knownFraudCaughtRate", knownFraud == 0 ? null : Math.round(caught * 10000.0 / knownFraud) / 10000.0);
+            Map<String, Object> perRule = new LinkedHashMap<>();
+            for (RuleResult result : results) {
+                perRule.put(result.name, result.toMap(recordedAlerts));
+            }
+            map.put("rules", perRule);
+            map.put("error", error);
+            return map;
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package com.santhan.banking_system.service;
+
+import com.santhan.banking_system.model.FraudAlert.AlertType;
+import com.santhan.banking_system.model.TransactionType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Blocking fraud check that runs before a withdrawal or transfer debits the account.
+ *
+ * Only rules with {@code rule.<NAME>.pre-auth=true} take part; a hit holds the transaction for review instead of
+ * posting it. The check reads in-memory state only (velocity store, new account registry, transfer graph,
+ * behaviour profiles) and runs on its own small pool so the caller waits at most the latency budget. When the
+ * budget is overrun, a store one of those rules reads is not ready yet, or the check fails, the fail mode
+ * decides: OPEN lets the transaction through (the post-commit rules still see it), CLOSED holds it.
+ */
+@Service
+public class FraudPreAuthorizationService {
+
+    private final FraudRuleEngine fraudRuleEngine;
+    private final TransactionVelocityStore velocityStore;
+    private final NewAccountRegistry newAccountRegistry;
+    private final TransferGraph transferGraph;
+    private final AccountBehaviorProfiles behaviorProfiles;
+    private final boolean enabled;
+    private final long budgetMicros;
+    private final boolean failClosed;
+    private final ThreadPoolExecutor checkPool;
+
+    private final LongAdder checks = new LongAdder();
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder held = new LongAdder();
+    private final LongAdder budgetOverruns = new LongAdder();
+    private final LongAdder notReady = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    @Autowired
+    public FraudPreAuthorizationService(FraudRuleEngine fraudRuleEngine,
+                                        TransactionVelocityStore velocityStore,
+                                        NewAccountRegistry newAccountRegistry,
+                                        TransferGraph transferGraph,
+                                        AccountBehaviorProfiles behaviorProfiles,
+                                        @Value("${banking.fraud.preauth.enabled:true}") boolean enabled,
+                                        @Value("${banking.fraud.preauth.budget-ms:5}") double budgetMillis,
+                                        @Value("${banking.fraud.preauth.fail-mode:OPEN}") String failMode,
+                                        @Value("${banking.fraud.preauth.threads:4}") int threads) {
+        this.fraudRuleEngine = fraudRuleEngine;
+        this.velocityStore = velocityStore;
+        this.newAccountRegistry = newAccountRegistry;
+        this.transferGraph = transferGraph;
+        this.behaviorProfiles = behaviorProfiles;
+        this.enabled = enabled;
+        this.budgetMicros = Math.max(Math.round(budgetMillis * 1000), 1);
+        if (!"OPEN".equalsIgnoreCase(failMode) && !"CLOSED".equalsIgnoreCase(failMode)) {
+            throw new IllegalArgumentException("banking.fraud.preauth.fail-mode must be OPEN or CLOSED, not " + failMode);
+        }
+        this.failClosed = "CLOSED".equalsIgnoreCase(failMode);
+        int poolSize = Math.max(threads, 1);
+        AtomicInteger threadCounter = new AtomicInteger();
+        // A short queue: a check that would wait behind many others cannot meet its budget anyway
+        this.checkPool = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(poolSize * 8), runnable -> {
+            Thread thread = new Thread(runnable, "fraud-preauth-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Decides whether the transaction may be posted now. Never throws and never waits longer than the budget.
+     */
+    public Decision check(TransactionType transactionType, Long sourceAccountId, Long destinationAccountId, BigDecimal amount) {
+        if (!enabled) {
+            return Decision.ALLOW;
+        }
+        long start = System.nanoTime();
+        checks.increment();
+        Decision decision;
+        if (!isReady(fraudRuleEngine.getSettings())) {
+            notReady.increment();
+            decision = fallback("in-memory fraud state is not ready");
+        } else {
+            Future<List<FraudRuleEngine.RuleHit>> future = null;
+            try {
+                future = checkPool.submit(() -> evaluate(transactionType, sourceAccountId, destinationAccountId, amount));
+                List<FraudRuleEngine.RuleHit> hits = future.get(budgetMicros - (System.nanoTime() - start) / 1000, TimeUnit.MICROSECONDS);
+                decision = hits.isEmpty() ? Decision.ALLOW : new Decision(true, false, hits);
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                budgetOverruns.increment();
+                decision = fallback("fraud pre-check exceeded its " + budgetMicros + " microsecond budget");
+            } catch (RejectedExecutionException e) {
+                budgetOverruns.increment(); // Pool saturated: counts as an overrun, the check never started
+                decision = fallback("fraud pre-check pool is saturated");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failures.increment();
+                decision = fallback("fraud pre-check was interrupted");
+            } catch (ExecutionException e) {
+                failures.increment();
+                System.err.println("ERROR: Fraud pre-check failed: " + e.getCause().getMessage());
+                decision = fallback("fraud pre-check failed");
+            }
+        }
+        if (decision.isHold()) {
+            held.increment();
+        } else {
+            allowed.increment();
+        }
+        long nanos = System.nanoTime() - start;
+        totalNanos.add(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+        return decision;
+    }
+
+    // Counters and configuration for /admin/fraud-preauth
+    public Map<String, Object> getMetrics() {
+        long checkCount = checks.sum();
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("enabled", enabled);
+        map.put("budgetMicros", budgetMicros);
+        map.put("failMode", failClosed ? "CLOSED" : "OPEN");
+        map.put("checks", checkCount);
+        map.put("allowed", allowed.sum());
+        map.put("held", held.sum());
+        map.put("budgetOverruns", budgetOverruns.sum());
+        map.put("notReady", notReady.sum());
+        map.put("failures", failures.sum());
+        map.put("fallbacks", fallbacks.sum());
+        map.put("avgMicros", checkCount == 0 ? 0.0 : Math.round(totalNanos.sum() / 100.0 / checkCount) / 10.0);
+        map.put("maxMicros", maxNanos.get() / 1000);
+        List<String> rules = new ArrayList<>();
+        FraudRuleSettings settings = fraudRuleEngine.getSettings();
+        for (FraudRule rule : fraudRuleEngine.getRules()) {
+            if (settings.isEnabled(rule.getName()) && settings.isPreAuthorization(rule.getName())) {
+                rules.add(rule.getName());
+            }
+        }
+        map.put("rules", rules);
+        return map;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        checkPool.shutdownNow();
+    }
+
+    // True when every store that an enabled pre-auth rule reads is warm; the others may still be building
+    private boolean isReady(FraudRuleSettings settings) {
+        Set<FraudRule.State> required = EnumSet.noneOf(FraudRule.State.class);
+        for (FraudRule rule : fraudRuleEngine.getRules()) {
+            if (settings.isEnabled(rule.getName()) && settings.isPreAuthorization(rule.getName())) {
+                required.addAll(rule.getRequiredState());
+            }
+        }
+        for (FraudRule.State state : required) {
+            boolean warm = switch (state) {
+                case VELOCITY -> velocityStore.isWarm();
+                case NEW_ACCOUNTS -> newAccountRegistry.isWarm();
+                case TRANSFER_GRAPH -> transferGraph.isWarm();
+                case BEHAVIOR_PROFILES -> behaviorProfiles.isWarm();
+            };
+            if (!warm) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // The pre-auth rules that fire, in rule order
+    private List<FraudRuleEngine.RuleHit> evaluate(TransactionType transactionType, Long sourceAccountId, Long destinationAccountId, BigDecimal amount) {
+        FraudRuleSettings settings = fraudRuleEngine.getSettings();
+        FraudRuleContext context = new FraudRuleContext(transactionType, amount, sourceAccountId, destinationAccountId,
+                velocityStore, newAccountRegistry, transferGraph, behaviorProfiles);
+        List<FraudRuleEngine.RuleHit> hits = new ArrayList<>();
+        for (FraudRule rule : fraudRuleEngine.getRules()) {
+            if (settings.isEnabled(rule.getName()) && settings.isPreAuthorization(rule.getName())) {
+                String description = rule.evaluate(context, settings);
+                if (description != null) {
+                    hits.add(new FraudRuleEngine.RuleHit(rule.getAlertType(), description));
+                }
+            }
+        }
+        return hits;
+    }
+
+    private Decision fallback(String reason) {
+        fallbacks.increment();
+        System.err.println("WARNING: " + reason + ", failing " + (failClosed ? "closed (holding the transaction)." : "open."));
+        return failClosed ? new Decision(true, true, List.of(new FraudRuleEngine.RuleHit(
+                AlertType.PRE_AUTHORIZATION_HOLD, "Held because the " + reason + "."))) : Decision.ALLOW;
+    }
+
+    /**
+     * Outcome of a pre-check: post now, or hold for review with the alerts to record (one per rule that fired, or a
+     * PRE_AUTHORIZATION_HOLD alert when the fail mode held it).
+     */
+    public static class Decision {
+        static final Decision ALLOW = new Decision(false, false, List.of());
+
+        private final boolean hold;
+        private final boolean fallback;
+        private final List<FraudRuleEngine.RuleHit> hits;
+
+        Decision(boolean hold, boolean fallback, List<FraudRuleEngine.RuleHit> hits) {
+            this.hold = hold;
+            this.fallback = fallback;
+            this.hits = hits;
+        }
+
+        public boolean isHold() { return hold; }
+        // True if the decision came from the fail mode rather than from the rules
+        public boolean isFallback() { return fallback; }
+        public List<FraudRuleEngine.RuleHit> getHits() { return hits; }
+
+        public String getReason() {
+            List<String> descriptions = new ArrayList<>(hits.size());
+            for (FraudRuleEngine.RuleHit hit : hits) {
+                descriptions.add(hit.getDescription());
+            }
+            return String.join(" ", descriptions);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.santhan.banking_system.service;
+
+import com.santhan.banking_system.model.FraudAlert.AlertType;
+
+import java.util.Set;
+
+/**
+ * A single fraud detection rule. Implementations are Spring beans, picked up by FraudRuleEngine automatically.
+ *
+ * Rules must be side-effect free and must not touch the database or JPA entities: everything they need is in the
+ * shared FraudRuleContext, and they may be called concurrently from the engine's worker threads.
+ * Thresholds come from FraudRuleSettings, which is reloaded from the rules file without a restart.
+ */
+public interface FraudRule {
+
+    AlertType getAlertType();
+
+    // Key used in the rules file (rule.<name>.<setting>) and in the metrics
+    default String getName() {
+        return getAlertType().name();
+    }
+
+    // In-memory stores the rule reads; the pre-authorization gate only waits for these to be warm
+    default Set<State> getRequiredState() {
+        return Set.of();
+    }
+
+    /**
+     * @return the alert description if the rule fires for this transaction, otherwise null.
+     */
+    String evaluate(FraudRuleContext context, FraudRuleSettings settings);
+
+    enum State {
+        VELOCITY, NEW_ACCOUNTS, TRANSFER_GRAPH, BEHAVIOR_PROFILES
+    }
+}
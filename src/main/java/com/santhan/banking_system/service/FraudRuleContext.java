@@ -0,0 +1,151 @@
+package com.santhan.banking_system.service;
+
+import com.santhan.banking_system.model.Account;
+import com.santhan.banking_system.model.Transaction;
+import com.santhan.banking_system.model.TransactionType;
+import com.santhan.banking_system.repository.TransactionRepository;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Everything the fraud rules may look at for one transaction, captured once on the posting thread so that rules
+ * running on other threads never touch JPA entities. Velocity data is loaded lazily and at most once per
+ * transaction, however many rules ask for it.
+ *
+ * The pre-authorization gate builds one before the transaction exists, from in-memory state only. The backtest
+ * builds contexts from historical rows instead, with the transaction date as the evaluation time and
+ * velocity served from its own replay window.
+ */
+public class FraudRuleContext {
+
+    private final Long transactionId;
+    private final TransactionType transactionType;
+    private final BigDecimal amount;
+    private final Long sourceAccountId;
+    private final Long destinationAccountId;
+    private final Instant destinationAccountCreatedAt;
+    private final Instant evaluatedAt;
+    private final LargeCountSource largeCountSource;
+    private final TransferGraph transferGraph;
+    private final AccountBehaviorProfiles behaviorProfiles;
+
+    private int cachedLargeCount = -1;
+    private long cachedLargeCountWindowMillis;
+    private BigDecimal cachedLargeCountThreshold;
+
+    FraudRuleContext(Transaction transaction, TransactionVelocityStore velocityStore,
+                     NewAccountRegistry newAccountRegistry, TransferGraph transferGraph,
+                     AccountBehaviorProfiles behaviorProfiles, TransactionRepository transactionRepository) {
+        this.transactionId = transaction.getId();
+        this.transactionType = transaction.getTransactionType();
+        this.amount = transaction.getAmount();
+        this.sourceAccountId = transaction.getSourceAccount() != null ? transaction.getSourceAccount().getId() : null;
+        Account destination = transaction.getDestinationAccount();
+        this.destinationAccountId = destination != null ? destination.getId() : null;
+        // Only the id is read from the (lazy) destination; its age comes from the registry once that is warm
+        if (destination == null) {
+            this.destinationAccountCreatedAt = null;
+        } else if (newAccountRegistry.isWarm()) {
+            this.destinationAccountCreatedAt = newAccountRegistry.getCreatedAt(destinationAccountId);
+        } else {
+            this.destinationAccountCreatedAt = destination.getCreatedAt() != null
+                    ? Instant.ofEpochSecond(NewAccountRegistry.toEpochSecond(destination.getCreatedAt())) : null;
+        }
+        Instant now = Instant.now();
+        this.evaluatedAt = now;
+        this.largeCountSource = (accountId, windowMillis, threshold) -> {
+            if (velocityStore.isWarm() && velocityStore.isConfiguredFor(windowMillis, threshold)) {
+                return velocityStore.snapshot(accountId).getLargeCount();
+            }
+            return (int) transactionRepository.countLargeTransactionsForAccountSince(
+                    accountId, now.minusMillis(windowMillis), threshold, transactionId);
+        };
+        this.transferGraph = transferGraph.isWarm() ? transferGraph : null;
+        this.behaviorProfiles = behaviorProfiles.isWarm() ? behaviorProfiles : null;
+    }
+
+    // Pre-authorization of a transaction that is not posted yet: served from the in-memory stores only. The caller
+    // has checked that the stores the pre-auth rules read are warm; the others are never read.
+    // A velocity window configured for other settings fails rather than hit the DB.
+    FraudRuleContext(TransactionType transactionType, BigDecimal amount, Long sourceAccountId, Long destinationAccountId,
+                     TransactionVelocityStore velocityStore, NewAccountRegistry newAccountRegistry,
+                     TransferGraph transferGraph, AccountBehaviorProfiles behaviorProfiles) {
+        this.transactionId = null;
+        this.transactionType = transactionType;
+        this.amount = amount;
+        this.sourceAccountId = sourceAccountId;
+        this.destinationAccountId = destinationAccountId;
+        this.destinationAccountCreatedAt = newAccountRegistry.getCreatedAt(destinationAccountId);
+        this.evaluatedAt = Instant.now();
+        this.largeCountSource = (accountId, windowMillis, threshold) -> {
+            if (!velocityStore.isConfiguredFor(windowMillis, threshold)) {
+                throw new IllegalStateException("Velocity store is not configured for the rule's window");
+            }
+            return velocityStore.snapshot(accountId).getLargeCount();
+        };
+        this.transferGraph = transferGraph;
+        this.behaviorProfiles = behaviorProfiles;
+    }
+
+    // Replay of a historical transaction, evaluated as of its own transaction date
+    FraudRuleContext(Long transactionId, TransactionType transactionType, BigDecimal amount, Long sourceAccountId,
+                     Long destinationAccountId, Instant destinationAccountCreatedAt, Instant evaluatedAt,
+                     LargeCountSource largeCountSource) {
+        this.transactionId = transactionId;
+        this.transactionType = transactionType;
+        this.amount = amount;
+        this.sourceAccountId = sourceAccountId;
+        this.destinationAccountId = destinationAccountId;
+        this.destinationAccountCreatedAt = destinationAccountCreatedAt;
+        this.evaluatedAt = evaluatedAt;
+        this.largeCountSource = largeCountSource;
+        this.transferGraph = null; // Partitioned replay has no cross-account graph
+        this.behaviorProfiles = null; // Live profiles already contain the replayed period
+    }
+
+    public Long getTransactionId() { return transactionId; }
+    public TransactionType getTransactionType() { return transactionType; }
+    public BigDecimal getAmount() { return amount; }
+    public Long getSourceAccountId() { return sourceAccountId; }
+    public Long getDestinationAccountId() { return destinationAccountId; }
+    public Instant getDestinationAccountCreatedAt() { return destinationAccountCreatedAt; }
+    public Instant getEvaluatedAt() { return evaluatedAt; }
+    // Recent transfers between accounts, or null while the graph is not built (and in a backtest)
+    public TransferGraph getTransferGraph() { return transferGraph; }
+    // Per-account behavioural baselines, or null while they are being built (and in a backtest)
+    public AccountBehaviorProfiles getBehaviorProfiles() { return behaviorProfiles; }
+
+    // The account whose activity the velocity rules look at: the source if there is one, else the destination
+    public Long getRelevantAccountId() {
+        return sourceAccountId != null ? sourceAccountId : destinationAccountId;
+    }
+
+    /**
+     * Number of other, already committed transactions of the relevant account at or above {@code threshold}
+     * within the window. Served from TransactionVelocityStore when it is warm and configured for the same window
+     * and threshold; otherwise one DB count (in a backtest, from the replay window). The result is cached for the
+     * rest of this evaluation; FraudRuleEngine reads it on the posting thread before running rules in parallel, so
+     * the DB count never runs on a rule thread.
+     */
+    public synchronized int getRecentLargeTransactionCount(long windowMillis, BigDecimal threshold) {
+        Long accountId = getRelevantAccountId();
+        if (accountId == null) {
+            return 0;
+        }
+        if (cachedLargeCount >= 0 && cachedLargeCountWindowMillis == windowMillis
+                && cachedLargeCountThreshold.compareTo(threshold) == 0) {
+            return cachedLargeCount;
+        }
+        int count = largeCountSource.count(accountId, windowMillis, threshold);
+        cachedLargeCount = count;
+        cachedLargeCountWindowMillis = windowMillis;
+        cachedLargeCountThreshold = threshold;
+        return count;
+    }
+
+    // Where the windowed large-transaction count comes from: live store/DB, or the backtest's replay window
+    interface LargeCountSource {
+        int count(Long accountId, long windowMillis, BigDecimal threshold);
+    }
+}
@@ -0,0 +1,356 @@
+package com.santhan.banking_system.service;
+
+import com.santhan.banking_system.model.FraudAlert.AlertType;
+import com.santhan.banking_system.model.Transaction;
+import com.santhan.banking_system.repository.TransactionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs every FraudRule bean against a posted transaction.
+ *
+ * Rule settings come from a properties file ({@code banking.fraud.rules-file}); the file is polled and a changed
+ * file is re-parsed and swapped in atomically, so thresholds change without a restart. A file that fails to parse
+ * is ignored and the previous settings stay active. Without a file the classpath defaults are used.
+ *
+ * One FraudRuleContext is built per transaction and shared by all rules. Enabled rules run in parallel on a small
+ * pool; the caller waits for all of them and then persists the hits on its own thread. Latency, hits and errors
+ * are recorded per rule.
+ */
+@Service
+public class FraudRuleEngine {
+
+    private static final String DEFAULT_RULES_RESOURCE = "fraud-rules.properties";
+
+    // Settings the rules read with getInt / getLong; anything else that is not a flag is read as a decimal
+    private static final Set<String> INT_SETTINGS = Set.of("count", "min-accounts", "max-length", "min-history");
+    private static final Set<String> LONG_SETTINGS = Set.of("period-minutes", "account-age-hours", "window-minutes");
+
+    private final List<FraudRule> rules;
+    private final TransactionVelocityStore velocityStore;
+    private final NewAccountRegistry newAccountRegistry;
+    private final TransferGraph transferGraph;
+    private final AccountBehaviorProfiles behaviorProfiles;
+    private final TransactionRepository transactionRepository;
+    private final Path rulesFile;
+    private final boolean parallel;
+    private final ExecutorService rulePool;
+
+    private final AtomicReference<FraudRuleSettings> settings = new AtomicReference<>();
+    private final Map<String, RuleMetrics> metrics = new LinkedHashMap<>();
+    private volatile FileTime loadedFileTime;
+    private FileTime rejectedFileTime; // Last version that failed validation, so it is reported once
+
+    @Autowired
+    public FraudRuleEngine(List<FraudRule> rules,
+                           TransactionVelocityStore velocityStore,
+                           NewAccountRegistry newAccountRegistry,
+                           TransferGraph transferGraph,
+                           AccountBehaviorProfiles behaviorProfiles,
+                           TransactionRepository transactionRepository,
+                           @Value("${banking.fraud.rules-file:fraud-rules.properties}") String rulesFile,
+                           @Value("${banking.fraud.rules.parallel:true}") boolean parallel,
+                           @Value("${banking.fraud.rules.threads:4}") int threads) {
+        this.rules = List.copyOf(rules);
+        this.velocityStore = velocityStore;
+        this.newAccountRegistry = newAccountRegistry;
+        this.transferGraph = transferGraph;
+        this.behaviorProfiles = behaviorProfiles;
+        this.transactionRepository = transactionRepository;
+        this.rulesFile = Paths.get(rulesFile);
+        this.parallel = parallel;
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.rulePool = Executors.newFixedThreadPool(Math.max(threads, 1), runnable -> {
+            Thread thread = new Thread(runnable, "fraud-rule-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (FraudRule rule : this.rules) {
+            metrics.put(rule.getName(), new RuleMetrics());
+        }
+    }
+
+    @PostConstruct
+    public void loadInitialSettings() {
+        if (!reloadIfChanged()) {
+            try (InputStream in = new ClassPathResource(DEFAULT_RULES_RESOURCE).getInputStream()) {
+                Properties properties = new Properties();
+                properties.load(in);
+                applySettings(FraudRuleSettings.fromProperties(properties, "classpath:" + DEFAULT_RULES_RESOURCE));
+            } catch (IOException e) {
+                System.err.println("WARNING: No fraud rule settings found, using built-in rule defaults: " + e.getMessage());
+                applySettings(FraudRuleSettings.fromProperties(new Properties(), "built-in defaults"));
+            }
+        }
+        System.out.println("INFO: Fraud rule engine started with " + rules.size() + " rules from " + settings.get().getSource());
+    }
+
+    /**
+     * Re-reads the rules file if its modification time changed. Returns true if new settings were applied.
+     */
+    @Scheduled(fixedDelayString = "${banking.fraud.rules.reload-interval-ms:10000}",
+            initialDelayString = "${banking.fraud.rules.reload-interval-ms:10000}")
+    public synchronized boolean reloadIfChanged() {
+        if (!Files.isRegularFile(rulesFile)) {
+            return false;
+        }
+        try {
+            FileTime modified = Files.getLastModifiedTime(rulesFile);
+            if (modified.equals(loadedFileTime) || modified.equals(rejectedFileTime)) {
+                return false;
+            }
+            rejectedFileTime = modified; // Cleared below once it applies
+            Properties properties = new Properties();
+            try (InputStream in = Files.newInputStream(rulesFile)) {
+                properties.load(in);
+            }
+            FraudRuleSettings candidate = FraudRuleSettings.fromProperties(properties, rulesFile.toAbsolutePath().toString());
+            validate(candidate);
+            applySettings(candidate);
+            loadedFileTime = modified;
+            rejectedFileTime = null;
+            System.out.println("INFO: Loaded fraud rule settings from " + candidate.getSource());
+            return true;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("WARNING: Ignoring invalid fraud rule settings in " + rulesFile + ", keeping the previous ones: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Evaluates all enabled rules and returns the ones that fired, in rule order.
+     */
+    public List<RuleHit> evaluate(Transaction transaction) {
+        FraudRuleSettings current = settings.get();
+        FraudRuleContext context = new FraudRuleContext(transaction, velocityStore, newAccountRegistry, transferGraph, behaviorProfiles,
+                transactionRepository);
+
+        List<FraudRule> enabled = new ArrayList<>();
+        for (FraudRule rule : rules) {
+            if (current.isEnabled(rule.getName())) {
+                enabled.add(rule);
+            }
+        }
+
+        String[] descriptions = new String[enabled.size()];
+        if (parallel && enabled.size() > 1) {
+            prefetchLargeTransactionCount(context, current);
+            CompletableFuture<?>[] futures = new CompletableFuture<?>[enabled.size()];
+            for (int i = 0; i < enabled.size(); i++) {
+                int index = i;
+                futures[i] = CompletableFuture.runAsync(
+                        () -> descriptions[index] = runRule(enabled.get(index), context, current), rulePool);
+            }
+            CompletableFuture.allOf(futures).join(); // runRule never throws
+        } else {
+            for (int i = 0; i < enabled.size(); i++) {
+                descriptions[i] = runRule(enabled.get(i), context, current);
+            }
+        }
+
+        List<RuleHit> hits = new ArrayList<>();
+        for (int i = 0; i < enabled.size(); i++) {
+            if (descriptions[i] != null) {
+                hits.add(new RuleHit(enabled.get(i).getAlertType(), descriptions[i]));
+            }
+        }
+        return hits;
+    }
+
+    // Rule 2's count is a DB query while the velocity store is cold. Run on a rule thread it would take a second pooled
+    // connection while the posting thread holds its own, so it is read here first, inside the posting transaction;
+    // the context caches it and the rule then reads it from memory.
+    private static void prefetchLargeTransactionCount(FraudRuleContext context, FraudRuleSettings settings) {
+        String rule2 = AlertType.MULTIPLE_LARGE_TRANSACTIONS.name();
+        if (!settings.isEnabled(rule2)) {
+            return;
+        }
+        long periodMinutes = settings.getLong(rule2, "period-minutes", MultipleLargeTransactionsRule.DEFAULT_PERIOD_MINUTES);
+        BigDecimal threshold = settings.getDecimal(rule2, "threshold", MultipleLargeTransactionsRule.DEFAULT_THRESHOLD);
+        try {
+            context.getRecentLargeTransactionCount(periodMinutes * 60_000L, threshold);
+        } catch (RuntimeException e) {
+            System.err.println("WARNING: Could not prefetch the large transaction count: " + e.getMessage()); // The rule retries and reports it
+        }
+    }
+
+    public FraudRuleSettings getSettings() {
+        return settings.get();
+    }
+
+    public List<FraudRule> getRules() {
+        return rules;
+    }
+
+    /**
+     * Parses and validates candidate settings without applying them, e.g. for a backtest.
+     * @throws IllegalArgumentException if a value would break a rule.
+     */
+    public FraudRuleSettings parseSettings(Properties properties, String source) {
+        FraudRuleSettings candidate = FraudRuleSettings.fromProperties(properties, source);
+        validate(candidate);
+        return candidate;
+    }
+
+    // Per-rule counters plus the active settings, for /admin/fraud-rules
+    public Map<String, Object> getMetrics() {
+        FraudRuleSettings current = settings.get();
+        Map<String, Object> result = new LinkedHashMap<>();
+        Map<String, Object> perRule = new LinkedHashMap<>();
+        for (FraudRule rule : rules) {
+            Map<String, Object> ruleMap = metrics.get(rule.getName()).toMap();
+            ruleMap.put("enabled", current.isEnabled(rule.getName()));
+            perRule.put(rule.getName(), ruleMap);
+        }
+        result.put("rules", perRule);
+        result.put("settingsSource", current.getSource());
+        result.put("settingsLoadedAt", current.getLoadedAt().toString());
+        result.put("settings", current.getValues());
+        result.put("parallel", parallel);
+        return result;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rulePool.shutdownNow();
+    }
+
+    private String runRule(FraudRule rule, FraudRuleContext context, FraudRuleSettings current) {
+        RuleMetrics ruleMetrics = metrics.get(rule.getName());
+        long start = System.nanoTime();
+        try {
+            String description = rule.evaluate(context, current);
+            ruleMetrics.record(System.nanoTime() - start, description != null);
+            return description;
+        } catch (RuntimeException e) {
+            ruleMetrics.recordError(System.nanoTime() - start);
+            System.err.println("ERROR: Fraud rule " + rule.getName() + " failed for Txn ID " + context.getTransactionId() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Fails on values that would break a rule at evaluation time, e.g. a non-numeric threshold or "count=2.5"
+    private void validate(FraudRuleSettings candidate) {
+        for (Map.Entry<String, String> entry : candidate.getValues().entrySet()) {
+            String key = entry.getKey();
+            String value = entry.getValue();
+            String setting = key.substring(key.lastIndexOf('.') + 1);
+            try {
+                if (setting.equals("enabled") || setting.equals("pre-auth")) {
+                    if (!"true".equalsIgnoreCase(value) && !"false".equalsIgnoreCase(value)) {
+                        throw new IllegalArgumentException(key + " must be true or false");
+                    }
+                } else if (INT_SETTINGS.contains(setting)) {
+                    Integer.parseInt(value);
+                } else if (LONG_SETTINGS.contains(setting)) {
+                    Long.parseLong(value);
+                } else {
+                    new BigDecimal(value); // Every other setting is a decimal
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(key + " must be " + (INT_SETTINGS.contains(setting) || LONG_SETTINGS.contains(setting)
+                        ? "a whole number" : "a number") + ", not " + value);
+            }
+        }
+    }
+
+    // Everything is derived before anything is swapped in, so a value that fails to parse leaves the old settings live
+    private void applySettings(FraudRuleSettings newSettings) {
+        // Keep the velocity window in step with rule 2 so it can keep serving from memory
+        String rule2 = AlertType.MULTIPLE_LARGE_TRANSACTIONS.name();
+        long velocityWindowMillis =
+                newSettings.getLong(rule2, "period-minutes", MultipleLargeTransactionsRule.DEFAULT_PERIOD_MINUTES) * 60_000L;
+        BigDecimal velocityThreshold = newSettings.getDecimal(rule2, "threshold", MultipleLargeTransactionsRule.DEFAULT_THRESHOLD);
+        // ...and the new account registry with rule 3's account age
+        String rule3 = AlertType.NEWLY_CREATED_ACCOUNT_TRANSFER.name();
+        long newAccountAgeSeconds =
+                newSettings.getLong(rule3, "account-age-hours", NewAccountTransferRule.DEFAULT_ACCOUNT_AGE_HOURS) * 3600L;
+        // ...and the transfer graph with the longest window of the graph rules
+        long graphWindowMinutes = Math.max(Math.max(
+                newSettings.getLong(AlertType.TRANSFER_FAN_IN.name(), "window-minutes", TransferFanInRule.DEFAULT_WINDOW_MINUTES),
+                newSettings.getLong(AlertType.TRANSFER_FAN_OUT.name(), "window-minutes", TransferFanOutRule.DEFAULT_WINDOW_MINUTES)),
+                newSettings.getLong(AlertType.TRANSFER_CYCLE.name(), "window-minutes", TransferCycleRule.DEFAULT_WINDOW_MINUTES));
+
+        settings.set(newSettings);
+        velocityStore.configure(velocityWindowMillis, velocityThreshold);
+        newAccountRegistry.configure(newAccountAgeSeconds);
+        transferGraph.configure(graphWindowMinutes * 60_000L);
+    }
+
+    /**
+     * A rule that fired: the alert type and description to store.
+     */
+    public static class RuleHit {
+        private final AlertType alertType;
+        private final String description;
+
+        public RuleHit(AlertType alertType, String description) {
+            this.alertType = alertType;
+            this.description = description;
+        }
+
+        public AlertType getAlertType() { return alertType; }
+        public String getDescription() { return description; }
+    }
+
+    private static class RuleMetrics {
+        private final LongAdder evaluations = new LongAdder();
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        void record(long nanos, boolean hit) {
+            evaluations.increment();
+            if (hit) {
+                hits.increment();
+            }
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        void recordError(long nanos) {
+            errors.increment();
+            record(nanos, false);
+        }
+
+        Map<String, Object> toMap() {
+            long evaluationCount = evaluations.sum();
+            long hitCount = hits.sum();
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("evaluations", evaluationCount);
+            map.put("hits", hitCount);
+            map.put("errors", errors.sum());
+            map.put("alertRate", evaluationCount == 0 ? 0.0 : Math.round(hitCount * 10000.0 / evaluationCount) / 10000.0);
+            map.put("avgMicros", evaluationCount == 0 ? 0.0 : Math.round(totalNanos.sum() / 100.0 / evaluationCount) / 10.0);
+            map.put("maxMicros", maxNanos.get() / 1000);
+            return map;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.santhan.banking_system.service;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Immutable snapshot of the fraud rule configuration, parsed from the rules file.
+ *
+ * Keys have the form {@code rule.<RULE_NAME>.<setting>}, e.g. {@code rule.LARGE_TRANSACTION.threshold=10000.00}.
+ * Every rule understands {@code enabled}; other settings are rule specific and fall back to the rule's default
+ * when missing. A new snapshot replaces the old one atomically on reload, so one evaluation always sees one version.
+ */
+public class FraudRuleSettings {
+
+    private static final String PREFIX = "rule.";
+
+    private final Map<String, String> values;
+    private final String source;
+    private final Instant loadedAt = Instant.now();
+
+    private FraudRuleSettings(Map<String, String> values, String source) {
+        this.values = Collections.unmodifiableMap(values);
+        this.source = source;
+    }
+
+    public static FraudRuleSettings fromProperties(Properties properties, String source) {
+        Map<String, String> values = new HashMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            if (key.startsWith(PREFIX)) {
+                values.put(key.substring(PREFIX.length()), properties.getProperty(key).trim());
+            }
+        }
+        return new FraudRuleSettings(values, source);
+    }
+
+    public boolean isEnabled(String ruleName) {
+        String value = values.get(ruleName + ".enabled");
+        return value == null || Boolean.parseBoolean(value);
+    }
+
+    // Whether the rule is also consulted before money moves (see FraudPreAuthorizationService); off unless set
+    public boolean isPreAuthorization(String ruleName) {
+        return Boolean.parseBoolean(values.get(ruleName + ".pre-auth"));
+    }
+
+    public BigDecimal getDecimal(String ruleName, String setting, BigDecimal defaultValue) {
+        String value = values.get(ruleName + "." + setting);
+        return value != null ? new BigDecimal(value) : defaultValue;
+    }
+
+    public long getLong(String ruleName, String setting, long defaultValue) {
+        String value = values.get(ruleName + "." + setting);
+        return value != null ? Long.parseLong(value) : defaultValue;
+    }
+
+    public int getInt(String ruleName, String setting, int defaultValue) {
+        String value = values.get(ruleName + "." + setting);
+        return value != null ? Integer.parseInt(value) : defaultValue;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public Instant getLoadedAt() {
+        return loadedAt;
+    }
+
+    // Rule-specific settings of this snapshot, for the metrics endpoint
+    public Map<String, String> getValues() {
+        return values;
+    }
+}
@@ -0,0 +1,27 @@
+package com.santhan.banking_system.service;
+
+import com.santhan.banking_system.model.FraudAlert.AlertType;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+
+// Rule 1: Large Single Transaction Detection
+@Component
+public class LargeTransactionRule implements FraudRule {
+
+    public static final BigDecimal DEFAULT_THRESHOLD = new BigDecimal("10000.00");
+
+    @Override
+    public AlertType getAlertType() {
+        return AlertType.LARGE_TRANSACTION;
+    }
+
+    @Override
+    public String evaluate(FraudRuleContext context, FraudRuleSettings settings) {
+        BigDecimal threshold = settings.getDecimal(getName(), "threshold", DEFAULT_THRESHOLD);
+        if (context.getAmount().compareTo(threshold) >= 0) {
+            return "Transaction amount (" + context.getAmount() + ") exceeds large transaction threshold (" + threshold + ").";
+        }
+        return null;
+    }
+}
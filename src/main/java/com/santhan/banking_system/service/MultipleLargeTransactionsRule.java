@@ -0,0 +1,45 @@
+package com.santhan.banking_system.service;
+
+import com.santhan.banking_system.model.FraudAlert.AlertType;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Set;
+
+// Rule 2: Multiple Large Transactions in Short Period (counts the current transaction too)
+@Component
+public class MultipleLargeTransactionsRule implements FraudRule {
+
+    public static final BigDecimal DEFAULT_THRESHOLD = new BigDecimal("10000.00");
+    public static final int DEFAULT_COUNT = 3;
+    public static final long DEFAULT_PERIOD_MINUTES = 10;
+
+    @Override
+    public AlertType getAlertType() {
+        return AlertType.MULTIPLE_LARGE_TRANSACTIONS;
+    }
+
+    @Override
+    public Set<State> getRequiredState() {
+        return Set.of(State.VELOCITY);
+    }
+
+    @Override
+    public String evaluate(FraudRuleContext context, FraudRuleSettings settings) {
+        Long accountId = context.getRelevantAccountId();
+        if (accountId == null) {
+            return null;
+        }
+        BigDecimal threshold = settings.getDecimal(getName(), "threshold", DEFAULT_THRESHOLD);
+        int requiredCount = settings.getInt(getName(), "count", DEFAULT_COUNT);
+        long periodMinutes = settings.getLong(getName(), "period-minutes", DEFAULT_PERIOD_MINUTES);
+
+        long largeRecentTransactionsCount = context.getRecentLargeTransactionCount(periodMinutes * 60_000L, threshold)
+                + (context.getAmount().compareTo(threshold) >= 0 ? 1 : 0);
+        if (largeRecentTransactionsCount >= requiredCount) {
+            return "Account ID " + accountId + " has " + largeRecentTransactionsCount +
+                    " large transactions (over " + threshold + ") within the last " + periodMinutes + " minutes.";
+        }
+        return null;
+    }
+}
@@ -0,0 +1,168 @@
+package com.santhan.banking_system.service;
+
+import com.santhan.banking_system.model.Account;
+import com.santhan.banking_system.repository.AccountRepository;
+import com.santhan.banking_system.util.AfterCommit;
+import com.santhan.banking_system.util.LongLongHashMap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * Creation times of recently opened accounts, for the new-account transfer rule.
+ *
+ * Holds account id -> creation time (epoch seconds) in primitive open-addressing maps spread over a few lock
+ * stripes, so a lookup allocates nothing and never loads an Account. Only accounts younger than the retention
+ * (the rule's account age) are kept: AccountService registers new accounts after commit, a timer drops expired
+ * ones, and the registry is filled from the database on startup. An account that is not found is not new.
+ * A failed fill is retried in the background; until one succeeds {@link #isWarm()} stays false.
+ *
+ * Account.createdAt is a LocalDateTime written with the JVM's zone, so it is converted with that zone.
+ */
+@Service
+public class NewAccountRegistry {
+
+    private static final int STRIPES = 16; // Power of two
+    private static final long MISSING = Long.MIN_VALUE;
+
+    private final AccountRepository accountRepository;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    private volatile long retentionSeconds = 24 * 60 * 60L;
+    private volatile boolean warm = false;
+    private volatile boolean warmupFailed = false;
+
+    @Autowired
+    public NewAccountRegistry(AccountRepository accountRepository) {
+        this.accountRepository = accountRepository;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Sets how long accounts stay registered. A longer retention needs accounts the registry already dropped,
+     * so it is emptied and filled again from the database.
+     */
+    public synchronized void configure(long retentionSeconds) {
+        boolean rewarm = warm && retentionSeconds > this.retentionSeconds;
+        this.retentionSeconds = retentionSeconds;
+        if (rewarm) {
+            warm = false;
+            for (Stripe stripe : stripes) {
+                synchronized (stripe) {
+                    stripe.createdAt.clear();
+                }
+            }
+            warmUp();
+        }
+    }
+
+    public boolean isWarm() {
+        return warm;
+    }
+
+    /**
+     * Creation time of the account if it was created within the retention, otherwise null.
+     */
+    public Instant getCreatedAt(Long accountId) {
+        if (accountId == null) {
+            return null;
+        }
+        long createdAt;
+        Stripe stripe = stripeFor(accountId);
+        synchronized (stripe) {
+            createdAt = stripe.createdAt.get(accountId, MISSING);
+        }
+        if (createdAt == MISSING || createdAt < Instant.now().getEpochSecond() - retentionSeconds) {
+            return null;
+        }
+        return Instant.ofEpochSecond(createdAt);
+    }
+
+    public void registerAfterCommit(Account account) {
+        if (account == null || account.getId() == null || account.getCreatedAt() == null) {
+            return;
+        }
+        Long accountId = account.getId();
+        long createdAt = toEpochSecond(account.getCreatedAt());
+        AfterCommit.run(() -> put(accountId, createdAt));
+    }
+
+    public void onAccountDeleted(Long accountId) {
+        AfterCommit.run(() -> {
+            Stripe stripe = stripeFor(accountId);
+            synchronized (stripe) {
+                stripe.createdAt.remove(accountId);
+            }
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public synchronized void warmUp() {
+        LocalDateTime since = LocalDateTime.now().minusSeconds(retentionSeconds);
+        List<Object[]> rows;
+        try {
+            // Rows of [accountId, createdAt]
+            rows = accountRepository.findCreationTimesSince(since);
+        } catch (Exception e) {
+            System.err.println("WARNING: Could not warm new account registry, the fraud rule keeps loading accounts until a retry succeeds: " + e.getMessage());
+            warmupFailed = true;
+            return;
+        }
+        for (Object[] row : rows) {
+            put((Long) row[0], toEpochSecond((LocalDateTime) row[1])); // Same value as a live registration
+        }
+        warmupFailed = false;
+        warm = true;
+        System.out.println("DEBUG: New account registry warmed with " + rows.size() + " accounts created since " + since);
+    }
+
+    // Tries again after a failed warm-up; live registrations made meanwhile are kept, a put is idempotent
+    @Scheduled(fixedDelayString = "${banking.fraud.new-accounts.warmup-retry-ms:60000}",
+            initialDelayString = "${banking.fraud.new-accounts.warmup-retry-ms:60000}")
+    public synchronized void retryFailedWarmUp() {
+        if (warmupFailed) {
+            warmUp();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${banking.fraud.new-accounts.sweep-interval-ms:60000}")
+    public void expireOldAccounts() {
+        long cutoff = Instant.now().getEpochSecond() - retentionSeconds;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.createdAt = stripe.createdAt.retainValuesAtLeast(cutoff);
+            }
+        }
+    }
+
+    public static long toEpochSecond(LocalDateTime createdAt) {
+        return createdAt.atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+
+    private void put(Long accountId, long createdAt) {
+        Stripe stripe = stripeFor(accountId);
+        synchronized (stripe) {
+            stripe.createdAt.put(accountId, createdAt);
+        }
+    }
+
+    private Stripe stripeFor(Long accountId) {
+        long h = accountId * 0x9E3779B97F4A7C15L; // Spread sequential ids across stripes
+        return stripes[(int) (h >>> 60) & (STRIPES - 1)];
+    }
+
+    private static class Stripe {
+        private LongLongHashMap createdAt = new LongLongHashMap(64);
+    }
+}
@@ -0,0 +1,41 @@
+package com.santhan.banking_system.service;
+
+import com.santhan.banking_system.model.FraudAlert.AlertType;
+import com.santhan.banking_system.model.TransactionType;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Set;
+
+// Rule 3: Transaction to a Newly Created Account (if it's a transfer or deposit)
+@Component
+public class NewAccountTransferRule implements FraudRule {
+
+    public static final long DEFAULT_ACCOUNT_AGE_HOURS = 24;
+
+    @Override
+    public AlertType getAlertType() {
+        return AlertType.NEWLY_CREATED_ACCOUNT_TRANSFER;
+    }
+
+    @Override
+    public Set<State> getRequiredState() {
+        return Set.of(State.NEW_ACCOUNTS);
+    }
+
+    @Override
+    public String evaluate(FraudRuleContext context, FraudRuleSettings settings) {
+        if (context.getDestinationAccountId() == null || context.getDestinationAccountCreatedAt() == null
+                || (context.getTransactionType() != TransactionType.TRANSFER && context.getTransactionType() != TransactionType.DEPOSIT)) {
+            return null;
+        }
+        long accountAgeHours = settings.getLong(getName(), "account-age-hours", DEFAULT_ACCOUNT_AGE_HOURS);
+        Instant newAccountCutoff = context.getEvaluatedAt().minus(accountAgeHours, ChronoUnit.HOURS);
+        if (context.getDestinationAccountCreatedAt().isAfter(newAccountCutoff)) {
+            return "Transfer/Deposit to a newly created account (ID: " + context.getDestinationAccountId()
+                    + "). Account created on: " + context.getDestinationAccountCreatedAt();
+        }
+        return null;
+    }
+}
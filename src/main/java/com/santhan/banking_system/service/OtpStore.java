@@ -0,0 +1,374 @@
+package com.santhan.banking_system.service;
+
+import com.santhan.banking_system.model.Otp;
+import com.santhan.banking_system.model.User;
+import com.santhan.banking_system.repository.OtpRepository;
+import com.santhan.banking_system.util.AfterCommit;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pending one-time passwords, held in memory only: at most one per (user, purpose), issuing a new one replaces the
+ * previous one. Issue and verify take a shard lock and never touch the database.
+ *
+ * Codes are stored as an HMAC-SHA256 under a key generated at startup and compared in constant time. A wrong code
+ * counts as an attempt; after max-attempts the OTP is burnt. A verified OTP is removed. Expired OTPs are dropped by
+ * a hashed timer wheel (one bucket per tick, checked every tick), so memory stays bounded by what is still valid;
+ * a shard at capacity refuses new OTPs rather than grow. Pending OTPs do not survive a restart; users resend.
+ *
+ * With audit enabled, issue/use events are written to the otps table by a background writer (hashed code, never
+ * the code itself). The writer is off the request path and drops events if it falls behind.
+ */
+@Service
+public class OtpStore {
+
+    private static final int SHARDS = 16; // Power of two
+    private static final int PURPOSE_BITS = 4;
+    private static final int WHEEL_SIZE = 512; // Buckets; with 1 s ticks one turn covers more than any usual validity
+
+    /**
+     * Result of a verification.
+     */
+    public enum Verification { VERIFIED, MISMATCH, LOCKED, EXPIRED, NOT_FOUND }
+
+    private final OtpRepository otpRepository;
+    private final long validityMillis;
+    private final int maxAttempts;
+    private final int maxEntriesPerShard;
+    private final long tickMillis;
+    private final boolean auditEnabled;
+    private final SecretKeySpec hmacKey;
+    private final Shard[] shards = new Shard[SHARDS];
+
+    private final BlockingQueue<AuditEvent> auditQueue;
+    private final Thread auditWriter;
+
+    private final LongAdder issued = new LongAdder();
+    private final LongAdder verified = new LongAdder();
+    private final LongAdder mismatches = new LongAdder();
+    private final LongAdder locked = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder rejectedFull = new LongAdder();
+    private final LongAdder auditDropped = new LongAdder();
+
+    @Autowired
+    public OtpStore(OtpRepository otpRepository,
+                    @Value("${banking.otp.validity-minutes:5}") long validityMinutes,
+                    @Value("${banking.otp.max-attempts:5}") int maxAttempts,
+                    @Value("${banking.otp.max-entries:100000}") int maxEntries,
+                    @Value("${banking.otp.wheel-tick-ms:1000}") long tickMillis,
+                    @Value("${banking.otp.audit.enabled:false}") boolean auditEnabled) {
+        this.otpRepository = otpRepository;
+        this.validityMillis = TimeUnit.MINUTES.toMillis(Math.max(validityMinutes, 1));
+        this.maxAttempts = Math.max(maxAttempts, 1);
+        this.maxEntriesPerShard = Math.max(maxEntries / SHARDS, 1);
+        this.tickMillis = Math.max(tickMillis, 10);
+        this.auditEnabled = auditEnabled;
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        this.hmacKey = new SecretKeySpec(key, "HmacSHA256");
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < SHARDS; i++) {
+            shards[i] = new Shard(now / this.tickMillis);
+        }
+
+        if (auditEnabled) {
+            auditQueue = new ArrayBlockingQueue<>(10_000);
+            auditWriter = new Thread(this::writeAuditEvents, "otp-audit-writer");
+            auditWriter.setDaemon(true);
+            auditWriter.start();
+        } else {
+            auditQueue = null;
+            auditWriter = null;
+        }
+    }
+
+    public long getValidityMinutes() {
+        return TimeUnit.MILLISECONDS.toMinutes(validityMillis);
+    }
+
+    /**
+     * Stores {@code code} as the user's only pending OTP for the purpose, replacing any earlier one.
+     * @throws IllegalStateException if too many OTPs are pending.
+     */
+    public void issue(User user, Otp.OtpPurpose purpose, String code) {
+        issue(user, purpose, code, System.currentTimeMillis());
+    }
+
+    // Clock passed in, for tests; likewise for verify and expireDueOtps
+    void issue(User user, Otp.OtpPurpose purpose, String code, long now) {
+        long key = keyFor(user.getId(), purpose);
+        Entry entry = new Entry(key, hash(key, code), now, now + validityMillis);
+        Shard shard = shardFor(key);
+        Entry replaced;
+        synchronized (shard) {
+            if (shard.entries.size() >= maxEntriesPerShard && !shard.entries.containsKey(key)) {
+                rejectedFull.increment();
+                throw new IllegalStateException("Too many one-time passwords are pending. Please try again in a few minutes.");
+            }
+            replaced = shard.entries.put(key, entry);
+            shard.schedule(entry, tickMillis);
+        }
+        issued.increment();
+        if (replaced != null) {
+            audit(replaced, AuditEvent.Kind.USED); // Superseded: no longer usable
+        }
+        audit(entry, AuditEvent.Kind.ISSUED, user);
+    }
+
+    /**
+     * Checks the code against the user's pending OTP for the purpose. A match consumes the OTP.
+     */
+    public Verification verify(Long userId, Otp.OtpPurpose purpose, String code) {
+        return verify(userId, purpose, code, System.currentTimeMillis());
+    }
+
+    Verification verify(Long userId, Otp.OtpPurpose purpose, String code, long now) {
+        long key = keyFor(userId, purpose);
+        Shard shard = shardFor(key);
+        Entry entry;
+        Verification result;
+        synchronized (shard) {
+            entry = shard.entries.get(key);
+            if (entry == null) {
+                return Verification.NOT_FOUND;
+            }
+            if (entry.expiresAtMillis <= now) {
+                shard.entries.remove(key);
+                result = Verification.EXPIRED;
+            } else if (code != null && MessageDigest.isEqual(entry.codeHash, hash(key, code))) {
+                shard.entries.remove(key);
+                result = Verification.VERIFIED;
+            } else if (++entry.attempts >= maxAttempts) {
+                shard.entries.remove(key);
+                result = Verification.LOCKED;
+            } else {
+                result = Verification.MISMATCH;
+            }
+        }
+        switch (result) {
+            case VERIFIED -> verified.increment();
+            case EXPIRED -> expired.increment();
+            case LOCKED -> locked.increment();
+            default -> mismatches.increment();
+        }
+        if (result != Verification.MISMATCH) {
+            audit(entry, AuditEvent.Kind.USED);
+        }
+        return result;
+    }
+
+    // Advances every shard's wheel to the current tick, dropping OTPs that expired
+    @Scheduled(fixedRateString = "${banking.otp.wheel-tick-ms:1000}")
+    public void expireDueOtps() {
+        expireDueOtps(System.currentTimeMillis());
+    }
+
+    void expireDueOtps(long now) {
+        long currentTick = now / tickMillis;
+        List<Entry> dropped = new ArrayList<>();
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                shard.advance(currentTick, now, tickMillis, dropped);
+            }
+        }
+        expired.add(dropped.size());
+        dropped.forEach(entry -> audit(entry, AuditEvent.Kind.USED));
+    }
+
+    // Counters for /admin/otp-store
+    public Map<String, Object> getMetrics() {
+        long pending = 0;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                pending += shard.entries.size();
+            }
+        }
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("pending", pending);
+        map.put("capacity", (long) maxEntriesPerShard * SHARDS);
+        map.put("issued", issued.sum());
+        map.put("verified", verified.sum());
+        map.put("mismatches", mismatches.sum());
+        map.put("locked", locked.sum());
+        map.put("expired", expired.sum());
+        map.put("rejectedFull", rejectedFull.sum());
+        map.put("auditEnabled", auditEnabled);
+        map.put("auditDropped", auditDropped.sum());
+        return map;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (auditWriter != null) {
+            auditWriter.interrupt();
+        }
+    }
+
+    // --- Internals ---
+
+    private static long keyFor(Long userId, Otp.OtpPurpose purpose) {
+        return (userId << PURPOSE_BITS) | purpose.ordinal();
+    }
+
+    private Shard shardFor(long key) {
+        long h = key * 0x9E3779B97F4A7C15L; // Spread sequential user ids across shards
+        return shards[(int) (h >>> 60) & (SHARDS - 1)];
+    }
+
+    // HMAC of the code bound to its user and purpose, so equal codes of different users hash differently
+    private byte[] hash(long key, String code) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(hmacKey);
+            mac.update(Long.toString(key).getBytes(StandardCharsets.US_ASCII));
+            mac.update((byte) ':');
+            return mac.doFinal(code.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    private void audit(Entry entry, AuditEvent.Kind kind) {
+        audit(entry, kind, null);
+    }
+
+    // Queued after the caller's transaction commits, so the writer never waits on a user row it has not seen yet
+    private void audit(Entry entry, AuditEvent.Kind kind, User user) {
+        if (!auditEnabled) {
+            return;
+        }
+        Runnable enqueue = () -> {
+            if (!auditQueue.offer(new AuditEvent(kind, entry, user))) {
+                auditDropped.increment();
+            }
+        };
+        AfterCommit.run(enqueue);
+    }
+
+    // Single writer, so an entry's ISSUED row is saved before its USED update runs
+    private void writeAuditEvents() {
+        ZoneId zone = ZoneId.systemDefault();
+        while (!Thread.currentThread().isInterrupted()) {
+            AuditEvent event;
+            try {
+                event = auditQueue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                if (event.kind == AuditEvent.Kind.ISSUED) {
+                    Otp row = new Otp(HexFormat.of().formatHex(event.entry.codeHash), event.user,
+                            LocalDateTime.ofInstant(Instant.ofEpochMilli(event.entry.issuedAtMillis), zone),
+                            LocalDateTime.ofInstant(Instant.ofEpochMilli(event.entry.expiresAtMillis), zone),
+                            Otp.OtpPurpose.values()[(int) (event.entry.key & ((1 << PURPOSE_BITS) - 1))], false);
+                    event.entry.auditId = otpRepository.save(row).getId();
+                } else if (event.entry.auditId != null) {
+                    otpRepository.markUsed(event.entry.auditId);
+                }
+            } catch (RuntimeException e) {
+                System.err.println("WARNING: Could not write OTP audit row: " + e.getMessage());
+            }
+        }
+    }
+
+    private static class Entry {
+        private final long key;
+        private final byte[] codeHash;
+        private final long issuedAtMillis;
+        private final long expiresAtMillis;
+        private int attempts; // Guarded by the shard
+        private volatile Long auditId; // Set by the audit writer
+
+        Entry(long key, byte[] codeHash, long issuedAtMillis, long expiresAtMillis) {
+            this.key = key;
+            this.codeHash = codeHash;
+            this.issuedAtMillis = issuedAtMillis;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+
+    // Map plus timer wheel; not thread-safe, always used under its own lock
+    private static class Shard {
+        private final Map<Long, Entry> entries = new HashMap<>();
+        @SuppressWarnings("unchecked")
+        private final List<Entry>[] wheel = new List[WHEEL_SIZE];
+        private long lastTick; // Buckets up to this tick have been processed
+
+        Shard(long currentTick) {
+            this.lastTick = currentTick;
+        }
+
+        void schedule(Entry entry, long tickMillis) {
+            long tick = Math.max((entry.expiresAtMillis + tickMillis - 1) / tickMillis, lastTick + 1);
+            int bucket = (int) (tick % WHEEL_SIZE);
+            if (wheel[bucket] == null) {
+                wheel[bucket] = new ArrayList<>();
+            }
+            wheel[bucket].add(entry);
+        }
+
+        void advance(long currentTick, long now, long tickMillis, List<Entry> dropped) {
+            // After a long pause one turn of the wheel visits every bucket
+            long from = Math.max(lastTick + 1, currentTick - WHEEL_SIZE + 1);
+            for (long tick = from; tick <= currentTick; tick++) {
+                int bucket = (int) (tick % WHEEL_SIZE);
+                List<Entry> due = wheel[bucket];
+                if (due == null) {
+                    continue;
+                }
+                wheel[bucket] = null;
+                for (Entry entry : due) {
+                    if (entries.get(entry.key) != entry) {
+                        continue; // Already verified, burnt or replaced
+                    }
+                    if (entry.expiresAtMillis <= now) {
+                        entries.remove(entry.key);
+                        dropped.add(entry);
+                    } else {
+                        lastTick = tick; // Longer than one turn of the wheel: go round again
+                        schedule(entry, tickMillis);
+                    }
+                }
+            }
+            lastTick = currentTick;
+        }
+    }
+
+    private static class AuditEvent {
+        enum Kind { ISSUED, USED }
+
+        private final Kind kind;
+        private final Entry entry;
+        private final User user;
+
+        AuditEvent(Kind kind, Entry entry, User user) {
+            this.kind = kind;
+            this.entry = entry;
+            this.user = user;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.santhan.banking_system.service;
+
+import com.santhan.banking_system.util.TokenBucket;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Token bucket rate limits per purpose (login, OTP send, OTP verify, transaction PIN), each keyed by user and by
+ * client IP. RateLimitFilter checks the IP (and the login username) before the request reaches Spring Security;
+ * OtpService and UserService check the user before sending mail or running BCrypt.
+ *
+ * Buckets live in a ConcurrentHashMap capped at max-buckets. A bucket that has refilled completely holds no
+ * information, so the sweep drops those; if the map is still full a new key is refused rather than let an attacker
+ * with many addresses grow it without bound.
+ */
+@Service
+public class RateLimiter {
+
+    /**
+     * What is being limited, with the default bucket shapes (capacity, refill per minute) per user and per IP.
+     * Settings are {@code banking.rate-limit.<key>.<user|ip>.capacity} and {@code .refill-per-minute}.
+     */
+    public enum Purpose {
+        LOGIN("login", 10, 5, 50, 30),
+        OTP_SEND("otp-send", 3, 1, 20, 10),
+        OTP_VERIFY("otp-verify", 10, 5, 50, 30),
+        TRANSACTION_PIN("transaction-pin", 10, 5, 50, 30);
+
+        private final String key;
+        private final int userCapacity;
+        private final double userPerMinute;
+        private final int ipCapacity;
+        private final double ipPerMinute;
+
+        Purpose(String key, int userCapacity, double userPerMinute, int ipCapacity, double ipPerMinute) {
+            this.key = key;
+            this.userCapacity = userCapacity;
+            this.userPerMinute = userPerMinute;
+            this.ipCapacity = ipCapacity;
+            this.ipPerMinute = ipPerMinute;
+        }
+    }
+
+    public enum Scope { USER, IP }
+
+    private static final int MAX_ID_LENGTH = 128; // Longer identifiers are cut so a key's size stays bounded
+    private static final long INLINE_SWEEP_INTERVAL_MILLIS = 1000;
+
+    private final boolean enabled;
+    private final int maxBuckets;
+    private final TokenBucket[][] limits = new TokenBucket[Purpose.values().length][Scope.values().length];
+    private final ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong lastInlineSweep = new AtomicLong();
+
+    private final LongAdder[] allowed = new LongAdder[Purpose.values().length];
+    private final LongAdder[] limited = new LongAdder[Purpose.values().length];
+    private final LongAdder rejectedFull = new LongAdder();
+    private final LongAdder swept = new LongAdder();
+
+    @Autowired
+    public RateLimiter(Environment environment,
+                       @Value("${banking.rate-limit.enabled:true}") boolean enabled,
+                       @Value("${banking.rate-limit.max-buckets:100000}") int maxBuckets) {
+        this.enabled = enabled;
+        this.maxBuckets = Math.max(maxBuckets, 1);
+        for (Purpose purpose : Purpose.values()) {
+            String prefix = "banking.rate-limit." + purpose.key + ".";
+            limits[purpose.ordinal()][Scope.USER.ordinal()] = new TokenBucket(
+                    environment.getProperty(prefix + "user.capacity", Integer.class, purpose.userCapacity),
+                    environment.getProperty(prefix + "user.refill-per-minute", Double.class, purpose.userPerMinute));
+            limits[purpose.ordinal()][Scope.IP.ordinal()] = new TokenBucket(
+                    environment.getProperty(prefix + "ip.capacity", Integer.class, purpose.ipCapacity),
+                    environment.getProperty(prefix + "ip.refill-per-minute", Double.class, purpose.ipPerMinute));
+            allowed[purpose.ordinal()] = new LongAdder();
+            limited[purpose.ordinal()] = new LongAdder();
+        }
+    }
+
+    /**
+     * Takes a token from the (purpose, scope, id) bucket.
+     * @throws LimitExceededException if the bucket is empty.
+     */
+    public void acquire(Purpose purpose, Scope scope, String id) {
+        long retryAfterMillis = tryAcquire(purpose, scope, id);
+        if (retryAfterMillis > 0) {
+            throw new LimitExceededException(retryAfterMillis);
+        }
+    }
+
+    /**
+     * Takes a token from the (purpose, scope, id) bucket. Returns 0 if allowed, otherwise the milliseconds to wait.
+     * A null or empty id is not limited.
+     */
+    public long tryAcquire(Purpose purpose, Scope scope, String id) {
+        if (!enabled || id == null || id.isEmpty()) {
+            return 0;
+        }
+        TokenBucket limit = limits[purpose.ordinal()][scope.ordinal()];
+        String key = purpose.ordinal() + ":" + scope.name().charAt(0) + ":"
+                + (id.length() > MAX_ID_LENGTH ? id.substring(0, MAX_ID_LENGTH) : id);
+        Bucket bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= maxBuckets) {
+                sweepInline();
+                if (buckets.size() >= maxBuckets) {
+                    rejectedFull.increment();
+                    limited[purpose.ordinal()].increment();
+                    return INLINE_SWEEP_INTERVAL_MILLIS;
+                }
+            }
+            bucket = buckets.computeIfAbsent(key, k -> new Bucket(limit));
+        }
+        long retryAfterMillis = limit.tryTake(bucket.state);
+        (retryAfterMillis == 0 ? allowed : limited)[purpose.ordinal()].increment();
+        return retryAfterMillis;
+    }
+
+    // Drops buckets that have refilled completely; recreating one later gives the same answer
+    @Scheduled(fixedDelayString = "${banking.rate-limit.sweep-interval-ms:60000}")
+    public void sweepIdleBuckets() {
+        int before = buckets.size();
+        buckets.values().removeIf(bucket -> bucket.limit.isFull(bucket.state.get()));
+        swept.add(Math.max(before - buckets.size(), 0));
+    }
+
+    // Limits and counters for /admin/rate-limits
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("enabled", enabled);
+        map.put("buckets", buckets.size());
+        map.put("maxBuckets", maxBuckets);
+        map.put("rejectedFull", rejectedFull.sum());
+        map.put("swept", swept.sum());
+        for (Purpose purpose : Purpose.values()) {
+            Map<String, Object> purposeMap = new LinkedHashMap<>();
+            for (Scope scope : Scope.values()) {
+                TokenBucket limit = limits[purpose.ordinal()][scope.ordinal()];
+                purposeMap.put(scope.name().toLowerCase(), limit.getCapacity() + " burst, " + limit.getRefillPerMinute() + "/min");
+            }
+            purposeMap.put("allowed", allowed[purpose.ordinal()].sum());
+            purposeMap.put("limited", limited[purpose.ordinal()].sum());
+            map.put(purpose.key, purposeMap);
+        }
+        return map;
+    }
+
+    // At most one caller per interval pays for a sweep when the map is full
+    private void sweepInline() {
+        long now = System.currentTimeMillis();
+        long last = lastInlineSweep.get();
+        if (now - last >= INLINE_SWEEP_INTERVAL_MILLIS && lastInlineSweep.compareAndSet(last, now)) {
+            sweepIdleBuckets();
+        }
+    }
+
+    private static class Bucket {
+        private final TokenBucket limit;
+        private final AtomicLong state;
+
+        Bucket(TokenBucket limit) {
+            this.limit = limit;
+            this.state = new AtomicLong(limit.full());
+        }
+    }
+
+    /**
+     * Thrown by service-level guards when a limit is hit.
+     */
+    public static class LimitExceededException extends IllegalStateException {
+        private final long retryAfterSeconds;
+
+        public LimitExceededException(long retryAfterMillis) {
+            super("Too many attempts. Please try again in " + toSeconds(retryAfterMillis) + " seconds.");
+            this.retryAfterSeconds = toSeconds(retryAfterMillis);
+        }
+
+        public long getRetryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+
+        public static long toSeconds(long retryAfterMillis) {
+            return Math.max(TimeUnit.MILLISECONDS.toSeconds(retryAfterMillis + 999), 1);
+        }
+    }
+}
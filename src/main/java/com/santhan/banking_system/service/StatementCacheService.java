@@ -0,0 +1,262 @@
+package com.santhan.banking_system.service;
+
+import com.santhan.banking_system.util.AfterCommit;
+import com.santhan.banking_system.util.HashUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed, size-bounded on-disk cache of rendered statements.
+ *
+ * Files are named by a content key: SHA-256 over account, period, format, balances and a fingerprint of the
+ * period's rows (TransactionService.calculateStatementFingerprint), all from aggregate queries. Identical
+ * statements therefore share one file, and the key doubles as the HTTP ETag. A byte-budgeted LRU
+ * (access-ordered LinkedHashMap) evicts the least recently served files; it is rebuilt from the directory at startup.
+ *
+ * For closed periods an in-memory index maps (account, period, format) to the cached file, so repeat downloads
+ * and 304 revalidations need no DB work at all. Statement balances are derived from the account's current
+ * balance, so any posting on an account invalidates its index entries (TransactionService/AccountService call
+ * invalidateAccount). A per-account generation counter stops a render that raced with a posting from
+ * re-publishing stale content.
+ */
+@Service
+public class StatementCacheService {
+
+    private static final String FILE_SUFFIX = ".stmt";
+
+    private final Path cacheDir;
+    private final long maxBytes;
+
+    // contentKey -> file size, in LRU order; guarded by 'this'
+    private final LinkedHashMap<String, Long> lru = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalBytes = 0;
+
+    // accountId -> (indexKey -> entry) for closed periods; cleared per account on any posting
+    private final Map<Long, Map<String, CachedStatement>> freshIndex = new ConcurrentHashMap<>();
+    private final Map<Long, Long> generations = new ConcurrentHashMap<>();
+
+    @Autowired
+    public StatementCacheService(@Value("${banking.statements.cache.dir:statement-cache}") String cacheDir,
+                                 @Value("${banking.statements.cache.max-bytes:536870912}") long maxBytes) {
+        this.cacheDir = Paths.get(cacheDir);
+        this.maxBytes = maxBytes;
+    }
+
+    @PostConstruct
+    public void loadExisting() {
+        try {
+            Files.createDirectories(cacheDir);
+            List<Path> files = new ArrayList<>();
+            try (Stream<Path> listing = Files.list(cacheDir)) {
+                listing.filter(p -> p.getFileName().toString().endsWith(FILE_SUFFIX)).forEach(files::add);
+            }
+            // Oldest first, so the most recently used files end up at the young end of the LRU
+            files.sort((a, b) -> lastModified(a).compareTo(lastModified(b)));
+            synchronized (this) {
+                for (Path file : files) {
+                    String name = file.getFileName().toString();
+                    long size = Files.size(file);
+                    lru.put(name.substring(0, name.length() - FILE_SUFFIX.length()), size);
+                    totalBytes += size;
+                }
+                evictIfNeeded();
+            }
+            System.out.println("DEBUG: Statement cache loaded " + lru.size() + " files (" + totalBytes + " bytes) from " + cacheDir);
+        } catch (IOException e) {
+            System.err.println("WARNING: Could not initialize statement cache at " + cacheDir + ": " + e.getMessage());
+        }
+    }
+
+    // --- Fast path: zero DB work ---
+
+    /**
+     * Returns the cached statement for a closed period if the account has had no postings since it was cached.
+     */
+    public CachedStatement findFresh(Long accountId, String periodStart, String periodEnd, String format) {
+        Map<String, CachedStatement> entries = freshIndex.get(accountId);
+        if (entries == null) {
+            return null;
+        }
+        CachedStatement entry = entries.get(indexKey(periodStart, periodEnd, format));
+        if (entry == null) {
+            return null;
+        }
+        synchronized (this) {
+            if (lru.get(entry.getContentKey()) == null) { // Evicted; fall back to the slow path
+                entries.remove(indexKey(periodStart, periodEnd, format));
+                return null;
+            }
+        }
+        touch(entry.getPath());
+        return entry;
+    }
+
+    /**
+     * Must be read before the DB work that feeds getOrRender, and passed back to it.
+     */
+    public long currentGeneration(Long accountId) {
+        return generations.getOrDefault(accountId, 0L);
+    }
+
+    // --- Slow path: content key known, render only if no identical file exists ---
+
+    public static String contentKey(Long accountId, String periodStart, String periodEnd, String format,
+                                    String periodFingerprint, Object openingBalance, Object closingBalance) {
+        return HashUtil.calculateSHA256Hash(accountId + "|" + periodStart + "|" + periodEnd + "|" + format + "|"
+                + periodFingerprint + "|" + openingBalance + "|" + closingBalance);
+    }
+
+    /**
+     * Returns the file for {@code contentKey}, rendering it with {@code renderer} on a miss.
+     * When {@code closedPeriod} is true and no posting happened since {@code generation}, the entry is also
+     * published to the zero-DB index.
+     */
+    public CachedStatement getOrRender(Long accountId, String periodStart, String periodEnd, String format,
+                                       String contentKey, String fileName, String contentType,
+                                       boolean closedPeriod, long generation, StatementRenderer renderer) throws Exception {
+        Path file = cacheDir.resolve(contentKey + FILE_SUFFIX);
+        boolean present;
+        synchronized (this) {
+            present = lru.get(contentKey) != null && Files.exists(file);
+        }
+        if (present) {
+            touch(file);
+        } else {
+            Path temp = Files.createTempFile(cacheDir, contentKey, ".part");
+            try {
+                try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                     OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024)) {
+                    renderer.render(out);
+                    out.flush();
+                }
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            long size = Files.size(file);
+            synchronized (this) {
+                Long previous = lru.put(contentKey, size);
+                totalBytes += size - (previous != null ? previous : 0);
+                evictIfNeeded();
+            }
+        }
+
+        CachedStatement entry = new CachedStatement(contentKey, file, fileName, contentType);
+        if (closedPeriod && currentGeneration(accountId) == generation) {
+            freshIndex.computeIfAbsent(accountId, id -> new ConcurrentHashMap<>())
+                    .put(indexKey(periodStart, periodEnd, format), entry);
+            // A posting may have slipped in between the check and the put
+            if (currentGeneration(accountId) != generation) {
+                invalidateNow(accountId);
+            }
+        }
+        return entry;
+    }
+
+    // --- Invalidation ---
+
+    /**
+     * Drops the zero-DB index entries of an account after the current transaction commits.
+     */
+    public void invalidateAccount(Long accountId) {
+        if (accountId == null) {
+            return;
+        }
+        AfterCommit.run(() -> invalidateNow(accountId));
+    }
+
+    private void invalidateNow(Long accountId) {
+        generations.merge(accountId, 1L, Long::sum);
+        freshIndex.remove(accountId);
+    }
+
+    // --- Helpers ---
+
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<String, Long>> iterator = lru.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            iterator.remove();
+            totalBytes -= eldest.getValue();
+            try {
+                Files.deleteIfExists(cacheDir.resolve(eldest.getKey() + FILE_SUFFIX));
+            } catch (IOException e) {
+                System.err.println("WARNING: Could not evict cached statement " + eldest.getKey() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private static String indexKey(String periodStart, String periodEnd, String format) {
+        return periodStart + "|" + periodEnd + "|" + format.toLowerCase();
+    }
+
+    // Persist recency so the LRU order survives a restart
+    private static void touch(Path file) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.from(Instant.now()));
+        } catch (IOException ignored) {
+            // Recency is best effort
+        }
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    @FunctionalInterface
+    public interface StatementRenderer {
+        void render(OutputStream out) throws Exception;
+    }
+
+    /**
+     * A rendered statement on disk. The content key is used as a strong ETag.
+     */
+    public static class CachedStatement {
+        private final String contentKey;
+        private final Path path;
+        private final String fileName;
+        private final String contentType;
+
+        public CachedStatement(String contentKey, Path path, String fileName, String contentType) {
+            this.contentKey = contentKey;
+            this.path = path;
+            this.fileName = fileName;
+            this.contentType = contentType;
+        }
+
+        public String getContentKey() { return contentKey; }
+        public Path getPath() { return path; }
+        public String getFileName() { return fileName; }
+        public String getContentType() { return contentType; }
+
+        public String getETag() {
+            return "\"" + contentKey + "\"";
+        }
+    }
+}
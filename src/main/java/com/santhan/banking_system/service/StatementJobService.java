@@ -0,0 +1,289 @@
+package com.santhan.banking_system.service;
+
+import com.santhan.banking_system.model.Account;
+import com.santhan.banking_system.model.AccountType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Background statement rendering for the submit/poll/download workflow.
+ *
+ * Jobs run on a bounded pool (fixed workers, fixed queue); when the queue is full, submit fails fast instead of
+ * piling up work. Each job streams its statement to {@code <jobs-dir>/<jobId>.<format>} through StatementStreamService.
+ * Finished jobs (ready or failed) are kept for the result TTL and then purged together with their file.
+ * Jobs are held in memory only, so leftover files from a previous run are removed at startup.
+ */
+@Service
+public class StatementJobService {
+
+    public static final String STATE_QUEUED = "QUEUED";
+    public static final String STATE_RUNNING = "RUNNING";
+    public static final String STATE_READY = "READY";
+    public static final String STATE_FAILED = "FAILED";
+
+    private final AccountService accountService;
+    private final TransactionService transactionService;
+    private final StatementStreamService statementStreamService;
+
+    private final Path jobsDir;
+    private final Duration resultTtl;
+    private final int maxActivePerUser;
+    private final ThreadPoolExecutor executor;
+
+    private final Map<String, StatementJob> jobs = new ConcurrentHashMap<>();
+
+    @Autowired
+    public StatementJobService(AccountService accountService,
+                               TransactionService transactionService,
+                               StatementStreamService statementStreamService,
+                               @Value("${banking.statements.jobs.dir:statement-jobs}") String jobsDir,
+                               @Value("${banking.statements.jobs.workers:2}") int workers,
+                               @Value("${banking.statements.jobs.queue-capacity:50}") int queueCapacity,
+                               @Value("${banking.statements.jobs.result-ttl-minutes:30}") long resultTtlMinutes,
+                               @Value("${banking.statements.jobs.max-active-per-user:3}") int maxActivePerUser) {
+        this.accountService = accountService;
+        this.transactionService = transactionService;
+        this.statementStreamService = statementStreamService;
+        this.jobsDir = Paths.get(jobsDir);
+        this.resultTtl = Duration.ofMinutes(Math.max(resultTtlMinutes, 1));
+        this.maxActivePerUser = Math.max(maxActivePerUser, 1);
+
+        AtomicInteger threadCounter = new AtomicInteger();
+        int poolSize = Math.max(workers, 1);
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(queueCapacity, 1)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "statement-job-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PostConstruct
+    public void prepareDirectory() {
+        try {
+            Files.createDirectories(jobsDir);
+            try (Stream<Path> leftovers = Files.list(jobsDir)) {
+                leftovers.forEach(path -> {
+                    try {
+                        Files.deleteIfExists(path);
+                    } catch (IOException e) {
+                        System.err.println("WARNING: Could not remove leftover statement job file " + path + ": " + e.getMessage());
+                    }
+                });
+            }
+        } catch (IOException e) {
+            System.err.println("WARNING: Could not initialize statement job directory " + jobsDir + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Queues a statement job and returns immediately. Dates and format must already be validated by the caller.
+     * @throws IllegalStateException if the user has too many active jobs or the queue is full.
+     */
+    public StatementJob submit(String owner, Long accountId, String periodStart, String periodEnd,
+                               Instant startDate, Instant endDate, String format) {
+        long active = jobs.values().stream()
+                .filter(job -> job.getOwner().equals(owner) && job.isActive())
+                .count();
+        if (active >= maxActivePerUser) {
+            throw new IllegalStateException("You already have " + active + " statement jobs in progress. Please wait for them to finish.");
+        }
+
+        StatementJob job = new StatementJob(UUID.randomUUID().toString(), owner, accountId, periodStart, periodEnd,
+                startDate, endDate, format.toLowerCase(Locale.ROOT));
+        jobs.put(job.getId(), job);
+        try {
+            executor.execute(() -> runJob(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            throw new IllegalStateException("The statement service is busy. Please try again in a few minutes.");
+        }
+        System.out.println("DEBUG: Queued statement job " + job.getId() + " for account " + accountId
+                + " (" + periodStart + " to " + periodEnd + ", " + job.getFormat() + ")");
+        return job;
+    }
+
+    /**
+     * Returns the job if it exists, has not expired and belongs to {@code owner}; otherwise null.
+     */
+    public StatementJob getJob(String jobId, String owner) {
+        StatementJob job = jobs.get(jobId);
+        if (job == null || !job.getOwner().equals(owner) || job.isExpired(Instant.now())) {
+            return null;
+        }
+        return job;
+    }
+
+    @Scheduled(fixedDelayString = "${banking.statements.jobs.sweep-interval-ms:60000}")
+    public void purgeExpiredJobs() {
+        Instant now = Instant.now();
+        jobs.values().removeIf(job -> {
+            if (!job.isExpired(now)) {
+                return false;
+            }
+            deleteQuietly(job.getResultPath());
+            return true;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // --- Job execution ---
+
+    private void runJob(StatementJob job) {
+        job.state = STATE_RUNNING;
+        job.startedAt = Instant.now();
+        Path target = jobsDir.resolve(job.getId() + "." + job.getFormat());
+        Path temp = jobsDir.resolve(job.getId() + ".part");
+        try {
+            Account account = accountService.getAccountById(job.getAccountId());
+            String accountNumber = account.getAccountNumber();
+            AccountType accountType = account.getAccountType();
+            Map<String, Object> balances = transactionService.calculateStatementOpeningAndClosing(
+                    job.getAccountId(), job.startDate, job.endDate);
+            BigDecimal openingBalance = (BigDecimal) balances.get("openingBalance");
+            BigDecimal closingBalance = (BigDecimal) balances.get("closingBalance");
+
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+                 OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024)) {
+                statementStreamService.writeStatement(out, job.getFormat(), job.getAccountId(), accountNumber,
+                        accountType, job.getPeriodStart(), job.getPeriodEnd(), job.startDate, job.endDate,
+                        openingBalance, closingBalance, () -> { });
+                out.flush();
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            job.resultPath = target;
+            job.fileName = StatementStreamService.fileName(accountNumber, job.getPeriodStart(), job.getPeriodEnd(), job.getFormat());
+            job.sizeBytes = Files.size(target);
+            job.state = STATE_READY;
+            System.out.println("DEBUG: Statement job " + job.getId() + " ready (" + job.sizeBytes + " bytes)");
+        } catch (Exception e) {
+            System.err.println("ERROR: Statement job " + job.getId() + " failed: " + e.getMessage());
+            deleteQuietly(temp);
+            job.error = e instanceof IllegalArgumentException ? e.getMessage() : "Statement generation failed.";
+            job.state = STATE_FAILED;
+        } finally {
+            Instant finished = Instant.now();
+            job.finishedAt = finished;
+            job.expiresAt = finished.plus(resultTtl);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            System.err.println("WARNING: Could not delete statement job file " + path + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * One background statement job. State fields are written by the worker thread and read by pollers.
+     */
+    public static class StatementJob {
+        private final String id;
+        private final String owner;
+        private final Long accountId;
+        private final String periodStart;
+        private final String periodEnd;
+        private final Instant startDate;
+        private final Instant endDate;
+        private final String format;
+        private final Instant submittedAt = Instant.now();
+        private volatile String state = STATE_QUEUED;
+        private volatile Instant startedAt;
+        private volatile Instant finishedAt;
+        private volatile Instant expiresAt;
+        private volatile Path resultPath;
+        private volatile String fileName;
+        private volatile long sizeBytes;
+        private volatile String error;
+
+        private StatementJob(String id, String owner, Long accountId, String periodStart, String periodEnd,
+                             Instant startDate, Instant endDate, String format) {
+            this.id = id;
+            this.owner = owner;
+            this.accountId = accountId;
+            this.periodStart = periodStart;
+            this.periodEnd = periodEnd;
+            this.startDate = startDate;
+            this.endDate = endDate;
+            this.format = format;
+        }
+
+        public String getId() { return id; }
+        public String getOwner() { return owner; }
+        public Long getAccountId() { return accountId; }
+        public String getPeriodStart() { return periodStart; }
+        public String getPeriodEnd() { return periodEnd; }
+        public String getFormat() { return format; }
+        public String getState() { return state; }
+        public Path getResultPath() { return resultPath; }
+        public String getFileName() { return fileName; }
+        public String getContentType() { return StatementStreamService.contentType(format); }
+
+        public boolean isReady() { return STATE_READY.equals(state); }
+        public boolean isActive() { return STATE_QUEUED.equals(state) || STATE_RUNNING.equals(state); }
+
+        public boolean isExpired(Instant now) {
+            Instant expiry = expiresAt;
+            return expiry != null && expiry.isBefore(now);
+        }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("jobId", id);
+            map.put("accountId", accountId);
+            map.put("startDate", periodStart);
+            map.put("endDate", periodEnd);
+            map.put("format", format);
+            map.put("state", state);
+            map.put("submittedAt", submittedAt.toString());
+            map.put("startedAt", startedAt != null ? startedAt.toString() : null);
+            map.put("finishedAt", finishedAt != null ? finishedAt.toString() : null);
+            map.put("expiresAt", expiresAt != null ? expiresAt.toString() : null);
+            map.put("sizeBytes", isReady() ? sizeBytes : null);
+            map.put("error", error);
+            return map;
+        }
+    }
+}
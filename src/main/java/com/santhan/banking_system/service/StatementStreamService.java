@@ -0,0 +1,190 @@
+package com.santhan.banking_system.service;
+
+import com.itextpdf.text.DocumentException;
+import com.santhan.banking_system.model.AccountType;
+import com.santhan.banking_system.util.StatementCSVGenerator;
+import com.santhan.banking_system.util.StatementCamt053Generator;
+import com.santhan.banking_system.util.StatementOFXGenerator;
+import com.santhan.banking_system.util.StatementPDFGenerator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Locale;
+
+/**
+ * Writes one account statement (CSV, PDF, camt.053 or OFX) to an OutputStream in constant memory, using the keyset-paged
+ * TransactionService.streamStatementLines and the streaming writers of the CSV/PDF generators.
+ * Shared by the streamed download, the statement cache and the bulk month-end job, so every path produces
+ * byte-identical output for the same inputs.
+ */
+@Service
+public class StatementStreamService {
+
+    public static final String FORMAT_CSV = "csv";
+    public static final String FORMAT_PDF = "pdf";
+    public static final String FORMAT_CAMT053 = "camt053";
+    public static final String FORMAT_OFX = "ofx";
+
+    private final TransactionService transactionService;
+    private final String currency;
+    private final String bankId;
+
+    @Autowired
+    public StatementStreamService(TransactionService transactionService,
+                                  @Value("${banking.statements.currency:INR}") String currency,
+                                  @Value("${banking.statements.bank-id:SANTHANBANK}") String bankId) {
+        this.transactionService = transactionService;
+        this.currency = currency;
+        this.bankId = bankId;
+    }
+
+    public static boolean isSupportedFormat(String format) {
+        return FORMAT_CSV.equalsIgnoreCase(format) || FORMAT_PDF.equalsIgnoreCase(format)
+                || FORMAT_CAMT053.equalsIgnoreCase(format) || FORMAT_OFX.equalsIgnoreCase(format);
+    }
+
+    public static String contentType(String format) {
+        if (FORMAT_PDF.equalsIgnoreCase(format)) {
+            return "application/pdf";
+        }
+        if (FORMAT_CAMT053.equalsIgnoreCase(format)) {
+            return "application/xml";
+        }
+        if (FORMAT_OFX.equalsIgnoreCase(format)) {
+            return "application/x-ofx";
+        }
+        return "text/csv";
+    }
+
+    public static String fileName(String accountNumber, String periodStart, String periodEnd, String format) {
+        String extension = FORMAT_CAMT053.equalsIgnoreCase(format) ? "camt053.xml" : format.toLowerCase(Locale.ROOT);
+        return "account_statement_" + accountNumber + "_" + periodStart + "_to_" + periodEnd + "." + extension;
+    }
+
+    /**
+     * Renders the statement and returns its ledger hash.
+     * @param beforeEachPage runs before every DB page read; batch callers use it to throttle, others pass a no-op.
+     */
+    public String writeStatement(OutputStream out, String format, Long accountId, String accountNumber,
+                                 AccountType accountType, String periodStart, String periodEnd, Instant startDate, Instant endDate,
+                                 BigDecimal openingBalance, BigDecimal closingBalance,
+                                 Runnable beforeEachPage) throws IOException {
+        if (FORMAT_CSV.equalsIgnoreCase(format)) {
+            return writeCsv(out, accountId, accountNumber, periodStart, periodEnd, startDate, endDate,
+                    openingBalance, closingBalance, beforeEachPage);
+        }
+        if (FORMAT_PDF.equalsIgnoreCase(format)) {
+            return writePdf(out, accountId, accountNumber, periodStart, periodEnd, startDate, endDate,
+                    openingBalance, closingBalance, beforeEachPage);
+        }
+        if (FORMAT_CAMT053.equalsIgnoreCase(format)) {
+            return writeCamt053(out, accountId, accountNumber, periodStart, periodEnd, startDate, endDate,
+                    openingBalance, closingBalance, beforeEachPage);
+        }
+        if (FORMAT_OFX.equalsIgnoreCase(format)) {
+            return writeOfx(out, accountId, accountNumber, accountType, startDate, endDate, closingBalance, beforeEachPage);
+        }
+        throw new IllegalArgumentException("Unsupported statement format: " + format);
+    }
+
+    private String writeCsv(OutputStream out, Long accountId, String accountNumber, String periodStart, String periodEnd,
+                            Instant startDate, Instant endDate, BigDecimal openingBalance, BigDecimal closingBalance,
+                            Runnable beforeEachPage) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        StatementCSVGenerator.writeStreamingHeader(writer, accountNumber, periodStart, periodEnd, openingBalance, closingBalance);
+        String ledgerHash;
+        try {
+            ledgerHash = transactionService.streamStatementLines(accountId, startDate, endDate, beforeEachPage, line -> {
+                try {
+                    StatementCSVGenerator.writeStreamingLine(writer, line);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause(); // e.g. client went away; stop reading further pages
+        }
+        StatementCSVGenerator.writeStreamingTrailer(writer, ledgerHash);
+        writer.flush();
+        return ledgerHash;
+    }
+
+    private String writePdf(OutputStream out, Long accountId, String accountNumber, String periodStart, String periodEnd,
+                            Instant startDate, Instant endDate, BigDecimal openingBalance, BigDecimal closingBalance,
+                            Runnable beforeEachPage) throws IOException {
+        try {
+            StatementPDFGenerator.StreamingStatement pdf = new StatementPDFGenerator.StreamingStatement(
+                    out, accountNumber, periodStart, periodEnd, openingBalance, closingBalance,
+                    StatementPDFGenerator.DEFAULT_ROWS_PER_PAGE);
+            String ledgerHash = transactionService.streamStatementLines(accountId, startDate, endDate, beforeEachPage, line -> {
+                try {
+                    pdf.addLine(line);
+                } catch (DocumentException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            pdf.finish(ledgerHash);
+            out.flush();
+            return ledgerHash;
+        } catch (DocumentException | IllegalStateException e) {
+            throw new IOException("Failed to generate PDF statement: " + e.getMessage(), e);
+        }
+    }
+
+    private String writeCamt053(OutputStream out, Long accountId, String accountNumber, String periodStart, String periodEnd,
+                                Instant startDate, Instant endDate, BigDecimal openingBalance, BigDecimal closingBalance,
+                                Runnable beforeEachPage) throws IOException {
+        BufferedOutputStream buffered = new BufferedOutputStream(out, 64 * 1024);
+        try {
+            StatementCamt053Generator.StreamingStatement camt = new StatementCamt053Generator.StreamingStatement(
+                    buffered, accountId, accountNumber, currency, periodStart, periodEnd, startDate, endDate,
+                    openingBalance, closingBalance);
+            String ledgerHash = transactionService.streamStatementLines(accountId, startDate, endDate, beforeEachPage, line -> {
+                try {
+                    camt.addLine(line);
+                } catch (XMLStreamException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            camt.finish(ledgerHash);
+            buffered.flush();
+            return ledgerHash;
+        } catch (XMLStreamException | IllegalStateException e) {
+            throw new IOException("Failed to generate camt.053 statement: " + e.getMessage(), e);
+        }
+    }
+
+    private String writeOfx(OutputStream out, Long accountId, String accountNumber, AccountType accountType,
+                            Instant startDate, Instant endDate, BigDecimal closingBalance,
+                            Runnable beforeEachPage) throws IOException {
+        BufferedOutputStream buffered = new BufferedOutputStream(out, 64 * 1024);
+        try {
+            StatementOFXGenerator.StreamingStatement ofx = new StatementOFXGenerator.StreamingStatement(
+                    buffered, accountId, accountNumber, accountType, bankId, currency, startDate, endDate, closingBalance);
+            String ledgerHash = transactionService.streamStatementLines(accountId, startDate, endDate, beforeEachPage, line -> {
+                try {
+                    ofx.addLine(line);
+                } catch (XMLStreamException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            ofx.finish();
+            buffered.flush();
+            return ledgerHash;
+        } catch (XMLStreamException | IllegalStateException e) {
+            throw new IOException("Failed to generate OFX statement: " + e.getMessage(), e);
+        }
+    }
+}
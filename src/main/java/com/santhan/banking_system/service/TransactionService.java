@@ -1,12 +1,17 @@
 package com.santhan.banking_system.service;
 
+import com.santhan.banking_system.dto.StatementLine;
+import com.santhan.banking_system.dto.TransactionSummary;
 import com.santhan.banking_system.model.Account;
+import com.santhan.banking_system.model.FraudAlert;
 import com.santhan.banking_system.model.Transaction;
 import com.santhan.banking_system.model.TransactionType;
 import com.santhan.banking_system.repository.AccountRepository;
 import com.santhan.banking_system.repository.TransactionRepository;
 import com.santhan.banking_system.util.HashUtil; // Assuming this class exists and contains necessary hashing methods
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
@@ -17,6 +22,7 @@ import java.util.ArrayList;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
@@ -26,21 +32,44 @@ public class TransactionService {
     private final TransactionRepository transactionRepository;
     private final FraudAlertService fraudAlertService;
     private final EmailService emailService; // Inject EmailService
+    private final DashboardSummaryService dashboardSummaryService;
+    private final StatementCacheService statementCacheService;
+    private final FraudPreAuthorizationService fraudPreAuthorizationService;
+
+    // Rows fetched per keyset page when streaming statements
+    public static final int STATEMENT_BATCH_SIZE = 500;
+
+    // Held by the fraud pre-check: recorded in the ledger, but no money has moved until it is released
+    public static final String STATUS_PENDING_REVIEW = "PENDING_REVIEW";
+    // A held transaction an admin turned down; it never moves money
+    public static final String STATUS_REJECTED = "REJECTED";
 
     @Autowired
     public TransactionService(AccountRepository accountRepository,
                               TransactionRepository transactionRepository,
                               FraudAlertService fraudAlertService,
-                              EmailService emailService) {
+                              EmailService emailService,
+                              DashboardSummaryService dashboardSummaryService,
+                              StatementCacheService statementCacheService,
+                              FraudPreAuthorizationService fraudPreAuthorizationService) {
         this.accountRepository = accountRepository;
         this.transactionRepository = transactionRepository;
         this.fraudAlertService = fraudAlertService;
         this.emailService = emailService;
+        this.dashboardSummaryService = dashboardSummaryService;
+        this.statementCacheService = statementCacheService;
+        this.fraudPreAuthorizationService = fraudPreAuthorizationService;
     }
 
     private Transaction createAndSaveChainedTransaction(
             TransactionType type, BigDecimal amount, String description,
             Account sourceAccount, Account destinationAccount) {
+        return createAndSaveChainedTransaction(type, amount, description, sourceAccount, destinationAccount, "COMPLETED");
+    }
+
+    private Transaction createAndSaveChainedTransaction(
+            TransactionType type, BigDecimal amount, String description,
+            Account sourceAccount, Account destinationAccount, String status) {
 
         Transaction newTransaction = new Transaction(type, amount, description, sourceAccount, destinationAccount);
 
@@ -49,10 +78,13 @@ public class TransactionService {
         String previousHash = latestTransactionOptional.map(Transaction::getTransactionHash).orElse("0");
 
         newTransaction.setPreviousTransactionHash(previousHash);
-        newTransaction.setStatus("COMPLETED"); // Ensure status is set for new transactions
+        newTransaction.setStatus(status); // COMPLETED unless held for review
         newTransaction.setReversed(false); // Ensure new transactions are not marked reversed
 
         Transaction savedTransaction = transactionRepository.save(newTransaction);
+        // Statement balances derive from the current balance, so cached statements of both accounts go stale
+        statementCacheService.invalidateAccount(sourceAccount != null ? sourceAccount.getId() : null);
+        statementCacheService.invalidateAccount(destinationAccount != null ? destinationAccount.getId() : null);
 
         String transactionDataString = HashUtil.generateTransactionDataString(
                 savedTransaction.getId(),
@@ -99,6 +131,7 @@ public class TransactionService {
         account.setBalance(account.getBalance().add(amount));
         account.setUpdatedAt(LocalDateTime.now());
         Account updatedAccount = accountRepository.save(account);
+        dashboardSummaryService.onBalanceChanged(account.getAccountType(), amount);
 
         createAndSaveChainedTransaction(
                 TransactionType.DEPOSIT,
@@ -125,8 +158,12 @@ public class TransactionService {
         return updatedAccount;
     }
 
+    /**
+     * Debits the account, or records the withdrawal as PENDING_REVIEW without debiting if the fraud pre-check holds it.
+     * @return the posted or held transaction.
+     */
     @Transactional
-    public Account withdraw(Long accountId, BigDecimal amount, String description) {
+    public Transaction withdraw(Long accountId, BigDecimal amount, String description) {
         if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
             throw new IllegalArgumentException("Withdrawal amount must be positive.");
         }
@@ -138,11 +175,23 @@ public class TransactionService {
             throw new IllegalArgumentException("Insufficient funds for withdrawal. Current balance: " + account.getBalance());
         }
 
+        FraudPreAuthorizationService.Decision decision =
+                fraudPreAuthorizationService.check(TransactionType.WITHDRAWAL, accountId, null, amount);
+        if (decision.isHold()) {
+            Transaction held = createAndSaveChainedTransaction(
+                    TransactionType.WITHDRAWAL, amount, description != null ? description : "Cash Withdrawal",
+                    account, null, STATUS_PENDING_REVIEW);
+            fraudAlertService.createAlerts(held, decision.getHits(), FraudAlert.AlertStatus.PENDING); // Why it was held
+            System.out.println("INFO: Withdrawal Txn ID " + held.getId() + " held for review: " + decision.getReason());
+            return held;
+        }
+
         account.setBalance(account.getBalance().subtract(amount));
         account.setUpdatedAt(LocalDateTime.now());
         Account updatedAccount = accountRepository.save(account);
+        dashboardSummaryService.onBalanceChanged(account.getAccountType(), amount.negate());
 
-        createAndSaveChainedTransaction(
+        Transaction transaction = createAndSaveChainedTransaction(
                 TransactionType.WITHDRAWAL,
                 amount,
                 description != null ? description : "Cash Withdrawal",
@@ -150,6 +199,11 @@ public class TransactionService {
                 null
         );
 
+        notifyWithdrawal(account, amount);
+        return transaction;
+    }
+
+    private void notifyWithdrawal(Account account, BigDecimal amount) {
         // Send withdrawal email notification
         if (account.getUser() != null && account.getUser().getEmail() != null) {
             String userEmail = account.getUser().getEmail();
@@ -163,12 +217,14 @@ public class TransactionService {
             );
             emailService.sendEmail(userEmail, subject, body);
         }
-
-        return updatedAccount;
     }
 
+    /**
+     * Moves the funds, or records the transfer as PENDING_REVIEW without moving them if the fraud pre-check holds it.
+     * @return the posted or held transaction.
+     */
     @Transactional
-    public void transfer(Long sourceAccountId, Long destinationAccountId, BigDecimal amount, String description) {
+    public Transaction transfer(Long sourceAccountId, Long destinationAccountId, BigDecimal amount, String description) {
         if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
             throw new IllegalArgumentException("Transfer amount must be positive.");
         }
@@ -182,6 +238,17 @@ public class TransactionService {
             throw new IllegalArgumentException("Insufficient funds in source account " + sourceAccount.getAccountNumber() + " for transfer.");
         }
 
+        FraudPreAuthorizationService.Decision decision =
+                fraudPreAuthorizationService.check(TransactionType.TRANSFER, sourceAccountId, destinationAccountId, amount);
+        if (decision.isHold()) {
+            Transaction held = createAndSaveChainedTransaction(
+                    TransactionType.TRANSFER, amount, description != null ? description : "Funds Transfer",
+                    sourceAccount, destinationAccount, STATUS_PENDING_REVIEW);
+            fraudAlertService.createAlerts(held, decision.getHits(), FraudAlert.AlertStatus.PENDING); // Why it was held
+            System.out.println("INFO: Transfer Txn ID " + held.getId() + " held for review: " + decision.getReason());
+            return held;
+        }
+
         sourceAccount.setBalance(sourceAccount.getBalance().subtract(amount));
         destinationAccount.setBalance(destinationAccount.getBalance().add(amount));
 
@@ -190,8 +257,10 @@ public class TransactionService {
 
         accountRepository.save(sourceAccount);
         accountRepository.save(destinationAccount);
+        dashboardSummaryService.onBalanceChanged(sourceAccount.getAccountType(), amount.negate());
+        dashboardSummaryService.onBalanceChanged(destinationAccount.getAccountType(), amount);
 
-        createAndSaveChainedTransaction(
+        Transaction transaction = createAndSaveChainedTransaction(
                 TransactionType.TRANSFER,
                 amount,
                 description != null ? description : "Funds Transfer",
@@ -199,6 +268,11 @@ public class TransactionService {
                 destinationAccount
         );
 
+        notifyTransfer(sourceAccount, destinationAccount, amount);
+        return transaction;
+    }
+
+    private void notifyTransfer(Account sourceAccount, Account destinationAccount, BigDecimal amount) {
         // Notify sender
         if (sourceAccount.getUser() != null && sourceAccount.getUser().getEmail() != null) {
             String senderEmail = sourceAccount.getUser().getEmail();
@@ -227,6 +301,76 @@ public class TransactionService {
         }
     }
 
+    /**
+     * Posts a withdrawal or transfer the fraud pre-check held: re-checks the balance, moves the money now and marks
+     * the transaction COMPLETED. The ledger row and its hash stay as recorded when it was held.
+     */
+    @Transactional
+    public Transaction releaseHeldTransaction(Long transactionId) {
+        Transaction transaction = findHeldTransaction(transactionId);
+        BigDecimal amount = transaction.getAmount();
+        Account sourceAccount = transaction.getSourceAccount();
+        Account destinationAccount = transaction.getDestinationAccount();
+
+        if (sourceAccount.getBalance().compareTo(amount) < 0) {
+            throw new IllegalStateException("Account " + sourceAccount.getAccountNumber() + " no longer has sufficient funds ("
+                    + sourceAccount.getBalance() + ") to release transaction " + transactionId + ".");
+        }
+        sourceAccount.setBalance(sourceAccount.getBalance().subtract(amount));
+        sourceAccount.setUpdatedAt(LocalDateTime.now());
+        accountRepository.save(sourceAccount);
+        dashboardSummaryService.onBalanceChanged(sourceAccount.getAccountType(), amount.negate());
+        if (destinationAccount != null) {
+            destinationAccount.setBalance(destinationAccount.getBalance().add(amount));
+            destinationAccount.setUpdatedAt(LocalDateTime.now());
+            accountRepository.save(destinationAccount);
+            dashboardSummaryService.onBalanceChanged(destinationAccount.getAccountType(), amount);
+        }
+
+        transaction.setStatus("COMPLETED");
+        Transaction released = transactionRepository.save(transaction);
+        fraudAlertService.recordPostingAfterCommit(released); // Left out of the fraud rule state while it was held
+        statementCacheService.invalidateAccount(sourceAccount.getId());
+        statementCacheService.invalidateAccount(destinationAccount != null ? destinationAccount.getId() : null);
+
+        if (destinationAccount != null) {
+            notifyTransfer(sourceAccount, destinationAccount, amount);
+        } else {
+            notifyWithdrawal(sourceAccount, amount);
+        }
+        System.out.println("INFO: Held Txn ID " + transactionId + " released and posted.");
+        return released;
+    }
+
+    /**
+     * Turns down a held transaction. No money moved while it was held, so none moves now.
+     */
+    @Transactional
+    public Transaction rejectHeldTransaction(Long transactionId) {
+        Transaction transaction = findHeldTransaction(transactionId);
+        transaction.setStatus(STATUS_REJECTED);
+        Transaction rejected = transactionRepository.save(transaction);
+        statementCacheService.invalidateAccount(transaction.getSourceAccount() != null ? transaction.getSourceAccount().getId() : null);
+        statementCacheService.invalidateAccount(transaction.getDestinationAccount() != null ? transaction.getDestinationAccount().getId() : null);
+        System.out.println("INFO: Held Txn ID " + transactionId + " rejected.");
+        return rejected;
+    }
+
+    // Row-locked until commit: a second release or reject waits here and then sees the new status
+    private Transaction findHeldTransaction(Long transactionId) {
+        Transaction transaction = transactionRepository.findByIdForUpdate(transactionId)
+                .orElseThrow(() -> new IllegalArgumentException("Transaction not found with ID: " + transactionId));
+        if (!STATUS_PENDING_REVIEW.equals(transaction.getStatus())) {
+            throw new IllegalStateException("Transaction " + transactionId + " is not pending review (status " + transaction.getStatus() + ").");
+        }
+        return transaction;
+    }
+
+    // Whether a ledger row moved money; held and rejected ones did not
+    static boolean movedFunds(Transaction transaction) {
+        return !STATUS_PENDING_REVIEW.equals(transaction.getStatus()) && !STATUS_REJECTED.equals(transaction.getStatus());
+    }
+
     public List<Transaction> getAllTransactions() {
         return transactionRepository.findAllByOrderByTransactionDateAscIdAsc();
     }
@@ -256,6 +400,22 @@ public class TransactionService {
                 .collect(Collectors.toList());
     }
 
+    // --- Projections for list pages (account numbers resolved in the same query, no lazy loading) ---
+    @Transactional(readOnly = true)
+    public List<TransactionSummary> getAllTransactionSummaries() {
+        return transactionRepository.findAllSummaries();
+    }
+
+    @Transactional(readOnly = true)
+    public List<TransactionSummary> getTransactionSummariesForAccount(Long accountId) {
+        return transactionRepository.findSummariesByAccountId(accountId);
+    }
+
+    @Transactional(readOnly = true)
+    public List<TransactionSummary> getTransactionSummariesForUser(Long userId) {
+        return transactionRepository.findSummariesByUserId(userId);
+    }
+
     /**
      * Verifies the integrity of the transaction ledger.
      * This method re-calculates hashes and checks if the chain is valid.
@@ -376,6 +536,8 @@ public class TransactionService {
 
                 accountRepository.save(destinationAccount);
                 accountRepository.save(sourceAccount);
+                dashboardSummaryService.onBalanceChanged(destinationAccount.getAccountType(), amount.negate());
+                dashboardSummaryService.onBalanceChanged(sourceAccount.getAccountType(), amount);
 
                 reversalTxnType = TransactionType.TRANSFER_REVERSAL;
                 reversalSourceAccount = destinationAccount; // Source of reversal is original destination
@@ -392,6 +554,7 @@ public class TransactionService {
 
                 destinationAccount.setBalance(destinationAccount.getBalance().subtract(amount));
                 accountRepository.save(destinationAccount);
+                dashboardSummaryService.onBalanceChanged(destinationAccount.getAccountType(), amount.negate());
 
                 reversalTxnType = TransactionType.DEPOSIT_REVERSAL;
                 reversalSourceAccount = destinationAccount; // The account is the source of the reversal outflow
@@ -405,6 +568,7 @@ public class TransactionService {
 
                 sourceAccount.setBalance(sourceAccount.getBalance().add(amount));
                 accountRepository.save(sourceAccount);
+                dashboardSummaryService.onBalanceChanged(sourceAccount.getAccountType(), amount);
 
                 reversalTxnType = TransactionType.WITHDRAWAL_REVERSAL;
                 reversalSourceAccount = null; // No source for a withdrawal reversal
@@ -462,6 +626,9 @@ public class TransactionService {
         // Calculate the net change in balance during the period from the perspective of this account
         BigDecimal netChangeInPeriod = BigDecimal.ZERO;
         for (Transaction txn : transactionsInPeriod) {
+            if (!movedFunds(txn)) {
+                continue; // Still in the ledger hash below
+            }
             if (txn.getSourceAccount() != null && txn.getSourceAccount().getId().equals(accountId)) {
                 // If this account is the source, amount left the account
                 netChangeInPeriod = netChangeInPeriod.subtract(txn.getAmount());
@@ -474,8 +641,8 @@ public class TransactionService {
         // Opening balance = Closing Balance - Net Change in Period
         BigDecimal openingBalance = closingBalance.subtract(netChangeInPeriod);
 
-        // Calculate the ledger hash for transactions within the statement period
-        StringBuilder ledgerHashInputBuilder = new StringBuilder();
+        // Calculate the ledger hash for transactions within the statement period, one record at a time
+        HashUtil.LedgerDigest ledgerDigest = HashUtil.newLedgerDigest();
         transactionsInPeriod.stream()
                 .sorted((t1, t2) -> { // Ensure consistent order for hashing
                     int dateComparison = t1.getTransactionDate().compareTo(t2.getTransactionDate());
@@ -486,14 +653,14 @@ public class TransactionService {
                     // Use the same logic as verifyLedgerIntegrity for consistency
                     Long sourceAccountId = (txn.getSourceAccount() != null) ? txn.getSourceAccount().getId() : null;
                     Long destinationAccountId = (txn.getDestinationAccount() != null) ? txn.getDestinationAccount().getId() : null;
-                    ledgerHashInputBuilder.append(HashUtil.generateTransactionDataString(
+                    ledgerDigest.updateTransaction(
                             txn.getId(), txn.getTransactionType(), txn.getAmount(),
                             txn.getDescription(), sourceAccountId, destinationAccountId,
                             txn.getTransactionDate()
-                    ));
+                    );
                 });
 
-        String ledgerHash = HashUtil.calculateSHA256Hash(ledgerHashInputBuilder.toString());
+        String ledgerHash = ledgerDigest.toHex();
 
         Map<String, Object> statementSummary = new HashMap<>();
         statementSummary.put("openingBalance", openingBalance);
@@ -502,4 +669,65 @@ public class TransactionService {
 
         return statementSummary;
     }
+
+    // Opening/closing balances for a statement from one aggregate query, without loading the period's transactions.
+    // Same semantics as calculateStatementBalances (closing = current balance); the ledger hash comes from streamStatementLines.
+    @Transactional(readOnly = true)
+    public Map<String, Object> calculateStatementOpeningAndClosing(Long accountId, Instant startDate, Instant endDate) {
+        Account account = accountRepository.findById(accountId)
+                .orElseThrow(() -> new IllegalArgumentException("Account not found with ID: " + accountId));
+
+        BigDecimal closingBalance = account.getBalance();
+        BigDecimal netChangeInPeriod = transactionRepository.sumNetChangeForAccountInRange(accountId, startDate, endDate);
+
+        Map<String, Object> statementSummary = new HashMap<>();
+        statementSummary.put("openingBalance", closingBalance.subtract(netChangeInPeriod));
+        statementSummary.put("closingBalance", closingBalance);
+        return statementSummary;
+    }
+
+    // Cheap stand-in for the ledger hash when only "has this period changed" matters (statement cache keys):
+    // row count, highest id and held/rejected/reversed counts from one aggregate query, without reading the rows.
+    @Transactional(readOnly = true)
+    public String calculateStatementFingerprint(Long accountId, Instant startDate, Instant endDate) {
+        Object[] row = transactionRepository.findStatementFingerprint(accountId, startDate, endDate).get(0);
+        return row[0] + ":" + row[1] + ":" + row[2] + ":" + row[3] + ":" + row[4];
+    }
+
+    /**
+     * Feeds every statement row of the period to {@code consumer} in (transactionDate, id) order, reading
+     * STATEMENT_BATCH_SIZE rows at a time with a keyset cursor, and returns the period's ledger hash.
+     * The hash is computed incrementally and matches the one from calculateStatementBalances.
+     * Deliberately not @Transactional: each page is its own short read, so a slow client never holds a
+     * connection or grows a persistence context.
+     */
+    public String streamStatementLines(Long accountId, Instant startDate, Instant endDate, Consumer<StatementLine> consumer) {
+        return streamStatementLines(accountId, startDate, endDate, () -> { }, consumer);
+    }
+
+    // Same as above; beforeEachPage runs before every keyset query so batch jobs can throttle DB reads
+    public String streamStatementLines(Long accountId, Instant startDate, Instant endDate,
+                                       Runnable beforeEachPage, Consumer<StatementLine> consumer) {
+        HashUtil.LedgerDigest ledgerDigest = HashUtil.newLedgerDigest();
+
+        Pageable batch = PageRequest.of(0, STATEMENT_BATCH_SIZE);
+        beforeEachPage.run();
+        List<StatementLine> page = transactionRepository.findStatementLines(accountId, startDate, endDate, batch);
+        while (!page.isEmpty()) {
+            for (StatementLine line : page) {
+                ledgerDigest.updateTransaction(
+                        line.getId(), line.getTransactionType(), line.getAmount(), line.getDescription(),
+                        line.getSourceAccountId(), line.getDestinationAccountId(), line.getTransactionDate());
+                consumer.accept(line);
+            }
+            if (page.size() < STATEMENT_BATCH_SIZE) {
+                break;
+            }
+            StatementLine last = page.get(page.size() - 1);
+            beforeEachPage.run();
+            page = transactionRepository.findStatementLinesAfter(accountId, startDate, endDate,
+                    last.getTransactionDate(), last.getId(), batch);
+        }
+        return ledgerDigest.toHex();
+    }
 }
\ No newline at end of file
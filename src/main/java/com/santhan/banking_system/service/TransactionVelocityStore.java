@@ -0,0 +1,378 @@
+package com.santhan.banking_system.service;
+
+import com.santhan.banking_system.model.Transaction;
+import com.santhan.banking_system.repository.TransactionRepository;
+import com.santhan.banking_system.util.AfterCommit;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Per-account sliding-window transaction velocity, kept in memory for the fraud rules.
+ *
+ * Each account has a ring buffer of primitive timestamps (epoch millis) and amounts (minor units) with running
+ * count, sum and large-transaction count. Entries older than the window are evicted from the tail whenever the
+ * account is touched, so a windowed count/sum check is O(1) amortized and never queries the database.
+ * Accounts are spread over a fixed number of lock stripes; each stripe guards a plain HashMap of rings.
+ *
+ * Postings are recorded after their transaction commits, matching what a DB query would see. The store is warmed
+ * from the last window of transactions on startup; until then {@link #isWarm()} is false and callers should
+ * fall back to the database. Postings that commit while the warm-up runs are buffered and applied after the
+ * warm-up rows, so every ring is filled in time order. A failed warm-up is retried in the background.
+ */
+@Service
+public class TransactionVelocityStore {
+
+    private static final int STRIPES = 64; // Power of two
+    private static final int INITIAL_RING_CAPACITY = 8;
+
+    private final TransactionRepository transactionRepository;
+    private final int maxEntriesPerAccount;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    private volatile long windowMillis = 10 * 60 * 1000L;
+    private volatile long largeThresholdMinor = 1_000_000L;
+    private volatile boolean warm = false;
+    private volatile boolean warmupFailed = false;
+    // Live postings are recorded under the read lock; starting and finishing a warm-up take the write lock
+    private final ReadWriteLock warmupLock = new ReentrantReadWriteLock();
+    // Postings committed while a warm-up runs, applied once it finishes; null when no warm-up is running
+    private List<LiveRecord> liveDuringWarmup = new ArrayList<>();
+
+    @Autowired
+    public TransactionVelocityStore(TransactionRepository transactionRepository,
+                                    @Value("${banking.fraud.velocity.max-entries-per-account:4096}") int maxEntriesPerAccount) {
+        this.transactionRepository = transactionRepository;
+        this.maxEntriesPerAccount = Math.max(maxEntriesPerAccount, INITIAL_RING_CAPACITY);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Sets the window length and the amount at or above which a transaction counts as large.
+     * Running large counts are recomputed from the buffered entries. A longer window needs history the buffers
+     * no longer hold, so the store is emptied and warmed again from the database.
+     */
+    public synchronized void configure(long windowMillis, BigDecimal largeThreshold) {
+        boolean rewarm = warm && windowMillis > this.windowMillis;
+        this.windowMillis = windowMillis;
+        this.largeThresholdMinor = toMinorUnits(largeThreshold);
+        if (rewarm) {
+            beginWarmUp();
+            warmUp();
+            return;
+        }
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                for (Ring ring : stripe.rings.values()) {
+                    ring.recountLarge(largeThresholdMinor);
+                }
+            }
+        }
+    }
+
+    public boolean isConfiguredFor(long windowMillis, BigDecimal largeThreshold) {
+        return this.windowMillis == windowMillis && this.largeThresholdMinor == toMinorUnits(largeThreshold);
+    }
+
+    public boolean isWarm() {
+        return warm;
+    }
+
+    /**
+     * Count, sum and large count of the account's committed transactions within the window ending now.
+     */
+    public WindowStats snapshot(Long accountId) {
+        long cutoff = System.currentTimeMillis() - windowMillis;
+        Stripe stripe = stripeFor(accountId);
+        synchronized (stripe) {
+            Ring ring = stripe.rings.get(accountId);
+            if (ring == null) {
+                return WindowStats.EMPTY;
+            }
+            ring.evict(cutoff, largeThresholdMinor);
+            return new WindowStats(ring.size, ring.sumMinor, ring.largeCount);
+        }
+    }
+
+    /**
+     * Records the transaction against its source and destination accounts once the current transaction commits.
+     */
+    public void recordAfterCommit(Transaction transaction) {
+        Long transactionId = transaction.getId();
+        Long sourceId = transaction.getSourceAccount() != null ? transaction.getSourceAccount().getId() : null;
+        Long destinationId = transaction.getDestinationAccount() != null ? transaction.getDestinationAccount().getId() : null;
+        long timestamp = transaction.getTransactionDate() != null
+                ? transaction.getTransactionDate().toEpochMilli() : System.currentTimeMillis();
+        long amountMinor = toMinorUnits(transaction.getAmount());
+
+        Runnable record = () -> {
+            warmupLock.readLock().lock();
+            try {
+                List<LiveRecord> buffer = liveDuringWarmup;
+                if (buffer != null) {
+                    synchronized (buffer) {
+                        buffer.add(new LiveRecord(transactionId, sourceId, destinationId, timestamp, amountMinor));
+                    }
+                    return;
+                }
+                record(sourceId, timestamp, amountMinor);
+                record(destinationId, timestamp, amountMinor);
+            } finally {
+                warmupLock.readLock().unlock();
+            }
+        };
+        AfterCommit.run(record);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public synchronized void warmUp() {
+        Instant since = Instant.now().minusMillis(windowMillis);
+        List<Object[]> rows;
+        try {
+            // Rows of [transactionId, sourceAccountId, destinationAccountId, amount, transactionDate] in time order
+            rows = transactionRepository.findVelocityRowsSince(since);
+        } catch (Exception e) {
+            System.err.println("WARNING: Could not warm transaction velocity store, fraud rules keep using the database until a retry succeeds: " + e.getMessage());
+            warmupLock.writeLock().lock();
+            try {
+                liveDuringWarmup = null; // Nothing reads the rings while cold; the retry starts from empty rings
+                warmupFailed = true;
+            } finally {
+                warmupLock.writeLock().unlock();
+            }
+            return;
+        }
+        // Rings are empty and live postings are buffered, so the rows go in in time order
+        Set<Long> loadedIds = new HashSet<>(rows.size() * 2);
+        for (Object[] row : rows) {
+            long timestamp = ((Instant) row[4]).toEpochMilli();
+            long amountMinor = toMinorUnits((BigDecimal) row[3]);
+            record((Long) row[1], timestamp, amountMinor);
+            record((Long) row[2], timestamp, amountMinor);
+            loadedIds.add((Long) row[0]);
+        }
+        int buffered = 0;
+        warmupLock.writeLock().lock();
+        try {
+            for (LiveRecord live : liveDuringWarmup) {
+                if (!loadedIds.contains(live.transactionId)) { // Committed before the query but reported after it
+                    record(live.sourceId, live.timestamp, live.amountMinor);
+                    record(live.destinationId, live.timestamp, live.amountMinor);
+                    buffered++;
+                }
+            }
+            liveDuringWarmup = null;
+            warmupFailed = false;
+            warm = true;
+        } finally {
+            warmupLock.writeLock().unlock();
+        }
+        System.out.println("DEBUG: Transaction velocity store warmed with " + rows.size() + " transactions since " + since
+                + " and " + buffered + " committed during the warm-up");
+    }
+
+    // Tries again after a failed warm-up, from empty rings
+    @Scheduled(fixedDelayString = "${banking.fraud.velocity.warmup-retry-ms:60000}",
+            initialDelayString = "${banking.fraud.velocity.warmup-retry-ms:60000}")
+    public synchronized void retryFailedWarmUp() {
+        if (warmupFailed) {
+            beginWarmUp();
+            warmUp();
+        }
+    }
+
+    // Marks the store cold, starts buffering live postings and empties the rings for a fresh warm-up
+    private void beginWarmUp() {
+        warmupLock.writeLock().lock();
+        try {
+            warm = false;
+            liveDuringWarmup = new ArrayList<>();
+            for (Stripe stripe : stripes) {
+                synchronized (stripe) {
+                    stripe.rings.clear();
+                }
+            }
+        } finally {
+            warmupLock.writeLock().unlock();
+        }
+    }
+
+    // Drops rings of accounts with no activity inside the window, so idle accounts cost no memory
+    @Scheduled(fixedDelayString = "${banking.fraud.velocity.sweep-interval-ms:60000}")
+    public void sweepIdleAccounts() {
+        long cutoff = System.currentTimeMillis() - windowMillis;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                Iterator<Ring> iterator = stripe.rings.values().iterator();
+                while (iterator.hasNext()) {
+                    Ring ring = iterator.next();
+                    ring.evict(cutoff, largeThresholdMinor);
+                    if (ring.size == 0) {
+                        iterator.remove();
+                    }
+                }
+            }
+        }
+    }
+
+    public static long toMinorUnits(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue();
+    }
+
+    private void record(Long accountId, long timestamp, long amountMinor) {
+        if (accountId == null) {
+            return;
+        }
+        long cutoff = System.currentTimeMillis() - windowMillis;
+        Stripe stripe = stripeFor(accountId);
+        synchronized (stripe) {
+            Ring ring = stripe.rings.computeIfAbsent(accountId, id -> new Ring());
+            ring.evict(cutoff, largeThresholdMinor);
+            if (timestamp > cutoff) {
+                ring.add(timestamp, amountMinor, largeThresholdMinor, maxEntriesPerAccount);
+            }
+        }
+    }
+
+    private Stripe stripeFor(Long accountId) {
+        long h = accountId * 0x9E3779B97F4A7C15L; // Spread sequential ids across stripes
+        return stripes[(int) (h >>> 58) & (STRIPES - 1)];
+    }
+
+    private static class Stripe {
+        private final Map<Long, Ring> rings = new HashMap<>();
+    }
+
+    // Not thread-safe; always used under its stripe's lock
+    private static class Ring {
+        private long[] timestamps = new long[INITIAL_RING_CAPACITY];
+        private long[] amounts = new long[INITIAL_RING_CAPACITY];
+        private int head = 0; // Oldest entry
+        private int size = 0;
+        private long sumMinor = 0;
+        private int largeCount = 0;
+
+        void add(long timestamp, long amountMinor, long largeThreshold, int maxEntries) {
+            if (size > 0) {
+                // Concurrent commits can land a little out of order; keep the buffer sorted so eviction stays a tail pop
+                long newest = timestamps[(head + size - 1) % timestamps.length];
+                timestamp = Math.max(timestamp, newest);
+            }
+            if (size == timestamps.length) {
+                if (timestamps.length < maxEntries) {
+                    grow(Math.min(timestamps.length * 2, maxEntries));
+                } else {
+                    removeOldest(largeThreshold); // At the cap the window count becomes a lower bound
+                }
+            }
+            int tail = (head + size) % timestamps.length;
+            timestamps[tail] = timestamp;
+            amounts[tail] = amountMinor;
+            size++;
+            sumMinor += amountMinor;
+            if (amountMinor >= largeThreshold) {
+                largeCount++;
+            }
+        }
+
+        void evict(long cutoff, long largeThreshold) {
+            while (size > 0 && timestamps[head] <= cutoff) {
+                removeOldest(largeThreshold);
+            }
+        }
+
+        void recountLarge(long largeThreshold) {
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                if (amounts[(head + i) % amounts.length] >= largeThreshold) {
+                    count++;
+                }
+            }
+            largeCount = count;
+        }
+
+        private void removeOldest(long largeThreshold) {
+            long amount = amounts[head];
+            sumMinor -= amount;
+            if (amount >= largeThreshold) {
+                largeCount--;
+            }
+            head = (head + 1) % timestamps.length;
+            size--;
+        }
+
+        private void grow(int capacity) {
+            long[] newTimestamps = new long[capacity];
+            long[] newAmounts = new long[capacity];
+            for (int i = 0; i < size; i++) {
+                int index = (head + i) % timestamps.length;
+                newTimestamps[i] = timestamps[index];
+                newAmounts[i] = amounts[index];
+            }
+            timestamps = newTimestamps;
+            amounts = newAmounts;
+            head = 0;
+        }
+    }
+
+    private static class LiveRecord {
+        private final Long transactionId;
+        private final Long sourceId;
+        private final Long destinationId;
+        private final long timestamp;
+        private final long amountMinor;
+
+        LiveRecord(Long transactionId, Long sourceId, Long destinationId, long timestamp, long amountMinor) {
+            this.transactionId = transactionId;
+            this.sourceId = sourceId;
+            this.destinationId = destinationId;
+            this.timestamp = timestamp;
+            this.amountMinor = amountMinor;
+        }
+    }
+
+    /**
+     * Immutable result of a window query.
+     */
+    public static class WindowStats {
+        static final WindowStats EMPTY = new WindowStats(0, 0, 0);
+
+        private final int count;
+        private final long sumMinor;
+        private final int largeCount;
+
+        public WindowStats(int count, long sumMinor, int largeCount) {
+            this.count = count;
+            this.sumMinor = sumMinor;
+            this.largeCount = largeCount;
+        }
+
+        public int getCount() { return count; }
+        public long getSumMinor() { return sumMinor; }
+        public int getLargeCount() { return largeCount; }
+
+        public BigDecimal getSum() {
+            return BigDecimal.valueOf(sumMinor, 2);
+        }
+    }
+}
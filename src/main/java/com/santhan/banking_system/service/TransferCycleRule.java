@@ -0,0 +1,50 @@
+package com.santhan.banking_system.service;
+
+import com.santhan.banking_system.model.FraudAlert.AlertType;
+import com.santhan.banking_system.model.TransactionType;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+// Rule 6: Transfer that closes a short loop of accounts (money sent round and back to where it started)
+@Component
+public class TransferCycleRule implements FraudRule {
+
+    public static final long DEFAULT_WINDOW_MINUTES = 24 * 60;
+    public static final int DEFAULT_MAX_LENGTH = 4;
+    private static final int LONGEST_SUPPORTED_CYCLE = 4;
+
+    @Override
+    public AlertType getAlertType() {
+        return AlertType.TRANSFER_CYCLE;
+    }
+
+    @Override
+    public Set<State> getRequiredState() {
+        return Set.of(State.TRANSFER_GRAPH);
+    }
+
+    @Override
+    public String evaluate(FraudRuleContext context, FraudRuleSettings settings) {
+        TransferGraph graph = context.getTransferGraph();
+        if (graph == null || context.getTransactionType() != TransactionType.TRANSFER
+                || context.getSourceAccountId() == null || context.getDestinationAccountId() == null) {
+            return null;
+        }
+        long windowMinutes = settings.getLong(getName(), "window-minutes", DEFAULT_WINDOW_MINUTES);
+        int maxLength = Math.min(settings.getInt(getName(), "max-length", DEFAULT_MAX_LENGTH), LONGEST_SUPPORTED_CYCLE);
+
+        long since = context.getEvaluatedAt().toEpochMilli() - windowMinutes * 60_000L;
+        long[] cycle = graph.findCycle(context.getSourceAccountId(), context.getDestinationAccountId(), since, maxLength);
+        if (cycle == null) {
+            return null;
+        }
+        StringBuilder path = new StringBuilder();
+        for (long accountId : cycle) {
+            path.append(accountId).append(" -> ");
+        }
+        path.append(cycle[0]);
+        return "Transfer closes a cycle of " + cycle.length + " accounts within the last " + windowMinutes
+                + " minutes (account IDs " + path + ").";
+    }
+}
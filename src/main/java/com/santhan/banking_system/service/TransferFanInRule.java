@@ -0,0 +1,45 @@
+package com.santhan.banking_system.service;
+
+import com.santhan.banking_system.model.FraudAlert.AlertType;
+import com.santhan.banking_system.model.TransactionType;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+// Rule 4: Many different accounts transferring into one account within a short window (mule collection account)
+@Component
+public class TransferFanInRule implements FraudRule {
+
+    public static final long DEFAULT_WINDOW_MINUTES = 60;
+    public static final int DEFAULT_MIN_ACCOUNTS = 5;
+
+    @Override
+    public AlertType getAlertType() {
+        return AlertType.TRANSFER_FAN_IN;
+    }
+
+    @Override
+    public Set<State> getRequiredState() {
+        return Set.of(State.TRANSFER_GRAPH);
+    }
+
+    @Override
+    public String evaluate(FraudRuleContext context, FraudRuleSettings settings) {
+        TransferGraph graph = context.getTransferGraph();
+        if (graph == null || context.getTransactionType() != TransactionType.TRANSFER
+                || context.getSourceAccountId() == null || context.getDestinationAccountId() == null) {
+            return null;
+        }
+        long windowMinutes = settings.getLong(getName(), "window-minutes", DEFAULT_WINDOW_MINUTES);
+        int minAccounts = settings.getInt(getName(), "min-accounts", DEFAULT_MIN_ACCOUNTS);
+
+        long now = context.getEvaluatedAt().toEpochMilli();
+        TransferGraph.FanStats fanIn = graph.fan(context.getDestinationAccountId(), true, now - windowMinutes * 60_000L, now,
+                context.getSourceAccountId(), context.getAmount().doubleValue());
+        if (fanIn.getAccounts() >= minAccounts) {
+            return String.format("Account ID %d received transfers from %d different accounts within the last %d minutes (recent volume %.2f).",
+                    context.getDestinationAccountId(), fanIn.getAccounts(), windowMinutes, fanIn.getVolume());
+        }
+        return null;
+    }
+}
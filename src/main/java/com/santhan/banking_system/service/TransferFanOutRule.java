@@ -0,0 +1,45 @@
+package com.santhan.banking_system.service;
+
+import com.santhan.banking_system.model.FraudAlert.AlertType;
+import com.santhan.banking_system.model.TransactionType;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+// Rule 5: One account transferring out to many different accounts within a short window (mule distribution account)
+@Component
+public class TransferFanOutRule implements FraudRule {
+
+    public static final long DEFAULT_WINDOW_MINUTES = 60;
+    public static final int DEFAULT_MIN_ACCOUNTS = 5;
+
+    @Override
+    public AlertType getAlertType() {
+        return AlertType.TRANSFER_FAN_OUT;
+    }
+
+    @Override
+    public Set<State> getRequiredState() {
+        return Set.of(State.TRANSFER_GRAPH);
+    }
+
+    @Override
+    public String evaluate(FraudRuleContext context, FraudRuleSettings settings) {
+        TransferGraph graph = context.getTransferGraph();
+        if (graph == null || context.getTransactionType() != TransactionType.TRANSFER
+                || context.getSourceAccountId() == null || context.getDestinationAccountId() == null) {
+            return null;
+        }
+        long windowMinutes = settings.getLong(getName(), "window-minutes", DEFAULT_WINDOW_MINUTES);
+        int minAccounts = settings.getInt(getName(), "min-accounts", DEFAULT_MIN_ACCOUNTS);
+
+        long now = context.getEvaluatedAt().toEpochMilli();
+        TransferGraph.FanStats fanOut = graph.fan(context.getSourceAccountId(), false, now - windowMinutes * 60_000L, now,
+                context.getDestinationAccountId(), context.getAmount().doubleValue());
+        if (fanOut.getAccounts() >= minAccounts) {
+            return String.format("Account ID %d sent transfers to %d different accounts within the last %d minutes (recent volume %.2f).",
+                    context.getSourceAccountId(), fanOut.getAccounts(), windowMinutes, fanOut.getVolume());
+        }
+        return null;
+    }
+}
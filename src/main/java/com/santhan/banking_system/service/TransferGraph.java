@@ -0,0 +1,432 @@
+package com.santhan.banking_system.service;
+
+import com.santhan.banking_system.model.Transaction;
+import com.santhan.banking_system.model.TransactionType;
+import com.santhan.banking_system.repository.TransactionRepository;
+import com.santhan.banking_system.util.AfterCommit;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Directed graph of recent TRANSFERs between accounts, for the mule-ring rules (fan-in, fan-out, short cycles).
+ *
+ * Every account has an out- and an in-adjacency list kept in primitive arrays: peer account id, time of the last
+ * transfer on that edge, and a time-decayed transfer volume (half-life configurable). Repeated transfers between
+ * the same pair update one edge. Edges older than the retention are pruned when their list is touched and by a
+ * periodic sweep. Each list is capped at max-degree edges; when full, the edge with the lowest decayed volume is
+ * replaced, which bounds every query to a few thousand array reads.
+ *
+ * Like TransactionVelocityStore, transfers are added after their transaction commits and the graph is rebuilt
+ * from the ledger on startup. Transfers that commit while a build runs are buffered and added after the ledger
+ * rows, skipping those the query already returned. A failed build is retried in the background.
+ * Reads share a read lock; updates take the write lock.
+ */
+@Service
+public class TransferGraph {
+
+    private final TransactionRepository transactionRepository;
+    private final int maxDegree;
+    private final long halfLifeMillis;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Node> nodes = new HashMap<>(); // Guarded by lock
+    // Transfers committed while a build runs, added once it finishes; null when no build is running. Guarded by lock
+    private List<LiveEdge> liveDuringWarmup = null;
+
+    private volatile long retentionMillis = 24 * 60 * 60 * 1000L;
+    private volatile boolean warm = false;
+    private volatile boolean warmupFailed = false;
+
+    @Autowired
+    public TransferGraph(TransactionRepository transactionRepository,
+                         @Value("${banking.fraud.graph.max-degree:256}") int maxDegree,
+                         @Value("${banking.fraud.graph.half-life-minutes:60}") long halfLifeMinutes) {
+        this.transactionRepository = transactionRepository;
+        this.maxDegree = Math.max(maxDegree, 8);
+        this.halfLifeMillis = Math.max(halfLifeMinutes, 1) * 60_000L;
+    }
+
+    /**
+     * Sets how long edges are kept. A longer retention needs edges that were already pruned, so the graph is
+     * emptied and rebuilt from the ledger.
+     */
+    public synchronized void configure(long retentionMillis) {
+        boolean rebuild = warm && retentionMillis > this.retentionMillis;
+        this.retentionMillis = retentionMillis;
+        if (rebuild) {
+            warmUp();
+        }
+    }
+
+    public boolean isWarm() {
+        return warm;
+    }
+
+    public long getRetentionMillis() {
+        return retentionMillis;
+    }
+
+    /**
+     * Adds the transfer to the graph once the current transaction commits. Other transaction types are ignored.
+     */
+    public void recordAfterCommit(Transaction transaction) {
+        if (transaction.getTransactionType() != TransactionType.TRANSFER
+                || transaction.getSourceAccount() == null || transaction.getDestinationAccount() == null) {
+            return;
+        }
+        Long transactionId = transaction.getId();
+        long sourceId = transaction.getSourceAccount().getId();
+        long destinationId = transaction.getDestinationAccount().getId();
+        long timestamp = transaction.getTransactionDate() != null
+                ? transaction.getTransactionDate().toEpochMilli() : System.currentTimeMillis();
+        double amount = transaction.getAmount().doubleValue();
+
+        Runnable record = () -> {
+            lock.writeLock().lock();
+            try {
+                if (liveDuringWarmup != null) {
+                    liveDuringWarmup.add(new LiveEdge(transactionId, sourceId, destinationId, timestamp, amount));
+                    return;
+                }
+                addEdge(sourceId, destinationId, timestamp, amount);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        };
+        AfterCommit.run(record);
+    }
+
+    /**
+     * Distinct accounts that {@code accountId} sent to (or, for {@code incoming}, received from) after
+     * {@code sinceMillis}, counting {@code extraPeer} (the transfer being evaluated) if it is not already an edge.
+     * Volume is decayed to {@code asOfMillis}.
+     */
+    public FanStats fan(long accountId, boolean incoming, long sinceMillis, long asOfMillis, long extraPeer, double extraAmount) {
+        lock.readLock().lock();
+        try {
+            Node node = nodes.get(accountId);
+            EdgeList edges = node == null ? null : (incoming ? node.in : node.out);
+            int count = 0;
+            double volume = 0;
+            boolean extraSeen = false;
+            if (edges != null) {
+                for (int i = 0; i < edges.size; i++) {
+                    if (edges.lastSeen[i] > sinceMillis) {
+                        count++;
+                        volume += edges.decayedVolume(i, asOfMillis, halfLifeMillis);
+                        extraSeen |= edges.peers[i] == extraPeer;
+                    }
+                }
+            }
+            if (!extraSeen) {
+                count++;
+            }
+            return new FanStats(count, volume + extraAmount);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Shortest cycle of at most {@code maxLength} accounts that the transfer source -> destination would close,
+     * using edges newer than {@code sinceMillis}. Returns the accounts in order starting with the source, or null.
+     */
+    public long[] findCycle(long sourceId, long destinationId, long sinceMillis, int maxLength) {
+        if (sourceId == destinationId || maxLength < 2) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            Node destination = nodes.get(destinationId);
+            Node source = nodes.get(sourceId);
+            if (destination == null || source == null) {
+                return null;
+            }
+            // Length 2: destination -> source
+            if (destination.out.isLive(sourceId, sinceMillis)) {
+                return new long[] {sourceId, destinationId};
+            }
+            if (maxLength < 3) {
+                return null;
+            }
+            // Accounts that sent to the source, sorted for binary search
+            long[] intoSource = source.in.livePeersSorted(sinceMillis);
+            if (intoSource.length == 0) {
+                return null;
+            }
+            // Length 3: destination -> x -> source
+            EdgeList fromDestination = destination.out;
+            for (int i = 0; i < fromDestination.size; i++) {
+                long x = fromDestination.peers[i];
+                if (fromDestination.lastSeen[i] > sinceMillis && x != sourceId && Arrays.binarySearch(intoSource, x) >= 0) {
+                    return new long[] {sourceId, destinationId, x};
+                }
+            }
+            if (maxLength < 4) {
+                return null;
+            }
+            // Length 4: destination -> x -> y -> source
+            for (int i = 0; i < fromDestination.size; i++) {
+                long x = fromDestination.peers[i];
+                if (fromDestination.lastSeen[i] <= sinceMillis || x == sourceId) {
+                    continue;
+                }
+                Node middle = nodes.get(x);
+                if (middle == null) {
+                    continue;
+                }
+                EdgeList fromX = middle.out;
+                for (int j = 0; j < fromX.size; j++) {
+                    long y = fromX.peers[j];
+                    if (fromX.lastSeen[j] > sinceMillis && y != sourceId && y != destinationId
+                            && Arrays.binarySearch(intoSource, y) >= 0) {
+                        return new long[] {sourceId, destinationId, x, y};
+                    }
+                }
+            }
+            return null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public synchronized void warmUp() {
+        beginWarmUp();
+        Instant since = Instant.now().minusMillis(retentionMillis);
+        List<Object[]> rows;
+        try {
+            // Rows of [transactionId, sourceAccountId, destinationAccountId, amount, transactionDate] in time order
+            rows = transactionRepository.findTransferEdgesSince(since, TransactionType.TRANSFER);
+        } catch (Exception e) {
+            System.err.println("WARNING: Could not build transfer graph, graph fraud rules stay inactive until a retry succeeds: " + e.getMessage());
+            lock.writeLock().lock();
+            try {
+                liveDuringWarmup = null; // Nothing reads the graph while cold; the retry starts from an empty graph
+                warmupFailed = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+        Set<Long> loadedIds = new HashSet<>(rows.size() * 2);
+        int buffered = 0;
+        lock.writeLock().lock();
+        try {
+            for (Object[] row : rows) {
+                addEdge((Long) row[1], (Long) row[2], ((Instant) row[4]).toEpochMilli(), ((BigDecimal) row[3]).doubleValue());
+                loadedIds.add((Long) row[0]);
+            }
+            for (LiveEdge live : liveDuringWarmup) {
+                if (!loadedIds.contains(live.transactionId)) { // Committed before the query but reported after it
+                    addEdge(live.sourceId, live.destinationId, live.timestamp, live.amount);
+                    buffered++;
+                }
+            }
+            liveDuringWarmup = null;
+            warmupFailed = false;
+            warm = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        System.out.println("DEBUG: Transfer graph built from " + rows.size() + " transfers since " + since
+                + " and " + buffered + " committed during the build");
+    }
+
+    // Tries again after a failed build, from an empty graph
+    @Scheduled(fixedDelayString = "${banking.fraud.graph.warmup-retry-ms:60000}",
+            initialDelayString = "${banking.fraud.graph.warmup-retry-ms:60000}")
+    public synchronized void retryFailedWarmUp() {
+        if (warmupFailed) {
+            warmUp();
+        }
+    }
+
+    // Marks the graph cold, empties it and starts buffering live transfers for a fresh build
+    private void beginWarmUp() {
+        lock.writeLock().lock();
+        try {
+            warm = false;
+            nodes.clear();
+            liveDuringWarmup = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Drops expired edges and accounts left without any
+    @Scheduled(fixedDelayString = "${banking.fraud.graph.sweep-interval-ms:60000}")
+    public void sweepExpiredEdges() {
+        long cutoff = System.currentTimeMillis() - retentionMillis;
+        lock.writeLock().lock();
+        try {
+            Iterator<Node> iterator = nodes.values().iterator();
+            while (iterator.hasNext()) {
+                Node node = iterator.next();
+                node.out.prune(cutoff);
+                node.in.prune(cutoff);
+                if (node.out.size == 0 && node.in.size == 0) {
+                    iterator.remove();
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Caller holds the write lock
+    private void addEdge(long sourceId, long destinationId, long timestamp, double amount) {
+        if (sourceId == destinationId) {
+            return;
+        }
+        long cutoff = System.currentTimeMillis() - retentionMillis;
+        if (timestamp <= cutoff) {
+            return;
+        }
+        nodes.computeIfAbsent(sourceId, id -> new Node()).out.touch(destinationId, timestamp, amount, cutoff, halfLifeMillis, maxDegree);
+        nodes.computeIfAbsent(destinationId, id -> new Node()).in.touch(sourceId, timestamp, amount, cutoff, halfLifeMillis, maxDegree);
+    }
+
+    private static class LiveEdge {
+        private final Long transactionId;
+        private final long sourceId;
+        private final long destinationId;
+        private final long timestamp;
+        private final double amount;
+
+        LiveEdge(Long transactionId, long sourceId, long destinationId, long timestamp, double amount) {
+            this.transactionId = transactionId;
+            this.sourceId = sourceId;
+            this.destinationId = destinationId;
+            this.timestamp = timestamp;
+            this.amount = amount;
+        }
+    }
+
+    private static class Node {
+        private final EdgeList out = new EdgeList();
+        private final EdgeList in = new EdgeList();
+    }
+
+    // Not thread-safe; guarded by the graph lock
+    private static class EdgeList {
+        private long[] peers = new long[4];
+        private long[] lastSeen = new long[4];
+        private double[] volume = new double[4]; // Decayed as of lastSeen
+        private int size = 0;
+
+        void touch(long peer, long timestamp, double amount, long cutoff, long halfLifeMillis, int maxDegree) {
+            prune(cutoff);
+            for (int i = 0; i < size; i++) {
+                if (peers[i] == peer) {
+                    long newest = Math.max(timestamp, lastSeen[i]);
+                    volume[i] = decayedVolume(i, newest, halfLifeMillis) + amount;
+                    lastSeen[i] = newest;
+                    return;
+                }
+            }
+            int slot;
+            if (size < peers.length) {
+                slot = size++;
+            } else if (size < maxDegree) {
+                int capacity = Math.min(peers.length * 2, maxDegree);
+                peers = Arrays.copyOf(peers, capacity);
+                lastSeen = Arrays.copyOf(lastSeen, capacity);
+                volume = Arrays.copyOf(volume, capacity);
+                slot = size++;
+            } else {
+                slot = weakest(timestamp, halfLifeMillis); // Hub account: replace its least active edge
+            }
+            peers[slot] = peer;
+            lastSeen[slot] = timestamp;
+            volume[slot] = amount;
+        }
+
+        boolean isLive(long peer, long sinceMillis) {
+            for (int i = 0; i < size; i++) {
+                if (peers[i] == peer) {
+                    return lastSeen[i] > sinceMillis;
+                }
+            }
+            return false;
+        }
+
+        long[] livePeersSorted(long sinceMillis) {
+            long[] live = new long[size];
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                if (lastSeen[i] > sinceMillis) {
+                    live[count++] = peers[i];
+                }
+            }
+            long[] result = Arrays.copyOf(live, count);
+            Arrays.sort(result);
+            return result;
+        }
+
+        double decayedVolume(int i, long asOfMillis, long halfLifeMillis) {
+            long age = Math.max(asOfMillis - lastSeen[i], 0);
+            return volume[i] * Math.pow(0.5, (double) age / halfLifeMillis);
+        }
+
+        void prune(long cutoff) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (lastSeen[i] > cutoff) {
+                    peers[kept] = peers[i];
+                    lastSeen[kept] = lastSeen[i];
+                    volume[kept] = volume[i];
+                    kept++;
+                }
+            }
+            size = kept;
+        }
+
+        private int weakest(long asOfMillis, long halfLifeMillis) {
+            int weakest = 0;
+            double lowest = Double.MAX_VALUE;
+            for (int i = 0; i < size; i++) {
+                double decayed = decayedVolume(i, asOfMillis, halfLifeMillis);
+                if (decayed < lowest) {
+                    lowest = decayed;
+                    weakest = i;
+                }
+            }
+            return weakest;
+        }
+    }
+
+    /**
+     * Fan-in or fan-out of one account: distinct counterparties and their decayed transfer volume.
+     */
+    public static class FanStats {
+        private final int accounts;
+        private final double volume;
+
+        public FanStats(int accounts, double volume) {
+            this.accounts = accounts;
+            this.volume = volume;
+        }
+
+        public int getAccounts() { return accounts; }
+        public double getVolume() { return volume; }
+    }
+}
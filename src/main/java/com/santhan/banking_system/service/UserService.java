@@ -8,6 +8,8 @@ import com.santhan.banking_system.model.Otp;
 import com.santhan.banking_system.dto.KycSubmissionDto;
 import com.santhan.banking_system.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -28,13 +30,21 @@ public class UserService implements UserDetailsService {
     private final PasswordEncoder passwordEncoder;
     private final AccountService accountService;
     private final OtpService otpService;
+    private final DashboardSummaryService dashboardSummaryService;
+    private final AccountLookupService accountLookupService;
+    private final RateLimiter rateLimiter;
 
     @Autowired
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, AccountService accountService, OtpService otpService) {
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, AccountService accountService, OtpService otpService,
+                       DashboardSummaryService dashboardSummaryService, AccountLookupService accountLookupService,
+                       RateLimiter rateLimiter) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.accountService = accountService;
         this.otpService = otpService;
+        this.dashboardSummaryService = dashboardSummaryService;
+        this.accountLookupService = accountLookupService;
+        this.rateLimiter = rateLimiter;
     }
 
     public Optional<User> findByUsername(String username) {
@@ -92,6 +102,7 @@ public class UserService implements UserDetailsService {
         // Save the user first - separate this from OTP generation
         User savedUser = userRepository.save(user);
         System.out.println("DEBUG: User saved to database. Generated ID: " + savedUser.getId());
+        dashboardSummaryService.onUserCreated(savedUser.getRole(), savedUser.getKycStatus());
 
         // Now handle OTP generation in a separate try/catch block to prevent user creation rollback
         try {
@@ -110,6 +121,11 @@ public class UserService implements UserDetailsService {
         return userRepository.findAll();
     }
 
+    // One page of users for admin drill-downs, without counting the whole table
+    public Slice<User> getUsersPage(Pageable pageable) {
+        return userRepository.findAllByOrderByIdAsc(pageable);
+    }
+
     public User getUserById(Long id) {
         return userRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("User not found with ID: " + id));
@@ -127,6 +143,7 @@ public class UserService implements UserDetailsService {
                 }
             });
             user.setUsername(userDetails.getUsername());
+            accountLookupService.onOwnerRenamed(id, userDetails.getUsername());
         }
 
         if (userDetails.getEmail() != null && !user.getEmail().equalsIgnoreCase(userDetails.getEmail())) {
@@ -175,6 +192,7 @@ public class UserService implements UserDetailsService {
 
 
         if (userDetails.getRole() != null) {
+            dashboardSummaryService.onUserRoleChanged(user.getRole(), userDetails.getRole());
             user.setRole(userDetails.getRole());
         }
         user.setUpdatedAt(LocalDateTime.now());
@@ -269,6 +287,7 @@ public class UserService implements UserDetailsService {
         }
 
         userRepository.deleteById(id);
+        dashboardSummaryService.onUserDeleted(userToDelete.getRole(), userToDelete.getKycStatus());
         System.out.println("DEBUG: User with ID: " + id + " deleted successfully.");
     }
 
@@ -289,7 +308,9 @@ public class UserService implements UserDetailsService {
         return userRepository.save(user);
     }
 
+    // Rate limited per user before the lookup and BCrypt check; throws RateLimiter.LimitExceededException
     public boolean verifyTransactionPin(Long userId, String providedPin) {
+        rateLimiter.acquire(RateLimiter.Purpose.TRANSACTION_PIN, RateLimiter.Scope.USER, String.valueOf(userId));
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new IllegalArgumentException("User not found with ID: " + userId));
 
@@ -312,6 +333,7 @@ public class UserService implements UserDetailsService {
         user.setNationalIdNumber(kycDto.getNationalIdNumber());
         user.setDocumentType(kycDto.getDocumentType());
 
+        dashboardSummaryService.onKycStatusChanged(user.getKycStatus(), KycStatus.PENDING);
         user.setKycStatus(KycStatus.PENDING);
         user.setKycSubmissionDate(LocalDateTime.now());
 
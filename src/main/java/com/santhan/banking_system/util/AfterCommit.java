@@ -0,0 +1,48 @@
+package com.santhan.banking_system.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Runs an action once the current Spring transaction commits, or straight away when there is none.
+ * Used by the in-memory stores and caches so they never see a change that is later rolled back.
+ */
+public class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    public static void run(Runnable action) {
+        run(action, null);
+    }
+
+    /**
+     * Like {@link #run(Runnable)}, then runs {@code completion} whether the transaction committed or rolled back.
+     * Without a transaction both run straight away, in that order.
+     */
+    public static void run(Runnable action, Runnable completion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            try {
+                action.run();
+            } finally {
+                if (completion != null) {
+                    completion.run();
+                }
+            }
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (completion != null) {
+                    completion.run();
+                }
+            }
+        });
+    }
+}
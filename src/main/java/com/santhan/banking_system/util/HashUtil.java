@@ -27,25 +27,98 @@ public class HashUtil {
      * @throws RuntimeException if SHA-256 algorithm is not available (highly unlikely).
      */
     public static String calculateSHA256Hash(String input) {
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hash = digest.digest(input.getBytes(StandardCharsets.UTF_8));
-
-            StringBuilder hexString = new StringBuilder();
-            for (byte b : hash) {
-                String hex = Integer.toHexString(0xff & b);
-                if (hex.length() == 1) {
-                    hexString.append('0');
-                }
-                hexString.append(hex);
+        byte[] hash = newSha256Digest().digest(input.getBytes(StandardCharsets.UTF_8));
+        return toHex(hash);
+    }
+
+    /**
+     * Starts a streaming SHA-256 over a sequence of records.
+     * Feeding records one at a time yields exactly the hash that calculateSHA256Hash would return for their
+     * concatenation, without ever holding the concatenated string.
+     * @return A new, empty LedgerDigest.
+     */
+    public static LedgerDigest newLedgerDigest() {
+        return new LedgerDigest(newSha256Digest());
+    }
+
+    /**
+     * Incremental ledger hash. Callers must add records in the ledger's defined order
+     * (transactionDate ascending, then id ascending); the digest itself does not sort.
+     * Not thread-safe and single-use: after toHex() the digest is finished and further calls throw.
+     */
+    public static final class LedgerDigest {
+        private final MessageDigest digest;
+        private long recordCount = 0;
+        private boolean finished = false;
+
+        private LedgerDigest(MessageDigest digest) {
+            this.digest = digest;
+        }
+
+        /**
+         * Appends one already-built record string (e.g. from generateTransactionDataString).
+         */
+        public LedgerDigest update(String record) {
+            checkNotFinished();
+            if (record != null) {
+                digest.update(record.getBytes(StandardCharsets.UTF_8));
+                recordCount++;
+            }
+            return this;
+        }
+
+        /**
+         * Appends one transaction's data string, built exactly as generateTransactionDataString does.
+         */
+        public LedgerDigest updateTransaction(
+                Long id, com.santhan.banking_system.model.TransactionType type, BigDecimal amount, String description,
+                Long sourceAccountId, Long destinationAccountId, Instant transactionDate) {
+            return update(generateTransactionDataString(id, type, amount, description,
+                    sourceAccountId, destinationAccountId, transactionDate));
+        }
+
+        public long getRecordCount() {
+            return recordCount;
+        }
+
+        /**
+         * Completes the hash and returns it as lower-case hex.
+         * @throws IllegalStateException if the hash was already completed.
+         */
+        public String toHex() {
+            checkNotFinished();
+            finished = true;
+            return HashUtil.toHex(digest.digest());
+        }
+
+        // MessageDigest resets itself after digest(), so a reused instance would silently hash from scratch
+        private void checkNotFinished() {
+            if (finished) {
+                throw new IllegalStateException("Ledger digest already completed after " + recordCount + " records; start a new one.");
             }
-            return hexString.toString();
+        }
+    }
 
+    private static MessageDigest newSha256Digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
         } catch (NoSuchAlgorithmException e) {
             throw new RuntimeException("SHA-256 algorithm not found.", e);
         }
     }
 
+    private static String toHex(byte[] hash) {
+        StringBuilder hexString = new StringBuilder(hash.length * 2);
+        for (byte b : hash) {
+            String hex = Integer.toHexString(0xff & b);
+            if (hex.length() == 1) {
+                hexString.append('0');
+            }
+            hexString.append(hex);
+        }
+        return hexString.toString();
+    }
+
     /**
      * Helper method to generate a consistent string representation of a Transaction's core data
      * that will be used as input for hashing.
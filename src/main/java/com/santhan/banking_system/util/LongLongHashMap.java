@@ -0,0 +1,119 @@
+package com.santhan.banking_system.util;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing long -> long map with linear probing, for per-account state kept in memory without boxing.
+ * Keys must be positive (account ids); 0 marks a free slot. Not thread-safe: callers guard it with their own lock.
+ */
+public class LongLongHashMap {
+
+    private long[] keys;
+    private long[] values;
+    private int size = 0;
+
+    public LongLongHashMap(int capacity) {
+        int tableSize = Integer.highestOneBit(Math.max(capacity, 8) - 1) << 1;
+        keys = new long[tableSize];
+        values = new long[tableSize];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long get(long key, long defaultValue) {
+        int mask = keys.length - 1;
+        for (int slot = slotFor(key, mask); keys[slot] != 0; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+        }
+        return defaultValue;
+    }
+
+    public void put(long key, long value) {
+        if ((size + 1) * 4 > keys.length * 3) { // Keep the load factor under 0.75
+            resize(keys.length * 2);
+        }
+        int mask = keys.length - 1;
+        int slot = slotFor(key, mask);
+        while (keys[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        if (keys[slot] == 0) {
+            keys[slot] = key;
+            size++;
+        }
+        values[slot] = value;
+    }
+
+    public void remove(long key) {
+        int mask = keys.length - 1;
+        int slot = slotFor(key, mask);
+        while (keys[slot] != key) {
+            if (keys[slot] == 0) {
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        // Backward-shift deletion: pull later entries of the probe run into the gap so lookups never stop early
+        int gap = slot;
+        for (int next = (gap + 1) & mask; keys[next] != 0; next = (next + 1) & mask) {
+            int home = slotFor(keys[next], mask);
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+        }
+        keys[gap] = 0;
+        size--;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        size = 0;
+    }
+
+    /**
+     * Returns a map holding only the entries whose value is at least {@code minValue}, sized for what is left
+     * (this map itself if nothing is dropped).
+     */
+    public LongLongHashMap retainValuesAtLeast(long minValue) {
+        int kept = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0 && values[i] >= minValue) {
+                kept++;
+            }
+        }
+        if (kept == size) {
+            return this;
+        }
+        LongLongHashMap copy = new LongLongHashMap(Math.max(kept * 2, 64));
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0 && values[i] >= minValue) {
+                copy.put(keys[i], values[i]);
+            }
+        }
+        return copy;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        keys = new long[capacity];
+        values = new long[capacity];
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private static int slotFor(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
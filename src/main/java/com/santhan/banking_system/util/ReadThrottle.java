@@ -0,0 +1,40 @@
+package com.santhan.banking_system.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Spaces calls evenly so that at most {@code permitsPerSecond} pass per second across all threads.
+ * Used by batch jobs to keep their database reads from crowding out online traffic.
+ * A non-positive rate disables throttling.
+ */
+public class ReadThrottle {
+
+    private final long intervalNanos;
+    private long nextFreeSlot = System.nanoTime();
+
+    public ReadThrottle(double permitsPerSecond) {
+        this.intervalNanos = permitsPerSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond) : 0;
+    }
+
+    public void acquire() {
+        if (intervalNanos == 0) {
+            return;
+        }
+        long waitUntil;
+        synchronized (this) {
+            long now = System.nanoTime();
+            // Don't let idle time accumulate into a burst
+            waitUntil = Math.max(nextFreeSlot, now);
+            nextFreeSlot = waitUntil + intervalNanos;
+        }
+        long remaining;
+        while ((remaining = waitUntil - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+            if (Thread.interrupted()) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
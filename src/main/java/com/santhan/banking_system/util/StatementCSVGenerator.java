@@ -1,10 +1,13 @@
 package com.santhan.banking_system.util;
 
+import com.santhan.banking_system.dto.StatementLine;
 import com.santhan.banking_system.model.Transaction;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.Writer;
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.format.DateTimeFormatter;
 import java.time.ZoneId;
 import java.util.List;
@@ -59,4 +62,53 @@ public class StatementCSVGenerator {
         writer.flush();
         return baos.toByteArray();
     }
-}
\ No newline at end of file
+
+    // --- Streaming mode ---
+    // Used with TransactionService.streamStatementLines: header first, then one call per row, then the trailer.
+    // The ledger hash is only known once every row has been read, so it is written as the last line
+    // rather than in the header. Callers should pass a BufferedWriter over the response stream.
+
+    private static final String CSV_COLUMNS = "Transaction ID,Type,Amount,Description,Transaction Date,Source Account,Destination Account,Transaction Hash,Status";
+
+    public static void writeStreamingHeader(Writer writer, String accountNumber, String periodStart, String periodEnd,
+                                            BigDecimal openingBalance, BigDecimal closingBalance) throws IOException {
+        writer.write("Account Statement for Account: " + accountNumber + "\n");
+        writer.write("Statement Period: " + periodStart + " to " + periodEnd + "\n");
+        writer.write("Opening Balance," + openingBalance + "\n");
+        writer.write("Closing Balance," + closingBalance + "\n");
+        writer.write("\n");
+        writer.write(CSV_COLUMNS);
+        writer.write('\n');
+    }
+
+    // Same columns and number format as generateCsvStatement, written piecewise instead of through printf
+    public static void writeStreamingLine(Writer writer, StatementLine line) throws IOException {
+        writer.write(String.valueOf(line.getId()));
+        writer.write(',');
+        writer.write(line.getTransactionType().name());
+        writer.write(',');
+        writer.write(line.getAmount().setScale(2, RoundingMode.HALF_UP).toPlainString());
+        writer.write(",\"");
+        String description = line.getDescription();
+        if (description != null) {
+            // Escape double quotes within description if any
+            writer.write(description.indexOf('"') >= 0 ? description.replace("\"", "\"\"") : description);
+        }
+        writer.write("\",");
+        DATE_TIME_FORMATTER.formatTo(line.getTransactionDate(), writer);
+        writer.write(',');
+        writer.write(line.getSourceAccountNumber() != null ? line.getSourceAccountNumber() : "N/A");
+        writer.write(',');
+        writer.write(line.getDestinationAccountNumber() != null ? line.getDestinationAccountNumber() : "N/A");
+        writer.write(',');
+        writer.write(String.valueOf(line.getTransactionHash()));
+        writer.write(',');
+        writer.write(String.valueOf(line.getStatus()));
+        writer.write('\n');
+    }
+
+    public static void writeStreamingTrailer(Writer writer, String ledgerHash) throws IOException {
+        writer.write("\n");
+        writer.write("Ledger Hash (Statement Period)," + ledgerHash + "\n");
+    }
+}
@@ -0,0 +1,183 @@
+package com.santhan.banking_system.util;
+
+import com.santhan.banking_system.dto.StatementLine;
+import com.santhan.banking_system.model.TransactionType;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * ISO 20022 camt.053 (BankToCustomerStatement, version 001.02) export for ERP reconciliation.
+ * Written with a StAX stream writer, one entry at a time, so memory use does not depend on the number of rows.
+ */
+public class StatementCamt053Generator {
+
+    public static final String NAMESPACE = "urn:iso:std:iso:20022:tech:xsd:camt.053.001.02";
+
+    private static final XMLOutputFactory XML_OUTPUT_FACTORY = XMLOutputFactory.newFactory();
+    private static final DateTimeFormatter ISO_DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss'Z'")
+            .withZone(ZoneOffset.UTC);
+    private static final int MAX_REFERENCE_LENGTH = 35;
+    private static final int MAX_UNSTRUCTURED_LENGTH = 140;
+
+    /**
+     * Streaming writer: the constructor writes the group header, account and both balances; addLine writes one
+     * Ntry; finish writes the ledger hash as additional statement information and closes the document.
+     * Credit/debit is decided relative to {@code accountId}: money arriving in the account is CRDT.
+     */
+    public static class StreamingStatement {
+
+        private final XMLStreamWriter xml;
+        private final Long accountId;
+        private final String currency;
+
+        public StreamingStatement(OutputStream outputStream, Long accountId, String accountNumber, String currency,
+                                  String periodStart, String periodEnd, Instant startDate, Instant endDate,
+                                  BigDecimal openingBalance, BigDecimal closingBalance) throws XMLStreamException {
+            this.accountId = accountId;
+            this.currency = currency;
+            this.xml = XML_OUTPUT_FACTORY.createXMLStreamWriter(outputStream, "UTF-8");
+
+            String createdAt = ISO_DATE_TIME.format(Instant.now());
+            String statementId = truncate("STMT-" + accountNumber + "-" + periodStart + "-" + periodEnd, MAX_REFERENCE_LENGTH);
+
+            xml.writeStartDocument("UTF-8", "1.0");
+            xml.writeStartElement("Document");
+            xml.writeDefaultNamespace(NAMESPACE);
+            xml.writeStartElement("BkToCstmrStmt");
+
+            xml.writeStartElement("GrpHdr");
+            element("MsgId", statementId);
+            element("CreDtTm", createdAt);
+            xml.writeEndElement();
+
+            xml.writeStartElement("Stmt");
+            element("Id", statementId);
+            element("CreDtTm", createdAt);
+            xml.writeStartElement("FrToDt");
+            element("FrDtTm", ISO_DATE_TIME.format(startDate));
+            element("ToDtTm", ISO_DATE_TIME.format(endDate));
+            xml.writeEndElement();
+
+            xml.writeStartElement("Acct");
+            writeAccountId(accountNumber);
+            element("Ccy", currency);
+            xml.writeEndElement();
+
+            writeBalance("OPBD", openingBalance, periodStart);
+            writeBalance("CLBD", closingBalance, periodEnd);
+        }
+
+        // Rows that are not booked are skipped; see StatementLine.isBooked
+        public void addLine(StatementLine line) throws XMLStreamException {
+            if (!line.isBooked()) {
+                return;
+            }
+            boolean credit = accountId.equals(line.getDestinationAccountId());
+            String counterparty = credit ? line.getSourceAccountNumber() : line.getDestinationAccountNumber();
+            String postedAt = ISO_DATE_TIME.format(line.getTransactionDate());
+
+            xml.writeStartElement("Ntry");
+            element("NtryRef", String.valueOf(line.getId()));
+            writeAmount(line.getAmount());
+            element("CdtDbtInd", credit ? "CRDT" : "DBIT");
+            if (isReversal(line.getTransactionType())) {
+                element("RvslInd", "true");
+            }
+            element("Sts", "BOOK");
+            xml.writeStartElement("BookgDt");
+            element("DtTm", postedAt);
+            xml.writeEndElement();
+            xml.writeStartElement("ValDt");
+            element("DtTm", postedAt);
+            xml.writeEndElement();
+            element("AcctSvcrRef", String.valueOf(line.getId()));
+            xml.writeStartElement("BkTxCd");
+            xml.writeStartElement("Prtry");
+            element("Cd", line.getTransactionType().name());
+            xml.writeEndElement();
+            xml.writeEndElement();
+
+            xml.writeStartElement("NtryDtls");
+            xml.writeStartElement("TxDtls");
+            if (counterparty != null) {
+                xml.writeStartElement("RltdPties");
+                xml.writeStartElement(credit ? "DbtrAcct" : "CdtrAcct");
+                writeAccountId(counterparty);
+                xml.writeEndElement();
+                xml.writeEndElement();
+            }
+            if (line.getDescription() != null && !line.getDescription().isEmpty()) {
+                xml.writeStartElement("RmtInf");
+                element("Ustrd", truncate(line.getDescription(), MAX_UNSTRUCTURED_LENGTH));
+                xml.writeEndElement();
+            }
+            xml.writeEndElement(); // TxDtls
+            xml.writeEndElement(); // NtryDtls
+            xml.writeEndElement(); // Ntry
+        }
+
+        public void finish(String ledgerHash) throws XMLStreamException {
+            element("AddtlStmtInf", "Ledger Hash (Statement Period): " + ledgerHash);
+            xml.writeEndElement(); // Stmt
+            xml.writeEndElement(); // BkToCstmrStmt
+            xml.writeEndElement(); // Document
+            xml.writeEndDocument();
+            xml.flush();
+            xml.close(); // Does not close the underlying stream
+        }
+
+        private void writeBalance(String code, BigDecimal balance, String date) throws XMLStreamException {
+            xml.writeStartElement("Bal");
+            xml.writeStartElement("Tp");
+            xml.writeStartElement("CdOrPrtry");
+            element("Cd", code);
+            xml.writeEndElement();
+            xml.writeEndElement();
+            writeAmount(balance.abs());
+            element("CdtDbtInd", balance.signum() < 0 ? "DBIT" : "CRDT");
+            xml.writeStartElement("Dt");
+            element("Dt", date);
+            xml.writeEndElement();
+            xml.writeEndElement();
+        }
+
+        private void writeAccountId(String accountNumber) throws XMLStreamException {
+            xml.writeStartElement("Id");
+            xml.writeStartElement("Othr");
+            element("Id", accountNumber);
+            xml.writeEndElement();
+            xml.writeEndElement();
+        }
+
+        private void writeAmount(BigDecimal amount) throws XMLStreamException {
+            xml.writeStartElement("Amt");
+            xml.writeAttribute("Ccy", currency);
+            xml.writeCharacters(amount.setScale(2, RoundingMode.HALF_UP).toPlainString());
+            xml.writeEndElement();
+        }
+
+        private void element(String name, String value) throws XMLStreamException {
+            xml.writeStartElement(name);
+            xml.writeCharacters(value);
+            xml.writeEndElement();
+        }
+    }
+
+    private static boolean isReversal(TransactionType type) {
+        return type == TransactionType.DEPOSIT_REVERSAL
+                || type == TransactionType.WITHDRAWAL_REVERSAL
+                || type == TransactionType.TRANSFER_REVERSAL;
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return value.length() <= maxLength ? value : value.substring(0, maxLength);
+    }
+}
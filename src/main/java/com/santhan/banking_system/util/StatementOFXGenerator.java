@@ -0,0 +1,160 @@
+package com.santhan.banking_system.util;
+
+import com.santhan.banking_system.dto.StatementLine;
+import com.santhan.banking_system.model.AccountType;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * OFX 2.2 (XML) bank statement export, written with a StAX stream writer one transaction at a time.
+ * OFX has no opening balance or free-text statement element, so only the closing (ledger) balance is exported
+ * and the ledger hash is left out.
+ */
+public class StatementOFXGenerator {
+
+    private static final XMLOutputFactory XML_OUTPUT_FACTORY = XMLOutputFactory.newFactory();
+    private static final DateTimeFormatter OFX_DATE_TIME = DateTimeFormatter.ofPattern("yyyyMMddHHmmss")
+            .withZone(ZoneOffset.UTC);
+    private static final int MAX_NAME_LENGTH = 32;
+    private static final int MAX_MEMO_LENGTH = 255;
+
+    /**
+     * Streaming writer: the constructor writes the sign-on block and account, addLine writes one STMTTRN,
+     * finish writes the ledger balance and closes the document. Amounts are signed relative to {@code accountId}.
+     */
+    public static class StreamingStatement {
+
+        private final XMLStreamWriter xml;
+        private final Long accountId;
+        private final BigDecimal closingBalance;
+        private final Instant endDate;
+
+        public StreamingStatement(OutputStream outputStream, Long accountId, String accountNumber, AccountType accountType,
+                                  String bankId, String currency, Instant startDate, Instant endDate,
+                                  BigDecimal closingBalance) throws XMLStreamException {
+            this.accountId = accountId;
+            this.closingBalance = closingBalance;
+            this.endDate = endDate;
+            this.xml = XML_OUTPUT_FACTORY.createXMLStreamWriter(outputStream, "UTF-8");
+
+            xml.writeStartDocument("UTF-8", "1.0");
+            xml.writeProcessingInstruction("OFX",
+                    "OFXHEADER=\"200\" VERSION=\"220\" SECURITY=\"NONE\" OLDFILEUID=\"NONE\" NEWFILEUID=\"NONE\"");
+            xml.writeStartElement("OFX");
+
+            xml.writeStartElement("SIGNONMSGSRSV1");
+            xml.writeStartElement("SONRS");
+            writeStatusOk();
+            element("DTSERVER", OFX_DATE_TIME.format(Instant.now()));
+            element("LANGUAGE", "ENG");
+            xml.writeEndElement();
+            xml.writeEndElement();
+
+            xml.writeStartElement("BANKMSGSRSV1");
+            xml.writeStartElement("STMTTRNRS");
+            element("TRNUID", "0");
+            writeStatusOk();
+            xml.writeStartElement("STMTRS");
+            element("CURDEF", currency);
+            xml.writeStartElement("BANKACCTFROM");
+            element("BANKID", bankId);
+            element("ACCTID", accountNumber);
+            element("ACCTTYPE", ofxAccountType(accountType));
+            xml.writeEndElement();
+
+            xml.writeStartElement("BANKTRANLIST");
+            element("DTSTART", OFX_DATE_TIME.format(startDate));
+            element("DTEND", OFX_DATE_TIME.format(endDate));
+        }
+
+        // Rows that are not booked are skipped; see StatementLine.isBooked
+        public void addLine(StatementLine line) throws XMLStreamException {
+            if (!line.isBooked()) {
+                return;
+            }
+            boolean credit = accountId.equals(line.getDestinationAccountId());
+            BigDecimal signedAmount = credit ? line.getAmount() : line.getAmount().negate();
+            String counterparty = credit ? line.getSourceAccountNumber() : line.getDestinationAccountNumber();
+
+            xml.writeStartElement("STMTTRN");
+            element("TRNTYPE", ofxTransactionType(line, credit));
+            element("DTPOSTED", OFX_DATE_TIME.format(line.getTransactionDate()));
+            element("TRNAMT", signedAmount.setScale(2, RoundingMode.HALF_UP).toPlainString());
+            element("FITID", String.valueOf(line.getId()));
+            if (counterparty != null) {
+                element("NAME", truncate(counterparty, MAX_NAME_LENGTH));
+            }
+            if (line.getDescription() != null && !line.getDescription().isEmpty()) {
+                element("MEMO", truncate(line.getDescription(), MAX_MEMO_LENGTH));
+            }
+            xml.writeEndElement();
+        }
+
+        public void finish() throws XMLStreamException {
+            xml.writeEndElement(); // BANKTRANLIST
+            xml.writeStartElement("LEDGERBAL");
+            element("BALAMT", closingBalance.setScale(2, RoundingMode.HALF_UP).toPlainString());
+            element("DTASOF", OFX_DATE_TIME.format(endDate));
+            xml.writeEndElement();
+            xml.writeEndElement(); // STMTRS
+            xml.writeEndElement(); // STMTTRNRS
+            xml.writeEndElement(); // BANKMSGSRSV1
+            xml.writeEndElement(); // OFX
+            xml.writeEndDocument();
+            xml.flush();
+            xml.close(); // Does not close the underlying stream
+        }
+
+        private void writeStatusOk() throws XMLStreamException {
+            xml.writeStartElement("STATUS");
+            element("CODE", "0");
+            element("SEVERITY", "INFO");
+            xml.writeEndElement();
+        }
+
+        private void element(String name, String value) throws XMLStreamException {
+            xml.writeStartElement(name);
+            xml.writeCharacters(value);
+            xml.writeEndElement();
+        }
+    }
+
+    private static String ofxAccountType(AccountType accountType) {
+        if (accountType == null) {
+            return "CHECKING";
+        }
+        switch (accountType) {
+            case SAVINGS:
+                return "SAVINGS";
+            case LOAN:
+                return "CREDITLINE";
+            default:
+                return "CHECKING";
+        }
+    }
+
+    private static String ofxTransactionType(StatementLine line, boolean credit) {
+        switch (line.getTransactionType()) {
+            case DEPOSIT:
+                return "DEP";
+            case WITHDRAWAL:
+                return "CASH";
+            case TRANSFER:
+                return "XFER";
+            default: // Reversals
+                return credit ? "CREDIT" : "DEBIT";
+        }
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return value.length() <= maxLength ? value : value.substring(0, maxLength);
+    }
+}
@@ -4,11 +4,14 @@ import com.itextpdf.text.*;
 import com.itextpdf.text.pdf.PdfPCell;
 import com.itextpdf.text.pdf.PdfPTable;
 import com.itextpdf.text.pdf.PdfWriter;
+import com.santhan.banking_system.dto.StatementLine;
 import com.santhan.banking_system.model.Transaction;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.format.DateTimeFormatter;
 import java.time.ZoneId;
 import java.util.List;
@@ -19,6 +22,46 @@ public class StatementPDFGenerator {
     private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")
             .withZone(ZoneId.systemDefault());
 
+    // Fonts and header cells are immutable once built, so they are shared by every statement.
+    // PdfPTable.addCell(PdfPCell) copies the cell, so the same header cells can go into any number of tables.
+    private static final Font TITLE_FONT = new Font(Font.FontFamily.HELVETICA, 18, Font.BOLD, BaseColor.BLACK);
+    private static final Font HEADER_FONT = new Font(Font.FontFamily.HELVETICA, 12, Font.BOLD, BaseColor.DARK_GRAY);
+    private static final Font BODY_FONT = new Font(Font.FontFamily.HELVETICA, 10, Font.NORMAL, BaseColor.BLACK);
+    private static final Font BOLD_BODY_FONT = new Font(Font.FontFamily.HELVETICA, 10, Font.BOLD, BaseColor.BLACK);
+
+    private static final float[] COLUMN_WIDTHS = {0.8f, 1f, 1f, 2f, 1.5f, 1.5f, 1.5f, 1f}; // Relative widths
+    private static final PdfPCell[] HEADER_CELLS = createHeaderCells();
+
+    // Rows added to the streaming table before its completed part is written out; roughly one A4 page
+    public static final int DEFAULT_ROWS_PER_PAGE = 40;
+
+    private static PdfPCell[] createHeaderCells() {
+        String[] headers = {"ID", "Type", "Amount", "Description", "Date", "Source Acc.", "Dest. Acc.", "Status"};
+        PdfPCell[] cells = new PdfPCell[headers.length];
+        for (int i = 0; i < headers.length; i++) {
+            PdfPCell cell = new PdfPCell(new Phrase(headers[i], HEADER_FONT));
+            cell.setHorizontalAlignment(Element.ALIGN_CENTER);
+            cell.setVerticalAlignment(Element.ALIGN_MIDDLE);
+            cell.setBackgroundColor(BaseColor.LIGHT_GRAY);
+            cell.setPadding(5);
+            cells[i] = cell;
+        }
+        return cells;
+    }
+
+    private static PdfPTable createTransactionTable() throws DocumentException {
+        PdfPTable table = new PdfPTable(COLUMN_WIDTHS.length); // 8 columns for transaction details
+        table.setWidthPercentage(100); // Table spans 100% of page width
+        table.setSpacingBefore(10f);
+        table.setSpacingAfter(10f);
+        table.setWidths(COLUMN_WIDTHS);
+        for (PdfPCell headerCell : HEADER_CELLS) {
+            table.addCell(headerCell);
+        }
+        table.setHeaderRows(1); // Indicate that the first row is the header
+        return table;
+    }
+
     public static byte[] generatePdfStatement(
             List<Transaction> transactions,
             Map<String, Object> statementSummary,
@@ -30,11 +73,10 @@ public class StatementPDFGenerator {
 
         document.open();
 
-        // Define Fonts
-        Font titleFont = new Font(Font.FontFamily.HELVETICA, 18, Font.BOLD, BaseColor.BLACK);
-        Font headerFont = new Font(Font.FontFamily.HELVETICA, 12, Font.BOLD, BaseColor.DARK_GRAY);
-        Font bodyFont = new Font(Font.FontFamily.HELVETICA, 10, Font.NORMAL, BaseColor.BLACK);
-        Font boldBodyFont = new Font(Font.FontFamily.HELVETICA, 10, Font.BOLD, BaseColor.BLACK);
+        Font titleFont = TITLE_FONT;
+        Font headerFont = HEADER_FONT;
+        Font bodyFont = BODY_FONT;
+        Font boldBodyFont = BOLD_BODY_FONT;
 
         // Add Title
         Paragraph title = new Paragraph("Account Statement", titleFont);
@@ -63,23 +105,7 @@ public class StatementPDFGenerator {
         document.add(new Paragraph("\n")); // Add some space
 
         // Add Transactions Table
-        PdfPTable table = new PdfPTable(8); // 8 columns for transaction details
-        table.setWidthPercentage(100); // Table spans 100% of page width
-        table.setSpacingBefore(10f);
-        table.setSpacingAfter(10f);
-        table.setWidths(new float[]{0.8f, 1f, 1f, 2f, 1.5f, 1.5f, 1.5f, 1f}); // Relative widths
-
-        // Table Headers
-        String[] headers = {"ID", "Type", "Amount", "Description", "Date", "Source Acc.", "Dest. Acc.", "Status"};
-        for (String header : headers) {
-            PdfPCell cell = new PdfPCell(new Phrase(header, headerFont));
-            cell.setHorizontalAlignment(Element.ALIGN_CENTER);
-            cell.setVerticalAlignment(Element.ALIGN_MIDDLE);
-            cell.setBackgroundColor(BaseColor.LIGHT_GRAY);
-            cell.setPadding(5);
-            table.addCell(cell);
-        }
-        table.setHeaderRows(1); // Indicate that the first row is the header
+        PdfPTable table = createTransactionTable();
 
         // Add Transaction Rows
         for (Transaction transaction : transactions) {
@@ -103,4 +129,72 @@ public class StatementPDFGenerator {
         document.close();
         return baos.toByteArray();
     }
+
+    /**
+     * Streaming counterpart of generatePdfStatement, fed one row at a time by TransactionService.streamStatementLines.
+     *
+     * The transaction table is marked incomplete (setComplete(false)) and re-added to the document every
+     * rowsPerPage rows. iText then lays out and writes the finished rows and drops them from the table, so memory
+     * is bounded by one page of rows instead of the whole statement. The ledger hash is written after the table,
+     * once all rows have been hashed.
+     */
+    public static class StreamingStatement {
+
+        private final Document document;
+        private final PdfPTable table;
+        private final int rowsPerPage;
+        private int pendingRows = 0;
+
+        public StreamingStatement(OutputStream outputStream, String accountNumber, String periodStart, String periodEnd,
+                                  BigDecimal openingBalance, BigDecimal closingBalance, int rowsPerPage) throws DocumentException {
+            this.rowsPerPage = Math.max(rowsPerPage, 1);
+            this.document = new Document(PageSize.A4);
+            PdfWriter writer = PdfWriter.getInstance(document, outputStream);
+            writer.setCloseStream(false); // The servlet container owns the response stream
+            document.open();
+
+            Paragraph title = new Paragraph("Account Statement", TITLE_FONT);
+            title.setAlignment(Element.ALIGN_CENTER);
+            title.setSpacingAfter(10f);
+            document.add(title);
+
+            Paragraph accountInfo = new Paragraph("Account Number: " + accountNumber, HEADER_FONT);
+            accountInfo.setSpacingAfter(5f);
+            document.add(accountInfo);
+
+            Paragraph periodInfo = new Paragraph("Statement Period: " + periodStart + " to " + periodEnd, BODY_FONT);
+            periodInfo.setSpacingAfter(5f);
+            document.add(periodInfo);
+
+            document.add(new Paragraph("Opening Balance: " + openingBalance.setScale(2, RoundingMode.HALF_UP).toPlainString(), BOLD_BODY_FONT));
+            document.add(new Paragraph("Closing Balance: " + closingBalance.setScale(2, RoundingMode.HALF_UP).toPlainString(), BOLD_BODY_FONT));
+            document.add(new Paragraph("\n")); // Add some space
+
+            this.table = createTransactionTable();
+            this.table.setComplete(false);
+        }
+
+        public void addLine(StatementLine line) throws DocumentException {
+            table.addCell(new Phrase(String.valueOf(line.getId()), BODY_FONT));
+            table.addCell(new Phrase(line.getTransactionType().name(), BODY_FONT));
+            table.addCell(new Phrase(line.getAmount().setScale(2, RoundingMode.HALF_UP).toPlainString(), BODY_FONT));
+            table.addCell(new Phrase(line.getDescription(), BODY_FONT));
+            table.addCell(new Phrase(DATE_TIME_FORMATTER.format(line.getTransactionDate()), BODY_FONT));
+            table.addCell(new Phrase(line.getSourceAccountNumber() != null ? line.getSourceAccountNumber() : "N/A", BODY_FONT));
+            table.addCell(new Phrase(line.getDestinationAccountNumber() != null ? line.getDestinationAccountNumber() : "N/A", BODY_FONT));
+            table.addCell(new Phrase(line.getStatus(), BODY_FONT));
+
+            if (++pendingRows >= rowsPerPage) {
+                document.add(table); // Writes the completed rows and releases them
+                pendingRows = 0;
+            }
+        }
+
+        public void finish(String ledgerHash) throws DocumentException {
+            table.setComplete(true);
+            document.add(table);
+            document.add(new Paragraph("Ledger Hash (Statement Period): " + ledgerHash, BODY_FONT));
+            document.close();
+        }
+    }
 }
@@ -0,0 +1,99 @@
+package com.santhan.banking_system.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket shape (capacity, refill rate) applied to bucket states packed into one long: the last refill time in
+ * milliseconds in the high bits and the tokens, in thousandths, in the low 20 bits. A bucket is then a single
+ * AtomicLong and taking a token is a CAS loop; a refused take writes nothing, so a flood of refusals stays cheap.
+ */
+public class TokenBucket {
+
+    private static final int TOKEN_BITS = 20;
+    private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+    private static final long SCALE = 1000; // Thousandths of a token, so slow refill rates still add up
+    public static final int MAX_CAPACITY = (int) (TOKEN_MASK / SCALE);
+    private static final long ORIGIN = System.nanoTime();
+
+    private final int capacity;
+    private final double refillPerMinute;
+    private final long capacityScaled;
+    private final double scaledPerMilli;
+
+    public TokenBucket(int capacity, double refillPerMinute) {
+        if (capacity < 1 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Token bucket capacity must be between 1 and " + MAX_CAPACITY + ", not " + capacity);
+        }
+        if (refillPerMinute <= 0) {
+            throw new IllegalArgumentException("Token bucket refill rate must be positive, not " + refillPerMinute);
+        }
+        this.capacity = capacity;
+        this.refillPerMinute = refillPerMinute;
+        this.capacityScaled = capacity * SCALE;
+        this.scaledPerMilli = refillPerMinute * SCALE / TimeUnit.MINUTES.toMillis(1);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public double getRefillPerMinute() {
+        return refillPerMinute;
+    }
+
+    // State of a bucket that has all its tokens
+    public long full() {
+        return full(nowMillis());
+    }
+
+    long full(long now) {
+        return (now << TOKEN_BITS) | capacityScaled;
+    }
+
+    /**
+     * Takes one token. Returns 0 if it was taken, otherwise the milliseconds until one will be available.
+     */
+    public long tryTake(AtomicLong bucket) {
+        return tryTake(bucket, nowMillis());
+    }
+
+    // Clock passed in, for tests; now is in the same milliseconds as the states
+    long tryTake(AtomicLong bucket, long now) {
+        while (true) {
+            long state = bucket.get();
+            long last = state >>> TOKEN_BITS;
+            long tokens = state & TOKEN_MASK;
+            if (now > last) {
+                long gained = (long) ((now - last) * scaledPerMilli);
+                if (tokens + gained >= capacityScaled) {
+                    tokens = capacityScaled;
+                    last = now;
+                } else if (gained > 0) {
+                    tokens += gained;
+                    last += (long) (gained / scaledPerMilli); // Keep the part of a thousandth not yet earned
+                }
+            }
+            if (tokens < SCALE) {
+                return Math.max(last + (long) Math.ceil((SCALE - tokens) / scaledPerMilli) - now, 1);
+            }
+            if (bucket.compareAndSet(state, (last << TOKEN_BITS) | (tokens - SCALE))) {
+                return 0;
+            }
+        }
+    }
+
+    // True once the bucket has refilled completely; such a bucket can be dropped and recreated with full()
+    public boolean isFull(long state) {
+        return isFull(state, nowMillis());
+    }
+
+    boolean isFull(long state, long now) {
+        long elapsed = now - (state >>> TOKEN_BITS);
+        return (state & TOKEN_MASK) + Math.max(elapsed, 0) * scaledPerMilli >= capacityScaled;
+    }
+
+    private static long nowMillis() {
+        return (System.nanoTime() - ORIGIN) / 1_000_000;
+    }
+}
@@ -0,0 +1,95 @@
+package com.santhan.banking_system.config;
+
+import com.santhan.banking_system.service.RateLimiter;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// One attempt per minute for every shape used here, so the second request is always refused
+class RateLimitFilterTest {
+
+    private final RateLimitFilter filter = new RateLimitFilter(new RateLimiter(new MockEnvironment()
+            .withProperty("banking.rate-limit.login.ip.capacity", "1")
+            .withProperty("banking.rate-limit.login.ip.refill-per-minute", "1")
+            .withProperty("banking.rate-limit.login.user.capacity", "1")
+            .withProperty("banking.rate-limit.login.user.refill-per-minute", "1")
+            .withProperty("banking.rate-limit.otp-verify.ip.capacity", "1")
+            .withProperty("banking.rate-limit.otp-verify.ip.refill-per-minute", "1"), true, 100));
+
+    @Test
+    void loginOverTheIpLimitGets429WithRetryAfter() throws Exception {
+        assertPassed(send("POST", "/login", "10.0.0.1", "alice"));
+
+        Result refused = send("POST", "/login", "10.0.0.1", "bob");
+        assertRefused(refused);
+        assertTrue(refused.response.getContentType().startsWith("text/plain"));
+        assertTrue(refused.response.getContentAsString().startsWith("Too many attempts."));
+    }
+
+    @Test
+    void loginUsernameIsLimitedAcrossAddresses() throws Exception {
+        assertPassed(send("POST", "/login", "10.0.0.1", "alice"));
+        assertRefused(send("POST", "/login", "10.0.0.2", "alice"));
+        assertPassed(send("POST", "/login", "10.0.0.3", "bob"));
+    }
+
+    @Test
+    void apiPathsGetJson() throws Exception {
+        assertPassed(send("POST", "/api/verify/email", "10.0.0.1", null));
+
+        Result refused = send("POST", "/api/verify/email", "10.0.0.1", null);
+        assertRefused(refused);
+        assertTrue(refused.response.getContentType().startsWith("application/json"));
+        assertTrue(refused.response.getContentAsString().contains("\"success\":false"));
+    }
+
+    @Test
+    void otherMethodsAndPathsAreNotLimited() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            assertPassed(send("GET", "/login", "10.0.0.1", null));
+            assertPassed(send("POST", "/transactions/transfer", "10.0.0.1", null));
+        }
+    }
+
+    private Result send(String method, String path, String remoteAddr, String username) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        request.setServletPath(path);
+        request.setRemoteAddr(remoteAddr);
+        if (username != null) {
+            request.setParameter("username", username);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, response, chain);
+        return new Result(response, chain);
+    }
+
+    private static void assertPassed(Result result) {
+        assertNotNull(result.chain.getRequest(), "request should reach the rest of the chain");
+        assertEquals(200, result.response.getStatus());
+    }
+
+    private static void assertRefused(Result result) {
+        assertNull(result.chain.getRequest(), "request should stop at the rate limit filter");
+        assertEquals(429, result.response.getStatus());
+        long retryAfter = Long.parseLong(result.response.getHeader("Retry-After"));
+        assertTrue(retryAfter >= 1 && retryAfter <= 60, "Retry-After " + retryAfter);
+    }
+
+    private static class Result {
+        private final MockHttpServletResponse response;
+        private final MockFilterChain chain;
+
+        Result(MockHttpServletResponse response, MockFilterChain chain) {
+            this.response = response;
+            this.chain = chain;
+        }
+    }
+}
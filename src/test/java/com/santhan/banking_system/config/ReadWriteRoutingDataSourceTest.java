@@ -0,0 +1,128 @@
+package com.santhan.banking_system.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Two in-memory H2 databases stand in for the primary and the replica; each knows its own name
+class ReadWriteRoutingDataSourceTest {
+
+    private static final String LAG_QUERY = "SELECT lag_seconds FROM replica_status";
+    private static final long MAX_LAG_SECONDS = 5;
+
+    private HikariDataSource primary;
+    private HikariDataSource replica;
+    private ReplicaLagMonitor lagMonitor;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @BeforeEach
+    void setUp() {
+        primary = database("primary");
+        replica = database("replica");
+        new JdbcTemplate(replica).execute("CREATE TABLE replica_status (lag_seconds BIGINT)");
+        new JdbcTemplate(replica).update("INSERT INTO replica_status VALUES (0)");
+
+        lagMonitor = new ReplicaLagMonitor(replica, LAG_QUERY, "lag_seconds", MAX_LAG_SECONDS);
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(primary, replica, lagMonitor);
+        routing.afterPropertiesSet();
+        // Wired like ReadReplicaDataSourceConfig: the lazy proxy delays routing until the read-only flag is set
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        primary.close();
+        replica.close();
+    }
+
+    @Test
+    void readOnlyTransactionUsesReplica() {
+        lagMonitor.checkLag();
+        assertTrue(lagMonitor.isReplicaUsable());
+        assertEquals("replica", readOnly.execute(status -> whoAmI()));
+    }
+
+    @Test
+    void writeTransactionUsesPrimary() {
+        lagMonitor.checkLag();
+        readWrite.executeWithoutResult(status -> jdbcTemplate.update("INSERT INTO whoami VALUES ('written', 'row')"));
+        assertEquals(1, count(primary, "written"));
+        assertEquals(0, count(replica, "written"));
+    }
+
+    @Test
+    void workOutsideATransactionUsesPrimary() {
+        assertEquals("primary", whoAmI());
+    }
+
+    @Test
+    void laggingReplicaFallsBackToPrimary() {
+        new JdbcTemplate(replica).update("UPDATE replica_status SET lag_seconds = ?", MAX_LAG_SECONDS + 1);
+        lagMonitor.checkLag();
+        assertFalse(lagMonitor.isReplicaUsable());
+        assertEquals(MAX_LAG_SECONDS + 1, lagMonitor.getLastLagSeconds());
+        assertEquals("primary", readOnly.execute(status -> whoAmI()));
+
+        new JdbcTemplate(replica).update("UPDATE replica_status SET lag_seconds = 0");
+        lagMonitor.checkLag();
+        assertEquals("replica", readOnly.execute(status -> whoAmI()));
+    }
+
+    @Test
+    void stoppedReplicationFallsBackToPrimary() {
+        new JdbcTemplate(replica).update("UPDATE replica_status SET lag_seconds = NULL");
+        lagMonitor.checkLag();
+        assertFalse(lagMonitor.isReplicaUsable());
+        assertEquals("primary", readOnly.execute(status -> whoAmI()));
+    }
+
+    @Test
+    void unreachableReplicaFallsBackToPrimary() {
+        lagMonitor.checkLag();
+        replica.close();
+        lagMonitor.checkLag();
+        assertFalse(lagMonitor.isReplicaUsable());
+        assertEquals("primary", readOnly.execute(status -> whoAmI()));
+    }
+
+    private String whoAmI() {
+        return jdbcTemplate.queryForObject("SELECT name FROM whoami WHERE role = 'self'", String.class);
+    }
+
+    private static int count(DataSource dataSource, String name) {
+        Integer count = new JdbcTemplate(dataSource).queryForObject("SELECT COUNT(*) FROM whoami WHERE name = ?", Integer.class, name);
+        return count != null ? count : 0;
+    }
+
+    private static HikariDataSource database(String name) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:routing-" + name + "-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUsername("sa");
+        dataSource.setPassword("");
+        dataSource.setPoolName(name + "-pool");
+        dataSource.setMaximumPoolSize(2);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE whoami (name VARCHAR(32), role VARCHAR(8))");
+        jdbcTemplate.update("INSERT INTO whoami VALUES (?, 'self')", name);
+        return dataSource;
+    }
+}
@@ -0,0 +1,92 @@
+package com.santhan.banking_system.service;
+
+import com.santhan.banking_system.model.FraudAlert.AlertType;
+import com.santhan.banking_system.model.TransactionType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Fail mode CLOSED and a generous budget, so only the readiness of the stores decides whether a check falls back
+class FraudPreAuthorizationServiceTest {
+
+    private final FraudRuleEngine fraudRuleEngine = mock(FraudRuleEngine.class);
+    private final TransactionVelocityStore velocityStore = mock(TransactionVelocityStore.class);
+    private final NewAccountRegistry newAccountRegistry = mock(NewAccountRegistry.class);
+    private final TransferGraph transferGraph = mock(TransferGraph.class);
+    private final AccountBehaviorProfiles behaviorProfiles = mock(AccountBehaviorProfiles.class);
+    private final FraudPreAuthorizationService service = new FraudPreAuthorizationService(fraudRuleEngine, velocityStore,
+            newAccountRegistry, transferGraph, behaviorProfiles, true, 1000, "CLOSED", 1);
+
+    @BeforeEach
+    void setUp() {
+        when(fraudRuleEngine.getRules()).thenReturn(List.of(new TransferFanInRule(), new BehaviorAnomalyRule()));
+        when(transferGraph.fan(anyLong(), anyBoolean(), anyLong(), anyLong(), anyLong(), anyDouble()))
+                .thenReturn(new TransferGraph.FanStats(1, 10.0));
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void coldStoresNoPreAuthRuleReadsDoNotHold() {
+        givenPreAuthRules(AlertType.TRANSFER_FAN_IN);
+        when(transferGraph.isWarm()).thenReturn(true); // Velocity, new accounts and profiles stay cold
+
+        FraudPreAuthorizationService.Decision decision = check();
+
+        assertFalse(decision.isHold());
+        assertEquals(0L, service.getMetrics().get("notReady"));
+    }
+
+    @Test
+    void coldStoreAPreAuthRuleReadsFallsBack() {
+        givenPreAuthRules(AlertType.TRANSFER_FAN_IN);
+        when(velocityStore.isWarm()).thenReturn(true);
+        when(newAccountRegistry.isWarm()).thenReturn(true);
+        when(behaviorProfiles.isWarm()).thenReturn(true);
+
+        FraudPreAuthorizationService.Decision decision = check();
+
+        assertTrue(decision.isHold());
+        assertTrue(decision.isFallback());
+        assertEquals(1L, service.getMetrics().get("notReady"));
+    }
+
+    @Test
+    void eachEnabledPreAuthRuleAddsTheStoresItReads() {
+        givenPreAuthRules(AlertType.TRANSFER_FAN_IN, AlertType.BEHAVIOR_ANOMALY);
+        when(transferGraph.isWarm()).thenReturn(true);
+
+        assertTrue(check().isFallback()); // Profiles are cold
+
+        when(behaviorProfiles.isWarm()).thenReturn(true);
+        assertFalse(check().isHold());
+    }
+
+    private FraudPreAuthorizationService.Decision check() {
+        return service.check(TransactionType.TRANSFER, 1L, 2L, new BigDecimal("100.00"));
+    }
+
+    private void givenPreAuthRules(AlertType... alertTypes) {
+        Properties properties = new Properties();
+        for (AlertType alertType : alertTypes) {
+            properties.setProperty("rule." + alertType.name() + ".pre-auth", "true");
+        }
+        when(fraudRuleEngine.getSettings()).thenReturn(FraudRuleSettings.fromProperties(properties, "test"));
+    }
+}
@@ -0,0 +1,132 @@
+package com.santhan.banking_system.service;
+
+import com.santhan.banking_system.model.User;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.santhan.banking_system.model.Otp.OtpPurpose.EMAIL_VERIFICATION;
+import static com.santhan.banking_system.model.Otp.OtpPurpose.PASSWORD_RESET;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Time is passed in explicitly: five minute validity, three attempts, 10 ms wheel ticks, audit off
+class OtpStoreTest {
+
+    private static final long VALIDITY = TimeUnit.MINUTES.toMillis(5);
+    private static final long TICK = 10;
+
+    private final OtpStore store = new OtpStore(null, 5, 3, 100_000, TICK, false);
+    private final long t0 = System.currentTimeMillis(); // The wheels start at the real current tick
+
+    @Test
+    void correctCodeVerifiesOnce() {
+        store.issue(user(1L), EMAIL_VERIFICATION, "123456", t0);
+        assertEquals(OtpStore.Verification.VERIFIED, store.verify(1L, EMAIL_VERIFICATION, "123456", t0 + 1000));
+        assertEquals(OtpStore.Verification.NOT_FOUND, store.verify(1L, EMAIL_VERIFICATION, "123456", t0 + 1000));
+    }
+
+    @Test
+    void codesAreKeptPerUserAndPurpose() {
+        store.issue(user(1L), EMAIL_VERIFICATION, "111111", t0);
+        store.issue(user(1L), PASSWORD_RESET, "222222", t0);
+        store.issue(user(2L), EMAIL_VERIFICATION, "333333", t0);
+        assertEquals(OtpStore.Verification.MISMATCH, store.verify(1L, EMAIL_VERIFICATION, "333333", t0));
+        assertEquals(OtpStore.Verification.VERIFIED, store.verify(1L, PASSWORD_RESET, "222222", t0));
+        assertEquals(OtpStore.Verification.VERIFIED, store.verify(2L, EMAIL_VERIFICATION, "333333", t0));
+        assertEquals(OtpStore.Verification.VERIFIED, store.verify(1L, EMAIL_VERIFICATION, "111111", t0));
+    }
+
+    @Test
+    void wrongCodesBurnTheOtpAfterMaxAttempts() {
+        store.issue(user(1L), EMAIL_VERIFICATION, "123456", t0);
+        assertEquals(OtpStore.Verification.MISMATCH, store.verify(1L, EMAIL_VERIFICATION, "000000", t0));
+        assertEquals(OtpStore.Verification.MISMATCH, store.verify(1L, EMAIL_VERIFICATION, null, t0));
+        assertEquals(OtpStore.Verification.LOCKED, store.verify(1L, EMAIL_VERIFICATION, "000000", t0));
+        // Burnt: even the right code no longer works
+        assertEquals(OtpStore.Verification.NOT_FOUND, store.verify(1L, EMAIL_VERIFICATION, "123456", t0));
+        assertEquals(1L, store.getMetrics().get("locked"));
+        assertEquals(2L, store.getMetrics().get("mismatches"));
+    }
+
+    @Test
+    void reissueReplacesTheCodeAndResetsAttempts() {
+        store.issue(user(1L), EMAIL_VERIFICATION, "111111", t0);
+        store.verify(1L, EMAIL_VERIFICATION, "000000", t0);
+        store.verify(1L, EMAIL_VERIFICATION, "000000", t0);
+        store.issue(user(1L), EMAIL_VERIFICATION, "222222", t0 + 1000);
+        assertEquals(OtpStore.Verification.MISMATCH, store.verify(1L, EMAIL_VERIFICATION, "111111", t0 + 1000));
+        assertEquals(OtpStore.Verification.VERIFIED, store.verify(1L, EMAIL_VERIFICATION, "222222", t0 + 1000));
+    }
+
+    @Test
+    void verifyAfterExpiryReportsExpired() {
+        store.issue(user(1L), EMAIL_VERIFICATION, "123456", t0);
+        assertEquals(OtpStore.Verification.EXPIRED, store.verify(1L, EMAIL_VERIFICATION, "123456", t0 + VALIDITY));
+        assertEquals(OtpStore.Verification.NOT_FOUND, store.verify(1L, EMAIL_VERIFICATION, "123456", t0 + VALIDITY));
+    }
+
+    @Test
+    void wheelKeepsValidOtpsAcrossManyTurns() {
+        // Five minutes is many turns of a 512-bucket wheel at 10 ms per tick
+        store.issue(user(1L), EMAIL_VERIFICATION, "123456", t0);
+        for (long now = t0; now < t0 + VALIDITY - TICK; now += TICK) {
+            store.expireDueOtps(now);
+        }
+        assertEquals(1L, store.getMetrics().get("pending"));
+        assertEquals(OtpStore.Verification.VERIFIED, store.verify(1L, EMAIL_VERIFICATION, "123456", t0 + VALIDITY - TICK));
+    }
+
+    @Test
+    void wheelDropsExpiredOtps() {
+        store.issue(user(1L), EMAIL_VERIFICATION, "123456", t0);
+        store.issue(user(2L), EMAIL_VERIFICATION, "654321", t0 + 60_000);
+        for (long now = t0; now <= t0 + VALIDITY + TICK; now += TICK) {
+            store.expireDueOtps(now);
+        }
+        assertEquals(1L, store.getMetrics().get("pending"));
+        assertEquals(1L, store.getMetrics().get("expired"));
+        assertEquals(OtpStore.Verification.NOT_FOUND, store.verify(1L, EMAIL_VERIFICATION, "123456", t0 + VALIDITY + TICK));
+        assertEquals(OtpStore.Verification.VERIFIED, store.verify(2L, EMAIL_VERIFICATION, "654321", t0 + VALIDITY + TICK));
+    }
+
+    @Test
+    void wheelCatchesUpAfterALongPause() {
+        store.issue(user(1L), EMAIL_VERIFICATION, "123456", t0);
+        store.expireDueOtps(t0 + 10 * VALIDITY);
+        assertEquals(0L, store.getMetrics().get("pending"));
+        assertEquals(1L, store.getMetrics().get("expired"));
+    }
+
+    @Test
+    void verifiedOtpIsNotCountedAsExpiredLater() {
+        store.issue(user(1L), EMAIL_VERIFICATION, "123456", t0);
+        store.verify(1L, EMAIL_VERIFICATION, "123456", t0);
+        store.expireDueOtps(t0 + 2 * VALIDITY);
+        assertEquals(0L, store.getMetrics().get("expired"));
+    }
+
+    @Test
+    void fullShardRefusesNewOtpsButAllowsReplacing() {
+        OtpStore small = new OtpStore(null, 5, 3, 16, TICK, false); // One pending OTP per shard
+        int accepted = 0;
+        for (long userId = 1; userId <= 1000; userId++) {
+            try {
+                small.issue(user(userId), EMAIL_VERIFICATION, "123456", t0);
+                accepted++;
+            } catch (IllegalStateException e) {
+                // Shard full
+            }
+        }
+        assertEquals(16, accepted);
+        assertEquals(1000L - 16, small.getMetrics().get("rejectedFull"));
+
+        small.issue(user(1L), EMAIL_VERIFICATION, "654321", t0); // Replacing never needs room
+        assertEquals(OtpStore.Verification.VERIFIED, small.verify(1L, EMAIL_VERIFICATION, "654321", t0));
+    }
+
+    private static User user(Long id) {
+        User user = new User();
+        user.setId(id);
+        return user;
+    }
+}
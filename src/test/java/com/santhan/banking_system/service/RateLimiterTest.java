@@ -0,0 +1,110 @@
+package com.santhan.banking_system.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.Map;
+
+import static com.santhan.banking_system.service.RateLimiter.Purpose.LOGIN;
+import static com.santhan.banking_system.service.RateLimiter.Purpose.OTP_SEND;
+import static com.santhan.banking_system.service.RateLimiter.Scope.IP;
+import static com.santhan.banking_system.service.RateLimiter.Scope.USER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateLimiterTest {
+
+    @Test
+    void limitsEachPurposeScopeAndIdSeparately() {
+        RateLimiter rateLimiter = rateLimiter(100, "login.user", 2, 1);
+        assertEquals(0, rateLimiter.tryAcquire(LOGIN, USER, "alice"));
+        assertEquals(0, rateLimiter.tryAcquire(LOGIN, USER, "alice"));
+        assertTrue(rateLimiter.tryAcquire(LOGIN, USER, "alice") > 0);
+
+        assertEquals(0, rateLimiter.tryAcquire(LOGIN, USER, "bob"));
+        assertEquals(0, rateLimiter.tryAcquire(LOGIN, IP, "alice"));
+        assertEquals(0, rateLimiter.tryAcquire(OTP_SEND, USER, "alice"));
+    }
+
+    @Test
+    void acquireThrowsWithRetryAfterInSeconds() {
+        RateLimiter rateLimiter = rateLimiter(100, "otp-send.user", 1, 1); // One per minute
+        rateLimiter.acquire(OTP_SEND, USER, "alice");
+        RateLimiter.LimitExceededException e = assertThrows(RateLimiter.LimitExceededException.class,
+                () -> rateLimiter.acquire(OTP_SEND, USER, "alice"));
+        assertTrue(e.getRetryAfterSeconds() >= 59 && e.getRetryAfterSeconds() <= 60, "retry after " + e.getRetryAfterSeconds());
+    }
+
+    @Test
+    void retryAfterRoundsUpToWholeSeconds() {
+        assertEquals(1, RateLimiter.LimitExceededException.toSeconds(0));
+        assertEquals(1, RateLimiter.LimitExceededException.toSeconds(1));
+        assertEquals(1, RateLimiter.LimitExceededException.toSeconds(1000));
+        assertEquals(2, RateLimiter.LimitExceededException.toSeconds(1001));
+    }
+
+    @Test
+    void missingIdOrDisabledLimiterIsNotLimited() {
+        RateLimiter rateLimiter = rateLimiter(100, "login.ip", 1, 1);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, rateLimiter.tryAcquire(LOGIN, IP, null));
+            assertEquals(0, rateLimiter.tryAcquire(LOGIN, IP, ""));
+        }
+
+        RateLimiter disabled = new RateLimiter(new MockEnvironment(), false, 100);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(0, disabled.tryAcquire(OTP_SEND, USER, "alice"));
+        }
+    }
+
+    @Test
+    void longIdentifiersAreCutToOneBucket() {
+        RateLimiter rateLimiter = rateLimiter(100, "login.user", 1, 1);
+        String prefix = "x".repeat(128);
+        assertEquals(0, rateLimiter.tryAcquire(LOGIN, USER, prefix + "-first"));
+        assertTrue(rateLimiter.tryAcquire(LOGIN, USER, prefix + "-second") > 0);
+    }
+
+    @Test
+    void fullMapRefusesNewKeysButServesExistingOnes() {
+        RateLimiter rateLimiter = rateLimiter(1, "login.user", 10, 1);
+        assertEquals(0, rateLimiter.tryAcquire(LOGIN, USER, "alice"));
+        // alice's bucket is not full again for minutes, so the inline sweep cannot make room
+        assertTrue(rateLimiter.tryAcquire(LOGIN, USER, "bob") > 0);
+        assertEquals(0, rateLimiter.tryAcquire(LOGIN, USER, "alice"));
+
+        Map<String, Object> metrics = rateLimiter.getMetrics();
+        assertEquals(1, metrics.get("buckets"));
+        assertEquals(1L, metrics.get("rejectedFull"));
+    }
+
+    @Test
+    void sweepDropsRefilledBucketsAndFreesRoom() throws InterruptedException {
+        RateLimiter rateLimiter = rateLimiter(1, "login.user", 1, 600_000); // Ten tokens per millisecond
+        assertEquals(0, rateLimiter.tryAcquire(LOGIN, USER, "alice"));
+        Thread.sleep(20);
+        rateLimiter.sweepIdleBuckets();
+
+        Map<String, Object> metrics = rateLimiter.getMetrics();
+        assertEquals(0, metrics.get("buckets"));
+        assertEquals(1L, metrics.get("swept"));
+        assertEquals(0, rateLimiter.tryAcquire(LOGIN, USER, "bob"));
+    }
+
+    @Test
+    void sweepKeepsBucketsThatAreStillRefilling() {
+        RateLimiter rateLimiter = rateLimiter(100, "login.user", 2, 1);
+        rateLimiter.tryAcquire(LOGIN, USER, "alice");
+        rateLimiter.sweepIdleBuckets();
+        assertEquals(1, rateLimiter.getMetrics().get("buckets"));
+    }
+
+    // Limiter with one bucket shape overridden, e.g. shape "login.user"
+    private static RateLimiter rateLimiter(int maxBuckets, String shape, int capacity, double refillPerMinute) {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("banking.rate-limit." + shape + ".capacity", Integer.toString(capacity))
+                .withProperty("banking.rate-limit." + shape + ".refill-per-minute", Double.toString(refillPerMinute));
+        return new RateLimiter(environment, true, maxBuckets);
+    }
+}
@@ -0,0 +1,151 @@
+package com.santhan.banking_system.service;
+
+import com.santhan.banking_system.dto.StatementLine;
+import com.santhan.banking_system.model.Account;
+import com.santhan.banking_system.model.Transaction;
+import com.santhan.banking_system.model.TransactionType;
+import com.santhan.banking_system.repository.AccountRepository;
+import com.santhan.banking_system.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// The streamed statement (keyset pages, incremental digest) must hash exactly like calculateStatementBalances
+class TransactionServiceStatementTest {
+
+    private static final Instant START = Instant.parse("2026-01-01T00:00:00Z");
+    private static final Instant END = Instant.parse("2026-01-31T23:59:59Z");
+
+    private final AccountRepository accountRepository = mock(AccountRepository.class);
+    private final TransactionRepository transactionRepository = mock(TransactionRepository.class);
+    private final TransactionService transactionService =
+            new TransactionService(accountRepository, transactionRepository, null, null, null, null, null);
+
+    private final Account account = account(7L, "130.00");
+    private final Account other = account(8L, "0.00");
+
+    @BeforeEach
+    void setUp() {
+        when(accountRepository.findById(7L)).thenReturn(Optional.of(account));
+    }
+
+    @Test
+    void streamedLedgerHashMatchesCalculateStatementBalances() {
+        List<Transaction> transactions = List.of(
+                transaction(10L, TransactionType.DEPOSIT, "50.00", null, account, START.plusSeconds(3600), "COMPLETED"),
+                transaction(11L, TransactionType.WITHDRAWAL, "30.00", account, null, START.plusSeconds(7200), "PENDING_REVIEW"),
+                transaction(13L, TransactionType.TRANSFER, "20.00", account, other, START.plusSeconds(10800), "COMPLETED"),
+                // Same second as 13 but a lower id: the ledger order puts it first
+                transaction(12L, TransactionType.TRANSFER, "40.00", account, other, START.plusSeconds(10800), "REJECTED"));
+        givenPeriod(transactions);
+
+        Map<String, Object> balances = transactionService.calculateStatementBalances(7L, START, END);
+        List<Long> streamedIds = new ArrayList<>();
+        String streamedHash = transactionService.streamStatementLines(7L, START, END, line -> streamedIds.add(line.getId()));
+
+        assertEquals(balances.get("ledgerHash"), streamedHash);
+        assertEquals(List.of(10L, 11L, 12L, 13L), streamedIds);
+        // Held and rejected rows are hashed but moved no money: 130 - (50 - 20)
+        assertEquals(0, new BigDecimal("100.00").compareTo((BigDecimal) balances.get("openingBalance")));
+    }
+
+    @Test
+    void hashMatchesAcrossKeysetPages() {
+        List<Transaction> transactions = new ArrayList<>();
+        int count = TransactionService.STATEMENT_BATCH_SIZE * 2 + 7;
+        for (int i = 0; i < count; i++) {
+            transactions.add(transaction(100L + i, i % 2 == 0 ? TransactionType.DEPOSIT : TransactionType.WITHDRAWAL,
+                    (i % 13) + ".25", i % 2 == 0 ? null : account, i % 2 == 0 ? account : null,
+                    START.plusSeconds(60L * (i / 3)), "COMPLETED"));
+        }
+        givenPeriod(transactions);
+
+        Map<String, Object> balances = transactionService.calculateStatementBalances(7L, START, END);
+        List<Long> streamedIds = new ArrayList<>();
+        String streamedHash = transactionService.streamStatementLines(7L, START, END, line -> streamedIds.add(line.getId()));
+
+        assertEquals(balances.get("ledgerHash"), streamedHash);
+        assertEquals(count, streamedIds.size());
+    }
+
+    @Test
+    void emptyPeriodHashesTheSame() {
+        givenPeriod(List.of());
+        assertEquals(transactionService.calculateStatementBalances(7L, START, END).get("ledgerHash"),
+                transactionService.streamStatementLines(7L, START, END, line -> { }));
+    }
+
+    // Serves the period to both code paths: shuffled entities for calculateStatementBalances, ordered keyset pages for streaming
+    private void givenPeriod(List<Transaction> transactions) {
+        List<Transaction> shuffled = new ArrayList<>(transactions);
+        Collections.shuffle(shuffled, new Random(42));
+        when(transactionRepository.findBySourceAccountAndTransactionDateBetweenOrDestinationAccountAndTransactionDateBetween(
+                account, START, END, account, START, END)).thenReturn(shuffled);
+
+        List<StatementLine> ordered = transactions.stream()
+                .sorted(Comparator.comparing(Transaction::getTransactionDate).thenComparing(Transaction::getId))
+                .map(TransactionServiceStatementTest::line)
+                .toList();
+        int batch = TransactionService.STATEMENT_BATCH_SIZE;
+        when(transactionRepository.findStatementLines(eq(7L), eq(START), eq(END), any(Pageable.class)))
+                .thenReturn(ordered.subList(0, Math.min(batch, ordered.size())));
+        for (int from = batch; from <= ordered.size(); from += batch) {
+            StatementLine last = ordered.get(from - 1);
+            when(transactionRepository.findStatementLinesAfter(eq(7L), eq(START), eq(END),
+                    eq(last.getTransactionDate()), eq(last.getId()), any(Pageable.class)))
+                    .thenReturn(ordered.subList(from, Math.min(from + batch, ordered.size())));
+        }
+    }
+
+    private static Account account(Long id, String balance) {
+        Account account = new Account();
+        account.setId(id);
+        account.setBalance(new BigDecimal(balance));
+        return account;
+    }
+
+    private static Transaction transaction(Long id, TransactionType type, String amount, Account source,
+                                           Account destination, Instant at, String status) {
+        Transaction transaction = new Transaction(type, new BigDecimal(amount), "Txn " + id, source, destination);
+        transaction.setId(id);
+        transaction.setTransactionDate(at);
+        transaction.setStatus(status);
+        return transaction;
+    }
+
+    private static StatementLine line(Transaction transaction) {
+        return new StatementLine() {
+            @Override public Long getId() { return transaction.getId(); }
+            @Override public TransactionType getTransactionType() { return transaction.getTransactionType(); }
+            @Override public BigDecimal getAmount() { return transaction.getAmount(); }
+            @Override public String getDescription() { return transaction.getDescription(); }
+            @Override public Instant getTransactionDate() { return transaction.getTransactionDate(); }
+            @Override public String getTransactionHash() { return null; }
+            @Override public String getStatus() { return transaction.getStatus(); }
+            @Override public Long getSourceAccountId() {
+                return transaction.getSourceAccount() != null ? transaction.getSourceAccount().getId() : null;
+            }
+            @Override public String getSourceAccountNumber() { return null; }
+            @Override public Long getDestinationAccountId() {
+                return transaction.getDestinationAccount() != null ? transaction.getDestinationAccount().getId() : null;
+            }
+            @Override public String getDestinationAccountNumber() { return null; }
+        };
+    }
+}
@@ -0,0 +1,168 @@
+package com.santhan.banking_system.service;
+
+import com.santhan.banking_system.model.Account;
+import com.santhan.banking_system.model.Transaction;
+import com.santhan.banking_system.model.TransactionType;
+import com.santhan.banking_system.repository.TransactionRepository;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Ten minute window, 100.00 counts as large; no Spring transaction is active, so postings are recorded straight away
+class TransactionVelocityStoreTest {
+
+    private static final long WINDOW_MILLIS = 10 * 60 * 1000L;
+
+    private final TransactionRepository transactionRepository = mock(TransactionRepository.class);
+    private final TransactionVelocityStore store = new TransactionVelocityStore(transactionRepository, 8);
+    private final Instant now = Instant.now();
+
+    TransactionVelocityStoreTest() {
+        store.configure(WINDOW_MILLIS, new BigDecimal("100.00"));
+    }
+
+    @Test
+    void coldUntilWarmedFromTheWindowRows() {
+        givenRows(List.of(
+                row(1L, 7L, 8L, "150.00", now.minusSeconds(300)),
+                row(2L, null, 7L, "20.50", now.minusSeconds(60)),
+                row(3L, 7L, null, "500.00", now.minusSeconds(3600)))); // Outside the window
+        assertFalse(store.isWarm());
+
+        store.warmUp();
+
+        assertTrue(store.isWarm());
+        assertStats(store.snapshot(7L), 2, "170.50", 1);
+        assertStats(store.snapshot(8L), 1, "150.00", 1);
+        assertStats(store.snapshot(9L), 0, "0.00", 0);
+    }
+
+    @Test
+    void postingsDuringWarmUpAreAppliedOnceAfterTheRows() {
+        when(transactionRepository.findVelocityRowsSince(any())).thenAnswer(invocation -> {
+            // Both commit while the query runs; id 2 is also in the query's result
+            store.recordAfterCommit(transaction(2L, 7L, null, "30.00", now.minusSeconds(30)));
+            store.recordAfterCommit(transaction(4L, 7L, null, "5.00", now.minusSeconds(10)));
+            assertStats(store.snapshot(7L), 0, "0.00", 0);
+            List<Object[]> rows = new ArrayList<>();
+            rows.add(row(1L, 7L, null, "10.00", now.minusSeconds(120)));
+            rows.add(row(2L, 7L, null, "30.00", now.minusSeconds(30)));
+            return rows;
+        });
+
+        store.warmUp();
+
+        assertStats(store.snapshot(7L), 3, "45.00", 0);
+    }
+
+    @Test
+    void failedWarmUpStaysColdAndIsRetriedFromEmptyRings() {
+        when(transactionRepository.findVelocityRowsSince(any())).thenThrow(new IllegalStateException("database down"));
+        store.warmUp();
+        assertFalse(store.isWarm());
+
+        // Nothing is buffered after a failure, so a posting cannot pile up in a buffer no one drains
+        store.recordAfterCommit(transaction(5L, 7L, null, "1.00", now.minusSeconds(5)));
+
+        givenRows(List.of(row(5L, 7L, null, "1.00", now.minusSeconds(5))));
+        store.retryFailedWarmUp();
+        assertTrue(store.isWarm());
+        assertStats(store.snapshot(7L), 1, "1.00", 0);
+
+        store.retryFailedWarmUp(); // No longer failed: does nothing
+        verify(transactionRepository, times(2)).findVelocityRowsSince(any());
+    }
+
+    @Test
+    void outOfOrderPostingIsStillCountedAndEvictedInOrder() {
+        givenRows(List.of());
+        store.warmUp();
+        store.recordAfterCommit(transaction(1L, 7L, null, "10.00", now.minusSeconds(60)));
+        store.recordAfterCommit(transaction(2L, 7L, null, "20.00", now.minusSeconds(90)));
+        store.recordAfterCommit(transaction(3L, 7L, null, "30.00", now.minusSeconds(30)));
+        assertStats(store.snapshot(7L), 3, "60.00", 0);
+    }
+
+    @Test
+    void ringAtItsCapKeepsTheNewestEntries() {
+        givenRows(List.of());
+        store.warmUp();
+        for (long id = 1; id <= 20; id++) {
+            store.recordAfterCommit(transaction(id, 7L, null, id + ".00", now.minusSeconds(100 - id)));
+        }
+        // Capped at 8 entries: 13 + 14 + ... + 20
+        assertStats(store.snapshot(7L), 8, "132.00", 0);
+    }
+
+    @Test
+    void newThresholdRecountsLargeTransactions() {
+        givenRows(List.of(
+                row(1L, 7L, null, "50.00", now.minusSeconds(60)),
+                row(2L, 7L, null, "150.00", now.minusSeconds(30))));
+        store.warmUp();
+        assertStats(store.snapshot(7L), 2, "200.00", 1);
+
+        store.configure(WINDOW_MILLIS, new BigDecimal("40.00"));
+        assertStats(store.snapshot(7L), 2, "200.00", 2);
+        verify(transactionRepository, times(1)).findVelocityRowsSince(any());
+    }
+
+    @Test
+    void longerWindowWarmsAgainFromTheDatabase() {
+        givenRows(List.of(row(1L, 7L, null, "50.00", now.minusSeconds(60))));
+        store.warmUp();
+
+        givenRows(List.of(
+                row(3L, 7L, null, "70.00", now.minusSeconds(1200)),
+                row(1L, 7L, null, "50.00", now.minusSeconds(60))));
+        store.configure(2 * WINDOW_MILLIS + 60_000, new BigDecimal("100.00"));
+
+        assertTrue(store.isWarm());
+        assertStats(store.snapshot(7L), 2, "120.00", 0);
+    }
+
+    private void givenRows(List<Object[]> rows) {
+        doReturn(new ArrayList<>(rows)).when(transactionRepository).findVelocityRowsSince(any()); // Also replaces a throwing stub
+    }
+
+    // [transactionId, sourceAccountId, destinationAccountId, amount, transactionDate], as findVelocityRowsSince returns them
+    private static Object[] row(Long id, Long sourceId, Long destinationId, String amount, Instant at) {
+        return new Object[] { id, sourceId, destinationId, new BigDecimal(amount), at };
+    }
+
+    private static Transaction transaction(Long id, Long sourceId, Long destinationId, String amount, Instant at) {
+        Transaction transaction = new Transaction(TransactionType.TRANSFER, new BigDecimal(amount), null,
+                account(sourceId), account(destinationId));
+        transaction.setId(id);
+        transaction.setTransactionDate(at);
+        return transaction;
+    }
+
+    private static Account account(Long id) {
+        if (id == null) {
+            return null;
+        }
+        Account account = new Account();
+        account.setId(id);
+        return account;
+    }
+
+    private static void assertStats(TransactionVelocityStore.WindowStats stats, int count, String sum, int largeCount) {
+        assertEquals(count, stats.getCount());
+        assertEquals(new BigDecimal(sum), stats.getSum());
+        assertEquals(largeCount, stats.getLargeCount());
+    }
+}
@@ -0,0 +1,169 @@
+package com.santhan.banking_system.service;
+
+import com.santhan.banking_system.model.Account;
+import com.santhan.banking_system.model.Transaction;
+import com.santhan.banking_system.model.TransactionType;
+import com.santhan.banking_system.repository.TransactionRepository;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// No Spring transaction is active, so transfers are added straight away; only the build tests warm from the ledger
+class TransferGraphTest {
+
+    private final TransferGraph graph = new TransferGraph(null, 8, 60);
+    private final Instant now = Instant.now();
+    private final long sinceMillis = now.minusSeconds(3600).toEpochMilli();
+
+    @Test
+    void destinationSendingBackToTheSourceIsATwoCycle() {
+        transfer(2L, 1L, 600);
+        assertArrayEquals(new long[] {1L, 2L}, graph.findCycle(1L, 2L, sinceMillis, 4));
+    }
+
+    @Test
+    void findsThreeAndFourCyclesThroughIntermediaries() {
+        transfer(2L, 3L, 600);
+        transfer(3L, 1L, 500);
+        assertArrayEquals(new long[] {1L, 2L, 3L}, graph.findCycle(1L, 2L, sinceMillis, 3));
+
+        transfer(5L, 6L, 600);
+        transfer(6L, 7L, 500);
+        transfer(7L, 4L, 400);
+        assertArrayEquals(new long[] {4L, 5L, 6L, 7L}, graph.findCycle(4L, 5L, sinceMillis, 4));
+    }
+
+    @Test
+    void returnsTheShortestCycle() {
+        // 2 -> 3 -> 4 -> 1 and 2 -> 5 -> 1
+        transfer(2L, 3L, 600);
+        transfer(3L, 4L, 500);
+        transfer(4L, 1L, 400);
+        transfer(2L, 5L, 300);
+        transfer(5L, 1L, 200);
+        assertArrayEquals(new long[] {1L, 2L, 5L}, graph.findCycle(1L, 2L, sinceMillis, 4));
+    }
+
+    @Test
+    void maxLengthBoundsTheSearch() {
+        transfer(2L, 3L, 600);
+        transfer(3L, 4L, 500);
+        transfer(4L, 1L, 400);
+        assertNull(graph.findCycle(1L, 2L, sinceMillis, 3));
+        assertArrayEquals(new long[] {1L, 2L, 3L, 4L}, graph.findCycle(1L, 2L, sinceMillis, 4));
+        assertNull(graph.findCycle(1L, 2L, sinceMillis, 1));
+    }
+
+    @Test
+    void edgesOlderThanSinceAreIgnored() {
+        transfer(2L, 3L, 600);
+        transfer(3L, 1L, 500);
+        long afterFirstEdge = now.minusSeconds(550).toEpochMilli();
+        assertNull(graph.findCycle(1L, 2L, afterFirstEdge, 4));
+
+        transfer(2L, 3L, 60); // The same edge again refreshes its time
+        assertArrayEquals(new long[] {1L, 2L, 3L}, graph.findCycle(1L, 2L, afterFirstEdge, 4));
+    }
+
+    @Test
+    void pathsBackThroughTheSourceOrDestinationAreNotCycles() {
+        // 2 -> 1 -> 3 -> 1 reaches the source only by passing through it
+        transfer(1L, 3L, 600);
+        transfer(2L, 1L, 7200); // Outside since, so no two-cycle
+        transfer(3L, 1L, 500);
+        assertNull(graph.findCycle(1L, 2L, sinceMillis, 4));
+
+        transfer(2L, 3L, 400);
+        assertArrayEquals(new long[] {1L, 2L, 3L}, graph.findCycle(1L, 2L, sinceMillis, 4));
+    }
+
+    @Test
+    void unknownAccountsAndSelfTransfersHaveNoCycle() {
+        transfer(2L, 1L, 600);
+        assertNull(graph.findCycle(1L, 1L, sinceMillis, 4));
+        assertNull(graph.findCycle(1L, 9L, sinceMillis, 4));
+        assertNull(graph.findCycle(9L, 2L, sinceMillis, 4));
+    }
+
+    @Test
+    void onlyTransfersAreAdded() {
+        Transaction deposit = transaction(null, TransactionType.DEPOSIT, 2L, 1L, 600);
+        graph.recordAfterCommit(deposit);
+        assertNull(graph.findCycle(1L, 2L, sinceMillis, 4));
+        // Only the transfer being evaluated is counted
+        assertEquals(1, graph.fan(1L, true, sinceMillis, now.toEpochMilli(), 0L, 0).getAccounts());
+    }
+
+    @Test
+    void transfersCommittedDuringTheBuildAreAddedOnce() {
+        TransactionRepository transactionRepository = mock(TransactionRepository.class);
+        TransferGraph built = new TransferGraph(transactionRepository, 8, 60);
+        when(transactionRepository.findTransferEdgesSince(any(), any())).thenAnswer(invocation -> {
+            // Both commit while the query runs; id 10 is also in the query's result
+            built.recordAfterCommit(transaction(10L, TransactionType.TRANSFER, 2L, 1L, 60));
+            built.recordAfterCommit(transaction(11L, TransactionType.TRANSFER, 3L, 1L, 30));
+            assertNull(built.findCycle(2L, 1L, sinceMillis, 4)); // Buffered, not in the graph yet
+            List<Object[]> rows = new ArrayList<>();
+            rows.add(new Object[] {10L, 2L, 1L, new BigDecimal("100.00"), now.minusSeconds(60)});
+            return rows;
+        });
+
+        built.warmUp();
+
+        assertTrue(built.isWarm());
+        TransferGraph.FanStats fanIn = built.fan(1L, true, sinceMillis, now.toEpochMilli(), 2L, 0);
+        assertEquals(2, fanIn.getAccounts());
+        assertEquals(200, fanIn.getVolume(), 5); // 300 if id 10 were added twice
+    }
+
+    @Test
+    void failedBuildStaysColdAndIsRetried() {
+        TransactionRepository transactionRepository = mock(TransactionRepository.class);
+        TransferGraph built = new TransferGraph(transactionRepository, 8, 60);
+        when(transactionRepository.findTransferEdgesSince(any(), any())).thenThrow(new IllegalStateException("database down"));
+        built.warmUp();
+        assertFalse(built.isWarm());
+
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[] {10L, 2L, 1L, new BigDecimal("100.00"), now.minusSeconds(60)});
+        doReturn(rows).when(transactionRepository).findTransferEdgesSince(any(), any());
+        built.retryFailedWarmUp();
+        assertTrue(built.isWarm());
+        assertArrayEquals(new long[] {1L, 2L}, built.findCycle(1L, 2L, sinceMillis, 4));
+
+        built.retryFailedWarmUp(); // No longer failed: does nothing
+        verify(transactionRepository, times(2)).findTransferEdgesSince(any(), any());
+    }
+
+    private void transfer(Long sourceId, Long destinationId, long secondsAgo) {
+        graph.recordAfterCommit(transaction(null, TransactionType.TRANSFER, sourceId, destinationId, secondsAgo));
+    }
+
+    private Transaction transaction(Long id, TransactionType type, Long sourceId, Long destinationId, long secondsAgo) {
+        Transaction transaction = new Transaction(type, new BigDecimal("100.00"), null, account(sourceId), account(destinationId));
+        transaction.setId(id);
+        transaction.setTransactionDate(now.minusSeconds(secondsAgo));
+        return transaction;
+    }
+
+    private static Account account(Long id) {
+        Account account = new Account();
+        account.setId(id);
+        return account;
+    }
+}
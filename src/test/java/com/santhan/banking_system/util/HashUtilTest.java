@@ -0,0 +1,59 @@
+package com.santhan.banking_system.util;
+
+import com.santhan.banking_system.model.TransactionType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class HashUtilTest {
+
+    private static final Instant AT = Instant.parse("2026-03-01T10:15:30.123Z");
+
+    @Test
+    void streamingDigestMatchesHashOfConcatenation() {
+        String first = HashUtil.generateTransactionDataString(1L, TransactionType.DEPOSIT, new BigDecimal("100"), "Salary", null, 7L, AT);
+        String second = HashUtil.generateTransactionDataString(2L, TransactionType.TRANSFER, new BigDecimal("25.5"), null, 7L, 8L, AT.plusSeconds(60));
+        String third = HashUtil.generateTransactionDataString(3L, TransactionType.WITHDRAWAL, new BigDecimal("0.10"), "ATM", 7L, null, AT.plusSeconds(120));
+
+        HashUtil.LedgerDigest digest = HashUtil.newLedgerDigest();
+        digest.update(first);
+        digest.updateTransaction(2L, TransactionType.TRANSFER, new BigDecimal("25.5"), null, 7L, 8L, AT.plusSeconds(60));
+        digest.update(third);
+
+        assertEquals(3, digest.getRecordCount());
+        assertEquals(HashUtil.calculateSHA256Hash(first + second + third), digest.toHex());
+    }
+
+    @Test
+    void emptyDigestMatchesHashOfEmptyString() {
+        assertEquals(HashUtil.calculateSHA256Hash(""), HashUtil.newLedgerDigest().toHex());
+    }
+
+    @Test
+    void nullRecordsAreSkipped() {
+        HashUtil.LedgerDigest digest = HashUtil.newLedgerDigest();
+        digest.update(null);
+        digest.update("a|b");
+        assertEquals(1, digest.getRecordCount());
+        assertEquals(HashUtil.calculateSHA256Hash("a|b"), digest.toHex());
+    }
+
+    @Test
+    void digestIsSingleUse() {
+        HashUtil.LedgerDigest digest = HashUtil.newLedgerDigest().update("a|b");
+        digest.toHex();
+        assertThrows(IllegalStateException.class, digest::toHex);
+        assertThrows(IllegalStateException.class, () -> digest.update("c|d"));
+        assertEquals(1, digest.getRecordCount());
+    }
+
+    @Test
+    void dataStringNormalizesAmountScaleAndTruncatesToSeconds() {
+        assertEquals("5|DEPOSIT|2000.00|Cash||9|2026-03-01T10:15:30",
+                HashUtil.generateTransactionDataString(5L, TransactionType.DEPOSIT, new BigDecimal("2000"), "Cash", null, 9L, AT));
+    }
+}
@@ -0,0 +1,121 @@
+package com.santhan.banking_system.util;
+
+import com.santhan.banking_system.dto.StatementLine;
+import com.santhan.banking_system.model.AccountType;
+import com.santhan.banking_system.model.TransactionType;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Held and rejected rows stay out of the booked-entry exports, so the entries add up to the balances
+class StatementExportReconciliationTest {
+
+    private static final Long ACCOUNT_ID = 1L;
+    private static final Instant START = Instant.parse("2026-01-01T00:00:00Z");
+    private static final Instant END = Instant.parse("2026-01-31T23:59:59Z");
+    private static final BigDecimal OPENING = new BigDecimal("100.00");
+    // Opening + 50 credit - 20 debit; the held 30 debit and rejected 40 debit moved no money
+    private static final BigDecimal CLOSING = new BigDecimal("130.00");
+
+    private static final List<StatementLine> LINES = List.of(
+            line(10L, TransactionType.DEPOSIT, "50.00", null, ACCOUNT_ID, "COMPLETED"),
+            line(11L, TransactionType.WITHDRAWAL, "30.00", ACCOUNT_ID, null, "PENDING_REVIEW"),
+            line(12L, TransactionType.TRANSFER, "20.00", ACCOUNT_ID, 2L, "COMPLETED"),
+            line(13L, TransactionType.TRANSFER, "40.00", ACCOUNT_ID, 2L, "REJECTED"));
+
+    @Test
+    void camt053WithHeldRowReconciles() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StatementCamt053Generator.StreamingStatement statement = new StatementCamt053Generator.StreamingStatement(
+                out, ACCOUNT_ID, "ACC-1", "USD", "2026-01-01", "2026-01-31", START, END, OPENING, CLOSING);
+        for (StatementLine line : LINES) {
+            statement.addLine(line);
+        }
+        statement.finish("hash");
+
+        Document document = parse(out);
+        BigDecimal opening = null;
+        BigDecimal closing = null;
+        NodeList balances = document.getElementsByTagNameNS("*", "Bal");
+        for (int i = 0; i < balances.getLength(); i++) {
+            Element balance = (Element) balances.item(i);
+            String code = text(balance, "Cd");
+            if ("OPBD".equals(code)) {
+                opening = signedAmount(balance);
+            } else if ("CLBD".equals(code)) {
+                closing = signedAmount(balance);
+            }
+        }
+        NodeList entries = document.getElementsByTagNameNS("*", "Ntry");
+        BigDecimal entrySum = BigDecimal.ZERO;
+        for (int i = 0; i < entries.getLength(); i++) {
+            entrySum = entrySum.add(signedAmount((Element) entries.item(i)));
+        }
+
+        assertEquals(2, entries.getLength());
+        assertEquals(0, opening.add(entrySum).compareTo(closing));
+    }
+
+    @Test
+    void ofxWithHeldRowReconciles() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StatementOFXGenerator.StreamingStatement statement = new StatementOFXGenerator.StreamingStatement(
+                out, ACCOUNT_ID, "ACC-1", AccountType.SAVINGS, "BANK", "USD", START, END, CLOSING);
+        for (StatementLine line : LINES) {
+            statement.addLine(line);
+        }
+        statement.finish();
+
+        Document document = parse(out);
+        NodeList amounts = document.getElementsByTagName("TRNAMT");
+        BigDecimal entrySum = BigDecimal.ZERO;
+        for (int i = 0; i < amounts.getLength(); i++) {
+            entrySum = entrySum.add(new BigDecimal(amounts.item(i).getTextContent()));
+        }
+        BigDecimal ledgerBalance = new BigDecimal(document.getElementsByTagName("BALAMT").item(0).getTextContent());
+
+        assertEquals(2, amounts.getLength());
+        assertEquals(0, OPENING.add(entrySum).compareTo(ledgerBalance));
+    }
+
+    private static Document parse(ByteArrayOutputStream out) throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        return factory.newDocumentBuilder().parse(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    private static BigDecimal signedAmount(Element parent) {
+        BigDecimal amount = new BigDecimal(text(parent, "Amt"));
+        return "DBIT".equals(text(parent, "CdtDbtInd")) ? amount.negate() : amount;
+    }
+
+    private static String text(Element parent, String localName) {
+        return parent.getElementsByTagNameNS("*", localName).item(0).getTextContent();
+    }
+
+    private static StatementLine line(Long id, TransactionType type, String amount, Long sourceId, Long destinationId, String status) {
+        return new StatementLine() {
+            public Long getId() { return id; }
+            public TransactionType getTransactionType() { return type; }
+            public BigDecimal getAmount() { return new BigDecimal(amount); }
+            public String getDescription() { return "Test " + id; }
+            public Instant getTransactionDate() { return START.plusSeconds(id * 3600); }
+            public String getTransactionHash() { return "h" + id; }
+            public String getStatus() { return status; }
+            public Long getSourceAccountId() { return sourceId; }
+            public String getSourceAccountNumber() { return sourceId == null ? null : "ACC-" + sourceId; }
+            public Long getDestinationAccountId() { return destinationId; }
+            public String getDestinationAccountNumber() { return destinationId == null ? null : "ACC-" + destinationId; }
+        };
+    }
+}
@@ -0,0 +1,104 @@
+package com.santhan.banking_system.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Time is passed in explicitly; one token per second unless a test says otherwise
+class TokenBucketTest {
+
+    private static final long T0 = 1_000_000;
+
+    private final TokenBucket limit = new TokenBucket(3, 60);
+
+    @Test
+    void burstUpToCapacityThenRefuses() {
+        AtomicLong bucket = new AtomicLong(limit.full(T0));
+        assertEquals(0, limit.tryTake(bucket, T0));
+        assertEquals(0, limit.tryTake(bucket, T0));
+        assertEquals(0, limit.tryTake(bucket, T0));
+        assertEquals(1000, limit.tryTake(bucket, T0));
+    }
+
+    @Test
+    void refusalDoesNotChangeState() {
+        AtomicLong bucket = new AtomicLong(drained(T0));
+        long before = bucket.get();
+        limit.tryTake(bucket, T0 + 10);
+        limit.tryTake(bucket, T0 + 20);
+        assertEquals(before, bucket.get());
+    }
+
+    @Test
+    void retryAfterCountsDownWithPartialRefill() {
+        AtomicLong bucket = new AtomicLong(drained(T0));
+        assertEquals(1000, limit.tryTake(bucket, T0));
+        assertEquals(600, limit.tryTake(bucket, T0 + 400));
+        assertEquals(1, limit.tryTake(bucket, T0 + 999));
+        assertEquals(0, limit.tryTake(bucket, T0 + 1000));
+        assertEquals(1000, limit.tryTake(bucket, T0 + 1000));
+    }
+
+    @Test
+    void longIdlePeriodRefillsOnlyToCapacity() {
+        AtomicLong bucket = new AtomicLong(drained(T0));
+        long later = T0 + TimeUnit.DAYS.toMillis(30);
+        assertTrue(limit.isFull(bucket.get(), later));
+        assertEquals(0, limit.tryTake(bucket, later));
+        assertEquals(0, limit.tryTake(bucket, later));
+        assertEquals(0, limit.tryTake(bucket, later));
+        assertEquals(1000, limit.tryTake(bucket, later));
+    }
+
+    @Test
+    void slowRefillKeepsFractionalProgress() {
+        TokenBucket slow = new TokenBucket(1, 1); // One token per minute
+        AtomicLong bucket = new AtomicLong(slow.full(T0));
+        assertEquals(0, slow.tryTake(bucket, T0));
+        assertEquals(60_000, slow.tryTake(bucket, T0));
+        // Thirty one-second polls must not each round away the refill earned in between
+        for (int second = 1; second <= 30; second++) {
+            assertTrue(slow.tryTake(bucket, T0 + second * 1000L) > 0);
+        }
+        long retryAfter = slow.tryTake(bucket, T0 + 30_000);
+        assertTrue(retryAfter >= 29_900 && retryAfter <= 30_100, "retry after " + retryAfter);
+        assertEquals(0, slow.tryTake(bucket, T0 + 60_000));
+    }
+
+    @Test
+    void clockGoingBackwardsGrantsNothing() {
+        AtomicLong bucket = new AtomicLong(drained(T0));
+        assertTrue(limit.tryTake(bucket, T0 - 5000) > 0);
+    }
+
+    @Test
+    void isFullOnlyOnceEveryTokenIsBack() {
+        long state = drained(T0);
+        assertFalse(limit.isFull(state, T0));
+        assertFalse(limit.isFull(state, T0 + 2999));
+        assertTrue(limit.isFull(state, T0 + 3000));
+        assertTrue(limit.isFull(limit.full(T0), T0));
+    }
+
+    @Test
+    void rejectsInvalidShapes() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(TokenBucket.MAX_CAPACITY + 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(1, 0));
+        new TokenBucket(TokenBucket.MAX_CAPACITY, 0.01);
+    }
+
+    private long drained(long now) {
+        AtomicLong bucket = new AtomicLong(limit.full(now));
+        while (limit.tryTake(bucket, now) == 0) {
+            // Take every token
+        }
+        return bucket.get();
+    }
+}